@@ -0,0 +1,145 @@
+package com.changjiang.bff.benchmark;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.changjiang.bff.annotation.DataMask;
+import com.changjiang.bff.enums.MaskType;
+import lombok.Data;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 基准测试数据
+ * 主要职责：
+ * 1. 提供基准测试使用的DTO、分页参数和服务接口
+ * 2. 构造不同形状(简单、嵌套、深层、宽列表)的请求和响应数据
+ */
+public final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    @Data
+    public static class AddressDto {
+        private String city;
+        private String detail;
+    }
+
+    @Data
+    public static class UserDto {
+        private String id;
+        private String name;
+        private int age;
+        @DataMask(type = MaskType.PHONE)
+        private String phone;
+        @DataMask(type = MaskType.EMAIL)
+        private String email;
+        @DataMask(type = MaskType.ID_CARD)
+        private String idCard;
+        private List<AddressDto> addresses;
+    }
+
+    /**
+     * 深层对象，每层一个子节点
+     */
+    @Data
+    public static class TreeNode {
+        private String name;
+        @DataMask(type = MaskType.PHONE)
+        private String phone;
+        private TreeNode child;
+    }
+
+    /**
+     * 分页参数，具有pageNum/pageSize/data的setter以走分页绑定
+     */
+    @Data
+    public static class QueryPageParam {
+        private int pageNum;
+        private int pageSize;
+        private Object data;
+    }
+
+    /**
+     * 被绑定的服务接口
+     */
+    public interface BenchService {
+
+        UserDto getUser(String id);
+
+        List<UserDto> saveUsers(List<UserDto> users);
+
+        List<UserDto> queryPage(QueryPageParam page);
+
+        UserDto saveUser(UserDto user);
+
+        List<UserDto> search(@RequestParam("name") String name,
+                             @RequestParam("age") int age,
+                             @RequestParam("birthday") Date birthday,
+                             @RequestParam("user") UserDto user);
+    }
+
+    public static UserDto user(int index) {
+        UserDto user = new UserDto();
+        user.setId("U" + index);
+        user.setName("用户" + index);
+        user.setAge(20 + index % 40);
+        user.setPhone("1380013" + String.format("%04d", index % 10000));
+        user.setEmail("user" + index + "@example.com");
+        user.setIdCard("11010119900101" + String.format("%04d", index % 10000));
+        List<AddressDto> addresses = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            AddressDto address = new AddressDto();
+            address.setCity("城市" + i);
+            address.setDetail("街道" + index + "-" + i);
+            addresses.add(address);
+        }
+        user.setAddresses(addresses);
+        return user;
+    }
+
+    public static List<UserDto> users(int size) {
+        List<UserDto> users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            users.add(user(i));
+        }
+        return users;
+    }
+
+    public static TreeNode tree(int depth) {
+        TreeNode root = null;
+        for (int i = depth; i > 0; i--) {
+            TreeNode node = new TreeNode();
+            node.setName("node" + i);
+            node.setPhone("13800138000");
+            node.setChild(root);
+            root = node;
+        }
+        return root;
+    }
+
+    public static JSONObject userJson(int index) {
+        return JSON.parseObject(JSON.toJSONString(user(index)));
+    }
+
+    public static JSONObject listJson(int size) {
+        JSONObject json = new JSONObject();
+        json.put("data", JSONArray.parseArray(JSON.toJSONString(users(size))));
+        return json;
+    }
+
+    public static JSONObject pageJson() {
+        JSONObject data = new JSONObject();
+        data.put("name", "用户");
+        data.put("minAge", 20);
+        JSONObject json = new JSONObject();
+        json.put("pageNum", 2);
+        json.put("pageSize", 20);
+        json.put("data", data);
+        return json;
+    }
+}
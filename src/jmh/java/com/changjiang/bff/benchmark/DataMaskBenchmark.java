@@ -0,0 +1,47 @@
+package com.changjiang.bff.benchmark;
+
+import com.changjiang.bff.util.NpcsDataMaskUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NpcsDataMaskUtil.doDataMask 基准
+ * - deep: 单链深层对象
+ * - wide: 大列表，每个元素含多个脱敏字段和嵌套地址列表
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataMaskBenchmark {
+
+    @Param({"10", "50"})
+    public int depth;
+
+    @Param({"100", "1000"})
+    public int width;
+
+    private BenchmarkFixtures.TreeNode deepGraph;
+
+    private List<BenchmarkFixtures.UserDto> wideGraph;
+
+    @Setup
+    public void setup() {
+        deepGraph = BenchmarkFixtures.tree(depth);
+        wideGraph = BenchmarkFixtures.users(width);
+    }
+
+    @Benchmark
+    public Object deep() {
+        return NpcsDataMaskUtil.doDataMask(deepGraph);
+    }
+
+    @Benchmark
+    public Object wide() {
+        return NpcsDataMaskUtil.doDataMask(wideGraph);
+    }
+}
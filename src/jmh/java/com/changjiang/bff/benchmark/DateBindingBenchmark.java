@@ -0,0 +1,82 @@
+package com.changjiang.bff.benchmark;
+
+import com.changjiang.bff.core.binding.ArgumentBinder;
+import com.changjiang.bff.core.binding.DateTimeBinders;
+import org.openjdk.jmh.annotations.*;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日期参数绑定基准
+ * 按输入形状对比原MethodParameterHandler.parseDate(逐个SimpleDateFormat尝试)与DateTimeBinders
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DateBindingBenchmark {
+
+    private static final String[] LEGACY_PATTERNS = {
+            "yyyy-MM-dd HH:mm:ss",
+            "yyyy-MM-dd",
+            "yyyy/MM/dd HH:mm:ss",
+            "yyyy/MM/dd"
+    };
+
+    @Param({"2024-05-01 08:30:00", "2024-05-01", "2024/05/01", "1714523400000"})
+    public String input;
+
+    private ArgumentBinder dateBinder;
+
+    private ArgumentBinder localDateTimeBinder;
+
+    private ArgumentBinder instantBinder;
+
+    @Setup
+    public void setup() {
+        dateBinder = DateTimeBinders.forType(Date.class);
+        localDateTimeBinder = DateTimeBinders.forType(LocalDateTime.class);
+        instantBinder = DateTimeBinders.forType(Instant.class);
+    }
+
+    @Benchmark
+    public Date legacyParseDate() {
+        return legacyParseDate(input);
+    }
+
+    @Benchmark
+    public Object bindDate() {
+        return dateBinder.bind(input);
+    }
+
+    @Benchmark
+    public Object bindLocalDateTime() {
+        return localDateTimeBinder.bind(input);
+    }
+
+    @Benchmark
+    public Object bindInstant() {
+        return instantBinder.bind(input);
+    }
+
+    /**
+     * 原实现：依次尝试各格式，失败时抛出ParseException，最后按时间戳解析
+     */
+    private static Date legacyParseDate(String dateStr) {
+        for (String pattern : LEGACY_PATTERNS) {
+            try {
+                return new SimpleDateFormat(pattern).parse(dateStr);
+            } catch (ParseException ignored) {
+                // 继续尝试下一个格式
+            }
+        }
+        return new Date(Long.parseLong(dateStr));
+    }
+}
@@ -0,0 +1,44 @@
+package com.changjiang.bff.benchmark;
+
+import com.changjiang.bff.benchmark.BenchmarkFixtures.BenchService;
+import com.changjiang.bff.core.binding.ArgumentBindingPlan;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ArgumentBindingPlan.bind 基准
+ * 多参数方法：字符串、基本类型、日期字符串和嵌套对象
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MethodParameterBenchmark {
+
+    private ArgumentBindingPlan plan;
+
+    private Map<String, Object> params;
+
+    @Setup
+    public void setup() throws Exception {
+        Method method = BenchService.class.getMethod("search", String.class, int.class, Date.class, BenchmarkFixtures.UserDto.class);
+        params = new HashMap<>();
+        params.put("name", "用户");
+        params.put("age", "30");
+        params.put("birthday", "1990-01-01 08:00:00");
+        params.put("user", BenchmarkFixtures.userJson(1));
+        plan = ArgumentBindingPlan.compile(method);
+    }
+
+    @Benchmark
+    public Object[] bind() {
+        return plan.bind(params);
+    }
+}
@@ -0,0 +1,91 @@
+package com.changjiang.bff.benchmark;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.changjiang.bff.benchmark.BenchmarkFixtures.BenchService;
+import com.changjiang.bff.core.ServiceApiInfo;
+import com.changjiang.bff.service.MethodInvocationServiceIml;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MethodInvocationServiceIml.handleRequestParams 基准
+ * 按参数形状分别测试：基本类型、List、分页、普通实体
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestBindingBenchmark {
+
+    @Param({"10", "100"})
+    public int listSize;
+
+    private MethodInvocationServiceIml invocationService;
+
+    private ServiceApiInfo primitiveApi;
+
+    private ServiceApiInfo listApi;
+
+    private ServiceApiInfo pageApi;
+
+    private ServiceApiInfo entityApi;
+
+    private JSONObject primitiveParams;
+
+    private JSONObject listParams;
+
+    private JSONObject pageParams;
+
+    private JSONObject entityParams;
+
+    @Setup
+    public void setup() throws Exception {
+        invocationService = new MethodInvocationServiceIml();
+        primitiveApi = api("getUser", String.class);
+        listApi = api("saveUsers", java.util.List.class);
+        pageApi = api("queryPage", BenchmarkFixtures.QueryPageParam.class);
+        entityApi = api("saveUser", BenchmarkFixtures.UserDto.class);
+
+        primitiveParams = new JSONObject();
+        primitiveParams.put("id", "U1");
+        listParams = BenchmarkFixtures.listJson(listSize);
+        pageParams = BenchmarkFixtures.pageJson();
+        entityParams = BenchmarkFixtures.userJson(1);
+    }
+
+    private static ServiceApiInfo api(String methodName, Class<?>... parameterTypes) throws Exception {
+        Method method = BenchService.class.getMethod(methodName, parameterTypes);
+        return ServiceApiInfo.builder()
+                .method(method)
+                .methodName(methodName)
+                .url("/bench/" + methodName)
+                .registryId("bench")
+                .requestType(method.getParameterTypes())
+                .responseType(method.getReturnType())
+                .build();
+    }
+
+    @Benchmark
+    public Object[] primitive() {
+        return invocationService.handleRequestParams(primitiveApi, primitiveParams);
+    }
+
+    @Benchmark
+    public Object[] list() {
+        return invocationService.handleRequestParams(listApi, listParams);
+    }
+
+    @Benchmark
+    public Object[] page() {
+        return invocationService.handleRequestParams(pageApi, pageParams);
+    }
+
+    @Benchmark
+    public Object[] entity() {
+        return invocationService.handleRequestParams(entityApi, entityParams);
+    }
+}
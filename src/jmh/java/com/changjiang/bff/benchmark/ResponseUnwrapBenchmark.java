@@ -0,0 +1,103 @@
+package com.changjiang.bff.benchmark;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.changjiang.bff.config.StreamingResponseProperties;
+import com.changjiang.bff.constants.BasicConstants;
+import com.changjiang.bff.object.response.Result;
+import com.changjiang.bff.service.impl.MethodInvocationService;
+import com.changjiang.bff.web.DefaultController;
+import com.changjiang.bff.web.StreamingResponseWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DefaultController响应解包基准
+ * 下游返回Map(code/data/msg)和普通对象两种形式，测量executeTransferToCrpcService的解包和响应体构建
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseUnwrapBenchmark {
+
+    private BenchController mapController;
+
+    private BenchController objectController;
+
+    private JSONObject input;
+
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setup() throws Exception {
+        Map<String, Object> mapResponse = new HashMap<>();
+        mapResponse.put(BasicConstants.RES_CODE_KEY, BasicConstants.TRADE_SUCCESS);
+        mapResponse.put(BasicConstants.RES_DATA_KEY, BenchmarkFixtures.users(20));
+        mapResponse.put(BasicConstants.RES_ERR_MSG_KEY, "ok");
+
+        mapController = new BenchController(mapResponse);
+        objectController = new BenchController(BenchmarkFixtures.user(1));
+        input = BenchmarkFixtures.userJson(1);
+        request = new MockHttpServletRequest("POST", "/changjiang/bench/user/query");
+    }
+
+    @Benchmark
+    public Result<Object> mapResponse() throws Exception {
+        return mapController.execute(input, request);
+    }
+
+    @Benchmark
+    public Result<Object> objectResponse() throws Exception {
+        return objectController.execute(input, request);
+    }
+
+    /**
+     * 使用固定响应的控制器，关闭流式响应，只测量普通响应的解包
+     */
+    static final class BenchController extends DefaultController {
+
+        BenchController(Object response) throws Exception {
+            inject(DefaultController.class, this, "methodInvocationService", new FixedResponseService(response));
+            StreamingResponseProperties streamingProperties = new StreamingResponseProperties();
+            streamingProperties.setEnabled(false);
+            StreamingResponseWriter streamingResponseWriter = new StreamingResponseWriter();
+            inject(StreamingResponseWriter.class, streamingResponseWriter, "streamingProperties", streamingProperties);
+            inject(DefaultController.class, this, "streamingResponseWriter", streamingResponseWriter);
+        }
+
+        private static void inject(Class<?> type, Object target, String name, Object value) throws Exception {
+            Field field = type.getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        }
+
+        Result<Object> execute(JSONObject input, MockHttpServletRequest request) throws Exception {
+            return executeTransferToCrpcService(input, request);
+        }
+    }
+
+    /**
+     * 直接返回固定响应的调用服务
+     */
+    static final class FixedResponseService implements MethodInvocationService {
+
+        private final Object response;
+
+        FixedResponseService(Object response) {
+            this.response = response;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <P extends JSONObject, T> T invokeService(String url, P params) {
+            return (T) response;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.changjiang.bff.benchmark;
+
+import com.changjiang.bff.core.ApiScanner;
+import com.changjiang.bff.core.ServiceApiInfo;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 路由查找基准
+ * 与GenerateController相同：从请求URI去掉/changjiang前缀后在apiRegistry中查找
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteLookupBenchmark {
+
+    @Param({"100", "5000"})
+    public int routes;
+
+    private ApiScanner apiScanner;
+
+    private String hitUri;
+
+    private String missUri;
+
+    @Setup
+    public void setup() {
+        apiScanner = new ApiScanner();
+        for (int i = 0; i < routes; i++) {
+            String url = "/module" + (i % 20) + "/service" + i + "/query";
+            apiScanner.getApiRegistry().put(url, ServiceApiInfo.builder().url(url).registryId("bench").build());
+        }
+        hitUri = "/changjiang/module" + ((routes / 2) % 20) + "/service" + (routes / 2) + "/query";
+        missUri = "/changjiang/module0/unknown/query";
+    }
+
+    @Benchmark
+    public ServiceApiInfo hit() {
+        return apiScanner.getApiRegistry().get(hitUri.trim().replace("/changjiang", ""));
+    }
+
+    @Benchmark
+    public ServiceApiInfo miss() {
+        return apiScanner.getApiRegistry().get(missUri.trim().replace("/changjiang", ""));
+    }
+}
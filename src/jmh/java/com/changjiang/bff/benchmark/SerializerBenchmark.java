@@ -0,0 +1,54 @@
+package com.changjiang.bff.benchmark;
+
+import com.alibaba.fastjson2.JSON;
+import com.changjiang.bff.benchmark.BenchmarkFixtures.UserDto;
+import com.changjiang.bff.util.NpcsSerializerUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NpcsSerializerUtil.readValueNormal 基准
+ * 分别覆盖三种反序列化策略：
+ * - fastjson2: 正常JSON，第一种策略即成功
+ * - jackson: fastjson2返回null后由Jackson处理
+ * - reflection: fastjson2和Jackson都失败(字段类型不匹配)，走反射setter
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializerBenchmark {
+
+    private String fastjsonContent;
+
+    private String jacksonContent;
+
+    private String reflectionContent;
+
+    @Setup
+    public void setup() {
+        // 脱离Spring容器运行，手动初始化Jackson回退策略使用的静态ObjectMapper
+        new NpcsSerializerUtil().init();
+        fastjsonContent = JSON.toJSONString(BenchmarkFixtures.user(1));
+        jacksonContent = "null";
+        reflectionContent = "{\"id\":\"U1\",\"name\":\"用户1\",\"age\":\"not-a-number\",\"phone\":\"13800138000\"}";
+    }
+
+    @Benchmark
+    public UserDto fastjson() {
+        return NpcsSerializerUtil.readValueNormal(fastjsonContent, UserDto.class);
+    }
+
+    @Benchmark
+    public UserDto jacksonFallback() {
+        return NpcsSerializerUtil.readValueNormal(jacksonContent, UserDto.class);
+    }
+
+    @Benchmark
+    public UserDto reflectionFallback() {
+        return NpcsSerializerUtil.readValueNormal(reflectionContent, UserDto.class);
+    }
+}
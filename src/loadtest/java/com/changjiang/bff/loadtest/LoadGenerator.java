@@ -0,0 +1,258 @@
+package com.changjiang.bff.loadtest;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import com.changjiang.bff.constants.BasicConstants;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 开环压测发生器
+ * 主要职责：
+ * 1. 按固定速率向 /changjiang/** 发送请求，发送时刻按计划计算，不受响应快慢影响
+ * 2. 延迟从计划发送时刻开始计算，避免协调遗漏(coordinated omission)低估尾延迟
+ * 3. 在途请求超过上限时不排队，记为丢弃
+ * 4. 按路由记录延迟直方图、成功数、错误数和错误码
+ *
+ * 调用关系：
+ * - 被LoadTestHarness调用，结果交给LoadTestReport
+ */
+public class LoadGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+    /** 压测结束后等待在途请求完成的时间 */
+    private static final long DRAIN_TIMEOUT_SECONDS = 30;
+
+    private final LoadTestOptions options;
+
+    private final HttpClient client;
+
+    private final ExecutorService executor;
+
+    private final Semaphore inflight;
+
+    /** 按权重展开的路由，随机下标即按权重选择 */
+    private final RouteTarget[] schedule;
+
+    private final Map<String, RouteStats> stats = new LinkedHashMap<>();
+
+    public LoadGenerator(String gatewayBaseUrl, LoadTestOptions options) {
+        this.options = options;
+        this.inflight = new Semaphore(options.getMaxInflight());
+        this.executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()), r -> {
+            Thread thread = new Thread(r, "loadtest-client");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.client = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        List<RouteTarget> targets = new ArrayList<>();
+        options.getRouteWeights().forEach((name, weight) -> {
+            String url = PluginJarGenerator.ROUTES.get(name);
+            if (url == null) {
+                throw new IllegalArgumentException("Unknown load test route: " + name
+                        + ", available: " + PluginJarGenerator.ROUTES.keySet());
+            }
+            RouteTarget target = new RouteTarget(name, URI.create(gatewayBaseUrl + url), requestBody(name));
+            stats.put(name, new RouteStats(url));
+            for (int i = 0; i < weight; i++) {
+                targets.add(target);
+            }
+        });
+        this.schedule = targets.toArray(new RouteTarget[0]);
+    }
+
+    /**
+     * 执行预热和测量
+     *
+     * @return 各路由的统计结果
+     */
+    public LoadTestReport run() throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.getRate();
+        long start = System.nanoTime();
+        long measureStart = start + TimeUnit.SECONDS.toNanos(options.getWarmupSeconds());
+        long end = measureStart + TimeUnit.SECONDS.toNanos(options.getDurationSeconds());
+        logger.info("Load test started: rate={}/s, warmup={}s, duration={}s, routes={}",
+                options.getRate(), options.getWarmupSeconds(), options.getDurationSeconds(), options.getRouteWeights());
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            RouteTarget target = schedule[ThreadLocalRandom.current().nextInt(schedule.length)];
+            send(target, intended, intended >= measureStart);
+        }
+
+        if (!inflight.tryAcquire(options.getMaxInflight(), DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            logger.warn("{} requests still in flight after {}s",
+                    options.getMaxInflight() - inflight.availablePermits(), DRAIN_TIMEOUT_SECONDS);
+        }
+        executor.shutdownNow();
+        return LoadTestReport.of(options, stats);
+    }
+
+    private void send(RouteTarget target, long intended, boolean measured) {
+        RouteStats routeStats = stats.get(target.name);
+        if (!inflight.tryAcquire()) {
+            if (measured) {
+                routeStats.dropped.increment();
+            }
+            return;
+        }
+        HttpRequest request = HttpRequest.newBuilder(target.uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(target.body))
+                .build();
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .whenComplete((response, error) -> {
+                    long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+                    inflight.release();
+                    if (measured) {
+                        routeStats.record(latencyMicros, error == null ? resultCode(response) : "IO_ERROR");
+                    }
+                });
+    }
+
+    /**
+     * 解析响应码，HTTP状态非200时返回HTTP_状态码
+     */
+    private static String resultCode(HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            return "HTTP_" + response.statusCode();
+        }
+        try {
+            JSONObject body = JSON.parseObject(response.body());
+            String code = body == null ? null : body.getString(BasicConstants.RES_CODE_KEY);
+            return code == null ? "NO_CODE" : code;
+        } catch (RuntimeException e) {
+            return "INVALID_BODY";
+        }
+    }
+
+    private byte[] requestBody(String route) {
+        JSONObject body = new JSONObject();
+        switch (route) {
+            case "get":
+                body.put("id", "I1");
+                break;
+            case "list":
+                body.put("keyword", "item");
+                body.put("pageSize", options.getStubListSize());
+                break;
+            default:
+                body.put("id", "I1");
+                body.put("name", "loadtest");
+                body.put("phone", "13800138000");
+                break;
+        }
+        return body.toJSONString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 压测目标
+     */
+    private static final class RouteTarget {
+
+        private final String name;
+
+        private final URI uri;
+
+        private final byte[] body;
+
+        RouteTarget(String name, URI uri, byte[] body) {
+            this.name = name;
+            this.uri = uri;
+            this.body = body;
+        }
+    }
+
+    /**
+     * 单个路由的统计
+     */
+    static final class RouteStats {
+
+        private final String url;
+
+        /** 延迟(微秒)，包含成功和失败的请求 */
+        private final Recorder latency = new Recorder(3);
+
+        private final LongAdder success = new LongAdder();
+
+        private final LongAdder errors = new LongAdder();
+
+        private final LongAdder dropped = new LongAdder();
+
+        private final Map<String, LongAdder> errorCodes = new ConcurrentHashMap<>();
+
+        RouteStats(String url) {
+            this.url = url;
+        }
+
+        void record(long latencyMicros, String code) {
+            latency.recordValue(Math.max(latencyMicros, 1));
+            if (BasicConstants.TRADE_SUCCESS.equals(code)) {
+                success.increment();
+            } else {
+                errors.increment();
+                errorCodes.computeIfAbsent(code, k -> new LongAdder()).increment();
+            }
+        }
+
+        String getUrl() {
+            return url;
+        }
+
+        Histogram histogram() {
+            return latency.getIntervalHistogram();
+        }
+
+        long getSuccess() {
+            return success.sum();
+        }
+
+        long getErrors() {
+            return errors.sum();
+        }
+
+        long getDropped() {
+            return dropped.sum();
+        }
+
+        Map<String, Long> getErrorCodes() {
+            Map<String, Long> codes = new LinkedHashMap<>();
+            errorCodes.forEach((code, count) -> codes.put(code, count.sum()));
+            return codes;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.changjiang.bff.loadtest;
+
+import com.changjiang.bff.ChangjingBffApplication;
+import com.changjiang.bff.core.ApiScanner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 端到端压测入口
+ * 主要职责：
+ * 1. 生成压测插件JAR，写入临时Maven本地仓库
+ * 2. 启动进程内桩gRPC后端，代替 grpc.registry.services.loadtest
+ * 3. 以插件坐标启动网关，确认路由注册完成后按目标速率压测 /changjiang/**
+ * 4. 输出吞吐量和延迟报告，未通过门禁时以退出码1结束
+ *
+ * 使用场景：
+ * - mvn -Ploadtest test-compile exec:exec
+ * - mvn -Ploadtest test-compile exec:exec -Dloadtest.args="rate=1000 gate.max-p99-ms=150"
+ * 参数为 name=value 形式，等同于 -Dloadtest.name=value，见LoadTestOptions
+ */
+public class LoadTestHarness {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestHarness.class);
+
+    public static void main(String[] args) throws Exception {
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index <= 0) {
+                throw new IllegalArgumentException("Invalid load test argument: " + arg + ", expected name=value");
+            }
+            System.setProperty("loadtest." + arg.substring(0, index), arg.substring(index + 1));
+        }
+        LoadTestOptions options = LoadTestOptions.fromSystemProperties();
+        StubBehavior.configure(options);
+
+        Path workDir = Files.createTempDirectory("bff-loadtest");
+        PluginJarGenerator.GeneratedJars jars = PluginJarGenerator.generate(workDir);
+        int stubPort = freePort();
+        int gatewayPort = freePort();
+
+        List<String> violations;
+        try (StubBackend backend = StubBackend.start(jars, stubPort);
+             ConfigurableApplicationContext gateway = startGateway(jars, gatewayPort, backend.getPort())) {
+            verifyRoutes(gateway);
+
+            LoadGenerator generator = new LoadGenerator("http://127.0.0.1:" + gatewayPort + "/changjiang", options);
+            LoadTestReport report = generator.run();
+            logger.info(report.format());
+            logger.info("Report written to {}", report.write(options.getReportDir()).toAbsolutePath());
+            violations = report.checkGate(options);
+        }
+
+        if (!violations.isEmpty()) {
+            logger.error("Load test gate failed: {}", violations);
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    private static ConfigurableApplicationContext startGateway(PluginJarGenerator.GeneratedJars jars,
+                                                               int gatewayPort, int stubPort) {
+        String registry = "grpc.registry.services." + PluginJarGenerator.REGISTRY_ID;
+        return new SpringApplicationBuilder(ChangjingBffApplication.class)
+                .properties(
+                        "server.port=" + gatewayPort,
+                        "grpc.server.enabled=false",
+                        "grpc.registry.services.elearn.enabled=false",
+                        registry + ".registerId=" + PluginJarGenerator.REGISTRY_ID,
+                        registry + ".host=127.0.0.1",
+                        registry + ".port=" + stubPort,
+                        registry + ".enabled=true",
+                        "service.scan.coordinates=" + PluginJarGenerator.coordinate(),
+                        "service.scan.local-repository=" + jars.getRepository().toAbsolutePath(),
+                        "logging.level.com.changjiang.bff=WARN")
+                .run();
+    }
+
+    /**
+     * API扫描在ApplicationReadyEvent中同步完成，网关启动返回后路由应已注册
+     */
+    private static void verifyRoutes(ConfigurableApplicationContext gateway) {
+        Set<String> registered = gateway.getBean(ApiScanner.class).getApiRegistry().keySet();
+        for (String url : PluginJarGenerator.ROUTES.values()) {
+            if (!registered.contains(url)) {
+                throw new IllegalStateException("Load test route not registered: " + url + ", registered: " + registered);
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            socket.setReuseAddress(true);
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.changjiang.bff.loadtest;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 压测参数
+ * 主要职责：
+ * 1. 从系统属性(loadtest.*)读取压测、桩服务和门禁参数，命令行参数由LoadTestHarness转为系统属性
+ * 2. 未配置的参数使用默认值
+ *
+ * 使用场景：
+ * - mvn -Ploadtest test-compile exec:exec -Dloadtest.args="rate=500 stub.latency-p99-ms=200"
+ */
+@Data
+public class LoadTestOptions {
+
+    private static final String PREFIX = "loadtest.";
+
+    /** 目标速率(请求/秒) */
+    private int rate = 200;
+
+    /** 预热时长(秒)，预热期间的结果不计入报告 */
+    private int warmupSeconds = 5;
+
+    /** 测量时长(秒) */
+    private int durationSeconds = 30;
+
+    /** 最大在途请求数，超过时该请求记为丢弃 */
+    private int maxInflight = 512;
+
+    /** 路由权重，格式: get:6,list:3,save:1 */
+    private Map<String, Integer> routeWeights = parseWeights("get:6,list:3,save:1");
+
+    /** 桩服务延迟中位数(毫秒)，延迟服从对数正态分布 */
+    private double stubLatencyMedianMs = 10;
+
+    /** 桩服务延迟p99(毫秒) */
+    private double stubLatencyP99Ms = 80;
+
+    /** 桩服务错误率(0~1) */
+    private double stubErrorRate = 0;
+
+    /** 桩服务响应payload字段最小字节数 */
+    private int stubPayloadMinBytes = 256;
+
+    /** 桩服务响应payload字段最大字节数 */
+    private int stubPayloadMaxBytes = 4096;
+
+    /** 列表接口返回的元素个数 */
+    private int stubListSize = 20;
+
+    /** 门禁: 最低吞吐量(请求/秒)，0表示不检查 */
+    private double gateMinThroughput = 0;
+
+    /** 门禁: 最大p99(毫秒)，0表示不检查 */
+    private double gateMaxP99Ms = 0;
+
+    /** 门禁: 最大错误率(0~1)，负数表示不检查 */
+    private double gateMaxErrorRate = -1;
+
+    /** 报告输出目录 */
+    private String reportDir = "target/loadtest";
+
+    public static LoadTestOptions fromSystemProperties() {
+        LoadTestOptions options = new LoadTestOptions();
+        options.rate = intProp("rate", options.rate);
+        options.warmupSeconds = intProp("warmup-seconds", options.warmupSeconds);
+        options.durationSeconds = intProp("duration-seconds", options.durationSeconds);
+        options.maxInflight = intProp("max-inflight", options.maxInflight);
+        String weights = System.getProperty(PREFIX + "routes");
+        if (weights != null) {
+            options.routeWeights = parseWeights(weights);
+        }
+        options.stubLatencyMedianMs = doubleProp("stub.latency-median-ms", options.stubLatencyMedianMs);
+        options.stubLatencyP99Ms = doubleProp("stub.latency-p99-ms", options.stubLatencyP99Ms);
+        options.stubErrorRate = doubleProp("stub.error-rate", options.stubErrorRate);
+        options.stubPayloadMinBytes = intProp("stub.payload-min-bytes", options.stubPayloadMinBytes);
+        options.stubPayloadMaxBytes = intProp("stub.payload-max-bytes", options.stubPayloadMaxBytes);
+        options.stubListSize = intProp("stub.list-size", options.stubListSize);
+        options.gateMinThroughput = doubleProp("gate.min-throughput", options.gateMinThroughput);
+        options.gateMaxP99Ms = doubleProp("gate.max-p99-ms", options.gateMaxP99Ms);
+        options.gateMaxErrorRate = doubleProp("gate.max-error-rate", options.gateMaxErrorRate);
+        options.reportDir = System.getProperty(PREFIX + "report-dir", options.reportDir);
+        options.validate();
+        return options;
+    }
+
+    private void validate() {
+        if (rate <= 0 || durationSeconds <= 0 || maxInflight <= 0) {
+            throw new IllegalArgumentException("loadtest.rate, duration-seconds and max-inflight must be positive");
+        }
+        if (stubLatencyP99Ms < stubLatencyMedianMs) {
+            throw new IllegalArgumentException("loadtest.stub.latency-p99-ms must not be less than latency-median-ms");
+        }
+        if (stubPayloadMaxBytes < stubPayloadMinBytes) {
+            throw new IllegalArgumentException("loadtest.stub.payload-max-bytes must not be less than payload-min-bytes");
+        }
+        if (routeWeights.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.routes must contain at least one route");
+        }
+    }
+
+    private static int intProp(String name, int defaultValue) {
+        String value = System.getProperty(PREFIX + name);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static double doubleProp(String name, double defaultValue) {
+        String value = System.getProperty(PREFIX + name);
+        return value == null ? defaultValue : Double.parseDouble(value.trim());
+    }
+
+    private static Map<String, Integer> parseWeights(String value) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] pair = entry.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid loadtest.routes entry: " + entry);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.put(pair[0].trim(), weight);
+            }
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,161 @@
+package com.changjiang.bff.loadtest;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONWriter;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测报告
+ * 主要职责：
+ * 1. 汇总各路由和整体的吞吐量、错误率和延迟分位数
+ * 2. 输出控制台表格和JSON报告
+ * 3. 按门禁参数检查结果，供CI作为性能回归门禁
+ */
+public class LoadTestReport {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Map<String, Object> summary = new LinkedHashMap<>();
+
+    private final List<String> lines = new ArrayList<>();
+
+    private double throughput;
+
+    private double errorRate;
+
+    private double p99Millis;
+
+    private LoadTestReport() {
+    }
+
+    static LoadTestReport of(LoadTestOptions options, Map<String, LoadGenerator.RouteStats> stats) {
+        LoadTestReport report = new LoadTestReport();
+        double seconds = options.getDurationSeconds();
+        Histogram total = new Histogram(3);
+        long totalSuccess = 0;
+        long totalErrors = 0;
+        long totalDropped = 0;
+
+        Map<String, Object> routes = new LinkedHashMap<>();
+        report.lines.add(String.format("%-22s %9s %9s %8s %8s %9s %9s %9s %9s %9s",
+                "route", "requests", "rps", "errors", "dropped", "p50(ms)", "p90(ms)", "p99(ms)", "p999(ms)", "max(ms)"));
+        for (LoadGenerator.RouteStats routeStats : stats.values()) {
+            Histogram histogram = routeStats.histogram();
+            total.add(histogram);
+            totalSuccess += routeStats.getSuccess();
+            totalErrors += routeStats.getErrors();
+            totalDropped += routeStats.getDropped();
+            routes.put(routeStats.getUrl(), report.row(routeStats.getUrl(), histogram, seconds,
+                    routeStats.getErrors(), routeStats.getDropped(), routeStats.getErrorCodes()));
+        }
+        Map<String, Object> overall = report.row("TOTAL", total, seconds, totalErrors, totalDropped, null);
+
+        long attempted = totalSuccess + totalErrors + totalDropped;
+        report.throughput = totalSuccess / seconds;
+        report.errorRate = attempted == 0 ? 0 : (double) (totalErrors + totalDropped) / attempted;
+        report.p99Millis = total.getValueAtPercentile(99) / MICROS_PER_MILLI;
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("rate", options.getRate());
+        config.put("durationSeconds", options.getDurationSeconds());
+        config.put("warmupSeconds", options.getWarmupSeconds());
+        config.put("maxInflight", options.getMaxInflight());
+        config.put("routes", options.getRouteWeights());
+        config.put("stubLatencyMedianMs", options.getStubLatencyMedianMs());
+        config.put("stubLatencyP99Ms", options.getStubLatencyP99Ms());
+        config.put("stubErrorRate", options.getStubErrorRate());
+        config.put("stubPayloadBytes", options.getStubPayloadMinBytes() + "-" + options.getStubPayloadMaxBytes());
+
+        report.summary.put("time", LocalDateTime.now().toString());
+        report.summary.put("config", config);
+        report.summary.put("throughput", round(report.throughput));
+        report.summary.put("errorRate", round(report.errorRate));
+        report.summary.put("overall", overall);
+        report.summary.put("routes", routes);
+        return report;
+    }
+
+    private Map<String, Object> row(String name, Histogram histogram, double seconds, long errors, long dropped,
+                                    Map<String, Long> errorCodes) {
+        long count = histogram.getTotalCount();
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("requests", count);
+        row.put("rps", round(count / seconds));
+        row.put("errors", errors);
+        row.put("dropped", dropped);
+        row.put("p50", millis(histogram, 50));
+        row.put("p90", millis(histogram, 90));
+        row.put("p99", millis(histogram, 99));
+        row.put("p999", millis(histogram, 99.9));
+        row.put("max", round(histogram.getMaxValue() / MICROS_PER_MILLI));
+        if (errorCodes != null && !errorCodes.isEmpty()) {
+            row.put("errorCodes", errorCodes);
+        }
+        lines.add(String.format("%-22s %9d %9.1f %8d %8d %9.2f %9.2f %9.2f %9.2f %9.2f",
+                name, count, count / seconds, errors, dropped, row.get("p50"), row.get("p90"), row.get("p99"),
+                row.get("p999"), row.get("max")));
+        return row;
+    }
+
+    /**
+     * 控制台报告
+     */
+    public String format() {
+        StringBuilder builder = new StringBuilder("\n=== Load test report ===\n");
+        lines.forEach(line -> builder.append(line).append('\n'));
+        builder.append(String.format("throughput: %.1f req/s, error rate: %.4f, p99: %.2f ms%n",
+                throughput, errorRate, p99Millis));
+        return builder.toString();
+    }
+
+    /**
+     * 写入JSON报告
+     *
+     * @return 报告文件路径
+     */
+    public Path write(String reportDir) throws IOException {
+        Path dir = Path.of(reportDir);
+        Files.createDirectories(dir);
+        Path file = dir.resolve("report-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        Files.write(file, JSON.toJSONString(summary, JSONWriter.Feature.PrettyFormat).getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /**
+     * 门禁检查
+     *
+     * @return 未通过的检查项，全部通过时为空
+     */
+    public List<String> checkGate(LoadTestOptions options) {
+        List<String> violations = new ArrayList<>();
+        if (options.getGateMinThroughput() > 0 && throughput < options.getGateMinThroughput()) {
+            violations.add(String.format("throughput %.1f < %.1f", throughput, options.getGateMinThroughput()));
+        }
+        if (options.getGateMaxP99Ms() > 0 && p99Millis > options.getGateMaxP99Ms()) {
+            violations.add(String.format("p99 %.2fms > %.2fms", p99Millis, options.getGateMaxP99Ms()));
+        }
+        if (options.getGateMaxErrorRate() >= 0 && errorRate > options.getGateMaxErrorRate()) {
+            violations.add(String.format("error rate %.4f > %.4f", errorRate, options.getGateMaxErrorRate()));
+        }
+        return violations;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return round(histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
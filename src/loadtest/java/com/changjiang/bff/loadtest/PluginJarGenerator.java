@@ -0,0 +1,255 @@
+package com.changjiang.bff.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * 压测插件JAR生成器
+ * 主要职责：
+ * 1. 生成压测用的服务接口和DTO源码，编译后按Maven本地仓库布局写入插件JAR，供ApiScanner扫描
+ * 2. 生成桩服务实现(@GrpcService)，单独打包，只由桩服务加载
+ *
+ * 生成的路由(registryId固定为loadtest)：
+ * - get:  /loadtest/item/get   ItemDto getItem(String id)
+ * - list: /loadtest/item/list  List&lt;ItemDto&gt; listItems(ItemQueryDto query)
+ * - save: /loadtest/item/save  ItemDto saveItem(ItemDto item)
+ */
+public final class PluginJarGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(PluginJarGenerator.class);
+
+    public static final String GROUP_PATH = "com/changjiang";
+
+    public static final String ARTIFACT_ID = "loadtest-api-plugin";
+
+    public static final String VERSION = "1.0.0";
+
+    public static final String REGISTRY_ID = "loadtest";
+
+    public static final String STUB_CLASS = "com.changjiang.loadtest.stub.LoadTestServiceStub";
+
+    /** 路由名到URL */
+    public static final Map<String, String> ROUTES = new LinkedHashMap<>();
+
+    static {
+        ROUTES.put("get", "/loadtest/item/get");
+        ROUTES.put("list", "/loadtest/item/list");
+        ROUTES.put("save", "/loadtest/item/save");
+    }
+
+    private static final String ITEM_DTO = String.join("\n",
+            "package com.changjiang.loadtest.api.dto;",
+            "public class ItemDto implements java.io.Serializable {",
+            "    private String id;",
+            "    private String name;",
+            "    private String phone;",
+            "    private long updateTime;",
+            "    private String payload;",
+            "    public String getId() { return id; }",
+            "    public void setId(String id) { this.id = id; }",
+            "    public String getName() { return name; }",
+            "    public void setName(String name) { this.name = name; }",
+            "    public String getPhone() { return phone; }",
+            "    public void setPhone(String phone) { this.phone = phone; }",
+            "    public long getUpdateTime() { return updateTime; }",
+            "    public void setUpdateTime(long updateTime) { this.updateTime = updateTime; }",
+            "    public String getPayload() { return payload; }",
+            "    public void setPayload(String payload) { this.payload = payload; }",
+            "}");
+
+    private static final String ITEM_QUERY_DTO = String.join("\n",
+            "package com.changjiang.loadtest.api.dto;",
+            "public class ItemQueryDto implements java.io.Serializable {",
+            "    private String keyword;",
+            "    private int pageSize;",
+            "    public String getKeyword() { return keyword; }",
+            "    public void setKeyword(String keyword) { this.keyword = keyword; }",
+            "    public int getPageSize() { return pageSize; }",
+            "    public void setPageSize(int pageSize) { this.pageSize = pageSize; }",
+            "}");
+
+    private static final String SERVICE = String.join("\n",
+            "package com.changjiang.loadtest.api;",
+            "import com.changjiang.bff.annotation.ServiceConfig;",
+            "import com.changjiang.loadtest.api.dto.ItemDto;",
+            "import com.changjiang.loadtest.api.dto.ItemQueryDto;",
+            "import java.util.List;",
+            "public interface LoadTestService {",
+            "    @ServiceConfig(url = \"" + ROUTES.get("get") + "\", registryId = \"" + REGISTRY_ID + "\")",
+            "    ItemDto getItem(String id);",
+            "    @ServiceConfig(url = \"" + ROUTES.get("list") + "\", registryId = \"" + REGISTRY_ID + "\")",
+            "    List<ItemDto> listItems(ItemQueryDto query);",
+            "    @ServiceConfig(url = \"" + ROUTES.get("save") + "\", registryId = \"" + REGISTRY_ID + "\")",
+            "    ItemDto saveItem(ItemDto item);",
+            "}");
+
+    private static final String STUB = String.join("\n",
+            "package com.changjiang.loadtest.stub;",
+            "import com.changjiang.bff.loadtest.StubBehavior;",
+            "import com.changjiang.grpc.annotation.GrpcService;",
+            "import com.changjiang.loadtest.api.LoadTestService;",
+            "import com.changjiang.loadtest.api.dto.ItemDto;",
+            "import com.changjiang.loadtest.api.dto.ItemQueryDto;",
+            "import java.util.ArrayList;",
+            "import java.util.List;",
+            "@GrpcService",
+            "public class LoadTestServiceStub implements LoadTestService {",
+            "    public ItemDto getItem(String id) {",
+            "        StubBehavior behavior = StubBehavior.current();",
+            "        behavior.simulate();",
+            "        return item(id, behavior);",
+            "    }",
+            "    public List<ItemDto> listItems(ItemQueryDto query) {",
+            "        StubBehavior behavior = StubBehavior.current();",
+            "        behavior.simulate();",
+            "        int size = query != null && query.getPageSize() > 0 ? query.getPageSize() : behavior.listSize();",
+            "        List<ItemDto> items = new ArrayList<>(size);",
+            "        for (int i = 0; i < size; i++) {",
+            "            items.add(item(\"I\" + i, behavior));",
+            "        }",
+            "        return items;",
+            "    }",
+            "    public ItemDto saveItem(ItemDto item) {",
+            "        StubBehavior behavior = StubBehavior.current();",
+            "        behavior.simulate();",
+            "        ItemDto saved = item(item == null ? null : item.getId(), behavior);",
+            "        if (item != null) {",
+            "            saved.setName(item.getName());",
+            "        }",
+            "        return saved;",
+            "    }",
+            "    private static ItemDto item(String id, StubBehavior behavior) {",
+            "        ItemDto item = new ItemDto();",
+            "        item.setId(id);",
+            "        item.setName(\"item-\" + id);",
+            "        item.setPhone(\"13800138000\");",
+            "        item.setUpdateTime(System.currentTimeMillis());",
+            "        item.setPayload(behavior.payload());",
+            "        return item;",
+            "    }",
+            "}");
+
+    private PluginJarGenerator() {
+    }
+
+    /**
+     * 生成插件JAR和桩服务JAR
+     *
+     * @param workDir 工作目录，其下的repository目录作为 service.scan.local-repository
+     */
+    public static GeneratedJars generate(Path workDir) throws IOException {
+        Path sources = workDir.resolve("sources");
+        Path classes = workDir.resolve("classes");
+        Path stubClasses = workDir.resolve("stub-classes");
+        Path repository = workDir.resolve("repository");
+
+        List<File> pluginSources = new ArrayList<>();
+        pluginSources.add(writeSource(sources, "com.changjiang.loadtest.api.dto.ItemDto", ITEM_DTO));
+        pluginSources.add(writeSource(sources, "com.changjiang.loadtest.api.dto.ItemQueryDto", ITEM_QUERY_DTO));
+        pluginSources.add(writeSource(sources, "com.changjiang.loadtest.api.LoadTestService", SERVICE));
+        compile(pluginSources, classes, System.getProperty("java.class.path"));
+
+        File stubSource = writeSource(sources, STUB_CLASS, STUB);
+        compile(List.of(stubSource), stubClasses,
+                System.getProperty("java.class.path") + File.pathSeparator + classes);
+
+        Path pluginJar = repository.resolve(GROUP_PATH).resolve(ARTIFACT_ID).resolve(VERSION)
+                .resolve(ARTIFACT_ID + "-" + VERSION + ".jar");
+        Path stubJar = workDir.resolve("loadtest-stub.jar");
+        jar(classes, pluginJar);
+        jar(stubClasses, stubJar);
+        logger.info("Generated plugin jar: {}, stub jar: {}", pluginJar, stubJar);
+        return new GeneratedJars(repository, pluginJar, stubJar);
+    }
+
+    /**
+     * 插件坐标，用于 service.scan.coordinates
+     */
+    public static String coordinate() {
+        return ARTIFACT_ID + ":" + VERSION;
+    }
+
+    private static File writeSource(Path sources, String className, String content) throws IOException {
+        Path file = sources.resolve(className.replace('.', '/') + ".java");
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file.toFile();
+    }
+
+    private static void compile(List<File> sources, Path output, String classpath) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No system Java compiler, the load test harness must run on a JDK");
+        }
+        Files.createDirectories(output);
+        List<String> args = new ArrayList<>(List.of("-encoding", "UTF-8", "-parameters",
+                "-classpath", classpath, "-d", output.toString()));
+        sources.forEach(source -> args.add(source.getPath()));
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        int status = compiler.run(null, null, errors, args.toArray(new String[0]));
+        if (status != 0) {
+            throw new IllegalStateException("Failed to compile load test sources:\n"
+                    + errors.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void jar(Path classes, Path jarFile) throws IOException {
+        Files.createDirectories(jarFile.getParent());
+        try (OutputStream out = Files.newOutputStream(jarFile);
+             JarOutputStream jar = new JarOutputStream(out);
+             Stream<Path> files = Files.walk(classes)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                jar.putNextEntry(new JarEntry(classes.relativize(file).toString().replace(File.separatorChar, '/')));
+                jar.write(Files.readAllBytes(file));
+                jar.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * 生成结果
+     */
+    public static final class GeneratedJars {
+
+        private final Path repository;
+
+        private final Path pluginJar;
+
+        private final Path stubJar;
+
+        GeneratedJars(Path repository, Path pluginJar, Path stubJar) {
+            this.repository = repository;
+            this.pluginJar = pluginJar;
+            this.stubJar = stubJar;
+        }
+
+        public Path getRepository() {
+            return repository;
+        }
+
+        public Path getPluginJar() {
+            return pluginJar;
+        }
+
+        public Path getStubJar() {
+            return stubJar;
+        }
+    }
+}
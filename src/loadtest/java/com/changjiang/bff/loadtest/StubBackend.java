@@ -0,0 +1,93 @@
+package com.changjiang.bff.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * 进程内桩gRPC后端
+ * 主要职责：
+ * 1. 以独立的Spring上下文启动gtw-common的gRPC服务端，监听 grpc.server.port
+ * 2. 注册生成的桩服务实现(LoadTestServiceStub)，代替 grpc.registry.services.loadtest 指向的真实后端
+ *
+ * 调用关系：
+ * - 被LoadTestHarness在网关启动前启动，压测结束后关闭
+ * - 桩服务的延迟、错误和payload由StubBehavior控制
+ */
+public class StubBackend implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(StubBackend.class);
+
+    private final URLClassLoader classLoader;
+
+    private final ConfigurableApplicationContext context;
+
+    private final int port;
+
+    private StubBackend(URLClassLoader classLoader, ConfigurableApplicationContext context, int port) {
+        this.classLoader = classLoader;
+        this.context = context;
+        this.port = port;
+    }
+
+    /**
+     * 启动桩服务
+     *
+     * @param jars 生成的插件JAR和桩服务JAR
+     * @param port 监听端口
+     */
+    public static StubBackend start(PluginJarGenerator.GeneratedJars jars, int port) throws IOException {
+        URLClassLoader classLoader = new URLClassLoader(new URL[]{
+                jars.getPluginJar().toUri().toURL(), jars.getStubJar().toUri().toURL()},
+                StubBackend.class.getClassLoader());
+        try {
+            Class<?> stubClass = classLoader.loadClass(PluginJarGenerator.STUB_CLASS);
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(StubBackendApplication.class)
+                    .resourceLoader(new DefaultResourceLoader(classLoader))
+                    .web(WebApplicationType.NONE)
+                    .properties(
+                            "spring.config.name=loadtest-stub",
+                            "grpc.server.enabled=true",
+                            "grpc.server.host=127.0.0.1",
+                            "grpc.server.port=" + port,
+                            "grpc.client.enabled=false")
+                    .initializers(ctx -> ((GenericApplicationContext) ctx).registerBean(stubClass))
+                    .run();
+            logger.info("Stub gRPC backend started on 127.0.0.1:{}", port);
+            return new StubBackend(classLoader, context, port);
+        } catch (ClassNotFoundException | RuntimeException e) {
+            classLoader.close();
+            throw new IllegalStateException("Failed to start stub gRPC backend", e);
+        }
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        classLoader.close();
+    }
+
+    /**
+     * 桩服务上下文配置，只加载gtw-common的gRPC组件
+     */
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @ComponentScan(basePackages = "com.changjiang.grpc")
+    static class StubBackendApplication {
+    }
+}
@@ -0,0 +1,94 @@
+package com.changjiang.bff.loadtest;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 桩服务行为
+ * 主要职责：
+ * 1. 按对数正态分布产生响应延迟
+ * 2. 按错误率抛出异常
+ * 3. 按均匀分布产生指定大小的payload
+ *
+ * 调用关系：
+ * - 被生成的桩服务实现(LoadTestServiceStub)调用，桩服务与压测程序在同一进程
+ * - 由LoadTestHarness在启动桩服务前配置
+ */
+public final class StubBehavior {
+
+    /** 标准正态分布的99分位数 */
+    private static final double Z_99 = 2.326;
+
+    private static volatile StubBehavior current = new StubBehavior(1, 1, 0, 16, 16, 1);
+
+    private final double mu;
+
+    private final double sigma;
+
+    private final double errorRate;
+
+    private final int payloadMinBytes;
+
+    private final int payloadMaxBytes;
+
+    private final int listSize;
+
+    /** 预先生成的payload字符，按需截取 */
+    private final String payloadSource;
+
+    private StubBehavior(double medianMs, double p99Ms, double errorRate,
+                         int payloadMinBytes, int payloadMaxBytes, int listSize) {
+        this.mu = Math.log(Math.max(medianMs, 0.001));
+        this.sigma = Math.log(Math.max(p99Ms, 0.001) / Math.max(medianMs, 0.001)) / Z_99;
+        this.errorRate = errorRate;
+        this.payloadMinBytes = payloadMinBytes;
+        this.payloadMaxBytes = payloadMaxBytes;
+        this.listSize = listSize;
+        StringBuilder builder = new StringBuilder(payloadMaxBytes);
+        Random random = new Random(42);
+        for (int i = 0; i < payloadMaxBytes; i++) {
+            builder.append((char) ('a' + random.nextInt(26)));
+        }
+        this.payloadSource = builder.toString();
+    }
+
+    public static void configure(LoadTestOptions options) {
+        current = new StubBehavior(options.getStubLatencyMedianMs(), options.getStubLatencyP99Ms(),
+                options.getStubErrorRate(), options.getStubPayloadMinBytes(), options.getStubPayloadMaxBytes(),
+                options.getStubListSize());
+    }
+
+    public static StubBehavior current() {
+        return current;
+    }
+
+    /**
+     * 模拟一次下游处理：等待采样的延迟，按错误率失败
+     */
+    public void simulate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delayMicros = (long) (Math.exp(mu + sigma * random.nextGaussian()) * 1000);
+        if (delayMicros > 0) {
+            try {
+                Thread.sleep(delayMicros / 1000, (int) (delayMicros % 1000) * 1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("stub interrupted", e);
+            }
+        }
+        if (errorRate > 0 && random.nextDouble() < errorRate) {
+            throw new IllegalStateException("stub injected error");
+        }
+    }
+
+    public String payload() {
+        int size = payloadMinBytes == payloadMaxBytes
+                ? payloadMaxBytes
+                : ThreadLocalRandom.current().nextInt(payloadMinBytes, payloadMaxBytes + 1);
+        return payloadSource.substring(0, size);
+    }
+
+    public int listSize() {
+        return listSize;
+    }
+}
@@ -14,7 +14,8 @@ import org.springframework.context.annotation.ComponentScan;
     "com.changjiang.bff.util",
     "com.changjiang.grpc",
     "com.changjiang.bff.web",
-    "com.changjiang.bff.service"
+    "com.changjiang.bff.service",
+    "com.changjiang.bff.aspect"
 })
 public class ChangjingBffApplication {
 
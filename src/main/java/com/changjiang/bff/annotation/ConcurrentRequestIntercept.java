@@ -0,0 +1,35 @@
+package com.changjiang.bff.annotation;
+
+import com.changjiang.bff.enums.DuplicateRequestMode;
+
+import java.lang.annotation.*;
+
+/**
+ * 重复请求拦截注解
+ * 主要职责：
+ * 1. 标记需要拦截并发重复提交的方法
+ * 2. 配置重复请求的处理方式
+ *
+ * 使用场景：
+ * - 防止用户重复点击、客户端重试导致同一写操作并发到达后端
+ *
+ * 调用关系：
+ * - 被ConcurrentRequestInterceptAspect拦截处理
+ * - 动态路由(/changjiang/**)通过 bff.concurrent-intercept.routes 配置，不需要该注解
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ConcurrentRequestIntercept {
+    /** 
+     * 处理方式
+     * 默认立即拒绝重复请求
+     */
+    DuplicateRequestMode mode() default DuplicateRequestMode.REJECT;
+    
+    /** 
+     * 是否区分请求体
+     * 为true时只有请求体相同的请求才视为重复
+     */
+    boolean includeBody() default true;
+}
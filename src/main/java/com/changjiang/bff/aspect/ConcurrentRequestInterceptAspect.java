@@ -1,58 +1,254 @@
 package com.changjiang.bff.aspect;
 
-// import com.changjing.bff.dto.LoginUserInfo;
-// import com.changjing.bff.object.response.Result;
-// import io.micrometer.common.util.StringUtils;
-// import jakarta.servlet.http.HttpSession;
-// import org.springframework.http.ResponseEntity;
-// import org.springframework.stereotype.Component;
-// import org.springframework.web.context.request.RequestContextHolder;
-// import org.springframework.web.context.request.ServletRequestAttributes;
-
-// import java.lang.reflect.Method;
-
-//@Component
-//@Aspect
-//public class ConcurrentRequestInterceptAspect {
-//
-//    private static final String LOGIN_USER_INFO = "login_user_info";
-//
-//    @Pointcut("@annotation(com.citicbank.npcs.pcgtw.annotation.ConcurrentRequestIntercept)")
-//    private void pointcut() {}
-//
-//    @Around("pointcut()")
-//    public Object before(ProceedingJoinPoint joinPoint) throws Throwable {
-//        if (RequestContextHolder.getRequestAttributes() == null) {
-//            throw new RuntimeException("ConcurrentRequestInterceptAspect request attributes is null");
-//        }
-//        if (RequestContextHolder.getRequestAttributes().getRequest() == null) {
-//            throw new RuntimeException("ConcurrentRequestInterceptAspect request getRequestAttributes is null");
-//        }
-//        if (((ServletRequestAttributes) RequestContextHolder.getRequestAttributes()).getRequest() == null) {
-//            throw new RuntimeException("ConcurrentRequestInterceptAspect request request is null");
-//        }
-//
-//        HttpSession httpSession = ((ServletRequestAttributes) RequestContextHolder.getRequestAttributes()).getRequest().getSession();
-//        if (httpSession == null) {
-//            throw new RuntimeException("ConcurrentRequestInterceptAspect request httpSession is null");
-//        }
-//
-//        LoginUserInfo userInfo = (LoginUserInfo) httpSession.getAttribute(LOGIN_USER_INFO);
-//        if (userInfo != null && userInfo.getUser() != null && StringUtils.isNotBlank(userInfo.getUser().getName())) {
-//            String userName = userInfo.getUser().getName();
-//            String uri = ((ServletRequestAttributes) RequestContextHolder.getRequestAttributes()).getRequest().getRequestURI();
-//
-//            Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
-//            ConcurrentRequestIntercept args = method.getAnnotation(ConcurrentRequestIntercept.class);
-//            long intervalTime = args.expireMillisecond();
-//
-//            if (PreventRepeatUtil.isRepeat(httpSession, userName, uri, intervalTime)) {
-//                Result handleResult = new Result();
-//                handleResult.setCode("AAAAAAA");
-//                handleResult.setMsg("请求重复");
-//                return ResponseEntity.ok().header("clazz", handleResult.getClass().getName()).body(handleResult);
-//            }
-//        }
-//        return joinPoint.proceed();
-//    }
-//}
+import com.alibaba.fastjson2.JSON;
+import com.changjiang.bff.annotation.ConcurrentRequestIntercept;
+import com.changjiang.bff.config.ConcurrentInterceptProperties;
+import com.changjiang.bff.constants.PubConstants;
+import com.changjiang.bff.core.ApiScanCompletedEvent;
+import com.changjiang.bff.enums.DuplicateRequestMode;
+import com.changjiang.bff.exception.ServiceException;
+import com.changjiang.bff.object.response.Result;
+import com.changjiang.bff.util.CallerIdResolver;
+import com.changjiang.bff.util.SessionUtils;
+import com.changjiang.bff.web.StreamingResponseWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * 重复请求拦截切面
+ * 主要职责：
+ * 1. 以(用户ID, URI, 请求体)为键登记处理中的请求，请求体按序列化后的完整内容比较
+ * 2. 同一请求仍在处理中时，按配置立即拒绝重复请求，或等待其完成并返回相同结果；
+ *    流式写出的路由没有可共享的结果，JOIN按拒绝处理
+ * 3. 请求完成后立即移除登记，只拦截并发的重复请求
+ *
+ * 使用场景：
+ * - 用户重复点击、客户端重试导致同一写操作并发到达后端
+ *
+ * 调用关系：
+ * - 拦截标注了@ConcurrentRequestIntercept的方法
+ * - 拦截GenerateController.executeLogic，只处理 bff.concurrent-intercept.routes 配置的路由，
+ *   未配置的路由只有一次集合查找的开销
+ * - 用户ID由CallerIdResolver按bff.caller配置解析，无法识别用户时不拦截
+ */
+@Component
+@Aspect
+public class ConcurrentRequestInterceptAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrentRequestInterceptAspect.class);
+
+    private static final String ROUTE_PREFIX = "/changjiang";
+
+    private static final String DUPLICATE_MSG = "请求重复，请勿重复提交";
+
+    @Autowired
+    private ConcurrentInterceptProperties interceptProperties;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private StreamingResponseWriter streamingResponseWriter;
+
+    @Autowired
+    private CallerIdResolver callerIdResolver;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    /**
+     * 处理中的请求
+     * ConcurrentHashMap按桶加锁，不同用户、不同路由的请求互不阻塞
+     */
+    private final ConcurrentHashMap<InflightKey, CompletableFuture<Object>> inflight = new ConcurrentHashMap<>();
+
+    /** 需要拦截的动态路由，API扫描完成后按配置解析 */
+    private volatile Set<String> interceptedRoutes = Collections.emptySet();
+
+    @Pointcut("@annotation(com.changjiang.bff.annotation.ConcurrentRequestIntercept)")
+    private void annotated() {}
+
+    @Pointcut("execution(* com.changjiang.bff.web.GenerateController.executeLogic(..))")
+    private void dynamicRoute() {}
+
+    /**
+     * 按配置解析需要拦截的动态路由
+     */
+    @EventListener
+    public void onApiScanCompleted(ApiScanCompletedEvent event) {
+        Set<String> routes = event.getApiRegistry().keySet().stream()
+                .filter(url -> interceptProperties.getRoutes().stream().anyMatch(pattern -> pathMatcher.match(pattern, url)))
+                .collect(Collectors.toSet());
+        interceptedRoutes = Collections.unmodifiableSet(routes);
+        if (!routes.isEmpty()) {
+            logger.info("Concurrent request intercept routes: {}", routes);
+        }
+    }
+
+    @Around("annotated()")
+    public Object aroundAnnotated(ProceedingJoinPoint joinPoint) throws Throwable {
+        HttpServletRequest request = SessionUtils.currentRequest();
+        if (request == null || !interceptProperties.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        ConcurrentRequestIntercept intercept = ((MethodSignature) joinPoint.getSignature()).getMethod()
+                .getAnnotation(ConcurrentRequestIntercept.class);
+        return intercept(joinPoint, request.getRequestURI(), request, intercept.mode(), intercept.includeBody());
+    }
+
+    @Around("dynamicRoute()")
+    public Object aroundDynamicRoute(ProceedingJoinPoint joinPoint) throws Throwable {
+        Set<String> routes = interceptedRoutes;
+        if (routes.isEmpty() || !interceptProperties.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        HttpServletRequest request = SessionUtils.currentRequest();
+        if (request == null) {
+            return joinPoint.proceed();
+        }
+        String route = request.getRequestURI().trim().replace(ROUTE_PREFIX, "");
+        if (!routes.contains(route)) {
+            return joinPoint.proceed();
+        }
+        return intercept(joinPoint, route, request, interceptProperties.getMode(), interceptProperties.isIncludeBody());
+    }
+
+    private Object intercept(ProceedingJoinPoint joinPoint, String uri, HttpServletRequest request,
+                             DuplicateRequestMode mode, boolean includeBody) throws Throwable {
+        String userId = callerIdResolver.getUserId(request);
+        if (userId == null) {
+            return joinPoint.proceed();
+        }
+        InflightKey key = new InflightKey(userId, uri, includeBody ? body(joinPoint.getArgs()) : "");
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inflight.putIfAbsent(key, mine);
+        if (existing != null) {
+            return onDuplicate(joinPoint, key, existing, mode);
+        }
+        try {
+            Object result = joinPoint.proceed();
+            mine.complete(result);
+            return result;
+        } catch (Throwable t) {
+            mine.completeExceptionally(t);
+            throw t;
+        } finally {
+            inflight.remove(key, mine);
+        }
+    }
+
+    private Object onDuplicate(ProceedingJoinPoint joinPoint, InflightKey key, CompletableFuture<Object> existing,
+                               DuplicateRequestMode mode) throws Throwable {
+        if (mode == DuplicateRequestMode.JOIN && streamingResponseWriter.isStreamable(key.uri.replace(ROUTE_PREFIX, ""))) {
+            // 先到的请求已直接写出响应，没有可共享的结果
+            mode = DuplicateRequestMode.REJECT;
+        }
+        count(key.uri, mode);
+        if (mode == DuplicateRequestMode.JOIN) {
+            try {
+                logger.info("Duplicate request joined, userId: {}, uri: {}", key.userId, key.uri);
+                return existing.get(interceptProperties.getJoinTimeoutMillis(), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            } catch (TimeoutException e) {
+                logger.warn("Duplicate request join timeout, userId: {}, uri: {}", key.userId, key.uri);
+            }
+        } else {
+            logger.info("Duplicate request rejected, userId: {}, uri: {}", key.userId, key.uri);
+        }
+        return reject(joinPoint);
+    }
+
+    private Object reject(ProceedingJoinPoint joinPoint) {
+        Class<?> returnType = ((MethodSignature) joinPoint.getSignature()).getReturnType();
+        if (returnType.isAssignableFrom(Result.class)) {
+            Result<Object> result = new Result<>();
+            result.setCode(PubConstants.ERROR_DUPLICATE_REQUEST);
+            result.setMsg(DUPLICATE_MSG);
+            return result;
+        }
+        throw new ServiceException(PubConstants.ERROR_DUPLICATE_REQUEST, DUPLICATE_MSG);
+    }
+
+    private void count(String uri, DuplicateRequestMode mode) {
+        if (meterRegistry != null) {
+            meterRegistry.counter("bff.request.duplicate", "route", uri, "mode", mode.name()).increment();
+        }
+    }
+
+    /**
+     * 序列化后的请求体，按完整内容比较，不会因哈希冲突把不同的请求视为重复
+     */
+    private static String body(Object[] args) {
+        List<Object> body = new ArrayList<>(args.length);
+        for (Object arg : args) {
+            if (arg instanceof ServletRequest || arg instanceof ServletResponse || arg instanceof HttpSession) {
+                continue;
+            }
+            body.add(arg);
+        }
+        return JSON.toJSONString(body);
+    }
+
+    /**
+     * 处理中请求的键
+     */
+    private static final class InflightKey {
+
+        private final String userId;
+
+        private final String uri;
+
+        private final String body;
+
+        private final int hash;
+
+        InflightKey(String userId, String uri, String body) {
+            this.userId = userId;
+            this.uri = uri;
+            this.body = body;
+            this.hash = 31 * (31 * userId.hashCode() + uri.hashCode()) + body.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof InflightKey)) {
+                return false;
+            }
+            InflightKey that = (InflightKey) o;
+            return hash == that.hash && userId.equals(that.userId) && uri.equals(that.uri) && body.equals(that.body);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.changjiang.bff.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 访问日志配置
+ * 每个/changjiang/**请求一条结构化日志(JSON)，按路由采样，由后台线程异步写入 bff.access 日志
+ *
+ * ### 配置示例
+ * ```properties
+ * bff.access-log.enabled=true
+ * bff.access-log.sample-rate=0.1
+ * # 路由采样率(去掉/changjiang前缀，Ant风格)
+ * bff.access-log.route-sample-rates[/elearn/order/**]=1.0
+ * # 请求体脱敏规则与请求采样共用 bff.metrics.resources.mask-fields
+ * bff.access-log.include-body=false
+ * ```
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bff.access-log")
+public class AccessLogProperties {
+
+    /** 是否启用访问日志 */
+    private boolean enabled = true;
+
+    /** 默认采样率(0~1) */
+    private double sampleRate = 0.1;
+
+    /** 路由采样率，key: 路由(Ant风格), value: 采样率 */
+    private Map<String, Double> routeSampleRates = new LinkedHashMap<>();
+
+    /** 失败请求(响应码非成功)是否不受采样率限制 */
+    private boolean alwaysLogErrors = true;
+
+    /** 耗时超过该值(毫秒)的请求不受采样率限制，0表示不启用 */
+    private long slowThresholdMillis = 1000;
+
+    /** 环形缓冲区大小，向上取整为2的幂，写满时丢弃新日志 */
+    private int bufferSize = 8192;
+
+    /** 是否记录脱敏后的请求体 */
+    private boolean includeBody = false;
+
+    /** 请求体的最大字符数 */
+    private int bodyMaxChars = 1024;
+}
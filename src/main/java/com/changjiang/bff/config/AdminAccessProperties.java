@@ -0,0 +1,39 @@
+package com.changjiang.bff.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 管理接口访问控制配置
+ * /admin/**只允许来自指定地址的请求，或携带与配置一致的管理令牌的请求；
+ * 默认只允许本机访问，未配置令牌时不能从其他地址访问
+ *
+ * ### 配置示例
+ * ```properties
+ * bff.admin.allowed-addresses=127.0.0.1,0:0:0:0:0:0:0:1
+ * # 令牌通过请求头X-Admin-Token传入，建议使用环境变量注入
+ * bff.admin.token=${BFF_ADMIN_TOKEN:}
+ * ```
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bff.admin")
+public class AdminAccessProperties {
+
+    /** 是否开放管理接口，关闭时/admin/**返回404 */
+    private boolean enabled = true;
+
+    /** 无需令牌即可访问的客户端地址(请求的直连地址，不读取X-Forwarded-For) */
+    private List<String> allowedAddresses = new ArrayList<>(Arrays.asList("127.0.0.1", "0:0:0:0:0:0:0:1", "::1"));
+
+    /** 管理令牌请求头 */
+    private String tokenHeader = "X-Admin-Token";
+
+    /** 管理令牌，为空时只允许allowedAddresses访问 */
+    private String token;
+}
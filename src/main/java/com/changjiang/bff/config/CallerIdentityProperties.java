@@ -0,0 +1,30 @@
+package com.changjiang.bff.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 调用方用户识别配置
+ * 网关本身不做登录，用户ID由前置的认证网关或认证过滤器提供；
+ * 依次读取请求属性、请求头，都未配置或没有值时使用容器认证的用户(Principal)
+ *
+ * ### 配置示例
+ * ```properties
+ * # 认证过滤器写入的请求属性，值可以是用户ID字符串或LoginUserInfo
+ * bff.caller.user-id-attribute=bff.userId
+ * # 认证网关写入的请求头，必须由认证网关覆盖客户端传入的同名请求头
+ * bff.caller.user-id-header=X-User-Id
+ * ```
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bff.caller")
+public class CallerIdentityProperties {
+
+    /** 保存用户ID的请求属性名，为空时不读取 */
+    private String userIdAttribute;
+
+    /** 保存用户ID的请求头，为空时不读取 */
+    private String userIdHeader;
+}
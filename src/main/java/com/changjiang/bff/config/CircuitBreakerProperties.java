@@ -0,0 +1,69 @@
+package com.changjiang.bff.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 熔断配置
+ * 每个registryId一个熔断器，可以为指定路由额外增加路由级熔断器
+ *
+ * ### 配置示例
+ * ```properties
+ * grpc.circuit-breaker.enabled=true
+ * grpc.circuit-breaker.failure-rate-threshold=50
+ * grpc.circuit-breaker.slow-call-duration-millis=3000
+ * # 路由级熔断和熔断时的缓存降级(Ant风格)
+ * grpc.circuit-breaker.route-breakers=/elearn/report/**
+ * grpc.circuit-breaker.fallback-routes=/elearn/course/list
+ * # 降级结果按调用用户和完整请求参数缓存；无法识别用户的请求默认不降级，降级路由均为公共数据时可开启
+ * grpc.circuit-breaker.fallback-anonymous=false
+ * ```
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "grpc.circuit-breaker")
+public class CircuitBreakerProperties {
+
+    /** 是否启用熔断 */
+    private boolean enabled = true;
+
+    /** 滑动窗口大小(最近多少次调用) */
+    private int windowSize = 100;
+
+    /** 窗口内调用数少于该值时不计算失败率 */
+    private int minimumCalls = 20;
+
+    /** 失败率阈值(百分比)，达到后打开熔断器 */
+    private int failureRateThreshold = 50;
+
+    /** 慢调用阈值(毫秒) */
+    private long slowCallDurationMillis = 3000;
+
+    /** 慢调用率阈值(百分比)，达到后打开熔断器 */
+    private int slowCallRateThreshold = 80;
+
+    /** 熔断器打开后等待多久进入半开状态(毫秒) */
+    private long waitDurationInOpenMillis = 10000;
+
+    /** 半开状态放行的试探请求数 */
+    private int permittedCallsInHalfOpen = 5;
+
+    /** 需要路由级熔断器的路由(Ant风格) */
+    private List<String> routeBreakers = new ArrayList<>();
+
+    /** 熔断时返回最近一次成功结果的路由(Ant风格) */
+    private List<String> fallbackRoutes = new ArrayList<>();
+
+    /** 无法识别调用用户的请求是否使用降级缓存，只有降级路由的结果与用户无关时开启 */
+    private boolean fallbackAnonymous = false;
+
+    /** 降级缓存的最大条目数 */
+    private long fallbackCacheSize = 1000;
+
+    /** 降级缓存的有效期(秒) */
+    private long fallbackTtlSeconds = 300;
+}
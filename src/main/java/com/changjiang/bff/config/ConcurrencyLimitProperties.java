@@ -0,0 +1,53 @@
+package com.changjiang.bff.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 下游自适应并发限制配置
+ * 每个registryId一个并发上限，根据实测RTT按梯度算法自动调整，超出上限的请求立即拒绝
+ * 默认关闭；启用时初始上限应不低于下游正常的并发量，否则冷启动时会拒绝正常请求
+ *
+ * ### 配置示例
+ * ```properties
+ * grpc.concurrency-limit.enabled=true
+ * grpc.concurrency-limit.initial-limit=100
+ * grpc.concurrency-limit.max-limit=500
+ * ```
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "grpc.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    /** 是否启用并发限制 */
+    private boolean enabled = false;
+
+    /** 初始并发上限 */
+    private int initialLimit = 100;
+
+    /** 并发上限下界 */
+    private int minLimit = 5;
+
+    /** 并发上限上界 */
+    private int maxLimit = 500;
+
+    /** 采样窗口(毫秒)，每个窗口结束时按窗口内平均RTT调整一次上限 */
+    private long sampleWindowMillis = 100;
+
+    /** 窗口内样本数少于该值时延后调整 */
+    private int minWindowSamples = 10;
+
+    /** 长期RTT的平滑窗口(调整次数) */
+    private int longWindow = 600;
+
+    /** RTT容忍倍数，短期RTT不超过长期RTT的该倍数时不降低上限 */
+    private double rttTolerance = 1.5;
+
+    /** 上限调整的平滑系数 */
+    private double smoothing = 0.2;
+
+    /** 下游超时、不可用或过载时上限的缩减比例 */
+    private double backoffRatio = 0.9;
+}
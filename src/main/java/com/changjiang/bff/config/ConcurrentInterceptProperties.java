@@ -0,0 +1,42 @@
+package com.changjiang.bff.config;
+
+import com.changjiang.bff.enums.DuplicateRequestMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 重复请求拦截配置
+ * 对动态路由(/changjiang/**)生效，同一用户对同一路由的相同请求在处理完成前只放行一个
+ *
+ * ### 配置示例
+ * ```properties
+ * bff.concurrent-intercept.enabled=true
+ * # 需要拦截的路由(去掉/changjiang前缀)，支持Ant风格通配符
+ * bff.concurrent-intercept.routes=/elearn/order/submit,/elearn/order/**
+ * bff.concurrent-intercept.mode=REJECT
+ * ```
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bff.concurrent-intercept")
+public class ConcurrentInterceptProperties {
+
+    /** 是否启用拦截 */
+    private boolean enabled = true;
+
+    /** 需要拦截的路由(Ant风格) */
+    private List<String> routes = new ArrayList<>();
+
+    /** 重复请求的处理方式 */
+    private DuplicateRequestMode mode = DuplicateRequestMode.REJECT;
+
+    /** 是否区分请求体 */
+    private boolean includeBody = true;
+
+    /** JOIN方式下等待处理中请求的最长时间(毫秒)，超时后按拒绝处理 */
+    private long joinTimeoutMillis = 30000;
+}
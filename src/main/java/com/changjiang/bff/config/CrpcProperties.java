@@ -14,4 +14,22 @@ public class CrpcProperties {
     private String loadbalance = "random";
     private String protocol = "dubbo";
     private String address = "127.0.0.1:20880";
-} 
\ No newline at end of file
+
+    /** 服务代理缓存最大条目数 */
+    private long proxyCacheMaximumSize = 1000;
+
+    /** 服务代理空闲淘汰时间(分钟)，超过该时间未被访问的代理将被移除 */
+    private long proxyCacheExpireAfterAccessMinutes = 60;
+
+    /** 服务代理刷新间隔(分钟)，到期后在后台重新创建代理，<=0表示不刷新 */
+    private long proxyCacheRefreshAfterWriteMinutes = 30;
+
+    /** 启动完成后是否预热所有接口的服务代理 */
+    private boolean proxyCachePrewarm = true;
+
+    /** 预热时间上限(秒)，预热在后台执行，超过后剩余接口在首次调用时创建代理 */
+    private long proxyCachePrewarmTimeoutSeconds = 60;
+
+    /** 预热每批创建的代理数，每批开始前检查预热时间上限 */
+    private int proxyCachePrewarmBatchSize = 20;
+}
@@ -0,0 +1,47 @@
+package com.changjiang.bff.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 请求截止时间配置
+ * 客户端通过请求头传入剩余时间，未传入时使用路由默认值，截止时间会传递到下游gRPC调用
+ *
+ * ### 配置示例
+ * ```properties
+ * bff.deadline.enabled=true
+ * bff.deadline.header=X-Request-Timeout-Ms
+ * bff.deadline.default-timeout-millis=30000
+ * bff.deadline.min-timeout-millis=500
+ * bff.deadline.max-timeout-millis=60000
+ * # 路由默认值(Ant风格)
+ * bff.deadline.route-timeouts[/elearn/report/**]=60000
+ * ```
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bff.deadline")
+public class DeadlineProperties {
+
+    /** 是否启用截止时间传递 */
+    private boolean enabled = true;
+
+    /** 客户端剩余时间请求头(毫秒) */
+    private String header = "X-Request-Timeout-Ms";
+
+    /** 默认超时时间(毫秒) */
+    private long defaultTimeoutMillis = 30000;
+
+    /** 客户端传入时间的下限(毫秒)，过小的值会让下游调用必然超时 */
+    private long minTimeoutMillis = 500;
+
+    /** 客户端传入时间的上限(毫秒)，防止客户端放大超时 */
+    private long maxTimeoutMillis = 60000;
+
+    /** 路由默认超时时间(毫秒)，key为Ant风格路由 */
+    private Map<String, Long> routeTimeouts = new LinkedHashMap<>();
+}
@@ -0,0 +1,43 @@
+package com.changjiang.bff.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 下游gRPC连接池配置
+ * 启用后路由客户端的调用走连接池，按最少在途请求选择连接
+ * 注册中心配置了多个地址时才会发起对冲请求(grpc.hedging)
+ *
+ * ### 配置示例
+ * ```properties
+ * grpc.channel-pool.enabled=true
+ * grpc.channel-pool.channels-per-endpoint=2
+ * grpc.channel-pool.re-resolve-interval-seconds=30
+ * # 每个注册中心可以配置多个地址，未配置时使用 host:port
+ * grpc.registry.services.elearn.endpoints=10.0.0.1:8084,10.0.0.2:8084
+ * ```
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "grpc.channel-pool")
+public class GrpcChannelPoolProperties {
+
+    /** 是否启用连接池 */
+    private boolean enabled = true;
+
+    /** 每个地址建立的HTTP/2连接数 */
+    private int channelsPerEndpoint = 2;
+
+    /** 重新解析地址的间隔(秒)，<=0表示不重新解析 */
+    private long reResolveIntervalSeconds = 30;
+
+    /** 启动时是否立即建立连接 */
+    private boolean eagerConnect = true;
+
+    /** 连接保活时间(秒) */
+    private long keepAliveTimeSeconds = 60;
+
+    /** 被移除的连接等待在途请求完成的最长时间(秒) */
+    private long drainTimeoutSeconds = 30;
+}
@@ -0,0 +1,57 @@
+package com.changjiang.bff.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 对冲请求配置
+ * 幂等路由的下游调用在超过观测到的延迟分位数后，再发起一次调用，先返回者生效
+ * 只对连接池(grpc.channel-pool)中有多个地址的注册中心生效，对冲调用发往与主调用不同的地址
+ *
+ * ### 配置示例
+ * ```properties
+ * grpc.hedging.enabled=true
+ * # 幂等路由，支持Ant风格通配符
+ * grpc.hedging.idempotent-routes=/elearn/course/query,/elearn/report/**
+ * grpc.hedging.budget-ratio=0.1
+ * ```
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "grpc.hedging")
+public class HedgingProperties {
+
+    /** 是否启用对冲 */
+    private boolean enabled = true;
+
+    /** 幂等路由(Ant风格)，只有这些路由会发起对冲请求 */
+    private List<String> idempotentRoutes = new ArrayList<>();
+
+    /** 触发对冲的延迟分位数 */
+    private double quantile = 0.95;
+
+    /** 对冲延迟下限(毫秒) */
+    private long minDelayMillis = 5;
+
+    /** 对冲延迟上限(毫秒) */
+    private long maxDelayMillis = 2000;
+
+    /** 延迟样本数少于该值时不对冲 */
+    private int minSamples = 20;
+
+    /** 延迟统计窗口(秒) */
+    private long windowSeconds = 60;
+
+    /** 每个请求为所属注册中心积累的对冲额度，0.1表示对冲请求最多占10% */
+    private double budgetRatio = 0.1;
+
+    /** 每个注册中心最多积累的对冲额度(次) */
+    private int budgetMaxTokens = 10;
+
+    /** 执行下游调用的最大线程数，线程耗尽时直接在请求线程调用且不对冲 */
+    private int executorThreads = 64;
+}
@@ -0,0 +1,28 @@
+package com.changjiang.bff.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * JFR事件配置
+ * 网关的JFR事件(com.changjiang.bff.*)由JFR录制配置控制，这里只配置进程内的流式消费
+ *
+ * ### 配置示例
+ * ```properties
+ * # 进程内订阅网关请求、下游调用和GC事件，补充路由实时统计中的字节数、下游耗时和GC停顿
+ * bff.jfr.streaming-enabled=true
+ * bff.jfr.streaming-max-age-seconds=30
+ * ```
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bff.jfr")
+public class JfrProperties {
+
+    /** 是否启用进程内JFR流式消费，启用后网关请求事件始终被录制 */
+    private boolean streamingEnabled = false;
+
+    /** 流式消费的录制数据保留时间(秒) */
+    private long streamingMaxAgeSeconds = 30;
+}
@@ -0,0 +1,32 @@
+package com.changjiang.bff.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 请求阶段耗时统计配置
+ *
+ * ### 配置示例
+ * ```properties
+ * bff.metrics.phases.enabled=true
+ * bff.metrics.phases.report-interval-seconds=10
+ * ```
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bff.metrics.phases")
+public class PhaseMetricsProperties {
+
+    /** 是否启用阶段耗时统计 */
+    private boolean enabled = true;
+
+    /** 汇总间隔(秒)，指标中的分位数为最近一个间隔的值 */
+    private long reportIntervalSeconds = 10;
+
+    /** 直方图精度(有效数字位数) */
+    private int significantDigits = 2;
+
+    /** 可记录的最大耗时(毫秒)，超过时按最大值记录 */
+    private long highestTrackableMillis = 600000;
+}
@@ -0,0 +1,39 @@
+package com.changjiang.bff.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * mesh注册中心探测配置
+ * 用于主备注册中心的健康和延迟探测，以及带迟滞的流量切换
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "cpc.registry-probe")
+public class RegistryProbeProperties {
+
+    /** 是否启用探测 */
+    private boolean enabled = true;
+
+    /** 探测间隔(毫秒) */
+    private long intervalMillis = 5000;
+
+    /** 单次探测的连接超时(毫秒) */
+    private int connectTimeoutMillis = 1000;
+
+    /** 连续失败多少次判定为不健康 */
+    private int failureThreshold = 3;
+
+    /** 连续满足切换条件多少次才切换，防止抖动 */
+    private int switchThreshold = 3;
+
+    /** 当前注册中心延迟超过另一方的倍数时视为更慢 */
+    private double latencyRatio = 1.5;
+
+    /** 延迟指数加权平均系数 */
+    private double ewmaAlpha = 0.3;
+
+    /** 两次切换的最小间隔(秒)，当前注册中心不健康时不受限制 */
+    private long minSwitchIntervalSeconds = 60;
+}
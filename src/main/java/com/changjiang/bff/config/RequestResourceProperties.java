@@ -0,0 +1,58 @@
+package com.changjiang.bff.config;
+
+import com.changjiang.bff.enums.MaskType;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 请求资源统计配置
+ * 按路由统计每个请求分配的字节数和CPU时间，超过阈值的请求保留采样
+ *
+ * ### 配置示例
+ * ```properties
+ * bff.metrics.resources.enabled=true
+ * bff.metrics.resources.slow-threshold-millis=3000
+ * bff.metrics.resources.allocation-threshold-bytes=52428800
+ * # 请求体采样按字段名脱敏(忽略大小写)
+ * bff.metrics.resources.mask-fields.mobile=PHONE
+ * ```
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bff.metrics.resources")
+public class RequestResourceProperties {
+
+    /** 是否启用请求资源统计 */
+    private boolean enabled = true;
+
+    /** 慢请求阈值(毫秒)，超过时保留采样，0表示不按耗时采样 */
+    private long slowThresholdMillis = 3000;
+
+    /** 大分配请求阈值(字节)，超过时保留采样，0表示不按分配量采样 */
+    private long allocationThresholdBytes = 50L * 1024 * 1024;
+
+    /** 保留的采样条数，超过时覆盖最早的采样 */
+    private int captureCapacity = 100;
+
+    /** 采样请求体的最大字符数 */
+    private int bodySampleMaxChars = 2048;
+
+    /** 请求体采样的脱敏字段，key: 字段名, value: 脱敏类型 */
+    private Map<String, MaskType> maskFields = defaultMaskFields();
+
+    private static Map<String, MaskType> defaultMaskFields() {
+        Map<String, MaskType> fields = new LinkedHashMap<>();
+        fields.put("phone", MaskType.PHONE);
+        fields.put("mobile", MaskType.PHONE);
+        fields.put("idCard", MaskType.ID_CARD);
+        fields.put("email", MaskType.EMAIL);
+        fields.put("bankCard", MaskType.BANK_CARD);
+        fields.put("password", MaskType.DEFAULT);
+        fields.put("name", MaskType.DEFAULT);
+        return fields;
+    }
+}
@@ -0,0 +1,41 @@
+package com.changjiang.bff.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 响应写出配置
+ * 启用后GenerateController等返回的Result由ResultEnvelopeWriter直接写出，不再经过通用的JSON消息转换器
+ * 只处理/changjiang下的动态路由；配置了spring.jackson.*时不启用，避免与Jackson的输出不一致
+ *
+ * ### 配置示例
+ * ```properties
+ * bff.response.writer.enabled=true
+ * # 日期格式，jackson与Spring Boot默认的Jackson输出一致(UTC，yyyy-MM-dd'T'HH:mm:ss.SSS+00:00)；
+ * # 也可使用fastjson2的格式：iso8601、millis或yyyy-MM-dd HH:mm:ss等
+ * bff.response.writer.date-format=jackson
+ * bff.response.writer.write-nulls=true
+ * bff.response.writer.max-retained-buffer-bytes=65536
+ * ```
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bff.response.writer")
+public class ResponseWriterProperties {
+
+    /** 是否启用Result直接写出 */
+    private boolean enabled = true;
+
+    /** data中日期类型的格式：jackson | fastjson2的日期格式(iso8601 | millis | 日期模式) */
+    private String dateFormat = "jackson";
+
+    /** 是否输出值为null的字段，与Jackson默认行为一致 */
+    private boolean writeNulls = true;
+
+    /** 每个线程保留的写缓冲区上限(字节)，超过的缓冲区用完即释放 */
+    private int maxRetainedBufferBytes = 64 * 1024;
+
+    /** 预编码的msg缓存条数上限，超过后其余msg每次编码 */
+    private int messageCacheSize = 256;
+}
@@ -0,0 +1,32 @@
+package com.changjiang.bff.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 路由实时统计配置
+ *
+ * ### 配置示例
+ * ```properties
+ * bff.metrics.route-stats.enabled=true
+ * bff.metrics.route-stats.window-millis=1000
+ * ```
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bff.metrics.route-stats")
+public class RouteStatsProperties {
+
+    /** 是否启用路由实时统计 */
+    private boolean enabled = true;
+
+    /** 统计窗口(毫秒)，QPS、错误率和分位数为最近一个窗口的值 */
+    private long windowMillis = 1000;
+
+    /** 直方图精度(有效数字位数) */
+    private int significantDigits = 2;
+
+    /** 可记录的最大耗时(毫秒)，超过时按最大值记录 */
+    private long highestTrackableMillis = 600000;
+}
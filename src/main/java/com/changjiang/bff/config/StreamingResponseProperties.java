@@ -0,0 +1,56 @@
+package com.changjiang.bff.config;
+
+import com.changjiang.bff.enums.StreamingFormat;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式响应配置
+ * 返回集合的路由可逐行脱敏并分块写出，不在堆中同时持有完整列表、脱敏副本和序列化结果；
+ * 返回Iterator的路由(gRPC服务端流的阻塞调用)始终流式写出
+ *
+ * ### 配置示例
+ * ```properties
+ * bff.response.streaming.enabled=true
+ * # 始终流式写出的列表路由；其余返回集合的路由在请求头Accept: application/x-ndjson时流式写出
+ * bff.response.streaming.routes[0]=/order/export/**
+ * bff.response.streaming.format=json_array
+ * bff.response.streaming.flush-bytes=32768
+ * bff.response.streaming.flush-interval-millis=200
+ * bff.response.streaming.queue-capacity=256
+ * bff.response.streaming.pull-threads=64
+ * ```
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bff.response.streaming")
+public class StreamingResponseProperties {
+
+    /** 是否启用流式响应 */
+    private boolean enabled = true;
+
+    /** 始终流式写出的路由(Ant风格) */
+    private List<String> routes = new ArrayList<>();
+
+    /** 未要求NDJSON时的响应格式 */
+    private StreamingFormat format = StreamingFormat.JSON_ARRAY;
+
+    /** 缓冲的字节数达到该值时写出 */
+    private int flushBytes = 32 * 1024;
+
+    /** 距上次写出超过该时间(毫秒)时写出，后端流较慢时客户端也能及时收到数据 */
+    private long flushIntervalMillis = 200;
+
+    /** 服务端流读取队列容量，队列满时暂停读取后端流 */
+    private int queueCapacity = 256;
+
+    /** 服务端流读取线程数上限，即同时流式写出的服务端流数量上限，超出时返回999429 */
+    private int pullThreads = 64;
+
+    /** 是否逐行脱敏，默认与普通响应一致不脱敏 */
+    private boolean maskRows = false;
+}
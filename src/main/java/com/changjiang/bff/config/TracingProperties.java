@@ -0,0 +1,49 @@
+package com.changjiang.bff.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 请求追踪配置
+ * 头部采样决定是否保留请求的span，未采中的慢请求在结束时仍然保留(尾部保留)
+ *
+ * ### 配置示例
+ * ```properties
+ * bff.tracing.enabled=true
+ * bff.tracing.sample-rate=0.01
+ * bff.tracing.slow-threshold-millis=1000
+ * # 内置导出器: memory | file | none，另外注册的SpanExporter Bean同时生效
+ * bff.tracing.exporter=memory
+ * bff.tracing.file-path=logs/bff-spans.jsonl
+ * ```
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "bff.tracing")
+public class TracingProperties {
+
+    /** 是否启用追踪 */
+    private boolean enabled = true;
+
+    /** 头部采样率(0~1)，上游传入traceparent时沿用上游的采样结果 */
+    private double sampleRate = 0.01;
+
+    /** 耗时超过该值(毫秒)的请求即使未采中也保留，0表示不启用尾部保留 */
+    private long slowThresholdMillis = 1000;
+
+    /** 内置导出器: memory | file | none */
+    private String exporter = "memory";
+
+    /** 内存导出器保留的请求数 */
+    private int memoryCapacity = 1000;
+
+    /** 文件导出器的文件路径 */
+    private String filePath = "logs/bff-spans.jsonl";
+
+    /** 待导出队列的容量，写满时丢弃 */
+    private int queueCapacity = 4096;
+
+    /** 返回给客户端的traceId响应头，为空时不返回 */
+    private String responseHeader = "X-Trace-Id";
+}
@@ -1,14 +1,66 @@
 package com.changjiang.bff.config;
 
+import com.changjiang.bff.web.AdminAccessInterceptor;
+import com.changjiang.bff.web.ResultEnvelopeHttpMessageConverter;
+import com.changjiang.bff.web.ResultEnvelopeWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
 
 @Configuration
-public class WebConfig {
+public class WebConfig implements WebMvcConfigurer {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebConfig.class);
+
+    @Autowired
+    private ResponseWriterProperties responseWriterProperties;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private AdminAccessProperties adminAccessProperties;
+
+    @Autowired
+    private ResultEnvelopeWriter resultEnvelopeWriter;
 
     @Bean
     public RestTemplate restTemplate() {
         return new RestTemplate();
     }
-} 
\ No newline at end of file
+
+    /**
+     * 管理接口只允许白名单地址或携带管理令牌的请求访问
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AdminAccessInterceptor(adminAccessProperties)).addPathPatterns("/admin/**");
+    }
+
+    /**
+     * Result由ResultEnvelopeWriter直接写出，排在Jackson转换器之前
+     * 配置了spring.jackson.*时Jackson的输出与直接写出不一致，不启用
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        if (!responseWriterProperties.isEnabled()) {
+            return;
+        }
+        if (Binder.get(environment).bind("spring.jackson", Bindable.mapOf(String.class, Object.class)).isBound()) {
+            logger.warn("spring.jackson.* is configured, Result is written by Jackson instead of ResultEnvelopeWriter");
+            return;
+        }
+        converters.add(0, new ResultEnvelopeHttpMessageConverter(resultEnvelopeWriter));
+    }
+}
@@ -40,4 +40,34 @@ public class PubConstants {
     public static final int MAX_RETRY_TIMES = 3;
     
     public static final String ERROR_INVOKE_EXCEPTION = "999999";
+
+    /** 
+     * 并发超限
+     * 下游注册中心的在途请求数达到自适应上限，请求被立即拒绝
+     */
+    public static final String ERROR_CONCURRENCY_LIMIT_EXCEEDED = "999429";
+
+    /** 
+     * 重复请求
+     * 同一用户对同一接口的相同请求仍在处理中
+     */
+    public static final String ERROR_DUPLICATE_REQUEST = "999409";
+
+    /** 
+     * 熔断
+     * 下游注册中心或路由的熔断器处于打开状态，请求被快速失败
+     */
+    public static final String ERROR_CIRCUIT_OPEN = "999503";
+
+    /** 
+     * 请求超时
+     * 请求的剩余时间已耗尽，不再调用下游
+     */
+    public static final String ERROR_DEADLINE_EXCEEDED = "999504";
+
+    /** 
+     * 参数校验失败
+     * 请求参数缺失或不满足接口的校验规则
+     */
+    public static final String ERROR_PARAMETER_INVALID = "999400";
 } 
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.changjiang.bff.core;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * API扫描完成事件
+ * 主要职责：
+ * 1. 在ApiScanner完成插件JAR扫描后发布
+ * 2. 向监听方提供只读的API注册表视图
+ *
+ * 调用关系：
+ * - 被ApiScanner.scanAllApis发布
+ * - 被CrpcReferenceConfigCacheLoader监听，用于预热服务代理
+ */
+public class ApiScanCompletedEvent extends ApplicationEvent {
+
+    /** 扫描得到的API注册表(只读) */
+    private final Map<String, ServiceApiInfo> apiRegistry;
+
+    public ApiScanCompletedEvent(Object source, Map<String, ServiceApiInfo> apiRegistry) {
+        super(source);
+        this.apiRegistry = Collections.unmodifiableMap(apiRegistry);
+    }
+
+    public Map<String, ServiceApiInfo> getApiRegistry() {
+        return apiRegistry;
+    }
+}
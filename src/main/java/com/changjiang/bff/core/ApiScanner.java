@@ -3,6 +3,10 @@ package com.changjiang.bff.core;
 import com.alibaba.fastjson2.JSONObject;
 import com.changjiang.bff.annotation.ServiceConfig;
 import com.changjiang.bff.config.ServiceScanProperties;
+import com.changjiang.bff.core.binding.PageResultAdapter;
+import com.changjiang.bff.core.channel.GrpcChannelPoolManager;
+import com.changjiang.bff.core.jfr.PluginScanEvent;
+import com.changjiang.bff.core.trace.TracingClientInterceptor;
 import com.changjiang.grpc.factory.GrpcServiceFactory;
 import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
 import org.eclipse.aether.DefaultRepositorySystemSession;
@@ -31,6 +35,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
@@ -40,6 +45,7 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarFile;
 
 /**
  * API扫描器
@@ -49,6 +55,7 @@ import java.util.concurrent.ConcurrentHashMap;
  * 1. **动态加载外部JAR包**：根据配置的Maven坐标，从远程仓库下载并加载JAR包。
  * 2. **扫描服务接口注解**：使用反射和`Reflections`库扫描JAR包中的类和方法，查找带有`@ServiceConfig`注解的方法。
  * 3. **注册服务API信息**：将扫描到的服务接口信息封装为`ServiceApiInfo`对象，并存储在内存中以供后续使用。
+ * 4. **扫描事件**：解析坐标、扫描JAR的每个步骤提交`PluginScanEvent`，在JFR录制中可见。
  */
 @Component
 public class ApiScanner {
@@ -65,9 +72,18 @@ public class ApiScanner {
     @Autowired
     private GrpcServiceFactory grpcServiceFactory;
 
+    @Autowired
+    private GrpcChannelPoolManager channelPoolManager; // 路由客户端的调用走注册中心连接池
+
+    @Autowired
+    private TracingClientInterceptor tracingClientInterceptor; // 路由客户端的追踪上下文传播
+
     @Autowired
     private  ServiceScanProperties serviceScanProperties; // 从配置文件中读取扫描配置
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher; // 扫描完成后通知预热等后续处理
+
     // public ApiScanner(ServiceScanProperties serviceScanProperties) {
     //     this.serviceScanProperties = serviceScanProperties;
     // }
@@ -93,6 +109,7 @@ public class ApiScanner {
      * 3. 解析并下载每个坐标对应的JAR文件。
      * 4. 扫描每个JAR文件，查找带有`@ServiceConfig`注解的方法。
      * 5. 打印扫描结果。
+     * 6. 发布扫描完成事件。
      */
     public void scanAllApis() {
         logger.info("开始扫描所有配置的API...");
@@ -112,25 +129,37 @@ public class ApiScanner {
 
         // 3. 处理每个坐标
         for (String coordinate : coordinates) {
+            PluginScanEvent resolveEvent = new PluginScanEvent();
+            resolveEvent.begin();
             try {
                 logger.info("开始处理坐标: {}", coordinate);
 
                 // 4. 解析并下载依赖
                 Set<File> jarFiles = resolveArtifact(system, session, repositories, coordinate);
                 logger.info("坐标 {} 解析完成，下载的JAR文件: {}", coordinate, jarFiles);
+                resolveEvent.end();
+                resolveEvent.jarCount = jarFiles.size();
+                resolveEvent.success = true;
+                commitScanEvent(resolveEvent, PluginScanEvent.STEP_RESOLVE, coordinate);
 
                 // 5. 扫描每个JAR文件
                 for (File jarFile : jarFiles) {
                     logger.info("开始扫描JAR文件: {}", jarFile.getName());
-                    scanJarFile(jarFile);
+                    scanJarFile(jarFile, coordinate);
                 }
             } catch (Exception e) {
                 logger.error("处理坐标 {} 时发生错误", coordinate, e);
+                if (!resolveEvent.success) {
+                    commitScanEvent(resolveEvent, PluginScanEvent.STEP_RESOLVE, coordinate);
+                }
             }
         }
 
         // 6. 打印扫描结果
         printScanResults();
+
+        // 7. 发布扫描完成事件
+        eventPublisher.publishEvent(new ApiScanCompletedEvent(this, apiRegistry));
     }
 
     /**
@@ -139,9 +168,13 @@ public class ApiScanner {
      * 2. 使用`Reflections`库扫描JAR文件中的类和方法，查找带有`@ServiceConfig`注解的方法。
      * 3. 处理每个找到的方法，将其注册为服务API。
      *
-     * @param jarFile 需要扫描的JAR文件
+     * @param jarFile    需要扫描的JAR文件
+     * @param coordinate JAR所属的Maven坐标
      */
-    private void scanJarFile(File jarFile) {
+    private void scanJarFile(File jarFile, String coordinate) {
+        PluginScanEvent scanEvent = new PluginScanEvent();
+        scanEvent.begin();
+        scanEvent.jar = jarFile.getName();
         try (URLClassLoader classLoader = new URLClassLoader(new URL[]{jarFile.toURI().toURL()}, this.getClass().getClassLoader())) {
             logger.info("创建类加载器，加载JAR文件: {}", jarFile.getName());
 
@@ -156,12 +189,45 @@ public class ApiScanner {
             logger.info("在JAR文件 {} 中找到 {} 个带有@ServiceConfig注解的方法", jarFile.getName(), methods.size());
 
             // 处理每个找到的方法
+            int registered = 0;
             for (Method method : methods) {
-                processMethod(method);
+                if (processMethod(method)) {
+                    registered++;
+                }
             }
+            scanEvent.methodsFound = methods.size();
+            scanEvent.apisRegistered = registered;
+            scanEvent.success = true;
         } catch (Exception e) {
             logger.error("扫描JAR文件 {} 时发生错误", jarFile.getName(), e);
         }
+        scanEvent.end();
+        if (scanEvent.shouldCommit()) {
+            scanEvent.classesScanned = countClasses(jarFile);
+        }
+        commitScanEvent(scanEvent, PluginScanEvent.STEP_SCAN, coordinate);
+    }
+
+    /**
+     * 提交扫描步骤的JFR事件，未录制时不提交
+     */
+    private static void commitScanEvent(PluginScanEvent event, String step, String coordinate) {
+        if (event.shouldCommit()) {
+            event.step = step;
+            event.coordinate = coordinate;
+            event.commit();
+        }
+    }
+
+    /**
+     * 统计JAR中的类文件数量，只在录制扫描事件时调用
+     */
+    private static int countClasses(File jarFile) {
+        try (JarFile jar = new JarFile(jarFile)) {
+            return (int) jar.stream().filter(entry -> entry.getName().endsWith(".class")).count();
+        } catch (Exception e) {
+            return -1;
+        }
     }
 
     /**
@@ -172,8 +238,9 @@ public class ApiScanner {
      * 4. 将服务API信息存入`apiRegistry`。
      *
      * @param method 需要处理的方法
+     * @return 是否注册成功
      */
-    private void processMethod(Method method) {
+    private boolean processMethod(Method method) {
         logger.info("处理方法: {}.{}", method.getDeclaringClass().getName(), method.getName());
 
         // 1. 获取方法上的@ServiceConfig注解
@@ -181,13 +248,15 @@ public class ApiScanner {
         if (configAnnotation == null) {
             logger.warn("方法 {}.{} 未找到@ServiceConfig注解，跳过处理",
                     method.getDeclaringClass().getName(), method.getName());
-            return;
+            return false;
         }
 
         try {
-            // 2. 创建gRPC客户端实例
+            // 2. 创建gRPC客户端实例，调用转到注册中心连接池，再挂上追踪上下文传播拦截器(后挂的拦截器先执行)
             Object grpcClient = grpcServiceFactory.createServiceFromLoadedClass(
                     configAnnotation.registryId(), method.getDeclaringClass());
+            grpcClient = channelPoolManager.route(configAnnotation.registryId(), grpcClient);
+            grpcClient = tracingClientInterceptor.intercept(grpcClient);
 
             // 3. 扫描方法相关的所有DTO类
             Set<Class<?>> relatedDtoClasses = new HashSet<>();
@@ -233,18 +302,28 @@ public class ApiScanner {
             ServiceApiInfo apiInfo = ServiceApiInfo.builder()
                     .method(method)
                     .serviceConfig(configAnnotation)
+                    .url(configAnnotation.url())
+                    .registryId(configAnnotation.registryId())
+                    .methodName(method.getName())
                     .instance(grpcClient)
                     .requestType(method.getParameterTypes())
                     .responseType(method.getReturnType())
                     .relatedDtoClasses(relatedDtoClasses)
                     .build();
+            // 注册时编译参数校验规则和参数绑定计划，规则或默认值错误的API不注册
+            apiInfo.compileValidations();
+            apiInfo.compileBindingPlan();
+            // 返回类型为分页对象时预先识别并缓存其getter
+            PageResultAdapter.forClass(method.getReturnType());
 
             // 4. 将服务API信息存入apiRegistry
             String key = configAnnotation.url();
             apiRegistry.put(key, apiInfo);
             logger.info("成功注册服务API: {}.{}，键: {}", method.getDeclaringClass().getName(), method.getName(), key);
+            return true;
         } catch (Exception e) {
             logger.error("处理方法失败: {}.{}", method.getDeclaringClass().getName(), method.getName(), e);
+            return false;
         }
     }
 
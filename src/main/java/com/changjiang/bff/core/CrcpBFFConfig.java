@@ -46,6 +46,20 @@ public class CrcpBFFConfig {
      */
     private String registryId;
 
+    /** 
+     * 重试次数
+     * 注册中心级别的默认重试次数
+     * 为空时使用crpc.retries
+     */
+    private Integer retries;
+
+    /** 
+     * 负载均衡策略
+     * 注册中心级别的默认负载均衡策略
+     * 为空时使用crpc.loadbalance
+     */
+    private String loadbalance;
+
     // Getters and Setters
     public String getAddress() {
         return address;
@@ -78,4 +92,20 @@ public class CrcpBFFConfig {
     public void setRegistryId(String registryId) {
         this.registryId = registryId;
     }
+
+    public Integer getRetries() {
+        return retries;
+    }
+
+    public void setRetries(Integer retries) {
+        this.retries = retries;
+    }
+
+    public String getLoadbalance() {
+        return loadbalance;
+    }
+
+    public void setLoadbalance(String loadbalance) {
+        this.loadbalance = loadbalance;
+    }
 }
@@ -1,19 +1,41 @@
 package com.changjiang.bff.core;
 
+import com.changjiang.bff.annotation.ServiceConfig;
 import com.changjiang.bff.config.CrpcProperties;
 import com.changjiang.bff.entity.ServiceInfo;
 import com.changjiang.bff.exception.ServiceException;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * CRPC引用配置缓存加载器
@@ -21,42 +43,66 @@ import java.util.concurrent.ConcurrentHashMap;
  * 1. 管理CRPC服务引用的缓存
  * 2. 提供服务代理对象的创建和获取
  * 3. 优化服务引用的性能
- * 
+ *
  * 使用场景：
- * - 服务代理对象的缓存管理
+ * - 服务代理对象的缓存管理(容量上限、空闲淘汰、按key刷新)
  * - 动态服务引用加载
- * - 性能优化
- * 
+ * - 启动时批量预热
+ *
  * 调用关系：
  * - 被CrpcTransferService调用获取服务代理
  * - 调用RPC框架创建服务代理
  * - 与ServiceInfo配合完成服务发现
+ * - 监听ApiScanCompletedEvent，在后台线程按批预热所有接口(getAll -> loadAll)，有时间上限
  */
 @Component
 public class CrpcReferenceConfigCacheLoader extends CacheLoader<ServiceInfo, Object> {
 
     private static final Logger logger = LoggerFactory.getLogger(CrpcReferenceConfigCacheLoader.class);
 
-    /** 服务引用缓存 */
-    private final Map<String, ReferenceConfig<?>> referenceConfigCache = new ConcurrentHashMap<>();
-    
-    /** 服务代理缓存 */
-    private final Map<String, Object> proxyCache = new ConcurrentHashMap<>();
-    
+    /** CRPC注册中心配置前缀 */
+    private static final String REGISTRY_PREFIX = "cpc.registries";
+
+    /**
+     * 服务代理缓存
+     * key: 规范化的服务信息(接口+地址+协议), value: 服务代理
+     */
+    private LoadingCache<ServiceInfo, Object> proxyCache;
+
+    /**
+     * 接口名索引
+     * key: 接口全限定名, value: 最近创建的代理缓存key
+     * 用于按接口名获取代理；刷新和淘汰按缓存中该接口的所有key处理
+     */
+    private final Map<String, ServiceInfo> interfaceKeyIndex = new ConcurrentHashMap<>();
+
+    /**
+     * 正在创建中的代理
+     * 保证同一个key的ReferenceConfig.get()不会被并发执行(load/reload/loadAll共用)
+     */
+    private final Map<ServiceInfo, CompletableFuture<Object>> creatingProxies = new ConcurrentHashMap<>();
+
+    /** 后台刷新线程池 */
+    private ExecutorService refreshExecutor;
+
     @Autowired
     private CrpcProperties crpcProperties;
 
     @Autowired
     private NpcsgptwPropertyUtils npcgwPropertyUtils;
 
+    @Autowired
+    private MethodPolicyRegistry methodPolicyRegistry;
+
     private String backupId;
     private String backupProtocol;
     private String backupAddress;
 
-    /** 
+    /**
      * 引用配置缓存
      * 存储服务引用的配置信息
-     * key: 服务信息, value: 引用配置
+     * key: 接口名@协议://地址(referenceKey), value: 引用配置
+     * 主备注册中心的引用配置各自独立，条目随对应代理的淘汰一起移除
      */
     public static ConcurrentHashMap<String, ReferenceConfig> REFERENCE_CONFIG_MAP = new ConcurrentHashMap<>();
 
@@ -64,6 +110,39 @@ public class CrpcReferenceConfigCacheLoader extends CacheLoader<ServiceInfo, Obj
         // Constructor logic if any
     }
 
+    /**
+     * 初始化代理缓存
+     */
+    @PostConstruct
+    public void init() {
+        initBackupConfigs();
+        refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "crpc-proxy-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .maximumSize(crpcProperties.getProxyCacheMaximumSize())
+                .recordStats();
+        if (crpcProperties.getProxyCacheExpireAfterAccessMinutes() > 0) {
+            builder.expireAfterAccess(crpcProperties.getProxyCacheExpireAfterAccessMinutes(), TimeUnit.MINUTES);
+        }
+        if (crpcProperties.getProxyCacheRefreshAfterWriteMinutes() > 0) {
+            builder.refreshAfterWrite(crpcProperties.getProxyCacheRefreshAfterWriteMinutes(), TimeUnit.MINUTES);
+        }
+        proxyCache = builder
+                .removalListener((RemovalNotification<ServiceInfo, Object> notification) -> onProxyRemoved(notification))
+                .build(this);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
     public void initBackupConfigs() {
         CrcpBFFConfig backupConfig = this.npcgwPropertyUtils.getBackupProperties("cpc.registries.nacosconf");
         if (backupConfig != null) {
@@ -73,130 +152,359 @@ public class CrpcReferenceConfigCacheLoader extends CacheLoader<ServiceInfo, Obj
         }
     }
 
+    /**
+     * 获取备份注册中心配置
+     *
+     * @return 备份注册中心，未配置时返回null
+     */
+    public RegistryConfig getBackupRegistry() {
+        if (this.backupAddress == null) {
+            return null;
+        }
+        RegistryConfig backUp = new RegistryConfig();
+        backUp.setAddress(this.backupAddress);
+        backUp.setProtocol(this.backupProtocol);
+        return backUp;
+    }
+
     public static ConcurrentHashMap<String, ReferenceConfig> getReferenceConfigMap() {
         return REFERENCE_CONFIG_MAP;
     }
 
     /**
      * 获取服务代理
+     * 同一个key的代理只会被创建一次，并发调用方等待同一个创建结果
+     *
+     * @return 服务代理；RPC框架未创建出代理时返回null且不缓存，由调用方在调用时报错
      */
-    public Object getProxy(String interfaceName) throws ServiceException {
+    public Object getProxy(ServiceInfo serviceInfo) throws ServiceException {
         try {
-            return proxyCache.computeIfAbsent(interfaceName, k -> {
-                try {
-                    ReferenceConfig<?> referenceConfig = getReferenceConfig(interfaceName);
-                    return referenceConfig.get();
-                } catch (Exception e) {
-                    logger.error("Failed to create proxy for interface: " + interfaceName, e);
-                    throw new ServiceException("PROXY_ERROR", "创建服务代理失败", e);
-                }
-            });
+            return proxyCache.getUnchecked(cacheKey(serviceInfo));
+        } catch (CacheLoader.InvalidCacheLoadException e) {
+            // ReferenceConfig.get()返回null，与原先一样透传null，下次获取时重新创建
+            logger.warn("Proxy not available for interface: {}", serviceInfo.getInterfaceClass().getName());
+            return null;
+        } catch (UncheckedExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ServiceException) {
+                throw (ServiceException) cause;
+            }
+            logger.error("Get proxy error", cause);
+            throw new ServiceException("PROXY_ERROR", "获取服务代理失败", cause);
         } catch (Exception e) {
             logger.error("Get proxy error", e);
             throw new ServiceException("PROXY_ERROR", "获取服务代理失败", e);
         }
     }
-    
+
     /**
-     * 获取引用配置
+     * 按接口名获取已加载的服务代理
      */
-    private ReferenceConfig<?> getReferenceConfig(String interfaceName) throws ClassNotFoundException {
-        return referenceConfigCache.computeIfAbsent(interfaceName, k -> {
-            try {
-                ReferenceConfig<?> referenceConfig = new ReferenceConfig<>();
-                //referenceConfig.setInterface(Class.forName(interfaceName));
-                
-                // 设置超时和重试配置
-                referenceConfig.setTimeout(crpcProperties.getTimeout());
-                referenceConfig.setRetries(crpcProperties.getRetries());
-                
-                // 设置集群策略
-                if (!StringUtils.isEmpty(crpcProperties.getCluster())) {
-                    referenceConfig.setCluster(crpcProperties.getCluster());
-                }
-                
-                // 设置负载均衡策略
-                if (!StringUtils.isEmpty(crpcProperties.getLoadbalance())) {
-                    referenceConfig.setLoadbalance(crpcProperties.getLoadbalance());
-                }
-                
-                return referenceConfig;
-            } catch (Exception e) {
-                logger.error("Interface not found: " + interfaceName, e);
-                throw new ServiceException("CLASS_NOT_FOUND", "服务接口不存在", e);
+    public Object getProxy(String interfaceName) throws ServiceException {
+        ServiceInfo key = interfaceKeyIndex.get(interfaceName);
+        if (key == null) {
+            throw new ServiceException("PROXY_NOT_LOADED", "服务代理未加载: " + interfaceName);
+        }
+        return getProxy(key);
+    }
+
+    /**
+     * 刷新指定接口在各注册中心的服务代理
+     * 刷新在后台执行，完成前继续使用旧代理
+     */
+    public void refresh(String interfaceName) {
+        List<ServiceInfo> keys = keysOf(interfaceName);
+        keys.forEach(proxyCache::refresh);
+        logger.info("Proxy refresh scheduled: {}, registries: {}", interfaceName, keys.size());
+    }
+
+    /**
+     * 刷新所有已加载的服务代理
+     * 用于方法策略等配置变更后重建引用配置
+     */
+    public void refreshAll() {
+        List<ServiceInfo> keys = new ArrayList<>(proxyCache.asMap().keySet());
+        keys.forEach(proxyCache::refresh);
+        logger.info("Proxy refresh scheduled for {} proxies", keys.size());
+    }
+
+    /**
+     * 淘汰指定接口在各注册中心的服务代理
+     */
+    public void evict(String interfaceName) {
+        List<ServiceInfo> keys = keysOf(interfaceName);
+        proxyCache.invalidateAll(keys);
+        logger.info("Proxy evicted: {}, registries: {}", interfaceName, keys.size());
+    }
+
+    private List<ServiceInfo> keysOf(String interfaceName) {
+        List<ServiceInfo> keys = new ArrayList<>();
+        for (ServiceInfo key : proxyCache.asMap().keySet()) {
+            if (key.getInterfaceClass().getName().equals(interfaceName)) {
+                keys.add(key);
             }
-        });
+        }
+        return keys;
     }
-    
+
     /**
      * 清除缓存
      */
     public void clearCache() {
-        referenceConfigCache.clear();
-        proxyCache.clear();
+        proxyCache.invalidateAll();
+        interfaceKeyIndex.clear();
         REFERENCE_CONFIG_MAP.clear();
         logger.info("All caches cleared");
     }
 
+    /**
+     * 获取代理缓存统计信息
+     */
+    public CacheStats getCacheStats() {
+        return proxyCache.stats();
+    }
+
+    /**
+     * 获取当前缓存的代理数量
+     */
+    public long getCacheSize() {
+        return proxyCache.size();
+    }
+
     @Override
     public Object load(ServiceInfo serviceInfo) throws Exception {
-        return getRpcProxy(serviceInfo);
+        return createProxy(serviceInfo);
     }
 
-    public ReferenceConfig getRpcProxy(ServiceInfo serviceInfo) {
-        String itfName = serviceInfo.getInterfaceClass().getName();
-        ReferenceConfig clientProxy = REFERENCE_CONFIG_MAP.get(itfName);
-        if (clientProxy == null) {
-            clientProxy = this.getReferenceConfig(serviceInfo.getAddress(), 
-                                                serviceInfo.getProtocol(), 
-                                                serviceInfo.getInterfaceClass(), 
-                                                serviceInfo.getMethodName(), 
-                                                serviceInfo.getTimeoutMills());
-            REFERENCE_CONFIG_MAP.put(itfName, clientProxy);
+    /**
+     * 后台刷新代理
+     * 重新构建引用配置后创建新代理，失败时保留旧代理
+     */
+    @Override
+    public ListenableFuture<Object> reload(ServiceInfo serviceInfo, Object oldValue) {
+        ListenableFutureTask<Object> task = ListenableFutureTask.create(() -> {
+            REFERENCE_CONFIG_MAP.remove(referenceKey(serviceInfo.getInterfaceClass(), serviceInfo.getAddress(), serviceInfo.getProtocol()));
+            return createProxy(serviceInfo);
+        });
+        refreshExecutor.execute(task);
+        return task;
+    }
+
+    /**
+     * 批量创建代理
+     * 由预热通过proxyCache.getAll调用；单个接口创建失败只记录日志，不影响其他接口，
+     * 未返回的接口不写入缓存，在首次调用时重新创建
+     */
+    @Override
+    public Map<ServiceInfo, Object> loadAll(Iterable<? extends ServiceInfo> keys) throws Exception {
+        Map<ServiceInfo, Object> proxies = new LinkedHashMap<>();
+        for (ServiceInfo key : keys) {
+            try {
+                Object proxy = createProxy(key);
+                if (proxy != null) {
+                    proxies.put(key, proxy);
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to create proxy for interface: {}", key.getInterfaceClass().getName(), e);
+            }
         }
-        return clientProxy;
+        return proxies;
+    }
+
+    /**
+     * API扫描完成后在后台预热所有接口的服务代理，不阻塞启动
+     */
+    @EventListener(ApiScanCompletedEvent.class)
+    public void onApiScanCompleted(ApiScanCompletedEvent event) {
+        if (!crpcProperties.isProxyCachePrewarm()) {
+            return;
+        }
+        List<ServiceApiInfo> apiInfos = new ArrayList<>(event.getApiRegistry().values());
+        Thread thread = new Thread(() -> prewarm(apiInfos), "crpc-proxy-prewarm");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 预热服务代理
+     * 只处理配置了cpc.registries注册中心的接口，每个接口只创建一次；
+     * 按批通过proxyCache.getAll交给loadAll创建，每批开始前检查预热时间上限，
+     * 超过后不再创建新的代理，剩余接口在首次调用时创建
+     */
+    public void prewarm(Collection<ServiceApiInfo> apiInfos) {
+        Map<String, CrcpBFFConfig> registries = npcgwPropertyUtils.getPropertiesAppGroup(REGISTRY_PREFIX);
+        Set<ServiceInfo> keys = new LinkedHashSet<>();
+        for (ServiceApiInfo apiInfo : apiInfos) {
+            ServiceConfig serviceConfig = apiInfo.getServiceConfig();
+            if (serviceConfig == null || apiInfo.getMethod() == null) {
+                continue;
+            }
+            CrcpBFFConfig registry = registries.get(serviceConfig.registryId());
+            if (registry == null) {
+                continue;
+            }
+            ServiceInfo serviceInfo = new ServiceInfo();
+            serviceInfo.setInterfaceClass(apiInfo.getMethod().getDeclaringClass());
+            serviceInfo.setAddress(registry.getAddress());
+            serviceInfo.setProtocol(registry.getProtocol());
+            keys.add(cacheKey(serviceInfo));
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        long deadline = start + TimeUnit.SECONDS.toMillis(crpcProperties.getProxyCachePrewarmTimeoutSeconds());
+        int batchSize = Math.max(1, crpcProperties.getProxyCachePrewarmBatchSize());
+        List<ServiceInfo> pending = new ArrayList<>(keys);
+        int skipped = 0;
+        int unavailable = 0;
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            if (System.currentTimeMillis() >= deadline) {
+                skipped = pending.size() - from;
+                break;
+            }
+            List<ServiceInfo> batch = pending.subList(from, Math.min(from + batchSize, pending.size()));
+            try {
+                proxyCache.getAll(batch);
+            } catch (CacheLoader.InvalidCacheLoadException e) {
+                // loadAll未返回部分接口的代理，已创建的代理照常写入缓存
+            } catch (Exception e) {
+                logger.warn("Proxy prewarm failed for batch starting at interface: {}: {}",
+                        batch.get(0).getInterfaceClass().getName(), e.getMessage());
+            }
+            for (ServiceInfo key : batch) {
+                if (!proxyCache.asMap().containsKey(key)) {
+                    unavailable++;
+                }
+            }
+        }
+        logger.info("Proxy prewarm finished, requested: {}, cached: {}, unavailable: {}, skipped after timeout: {}, cost: {}ms",
+                keys.size(), proxyCache.size(), unavailable, skipped, System.currentTimeMillis() - start);
+    }
+
+    public ReferenceConfig getRpcProxy(ServiceInfo serviceInfo) {
+        return this.getReferenceConfig(serviceInfo.getAddress(),
+                                        serviceInfo.getProtocol(),
+                                        serviceInfo.getInterfaceClass(),
+                                        serviceInfo.getMethodName(),
+                                        serviceInfo.getTimeoutMills());
     }
 
     public ReferenceConfig getReferenceConfig(String address, String protocol, Class<?> interfaceClass, String methodName, int timeoutMills) {
-        ReferenceConfig referenceConfig = REFERENCE_CONFIG_MAP.get(interfaceClass.getName());
-        if (referenceConfig == null) {
-            referenceConfig = new ReferenceConfig();
-            
-            // 设置方法配置
+        return REFERENCE_CONFIG_MAP.computeIfAbsent(referenceKey(interfaceClass, address, protocol), k -> {
+            ReferenceConfig referenceConfig = new ReferenceConfig();
+
+            // 设置方法配置，每个方法使用各自的超时/重试/负载均衡策略
             List<MethodConfig> methods = new ArrayList<>();
-            MethodConfig methodConfig = new MethodConfig();
-            methodConfig.setMethodName(methodName);
-            methods.add(methodConfig);
+            Set<String> methodNames = new LinkedHashSet<>();
+            for (Method method : interfaceClass.getMethods()) {
+                if (method.getDeclaringClass() == Object.class || Modifier.isStatic(method.getModifiers())
+                        || !methodNames.add(method.getName())) {
+                    continue;
+                }
+                MethodPolicy policy = methodPolicyRegistry.getPolicy(interfaceClass, method.getName());
+                MethodConfig methodConfig = new MethodConfig();
+                methodConfig.setMethodName(method.getName());
+                methodConfig.setTimeout(policy.getTimeout());
+                methodConfig.setRetries(policy.getRetries());
+                methodConfig.setLoadbalance(policy.getLoadbalance());
+                methods.add(methodConfig);
+            }
             referenceConfig.setMethods(methods);
-            
+
             // 设置注册中心配置
             RegistryConfig registry = new RegistryConfig();
             registry.setAddress(address);
             registry.setProtocol(protocol);
-            
+
             // 设置备份注册中心
             if ("mesh".equalsIgnoreCase(protocol)) {
-                RegistryConfig backUp = new RegistryConfig();
-                backUp.setAddress(this.backupAddress);
-                backUp.setProtocol(this.backupProtocol);
-                registry.setBackupRegistry(backUp);
+                registry.setBackupRegistry(getBackupRegistry());
             }
-            
+
             referenceConfig.setRegistry(registry);
             referenceConfig.setInterfaceClass(interfaceClass);
-            
+            referenceConfig.setRetries(crpcProperties.getRetries());
+            referenceConfig.setCluster(crpcProperties.getCluster());
+            referenceConfig.setLoadbalance(crpcProperties.getLoadbalance());
+
             // 设置超时时间
-            if (timeoutMills < 0) {
-                timeoutMills = 30000;
+            referenceConfig.setTimeout(timeoutMills < 0 ? crpcProperties.getTimeout() : timeoutMills);
+            return referenceConfig;
+        });
+    }
+
+    /**
+     * 创建服务代理
+     * 同一个key同一时刻只有一个线程执行ReferenceConfig.get()，其他线程等待其结果
+     *
+     * @return 服务代理，RPC框架未创建出代理时为null
+     */
+    private Object createProxy(ServiceInfo key) {
+        CompletableFuture<Object> creating = new CompletableFuture<>();
+        CompletableFuture<Object> existing = creatingProxies.putIfAbsent(key, creating);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException
+                        ? (RuntimeException) e.getCause()
+                        : new ServiceException("PROXY_ERROR", "创建服务代理失败", e.getCause());
+            }
+        }
+
+        String interfaceName = key.getInterfaceClass().getName();
+        try {
+            long start = System.currentTimeMillis();
+            Object proxy = getRpcProxy(key).get();
+            creating.complete(proxy);
+            if (proxy != null) {
+                interfaceKeyIndex.put(interfaceName, key);
+                logger.info("Proxy created for interface: {}, cost: {}ms", interfaceName, System.currentTimeMillis() - start);
             }
-            referenceConfig.setTimeout(timeoutMills);
-            
-            REFERENCE_CONFIG_MAP.put(interfaceClass.getName(), referenceConfig);
+            return proxy;
+        } catch (RuntimeException e) {
+            logger.error("Failed to create proxy for interface: " + interfaceName, e);
+            creating.completeExceptionally(e);
+            throw e;
+        } finally {
+            creatingProxies.remove(key, creating);
+        }
+    }
+
+    /**
+     * 代理移除回调
+     * 被淘汰或显式移除时同步清理引用配置和接口索引，刷新替换时保留
+     */
+    private void onProxyRemoved(RemovalNotification<ServiceInfo, Object> notification) {
+        ServiceInfo key = notification.getKey();
+        if (key == null || notification.getCause() == RemovalCause.REPLACED) {
+            return;
         }
-        return referenceConfig;
+        String interfaceName = key.getInterfaceClass().getName();
+        interfaceKeyIndex.remove(interfaceName, key);
+        REFERENCE_CONFIG_MAP.remove(referenceKey(key.getInterfaceClass(), key.getAddress(), key.getProtocol()));
+        logger.info("Proxy removed for interface: {}, cause: {}", interfaceName, notification.getCause());
+    }
+
+    /**
+     * 生成引用配置key
+     * 同一接口在主备注册中心的引用配置分开保存，切换注册中心时使用各自的地址和协议
+     */
+    static String referenceKey(Class<?> interfaceClass, String address, String protocol) {
+        return interfaceClass.getName() + '@' + protocol + "://" + address;
     }
 
-    public Map loadAll(Iterable keys) throws Exception {
-        return null;
+    /**
+     * 生成代理缓存key
+     * 代理按接口维度创建，只保留接口、地址和协议，避免方法名等字段导致重复创建
+     */
+    private static ServiceInfo cacheKey(ServiceInfo serviceInfo) {
+        ServiceInfo key = new ServiceInfo();
+        key.setInterfaceClass(serviceInfo.getInterfaceClass());
+        key.setAddress(serviceInfo.getAddress());
+        key.setProtocol(serviceInfo.getProtocol());
+        return key;
     }
 }
@@ -1,5 +1,8 @@
 package com.changjiang.bff.core;
 
+import com.changjiang.bff.core.binding.PageResultAdapter;
+import com.changjiang.bff.core.deadline.RequestDeadlineManager;
+import com.changjiang.bff.core.registry.MeshRegistrySelector;
 import com.changjiang.bff.entity.ServiceInfo;
 import com.changjiang.bff.entity.RequestObject;
 import com.changjiang.bff.entity.ResponseObject;
@@ -13,10 +16,8 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -49,6 +50,15 @@ public class CrpcTransferService {
     @Autowired
     private CrpcReferenceConfigCacheLoader crpcReferenceConfigCacheLoader;
 
+    @Autowired
+    private MethodPolicyRegistry methodPolicyRegistry;
+
+    @Autowired
+    private MeshRegistrySelector meshRegistrySelector;
+
+    @Autowired
+    private RequestDeadlineManager deadlineManager;
+
 
     public CrpcTransferService() {}
 
@@ -70,6 +80,20 @@ public class CrpcTransferService {
         serviceInfo.setMethodName(requestObject.getMethodName());
         serviceInfo.setAddress(requestObject.getAddress());
         serviceInfo.setProtocol(requestObject.getProtocol());
+
+        // mesh协议按探测结果选择主/备注册中心，主备代理各自缓存，切换时不重建
+        RegistryConfig activeRegistry = meshRegistrySelector.select(requestObject.getAddress(), requestObject.getProtocol());
+        if (activeRegistry != null) {
+            serviceInfo.setAddress(activeRegistry.getAddress());
+            serviceInfo.setProtocol(activeRegistry.getProtocol());
+        }
+
+        // 按(接口, 方法)设置超时、重试和负载均衡策略
+        MethodPolicy policy = methodPolicyRegistry.getPolicy(interfaceClass, requestObject.getMethodName());
+        // 代理按策略超时创建并缓存，请求剩余时间在每次调用时通过callWithin限制
+        serviceInfo.setTimeoutMills(policy.getTimeout());
+        serviceInfo.setRetries(policy.getRetries());
+        serviceInfo.setLoadbalance(policy.getLoadbalance());
         return serviceInfo;
     }
 
@@ -84,10 +108,11 @@ public class CrpcTransferService {
             ServiceInfo serviceInfo = doParamCheckAndBuild(requestObject);
             
             // 获取服务代理
-            Object serviceProxy = crpcReferenceConfigCacheLoader.getRpcProxy(serviceInfo);
+            Object serviceProxy = crpcReferenceConfigCacheLoader.getProxy(serviceInfo);
             
-            // 执行方法调用
-            Object result = invokeMethod(serviceProxy, serviceInfo.getMethodName(), requestObject.getReqObj());
+            // 执行方法调用，截止时间不超过策略超时和请求剩余时间
+            Object result = deadlineManager.callWithin(serviceInfo.getTimeoutMills(),
+                    () -> invokeMethod(serviceProxy, serviceInfo.getMethodName(), requestObject.getReqObj()));
             
             // 处理返回结果
             Object processedResult = processRpcResponse(result);
@@ -105,46 +130,23 @@ public class CrpcTransferService {
 
     /**
      * 执行方法调用
+     * 通过代理类的分发表查找预先构建的调用器，首次解析后同签名的调用为O(1)查找
      */
     private Object invokeMethod(Object target, String methodName, Object[] args) throws Exception {
-        Method method = findMethod(target.getClass(), methodName, args);
-        if (method == null) {
-            throw new ServiceException("METHOD_NOT_FOUND", "方法不存在: " + methodName);
-        }
-        method.setAccessible(true);
-        return method.invoke(target, args);
-    }
-
-    /**
-     * 查找匹配的方法
-     */
-    private Method findMethod(Class<?> targetClass, String methodName, Object[] args) {
-        Method[] methods = targetClass.getMethods();
-        for (Method method : methods) {
-            if (method.getName().equals(methodName) && isParameterMatched(method, args)) {
-                return method;
-            }
+        if (target == null) {
+            throw new ServiceException("PROXY_ERROR", "服务代理不可用: " + methodName);
         }
-        return null;
-    }
-
-    /**
-     * 检查参数是否匹配
-     */
-    private boolean isParameterMatched(Method method, Object[] args) {
-        if (args == null) {
-            return method.getParameterCount() == 0;
-        }
-        if (method.getParameterCount() != args.length) {
-            return false;
+        MethodDispatchTable.MethodInvoker invoker = MethodDispatchTable.forClass(target.getClass()).lookup(methodName, args);
+        if (invoker == null) {
+            throw new ServiceException("METHOD_NOT_FOUND", "方法不存在: " + methodName);
         }
-        Class<?>[] paramTypes = method.getParameterTypes();
-        for (int i = 0; i < args.length; i++) {
-            if (args[i] != null && !paramTypes[i].isAssignableFrom(args[i].getClass())) {
-                return false;
-            }
+        try {
+            return invoker.invoke(target, args);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new ServiceException("INVOKE_ERROR", "方法调用异常: " + methodName, t);
         }
-        return true;
     }
 
     /**
@@ -156,9 +158,10 @@ public class CrpcTransferService {
         }
         
         try {
-            // 处理分页结果
-            if (isPageResult(resObj)) {
-                return processPageResult(resObj);
+            // 处理分页结果，按类型结构识别，每个类型只识别一次
+            PageResultAdapter pageAdapter = PageResultAdapter.forClass(resObj.getClass());
+            if (pageAdapter != null) {
+                return processPageResult(pageAdapter, resObj);
             }
             
             // 处理集合结果
@@ -177,36 +180,13 @@ public class CrpcTransferService {
         }
     }
 
-    /**
-     * 判断是否为分页结果
-     */
-    private boolean isPageResult(Object obj) {
-        return obj != null && 
-               obj.getClass().getName().endsWith("Page") &&
-               !obj.getClass().getName().endsWith("PageImpl");
-    }
-
     /**
      * 处理分页结果
+     * 通过预先解析的getter读取分页信息，内容脱敏后直接写入PageResult，不再创建中间列表
      */
-    private PageResult<?> processPageResult(Object pageResult) {
+    private PageResult<?> processPageResult(PageResultAdapter pageAdapter, Object pageResult) {
         try {
-            Method getContent = pageResult.getClass().getMethod("getContent");
-            Method getTotal = pageResult.getClass().getMethod("getTotal");
-            Method getPageNum = pageResult.getClass().getMethod("getPageNum");
-            Method getPageSize = pageResult.getClass().getMethod("getPageSize");
-
-            List<?> content = (List<?>) getContent.invoke(pageResult);
-            long total = (long) getTotal.invoke(pageResult);
-            int pageNum = (int) getPageNum.invoke(pageResult);
-            int pageSize = (int) getPageSize.invoke(pageResult);
-
-            // 处理内容脱敏
-            List<?> maskedContent = content.stream()
-                .map(this::processDataMask)
-                .collect(Collectors.toList());
-
-            return PageResult.of(maskedContent, total, pageNum, pageSize);
+            return pageAdapter.toPageResult(pageResult, this::processDataMask);
         } catch (Exception e) {
             logger.error("Process page result error", e);
             return null;
@@ -230,8 +210,7 @@ public class CrpcTransferService {
     }
 
     private Object getReferenceConfig(ServiceInfo serviceInfo) {
-        ReferenceConfig referenceConfig = this.crpcReferenceConfigCacheLoader.getRpcProxy(serviceInfo);
-        return referenceConfig.get();
+        return this.crpcReferenceConfigCacheLoader.getProxy(serviceInfo);
     }
 
     public void throwMethod(Throwable throwable, Exception e, String methodName, String retOrigSysCode) {
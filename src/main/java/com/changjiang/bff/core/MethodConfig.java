@@ -7,4 +7,5 @@ public class MethodConfig {
     private String methodName;
     private int timeout;
     private int retries;
+    private String loadbalance;
 } 
\ No newline at end of file
@@ -0,0 +1,321 @@
+package com.changjiang.bff.core;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 方法分发表
+ * 主要职责：
+ * 1. 按代理类预先建立 方法名+参数个数 到候选方法的索引
+ * 2. 按 方法名+参数个数+参数运行时类型 缓存解析结果
+ * 3. 为每个方法预先构建调用器，调用时不再做反射查找
+ *
+ * 使用场景：
+ * - CrpcTransferService的泛化调用
+ * - 重载方法的确定性匹配(选择最具体的方法，无法区分时按签名排序取第一个)
+ * - null参数匹配(可匹配任意非基本类型参数)
+ *
+ * 调用关系：
+ * - 被CrpcTransferService.invokeMethod调用
+ * - 每个代理类对应一张分发表，通过ClassValue缓存，随类加载器一起回收
+ */
+public final class MethodDispatchTable {
+
+    /** 代理类到分发表的缓存 */
+    private static final ClassValue<MethodDispatchTable> TABLES = new ClassValue<MethodDispatchTable>() {
+        @Override
+        protected MethodDispatchTable computeValue(Class<?> type) {
+            return new MethodDispatchTable(type);
+        }
+    };
+
+    /** 方法签名排序规则，保证重载解析结果与getMethods()返回顺序无关 */
+    private static final Comparator<Method> SIGNATURE_ORDER = Comparator.comparing(Method::toGenericString);
+
+    /** 调用器统一的MethodHandle类型: (Object target, Object[] args)Object */
+    private static final MethodType INVOKER_TYPE = MethodType.genericMethodType(1, true);
+
+    /** 未找到方法时的占位，避免重复解析 */
+    private static final MethodInvoker NOT_FOUND = new MethodInvoker(null, null);
+
+    /** 目标类 */
+    private final Class<?> targetClass;
+
+    /**
+     * 候选方法索引
+     * key: 方法名#参数个数, value: 按签名排序的候选调用器
+     */
+    private final Map<String, MethodInvoker[]> candidates;
+
+    /**
+     * 解析结果缓存
+     * key: 方法名+参数运行时类型, value: 调用器
+     */
+    private final Map<Signature, MethodInvoker> resolved = new ConcurrentHashMap<>();
+
+    private MethodDispatchTable(Class<?> targetClass) {
+        this.targetClass = targetClass;
+        Map<String, List<Method>> grouped = new HashMap<>();
+        for (Method method : targetClass.getMethods()) {
+            if (method.isBridge() || method.isSynthetic() || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            grouped.computeIfAbsent(indexKey(method.getName(), method.getParameterCount()), k -> new ArrayList<>())
+                    .add(method);
+        }
+        Map<String, MethodInvoker[]> index = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((key, methods) -> {
+            methods.sort(SIGNATURE_ORDER);
+            MethodInvoker[] invokers = new MethodInvoker[methods.size()];
+            for (int i = 0; i < invokers.length; i++) {
+                invokers[i] = MethodInvoker.of(methods.get(i));
+            }
+            index.put(key, invokers);
+        });
+        this.candidates = index;
+    }
+
+    /**
+     * 获取代理类的分发表
+     */
+    public static MethodDispatchTable forClass(Class<?> targetClass) {
+        return TABLES.get(targetClass);
+    }
+
+    /**
+     * 查找与方法名和实参匹配的调用器
+     *
+     * @return 匹配的调用器，不存在时返回null
+     */
+    public MethodInvoker lookup(String methodName, Object[] args) {
+        int arity = args == null ? 0 : args.length;
+        MethodInvoker[] methods = candidates.get(indexKey(methodName, arity));
+        if (methods == null) {
+            return null;
+        }
+        // 无重载时只需校验参数是否可接受
+        if (methods.length == 1) {
+            return methods[0].accepts(args) ? methods[0] : null;
+        }
+
+        Signature signature = new Signature(methodName, args);
+        MethodInvoker invoker = resolved.get(signature);
+        if (invoker == null) {
+            invoker = resolve(methods, signature.argTypes);
+            resolved.putIfAbsent(signature, invoker);
+        }
+        return invoker == NOT_FOUND ? null : invoker;
+    }
+
+    public Class<?> getTargetClass() {
+        return targetClass;
+    }
+
+    /**
+     * 在重载方法中选择最具体的方法
+     */
+    private static MethodInvoker resolve(MethodInvoker[] methods, Class<?>[] argTypes) {
+        MethodInvoker best = null;
+        for (MethodInvoker candidate : methods) {
+            if (!candidate.acceptsTypes(argTypes)) {
+                continue;
+            }
+            if (best == null || candidate.isMoreSpecificThan(best)) {
+                best = candidate;
+            }
+        }
+        return best == null ? NOT_FOUND : best;
+    }
+
+    private static String indexKey(String methodName, int arity) {
+        return methodName + '#' + arity;
+    }
+
+    /**
+     * 方法调用器
+     * 持有预先构建的MethodHandle，无法构建时回退到反射调用
+     */
+    public static final class MethodInvoker {
+
+        private final Method method;
+
+        private final Class<?>[] parameterTypes;
+
+        private final MethodHandle handle;
+
+        private MethodInvoker(Method method, MethodHandle handle) {
+            this.method = method;
+            this.parameterTypes = method == null ? new Class<?>[0] : method.getParameterTypes();
+            this.handle = handle;
+        }
+
+        static MethodInvoker of(Method method) {
+            MethodHandle handle = null;
+            try {
+                method.setAccessible(true);
+                handle = MethodHandles.lookup().unreflect(method)
+                        .asSpreader(Object[].class, method.getParameterCount())
+                        .asType(INVOKER_TYPE);
+            } catch (RuntimeException | IllegalAccessException e) {
+                // 模块或访问限制导致无法构建MethodHandle时，使用反射调用
+            }
+            return new MethodInvoker(method, handle);
+        }
+
+        /**
+         * 执行调用
+         * 目标方法抛出的异常原样抛出，不包装为InvocationTargetException
+         */
+        public Object invoke(Object target, Object[] args) throws Throwable {
+            Object[] actualArgs = args == null ? new Object[0] : args;
+            if (handle != null) {
+                return (Object) handle.invokeExact(target, actualArgs);
+            }
+            try {
+                return method.invoke(target, actualArgs);
+            } catch (java.lang.reflect.InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+
+        public Method getMethod() {
+            return method;
+        }
+
+        boolean accepts(Object[] args) {
+            if (args == null) {
+                return parameterTypes.length == 0;
+            }
+            for (int i = 0; i < args.length; i++) {
+                if (!isAssignable(parameterTypes[i], args[i] == null ? null : args[i].getClass())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean acceptsTypes(Class<?>[] argTypes) {
+            for (int i = 0; i < argTypes.length; i++) {
+                if (!isAssignable(parameterTypes[i], argTypes[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 是否比另一个方法更具体
+         * 实参总是包装类型，包装类型参数视为比对应的基本类型参数更具体，
+         * 与以包装类型静态调用时的重载选择一致
+         */
+        boolean isMoreSpecificThan(MethodInvoker other) {
+            boolean narrower = false;
+            for (int i = 0; i < parameterTypes.length; i++) {
+                Class<?> mine = wrap(parameterTypes[i]);
+                Class<?> theirs = wrap(other.parameterTypes[i]);
+                if (!theirs.isAssignableFrom(mine)) {
+                    return false;
+                }
+                if (mine != theirs) {
+                    narrower = true;
+                } else if (parameterTypes[i] != other.parameterTypes[i]) {
+                    if (parameterTypes[i].isPrimitive()) {
+                        return false;
+                    }
+                    narrower = true;
+                }
+            }
+            return narrower;
+        }
+
+        private static boolean isAssignable(Class<?> parameterType, Class<?> argType) {
+            if (argType == null) {
+                return !parameterType.isPrimitive();
+            }
+            return wrap(parameterType).isAssignableFrom(argType);
+        }
+
+        private static Class<?> wrap(Class<?> type) {
+            if (!type.isPrimitive()) {
+                return type;
+            }
+            if (type == int.class) {
+                return Integer.class;
+            }
+            if (type == long.class) {
+                return Long.class;
+            }
+            if (type == boolean.class) {
+                return Boolean.class;
+            }
+            if (type == double.class) {
+                return Double.class;
+            }
+            if (type == float.class) {
+                return Float.class;
+            }
+            if (type == short.class) {
+                return Short.class;
+            }
+            if (type == byte.class) {
+                return Byte.class;
+            }
+            if (type == char.class) {
+                return Character.class;
+            }
+            return Void.class;
+        }
+    }
+
+    /**
+     * 调用签名
+     * 方法名+参数运行时类型，null参数记为null
+     */
+    private static final class Signature {
+
+        private final String methodName;
+
+        private final Class<?>[] argTypes;
+
+        private final int hash;
+
+        Signature(String methodName, Object[] args) {
+            this.methodName = methodName;
+            args = args == null ? new Object[0] : args;
+            this.argTypes = new Class<?>[args.length];
+            int h = methodName.hashCode();
+            for (int i = 0; i < args.length; i++) {
+                argTypes[i] = args[i] == null ? null : args[i].getClass();
+                h = 31 * h + (argTypes[i] == null ? 0 : argTypes[i].hashCode());
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Signature)) {
+                return false;
+            }
+            Signature that = (Signature) o;
+            return hash == that.hash && methodName.equals(that.methodName) && Arrays.equals(argTypes, that.argTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -3,6 +3,9 @@ package com.changjiang.bff.core;
 import com.changjiang.bff.entity.RequestObject;
 import com.changjiang.bff.entity.ResponseObject;
 import com.changjiang.bff.entity.PageResult;
+import com.changjiang.bff.core.jfr.DataMaskEvent;
+import com.changjiang.bff.core.metrics.RequestTimeline;
+import com.changjiang.bff.enums.RequestPhase;
 import com.changjiang.bff.exception.ServiceException;
 import com.changjiang.bff.util.NpcsDataMaskUtil;
 import org.slf4j.Logger;
@@ -64,6 +67,10 @@ public class MethodInvocationService {
            
            // 处理数据脱敏
            if (requestObject.isDataMask() && responseObject.getResData() != null) {
+               long maskStart = System.nanoTime();
+               DataMaskEvent maskEvent = new DataMaskEvent();
+               maskEvent.begin();
+               Object unmasked = responseObject.getResData();
                if (responseObject.getResData() instanceof Collection) {
                    Object collect = ((Collection) responseObject.getResData())
                            .stream()
@@ -74,6 +81,8 @@ public class MethodInvocationService {
                    Object encryptedData = NpcsDataMaskUtil.doDataMask(responseObject.getResData());
                    responseObject.setResData(encryptedData);
                }
+               maskEvent.finish(unmasked);
+               RequestTimeline.current().record(RequestPhase.MASK, maskStart);
            }
            return responseObject;
            
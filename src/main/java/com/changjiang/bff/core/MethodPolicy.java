@@ -0,0 +1,75 @@
+package com.changjiang.bff.core;
+
+/**
+ * 方法调用策略
+ * 主要职责：
+ * 1. 描述单个(接口, 方法)生效的超时、重试和负载均衡配置
+ * 2. 记录每一项配置的来源，便于排查
+ *
+ * 调用关系：
+ * - 由MethodPolicyRegistry解析生成，创建后不可变
+ * - 被CrpcReferenceConfigCacheLoader写入MethodConfig
+ * - 被CrpcTransferService用于构建ServiceInfo
+ */
+public class MethodPolicy {
+
+    /** 接口全限定名 */
+    private final String interfaceName;
+
+    /** 方法名 */
+    private final String methodName;
+
+    /** 注册中心ID，未知时为空 */
+    private final String registryId;
+
+    /** 超时时间(毫秒) */
+    private final int timeout;
+
+    /** 重试次数 */
+    private final int retries;
+
+    /** 负载均衡策略 */
+    private final String loadbalance;
+
+    /** 配置来源，如 method/registry/default，按 timeout,retries,loadbalance 顺序 */
+    private final String source;
+
+    public MethodPolicy(String interfaceName, String methodName, String registryId,
+                        int timeout, int retries, String loadbalance, String source) {
+        this.interfaceName = interfaceName;
+        this.methodName = methodName;
+        this.registryId = registryId;
+        this.timeout = timeout;
+        this.retries = retries;
+        this.loadbalance = loadbalance;
+        this.source = source;
+    }
+
+    public String getInterfaceName() {
+        return interfaceName;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public String getRegistryId() {
+        return registryId;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public int getRetries() {
+        return retries;
+    }
+
+    public String getLoadbalance() {
+        return loadbalance;
+    }
+
+    public String getSource() {
+        return source;
+    }
+}
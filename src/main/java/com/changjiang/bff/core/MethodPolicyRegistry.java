@@ -0,0 +1,240 @@
+package com.changjiang.bff.core;
+
+import com.changjiang.bff.annotation.ServiceConfig;
+import com.changjiang.bff.config.CrpcProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 方法调用策略注册表
+ * 主要职责：
+ * 1. 解析(接口, 方法)维度的超时、重试和负载均衡配置
+ * 2. 按 方法级 -> 注册中心级 -> 全局默认 的顺序合并出生效策略
+ * 3. 提供调用路径上的无锁查询
+ *
+ * 配置示例：
+ * <pre>
+ * cpc.registries.elearn.timeout=3000
+ * cpc.registries.elearn.retries=1
+ * cpc.methods.com.changjiang.elearn.api.ReportService.export.timeout=30000
+ * cpc.methods.ReportService.export.retries=0
+ * cpc.methods.ReportService.*.loadbalance=roundrobin
+ * </pre>
+ * 接口名可以使用全限定名或简单类名，方法名为*时对接口下所有方法生效。
+ *
+ * 调用关系：
+ * - 被CrpcReferenceConfigCacheLoader用于构建MethodConfig
+ * - 被CrpcTransferService用于设置调用超时
+ * - 被AdminController用于展示生效配置
+ */
+@Component
+public class MethodPolicyRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(MethodPolicyRegistry.class);
+
+    /** 方法级配置前缀 */
+    private static final String METHOD_PREFIX = "cpc.methods";
+
+    /** 注册中心配置前缀 */
+    private static final String REGISTRY_PREFIX = "cpc.registries";
+
+    /** 接口级通配方法名 */
+    private static final String ANY_METHOD = "*";
+
+    @Autowired
+    private CrpcProperties crpcProperties;
+
+    @Autowired
+    private NpcsgptwPropertyUtils npcgwPropertyUtils;
+
+    /**
+     * 生效策略缓存
+     * key: 接口全限定名#方法名
+     * 读路径只有ConcurrentHashMap.get，不加锁
+     */
+    private final Map<String, MethodPolicy> policies = new ConcurrentHashMap<>();
+
+    /**
+     * 接口所属注册中心
+     * key: 接口全限定名, value: 注册中心ID
+     */
+    private final Map<String, String> interfaceRegistries = new ConcurrentHashMap<>();
+
+    /**
+     * 已解析过策略的接口
+     * key: 接口全限定名, value: 接口类，用于重新加载后重建策略
+     */
+    private final Map<String, Class<?>> interfaceClasses = new ConcurrentHashMap<>();
+
+    /**
+     * 方法级配置
+     * key: 接口名#方法名, value: 属性名 -> 属性值
+     */
+    private volatile Map<String, Map<String, String>> methodOverrides = Collections.emptyMap();
+
+    /** 注册中心级配置 */
+    private volatile Map<String, CrcpBFFConfig> registries = Collections.emptyMap();
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    /**
+     * 重新加载配置
+     * 已解析过的策略按新配置重新合并
+     */
+    public synchronized void reload() {
+        Map<String, Map<String, String>> overrides = new HashMap<>();
+        npcgwPropertyUtils.getSubProperties(METHOD_PREFIX).forEach((name, value) -> {
+            int attrOffset = name.lastIndexOf('.');
+            int methodOffset = attrOffset > 0 ? name.lastIndexOf('.', attrOffset - 1) : -1;
+            if (methodOffset <= 0 || value == null) {
+                logger.warn("Ignore invalid method policy property: {}.{}", METHOD_PREFIX, name);
+                return;
+            }
+            String attr = name.substring(attrOffset + 1);
+            String text = value.toString().trim();
+            if (("timeout".equals(attr) || "retries".equals(attr)) && !text.matches("\\d+")) {
+                logger.warn("Ignore non-numeric method policy property: {}.{}={}", METHOD_PREFIX, name, text);
+                return;
+            }
+            String key = name.substring(0, methodOffset) + '#' + name.substring(methodOffset + 1, attrOffset);
+            overrides.computeIfAbsent(key, k -> new HashMap<>()).put(attr, text);
+        });
+        this.methodOverrides = overrides;
+        this.registries = npcgwPropertyUtils.getPropertiesAppGroup(REGISTRY_PREFIX);
+        List<MethodPolicy> previous = new ArrayList<>(policies.values());
+        policies.clear();
+        for (MethodPolicy policy : previous) {
+            Class<?> interfaceClass = interfaceClasses.get(policy.getInterfaceName());
+            if (interfaceClass != null) {
+                getPolicy(interfaceClass, policy.getMethodName());
+            }
+        }
+        logger.info("Method policies reloaded, method overrides: {}, registries: {}", overrides.size(), registries.size());
+    }
+
+    /**
+     * API扫描完成后登记接口所属注册中心，并预先解析所有方法的策略
+     */
+    @EventListener(ApiScanCompletedEvent.class)
+    public void onApiScanCompleted(ApiScanCompletedEvent event) {
+        for (ServiceApiInfo apiInfo : event.getApiRegistry().values()) {
+            ServiceConfig serviceConfig = apiInfo.getServiceConfig();
+            if (serviceConfig == null || apiInfo.getMethod() == null) {
+                continue;
+            }
+            Class<?> interfaceClass = apiInfo.getMethod().getDeclaringClass();
+            interfaceRegistries.put(interfaceClass.getName(), serviceConfig.registryId());
+            policies.remove(policyKey(interfaceClass.getName(), apiInfo.getMethod().getName()));
+            getPolicy(interfaceClass, apiInfo.getMethod().getName());
+        }
+    }
+
+    /**
+     * 获取(接口, 方法)的生效策略
+     */
+    public MethodPolicy getPolicy(Class<?> interfaceClass, String methodName) {
+        String key = policyKey(interfaceClass.getName(), methodName);
+        MethodPolicy policy = policies.get(key);
+        if (policy == null) {
+            interfaceClasses.putIfAbsent(interfaceClass.getName(), interfaceClass);
+            policy = policies.computeIfAbsent(key, k -> resolve(interfaceClass, methodName));
+        }
+        return policy;
+    }
+
+    /**
+     * 获取所有已解析的生效策略
+     */
+    public List<MethodPolicy> getEffectivePolicies() {
+        List<MethodPolicy> result = new ArrayList<>(policies.values());
+        result.sort(Comparator.comparing(MethodPolicy::getInterfaceName).thenComparing(MethodPolicy::getMethodName));
+        return result;
+    }
+
+    /**
+     * 合并策略
+     */
+    private MethodPolicy resolve(Class<?> interfaceClass, String methodName) {
+        String interfaceName = interfaceClass.getName();
+        String registryId = interfaceRegistries.get(interfaceName);
+        CrcpBFFConfig registry = registryId == null ? null : registries.get(registryId);
+        Map<String, String> overrides = mergeOverrides(interfaceName, interfaceClass.getSimpleName(), methodName);
+
+        int timeout = crpcProperties.getTimeout();
+        String timeoutSource = "default";
+        if (overrides.containsKey("timeout")) {
+            timeout = Integer.parseInt(overrides.get("timeout"));
+            timeoutSource = "method";
+        } else if (registry != null && registry.getTimeoutUtils() > 0) {
+            timeout = registry.getTimeoutUtils();
+            timeoutSource = "registry";
+        }
+
+        int retries = crpcProperties.getRetries();
+        String retriesSource = "default";
+        if (overrides.containsKey("retries")) {
+            retries = Integer.parseInt(overrides.get("retries"));
+            retriesSource = "method";
+        } else if (registry != null && registry.getRetries() != null) {
+            retries = registry.getRetries();
+            retriesSource = "registry";
+        }
+
+        String loadbalance = crpcProperties.getLoadbalance();
+        String loadbalanceSource = "default";
+        if (StringUtils.hasText(overrides.get("loadbalance"))) {
+            loadbalance = overrides.get("loadbalance");
+            loadbalanceSource = "method";
+        } else if (registry != null && StringUtils.hasText(registry.getLoadbalance())) {
+            loadbalance = registry.getLoadbalance();
+            loadbalanceSource = "registry";
+        }
+
+        return new MethodPolicy(interfaceName, methodName, registryId, timeout, retries, loadbalance,
+                "timeout=" + timeoutSource + ",retries=" + retriesSource + ",loadbalance=" + loadbalanceSource);
+    }
+
+    /**
+     * 合并方法级配置，优先级: 全限定名#方法 > 简单名#方法 > 全限定名#* > 简单名#*
+     */
+    private Map<String, String> mergeOverrides(String interfaceName, String simpleName, String methodName) {
+        Map<String, Map<String, String>> overrides = this.methodOverrides;
+        if (overrides.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> merged = new HashMap<>();
+        String[] keys = {
+                policyKey(simpleName, ANY_METHOD),
+                policyKey(interfaceName, ANY_METHOD),
+                policyKey(simpleName, methodName),
+                policyKey(interfaceName, methodName)
+        };
+        for (String key : keys) {
+            Map<String, String> values = overrides.get(key);
+            if (values != null) {
+                merged.putAll(values);
+            }
+        }
+        return merged;
+    }
+
+    private static String policyKey(String interfaceName, String methodName) {
+        return interfaceName + '#' + methodName;
+    }
+}
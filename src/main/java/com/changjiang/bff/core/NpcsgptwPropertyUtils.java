@@ -10,6 +10,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.function.Predicate;
 
 /**
  * 配置属性工具类
@@ -85,6 +86,10 @@ public class NpcsgptwPropertyUtils implements EnvironmentAware {
             if (StringUtils.hasText((String) sourceConfigs.get(eachApp + ".timeout"))) {
                 crcpBFFConfig.setTimeoutUtils(Integer.parseInt((String) sourceConfigs.get(eachApp + ".timeout")));
             }
+            if (StringUtils.hasText((String) sourceConfigs.get(eachApp + ".retries"))) {
+                crcpBFFConfig.setRetries(Integer.parseInt((String) sourceConfigs.get(eachApp + ".retries")));
+            }
+            crcpBFFConfig.setLoadbalance((String) sourceConfigs.get(eachApp + ".loadbalance"));
             crcpBFFConfig.setRegistryId(eachApp);
             crcpConfigMap.put(eachApp, crcpBFFConfig);
         }
@@ -102,6 +107,28 @@ public class NpcsgptwPropertyUtils implements EnvironmentAware {
      * @return 配置属性映射
      */
     private Map<String, Object> getSourceConfigs(String prefix) {
+        return collectProperties(prefix, splitName -> splitName.contains(".protocol")
+                || splitName.contains(".address")
+                || splitName.contains(".timeout")
+                || splitName.contains(".retries")
+                || splitName.contains(".loadbalance"));
+    }
+
+    /**
+     * 获取指定前缀下的全部配置属性
+     * key为去掉前缀后的属性名，高优先级的属性源优先
+     *
+     * @param prefix 配置前缀
+     * @return 配置属性映射
+     */
+    public Map<String, Object> getSubProperties(String prefix) {
+        if (!prefix.endsWith(".")) {
+            prefix = prefix + ".";
+        }
+        return collectProperties(prefix, splitName -> true);
+    }
+
+    private Map<String, Object> collectProperties(String prefix, Predicate<String> nameFilter) {
         Map<String, Object> propertyMap = new LinkedHashMap<>();
         Iterable<PropertySource<?>> propertySources = this.environment.getPropertySources();
         PropertyResolver propertyResolver = this.environment;
@@ -120,7 +147,7 @@ public class NpcsgptwPropertyUtils implements EnvironmentAware {
             for (String name : propertyNames) {
                 if (!propertyMap.containsKey(name) && name.startsWith(prefix)) {
                     String splitName = name.substring(prefix.length());
-                    if (!propertyMap.containsKey(splitName) && (splitName.contains(".protocol") || splitName.contains(".address") || splitName.contains(".timeout"))) {
+                    if (!propertyMap.containsKey(splitName) && nameFilter.test(splitName)) {
                         Object value = source.getProperty(name);
                         if (value instanceof String) {
                             value = propertyResolver.resolvePlaceholders((String) value);
@@ -131,4 +158,4 @@ public class NpcsgptwPropertyUtils implements EnvironmentAware {
             }
         }
     }
-}
+}
\ No newline at end of file
@@ -1,7 +1,11 @@
 package com.changjiang.bff.core;
 
 import com.changjiang.bff.annotation.ServiceConfig;
-import com.changjiang.bff.core.introspector.MethodParameterHandler;
+import com.changjiang.bff.core.binding.ArgumentBindingPlan;
+import com.changjiang.bff.core.jfr.DataMaskEvent;
+import com.changjiang.bff.core.metrics.RequestTimeline;
+import com.changjiang.bff.core.validation.ParameterValidationChain;
+import com.changjiang.bff.enums.RequestPhase;
 import com.changjiang.bff.util.NpcsDataMaskUtil;
 import lombok.Builder;
 import lombok.Data;
@@ -36,12 +40,6 @@ public class ServiceApiInfo {
      */
     private Method method;
     
-    /** 
-     * 参数处理器
-     * 用于处理方法参数
-     */
-    private MethodParameterHandler parameterHandler;
-    
     /** 
      * API描述
      * 用于文档生成
@@ -85,6 +83,18 @@ public class ServiceApiInfo {
     private String referField;
 
     private ServiceConfig serviceConfig;
+
+    /** 
+     * 参数校验链
+     * 注册时由parameters编译，不可变
+     */
+    private ParameterValidationChain validationChain;
+
+    /**
+     * 参数绑定计划
+     * 注册时由method编译，不可变
+     */
+    private ArgumentBindingPlan bindingPlan;
     
     /**
      * 执行方法调用
@@ -97,14 +107,20 @@ public class ServiceApiInfo {
             }
             
             // 处理方法参数
-            Object[] args = parameterHandler.handleMethodParameters(method, params);
+            Object[] args = resolveBindingPlan().bind(params);
             
             // 执行方法调用
             Object result = method.invoke(instance, args);
             
             // 处理返回值脱敏
             if (needMask && result != null) {
+                long maskStart = System.nanoTime();
+                DataMaskEvent maskEvent = new DataMaskEvent();
+                maskEvent.begin();
+                Object unmasked = result;
                 result = NpcsDataMaskUtil.doDataMask(result);
+                maskEvent.finish(unmasked);
+                RequestTimeline.current().record(RequestPhase.MASK, maskStart);
             }
             
             return result;
@@ -115,102 +131,44 @@ public class ServiceApiInfo {
     }
     
     /**
-     * 验证参数
-     */
-    private void validateParameters(Map<String, Object> params) {
-        if (parameters == null || parameters.isEmpty()) {
-            return;
-        }
-        
-        for (ParameterDescription param : parameters) {
-            Object value = params.get(param.getName());
-            
-            // 必填参数验证
-            if (param.isRequired() && value == null) {
-                throw new IllegalArgumentException("Required parameter '" + param.getName() + "' is missing");
-            }
-            
-            // 验证规则检查
-            if (value != null && param.getValidations() != null) {
-                for (String validation : param.getValidations()) {
-                    validateParameter(param.getName(), value, validation);
-                }
-            }
-        }
-    }
-    
-    /**
-     * 执行参数验证规则
+     * 编译参数校验规则
+     * 在注册API时调用，规则格式错误时抛出IllegalArgumentException，该API不会被注册
      */
-    private void validateParameter(String name, Object value, String validation) {
-        if (validation == null || validation.isEmpty()) {
-            return;
-        }
-        
-        // 解析验证规则
-        String[] parts = validation.split(":");
-        String rule = parts[0];
-        String param = parts.length > 1 ? parts[1] : null;
-        
-        switch (rule.toLowerCase()) {
-            case "length":
-                validateLength(name, value.toString(), param);
-                break;
-            case "range":
-                validateRange(name, value.toString(), param);
-                break;
-            case "pattern":
-                validatePattern(name, value.toString(), param);
-                break;
-            default:
-                //logger.warn("Unknown validation rule: {}", rule);
-        }
+    public void compileValidations() {
+        validationChain = ParameterValidationChain.compile(parameters);
     }
-    
+
     /**
-     * 验证字符串长度
+     * 编译参数绑定计划
+     * 在注册API时调用，默认值无法转换为参数类型时抛出IllegalArgumentException，该API不会被注册
      */
-    private void validateLength(String name, String value, String param) {
-        if (param == null) {
-            return;
-        }
-        
-        String[] limits = param.split(",");
-        int min = Integer.parseInt(limits[0]);
-        int max = limits.length > 1 ? Integer.parseInt(limits[1]) : Integer.MAX_VALUE;
-        
-        if (value.length() < min || value.length() > max) {
-            throw new IllegalArgumentException(
-                String.format("Parameter '%s' length must be between %d and %d", name, min, max));
-        }
+    public void compileBindingPlan() {
+        bindingPlan = ArgumentBindingPlan.compile(method);
     }
-    
+
     /**
-     * 验证数值范围
+     * 获取参数绑定计划
+     * 未经ApiScanner注册的API(如手工构建)在第一次使用时编译
      */
-    private void validateRange(String name, String value, String param) {
-        if (param == null) {
-            return;
-        }
-        
-        String[] limits = param.split(",");
-        double min = Double.parseDouble(limits[0]);
-        double max = Double.parseDouble(limits[1]);
-        double num = Double.parseDouble(value);
-        
-        if (num < min || num > max) {
-            throw new IllegalArgumentException(
-                String.format("Parameter '%s' must be between %f and %f", name, min, max));
+    public ArgumentBindingPlan resolveBindingPlan() {
+        ArgumentBindingPlan plan = bindingPlan;
+        if (plan == null) {
+            plan = ArgumentBindingPlan.compile(method);
+            bindingPlan = plan;
         }
+        return plan;
     }
-    
+
     /**
-     * 验证正则表达式
+     * 验证参数
+     * 使用注册时编译的校验链，请求时不再解析规则字符串
      */
-    private void validatePattern(String name, String value, String pattern) {
-        if (pattern == null || !value.matches(pattern)) {
-            throw new IllegalArgumentException(
-                String.format("Parameter '%s' does not match required pattern", name));
+    private void validateParameters(Map<String, Object> params) {
+        ParameterValidationChain chain = validationChain;
+        if (chain == null) {
+            chain = ParameterValidationChain.compile(parameters);
+            validationChain = chain;
         }
+        chain.validate(params);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package com.changjiang.bff.core.accesslog;
+
+import com.changjiang.bff.enums.RequestPhase;
+
+/**
+ * 访问日志环形缓冲区中的槽位
+ * 预先分配，请求线程只写入基本类型和已有对象的引用，由写日志线程格式化
+ */
+final class AccessLogEntry {
+
+    /** 已发布的序号，写日志线程据此判断槽位是否可读 */
+    volatile long sequence = -1;
+
+    long timestamp;
+
+    String method;
+
+    String route;
+
+    String registryId;
+
+    int status;
+
+    String code;
+
+    long totalMicros;
+
+    /** 各阶段耗时(微秒)，按RequestPhase.ordinal()索引 */
+    final long[] phaseMicros = new long[RequestPhase.values().length];
+
+    long allocatedBytes;
+
+    String clientIp;
+
+    /** 请求体引用，只在需要记录请求体时设置 */
+    Object body;
+
+    void clear() {
+        method = null;
+        route = null;
+        registryId = null;
+        code = null;
+        clientIp = null;
+        body = null;
+    }
+}
@@ -0,0 +1,341 @@
+package com.changjiang.bff.core.accesslog;
+
+import com.alibaba.fastjson2.JSON;
+import com.changjiang.bff.config.AccessLogProperties;
+import com.changjiang.bff.config.RequestResourceProperties;
+import com.changjiang.bff.constants.BasicConstants;
+import com.changjiang.bff.core.ApiScanCompletedEvent;
+import com.changjiang.bff.core.metrics.RequestTimeline;
+import com.changjiang.bff.enums.MaskType;
+import com.changjiang.bff.enums.RequestPhase;
+import com.changjiang.bff.util.NpcsDataMaskUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步访问日志
+ * 主要职责：
+ * 1. 每个/changjiang/**请求结束时按路由采样，采中的请求写入预分配的环形缓冲区
+ * 2. 后台线程从缓冲区读取，格式化为一行JSON写入 bff.access 日志，格式化和I/O不在请求线程上执行
+ * 3. 失败请求和慢请求不受采样率限制；缓冲区写满时丢弃新日志，不阻塞请求线程
+ * 4. 需要记录请求体时，由后台线程按字段名脱敏并截断
+ *
+ * 日志格式：
+ * {"ts":1700000000000,"method":"POST","route":"/elearn/course/query","registryId":"elearn","status":200,
+ *  "code":"000000","totalMs":12.3,"phases":{"BIND":0.4,"INVOKE":11.2},"allocBytes":102400,"ip":"10.0.0.1"}
+ *
+ * 调用关系：
+ * - 被RequestTimelineFilter在请求结束时调用
+ * - 监听ApiScanCompletedEvent，解析各路由的采样率
+ * - 被AdminController调用查询写入、丢弃和未采样的数量
+ */
+@Component
+public class AccessLogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessLogWriter.class);
+
+    /** 访问日志输出的日志名，可单独配置appender */
+    private static final Logger accessLogger = LoggerFactory.getLogger("bff.access");
+
+    private static final RequestPhase[] PHASES = RequestPhase.values();
+
+    /** 缓冲区为空时写日志线程的等待时间 */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Autowired
+    private AccessLogProperties accessLogProperties;
+
+    @Autowired
+    private RequestResourceProperties resourceProperties;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    /** 路由采样率，API扫描完成后按配置解析 */
+    private volatile Map<String, Double> routeSampleRates = Collections.emptyMap();
+
+    private AccessLogEntry[] ring;
+
+    private int indexMask;
+
+    /** 下一个可申请的序号 */
+    private final AtomicLong cursor = new AtomicLong();
+
+    /** 下一个待写出的序号 */
+    private final AtomicLong consumed = new AtomicLong();
+
+    private final LongAdder written = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder sampledOut = new LongAdder();
+
+    private Map<String, MaskType> maskRules;
+
+    private long slowThresholdNanos;
+
+    private volatile boolean running;
+
+    private Thread writerThread;
+
+    /** 只由写日志线程使用 */
+    private final StringBuilder line = new StringBuilder(512);
+
+    @PostConstruct
+    public void init() {
+        if (!accessLogProperties.isEnabled()) {
+            return;
+        }
+        int size = Integer.highestOneBit(Math.max(accessLogProperties.getBufferSize(), 2) - 1) << 1;
+        ring = new AccessLogEntry[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new AccessLogEntry();
+        }
+        indexMask = size - 1;
+        slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(accessLogProperties.getSlowThresholdMillis());
+        Map<String, MaskType> rules = new HashMap<>();
+        resourceProperties.getMaskFields().forEach((field, type) -> rules.put(field.toLowerCase(), type));
+        maskRules = rules;
+
+        if (meterRegistry != null) {
+            registerCounter("written", written);
+            registerCounter("dropped", dropped);
+            registerCounter("sampled_out", sampledOut);
+        }
+        running = true;
+        writerThread = new Thread(this::drain, "access-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        if (writerThread != null) {
+            running = false;
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    /**
+     * 按配置解析各路由的采样率
+     */
+    @EventListener
+    public void onApiScanCompleted(ApiScanCompletedEvent event) {
+        Map<String, Double> rates = new HashMap<>();
+        for (String url : event.getApiRegistry().keySet()) {
+            accessLogProperties.getRouteSampleRates().entrySet().stream()
+                    .filter(entry -> pathMatcher.match(entry.getKey(), url))
+                    .findFirst()
+                    .ifPresent(entry -> rates.put(url, entry.getValue()));
+        }
+        routeSampleRates = Collections.unmodifiableMap(rates);
+    }
+
+    /**
+     * 记录一个请求，需在RequestTimeline.end之后调用
+     * 只复制基本类型和已有对象的引用，不格式化、不分配对象
+     */
+    public void log(RequestTimeline timeline, HttpServletRequest request, HttpServletResponse response) {
+        if (ring == null) {
+            return;
+        }
+        String route = timeline.getRoute() != null ? timeline.getRoute() : request.getRequestURI();
+        if (!sampled(timeline, route)) {
+            sampledOut.increment();
+            return;
+        }
+
+        long sequence;
+        do {
+            sequence = cursor.get();
+            if (sequence - consumed.get() >= ring.length) {
+                dropped.increment();
+                return;
+            }
+        } while (!cursor.compareAndSet(sequence, sequence + 1));
+
+        AccessLogEntry entry = ring[(int) sequence & indexMask];
+        entry.timestamp = System.currentTimeMillis();
+        entry.method = request.getMethod();
+        entry.route = route;
+        entry.registryId = timeline.getRegistryId();
+        entry.status = response.getStatus();
+        entry.code = timeline.getResultCode();
+        entry.totalMicros = timeline.getTotalNanos() / 1000;
+        for (RequestPhase phase : PHASES) {
+            entry.phaseMicros[phase.ordinal()] = timeline.getPhaseNanos(phase) / 1000;
+        }
+        entry.allocatedBytes = timeline.getAllocatedBytes();
+        entry.clientIp = request.getRemoteAddr();
+        entry.body = accessLogProperties.isIncludeBody() ? timeline.getRequestBody() : null;
+        entry.sequence = sequence;
+    }
+
+    /**
+     * 写入、丢弃和未采样的日志数量
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", ring != null);
+        result.put("bufferSize", ring == null ? 0 : ring.length);
+        result.put("pending", cursor.get() - consumed.get());
+        result.put("written", written.sum());
+        result.put("dropped", dropped.sum());
+        result.put("sampledOut", sampledOut.sum());
+        result.put("routeSampleRates", routeSampleRates);
+        return result;
+    }
+
+    private boolean sampled(RequestTimeline timeline, String route) {
+        if (accessLogProperties.isAlwaysLogErrors()) {
+            String code = timeline.getResultCode();
+            if (code != null && !BasicConstants.TRADE_SUCCESS.equals(code)) {
+                return true;
+            }
+        }
+        if (slowThresholdNanos > 0 && timeline.getTotalNanos() >= slowThresholdNanos) {
+            return true;
+        }
+        Double routeRate = routeSampleRates.get(route);
+        double rate = routeRate != null ? routeRate : accessLogProperties.getSampleRate();
+        return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    /**
+     * 写日志线程：按序号依次读取已发布的槽位
+     */
+    private void drain() {
+        long next = consumed.get();
+        while (true) {
+            AccessLogEntry entry = ring[(int) next & indexMask];
+            if (entry.sequence != next) {
+                // 停止后只写出已发布的日志
+                if (!running) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            try {
+                write(entry);
+                written.increment();
+            } catch (Exception e) {
+                logger.warn("Write access log error, route: {}", entry.route, e);
+            }
+            entry.clear();
+            consumed.set(++next);
+        }
+    }
+
+    private void write(AccessLogEntry entry) {
+        if (!accessLogger.isInfoEnabled()) {
+            return;
+        }
+        StringBuilder sb = line;
+        sb.setLength(0);
+        sb.append("{\"ts\":").append(entry.timestamp);
+        appendString(sb.append(",\"method\":"), entry.method);
+        appendString(sb.append(",\"route\":"), entry.route);
+        appendString(sb.append(",\"registryId\":"), entry.registryId);
+        sb.append(",\"status\":").append(entry.status);
+        appendString(sb.append(",\"code\":"), entry.code);
+        appendMillis(sb.append(",\"totalMs\":"), entry.totalMicros);
+        sb.append(",\"phases\":{");
+        boolean first = true;
+        for (RequestPhase phase : PHASES) {
+            long micros = entry.phaseMicros[phase.ordinal()];
+            if (micros > 0) {
+                sb.append(first ? "\"" : ",\"").append(phase.name()).append("\":");
+                appendMillis(sb, micros);
+                first = false;
+            }
+        }
+        sb.append('}');
+        if (entry.allocatedBytes >= 0) {
+            sb.append(",\"allocBytes\":").append(entry.allocatedBytes);
+        }
+        appendString(sb.append(",\"ip\":"), entry.clientIp);
+        if (entry.body != null) {
+            String body = JSON.toJSONString(NpcsDataMaskUtil.maskByFieldName(entry.body, maskRules));
+            int maxChars = accessLogProperties.getBodyMaxChars();
+            appendString(sb.append(",\"body\":"), body.length() <= maxChars ? body : body.substring(0, maxChars) + "...");
+        }
+        sb.append('}');
+        accessLogger.info(sb.toString());
+    }
+
+    private static void appendMillis(StringBuilder sb, long micros) {
+        sb.append(micros / 1000).append('.');
+        long fraction = micros % 1000;
+        if (fraction < 100) {
+            sb.append('0');
+        }
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        sb.append(fraction);
+    }
+
+    private static void appendString(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    private void registerCounter(String result, LongAdder counter) {
+        FunctionCounter.builder("bff.access.log.records", counter, LongAdder::sum)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,22 @@
+package com.changjiang.bff.core.binding;
+
+/**
+ * 参数绑定器
+ * 将请求中的原始值(JSON解析结果：Map、Collection、String、Number等)转换为方法参数的类型
+ *
+ * 调用关系：
+ * - 由ArgumentBinders在注册API时按参数类型创建，请求时不再判断类型
+ * - 被ArgumentBindingPlan调用
+ */
+@FunctionalInterface
+public interface ArgumentBinder {
+
+    /**
+     * 转换参数值
+     *
+     * @param value 原始值，不为null
+     * @return 转换后的值
+     * @throws IllegalArgumentException 值无法转换为目标类型
+     */
+    Object bind(Object value);
+}
@@ -0,0 +1,335 @@
+package com.changjiang.bff.core.binding;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import com.changjiang.bff.util.NpcsSerializerUtil;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 参数绑定器工厂
+ * 主要职责：
+ * 1. 注册API时按参数类型选择绑定器：简单类型、集合、Map、分页(按类型结构识别)、普通实体
+ * 2. 集合参数按泛型参数解析元素类型，元素直接由已解析的JSON转换为目标类型，不再序列化后重新解析
+ * 3. 单参数方法的整体请求体绑定(forBody)，兼容原handleRequestParams的请求格式
+ *
+ * 使用场景：
+ * - ArgumentBindingPlan编译时为每个参数创建绑定器
+ *
+ * 调用关系：
+ * - 被ArgumentBindingPlan调用
+ * - 实体转换使用NpcsSerializerUtil
+ */
+public final class ArgumentBinders {
+
+    /** 简单类型绑定器，基本类型和包装类型共用 */
+    private static final Map<Class<?>, ArgumentBinder> SIMPLE_BINDERS = new HashMap<>();
+
+    static {
+        register(ArgumentBinders::toText, String.class);
+        register(v -> v instanceof Integer ? v
+                : v instanceof Number ? (Object) ((Number) v).intValue() : Integer.valueOf(text(v)), int.class, Integer.class);
+        register(v -> v instanceof Long ? v
+                : v instanceof Number ? (Object) ((Number) v).longValue() : Long.valueOf(text(v)), long.class, Long.class);
+        register(v -> v instanceof Double ? v
+                : v instanceof Number ? (Object) ((Number) v).doubleValue() : Double.valueOf(text(v)), double.class, Double.class);
+        register(v -> v instanceof Float ? v
+                : v instanceof Number ? (Object) ((Number) v).floatValue() : Float.valueOf(text(v)), float.class, Float.class);
+        register(v -> v instanceof Short ? v
+                : v instanceof Number ? (Object) ((Number) v).shortValue() : Short.valueOf(text(v)), short.class, Short.class);
+        register(v -> v instanceof Byte ? v
+                : v instanceof Number ? (Object) ((Number) v).byteValue() : Byte.valueOf(text(v)), byte.class, Byte.class);
+        register(ArgumentBinders::toBoolean, boolean.class, Boolean.class);
+        register(ArgumentBinders::toCharacter, char.class, Character.class);
+        register(v -> v instanceof BigDecimal ? v : new BigDecimal(text(v)), BigDecimal.class);
+        register(v -> v instanceof BigInteger ? v : new BigInteger(text(v)), BigInteger.class);
+        for (Class<?> type : new Class<?>[]{Date.class, LocalDate.class, LocalDateTime.class, Instant.class, OffsetDateTime.class}) {
+            register(DateTimeBinders.forType(type), type);
+        }
+    }
+
+    private ArgumentBinders() {
+    }
+
+    /**
+     * 是否为简单类型：基本类型及其包装类、String、BigDecimal、BigInteger、日期时间、枚举
+     */
+    public static boolean isSimpleType(Class<?> type) {
+        return SIMPLE_BINDERS.containsKey(type) || type.isEnum();
+    }
+
+    /**
+     * 按参数类型创建绑定器
+     *
+     * @param type        参数类型
+     * @param genericType 参数的泛型类型
+     */
+    public static ArgumentBinder forType(Class<?> type, Type genericType) {
+        ArgumentBinder simple = SIMPLE_BINDERS.get(type);
+        if (simple != null) {
+            return simple;
+        }
+        if (type.isEnum()) {
+            return enumBinder(type);
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return collectionBinder(type, genericType);
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return mapBinder(type);
+        }
+        // 按类型结构识别分页参数，不再按类名判断
+        ArgumentBinder page = PageParamBinder.compile(type);
+        if (page != null) {
+            return page;
+        }
+        return entityBinder(type);
+    }
+
+    /**
+     * 创建整体请求体绑定器，单参数方法使用
+     * - 简单类型：取与参数同名的字段，没有时取第一个字段
+     * - 集合：依次取data、list字段，请求体只有一个集合字段时取该字段
+     * - Map、分页、实体：整个请求体
+     *
+     * @param name        参数名
+     * @param type        参数类型
+     * @param genericType 参数的泛型类型
+     */
+    public static ArgumentBinder forBody(String name, Class<?> type, Type genericType) {
+        ArgumentBinder binder = forType(type, genericType);
+        if (isSimpleType(type)) {
+            return body -> {
+                Map<?, ?> params = (Map<?, ?>) body;
+                Object value = params.containsKey(name) ? params.get(name) : firstValue(params);
+                return value == null ? null : binder.bind(value);
+            };
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return body -> {
+                Map<?, ?> params = (Map<?, ?>) body;
+                Object value;
+                if (params.containsKey("data")) {
+                    value = params.get("data");
+                } else if (params.containsKey("list")) {
+                    value = params.get("list");
+                } else if (params.size() == 1 && firstValue(params) instanceof Collection) {
+                    value = firstValue(params);
+                } else {
+                    throw new IllegalArgumentException("请求体中缺少列表数据(data或list字段)");
+                }
+                return value == null ? null : binder.bind(value);
+            };
+        }
+        return binder;
+    }
+
+    private static void register(ArgumentBinder binder, Class<?>... types) {
+        for (Class<?> type : types) {
+            SIMPLE_BINDERS.put(type, binder);
+        }
+    }
+
+    private static ArgumentBinder enumBinder(Class<?> type) {
+        Map<String, Object> constants = new HashMap<>();
+        for (Object constant : type.getEnumConstants()) {
+            constants.put(((Enum<?>) constant).name(), constant);
+        }
+        return value -> {
+            if (type.isInstance(value)) {
+                return value;
+            }
+            Object constant = constants.get(text(value));
+            if (constant == null) {
+                throw new IllegalArgumentException("No enum constant " + type.getName() + "." + value);
+            }
+            return constant;
+        };
+    }
+
+    /**
+     * 集合绑定器
+     * 元素类型在注册时由泛型参数解析，如List<UserDto>的元素按UserDto绑定；
+     * 未声明元素类型(List、List<?>、List<Object>)时元素保持原样
+     */
+    private static ArgumentBinder collectionBinder(Class<?> type, Type genericType) {
+        boolean set = Set.class.isAssignableFrom(type);
+        Type elementType = elementType(genericType);
+        Class<?> elementClass = rawClass(elementType);
+        ArgumentBinder elementBinder = elementClass == Object.class ? null : forType(elementClass, elementType);
+        // 字符串形式的数组直接解析为元素类型，通配符和类型变量按上界解析
+        Type decodeType = elementType instanceof ParameterizedType ? elementType : elementClass;
+        return value -> {
+            Collection<?> collection;
+            if (value instanceof Collection) {
+                collection = (Collection<?>) value;
+            } else if (value instanceof String) {
+                collection = elementBinder == null
+                        ? JSON.parseArray((String) value) : JSON.parseArray((String) value, decodeType);
+            } else if (value instanceof Object[]) {
+                collection = Arrays.asList((Object[]) value);
+            } else {
+                throw new IllegalArgumentException("Cannot convert to collection type: " + type.getName());
+            }
+            if (elementBinder == null && type.isInstance(collection)) {
+                return collection;
+            }
+            Collection<Object> copy = set ? new LinkedHashSet<>(collection.size() * 4 / 3 + 1)
+                    : new ArrayList<>(collection.size());
+            int index = 0;
+            for (Object element : collection) {
+                copy.add(element == null || elementBinder == null ? element : bindElement(elementBinder, element, index));
+                index++;
+            }
+            if (!type.isInstance(copy)) {
+                throw new IllegalArgumentException("Cannot convert to collection type: " + type.getName());
+            }
+            return copy;
+        };
+    }
+
+    private static Object bindElement(ArgumentBinder elementBinder, Object element, int index) {
+        try {
+            return elementBinder.bind(element);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("第" + index + "个元素: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 集合的元素类型，无法确定时为Object
+     */
+    private static Type elementType(Type genericType) {
+        if (genericType instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType) genericType).getActualTypeArguments();
+            if (arguments.length == 1) {
+                return arguments[0];
+            }
+        }
+        return Object.class;
+    }
+
+    /**
+     * 泛型类型对应的类：通配符和类型变量取第一个上界
+     */
+    private static Class<?> rawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return rawClass(((ParameterizedType) type).getRawType());
+        }
+        if (type instanceof WildcardType) {
+            return rawClass(((WildcardType) type).getUpperBounds()[0]);
+        }
+        if (type instanceof TypeVariable) {
+            return rawClass(((TypeVariable<?>) type).getBounds()[0]);
+        }
+        if (type instanceof GenericArrayType) {
+            return Array.newInstance(
+                    rawClass(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        }
+        return Object.class;
+    }
+
+    private static ArgumentBinder mapBinder(Class<?> type) {
+        return value -> {
+            Map<?, ?> map;
+            if (value instanceof Map) {
+                map = (Map<?, ?>) value;
+            } else if (value instanceof String) {
+                map = JSON.parseObject((String) value);
+            } else {
+                throw new IllegalArgumentException("Cannot convert to map type: " + type.getName());
+            }
+            if (type.isInstance(map)) {
+                return map;
+            }
+            Map<Object, Object> copy = new LinkedHashMap<>(map);
+            if (!type.isInstance(copy)) {
+                throw new IllegalArgumentException("Cannot convert to map type: " + type.getName());
+            }
+            return copy;
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentBinder entityBinder(Class<?> type) {
+        return value -> {
+            if (type.isInstance(value)) {
+                return value;
+            }
+            // 与原handleEntityType一致，FastJSON2和Jackson都失败时逐个属性反射赋值
+            if (value instanceof JSONObject) {
+                return NpcsSerializerUtil.convertToEntityLenient((JSONObject) value, type);
+            }
+            if (value instanceof Map) {
+                return NpcsSerializerUtil.convertToEntityLenient(new JSONObject((Map<String, Object>) value), type);
+            }
+            if (value instanceof String) {
+                return NpcsSerializerUtil.readValueNormal((String) value, type);
+            }
+            return NpcsSerializerUtil.convertValue(value, type);
+        };
+    }
+
+    private static Object firstValue(Map<?, ?> params) {
+        return params.isEmpty() ? null : params.values().iterator().next();
+    }
+
+    private static String text(Object value) {
+        return value.toString().trim();
+    }
+
+    private static Object toText(Object value) {
+        if (value instanceof String) {
+            return value;
+        }
+        if (value instanceof Map || value instanceof Collection) {
+            return JSON.toJSONString(value);
+        }
+        return value.toString();
+    }
+
+    private static Object toBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return value;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).intValue() != 0;
+        }
+        String text = text(value);
+        return "1".equals(text) || Boolean.parseBoolean(text);
+    }
+
+    private static Object toCharacter(Object value) {
+        if (value instanceof Character) {
+            return value;
+        }
+        String text = text(value);
+        if (text.length() != 1) {
+            throw new IllegalArgumentException("Cannot convert to char: " + text);
+        }
+        return text.charAt(0);
+    }
+}
@@ -0,0 +1,145 @@
+package com.changjiang.bff.core.binding;
+
+import com.changjiang.bff.core.introspector.ParameterNameDiscoverer;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ValueConstants;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 方法参数绑定计划
+ * 主要职责：
+ * 1. 注册API时读取方法的全部参数：参数名、类型、泛型类型、@RequestParam的必填标记和默认值，并为每个参数选定绑定器
+ * 2. 请求时按计划把请求体绑定为方法参数数组，不再读取方法参数、注解或判断参数类型
+ *
+ * 绑定规则：
+ * - 未标注@RequestParam的单参数方法绑定整个请求体，与原handleRequestParams的请求格式一致
+ * - 其余情况按参数名从请求体中取值，@RequestParam(required = true)且没有默认值的参数缺失时报错
+ * - 基本类型参数缺失且没有默认值时报错
+ *
+ * 调用关系：
+ * - 由ApiScanner在注册API时通过ServiceApiInfo.compileBindingPlan创建
+ * - 被MethodInvocationServiceIml.handleRequestParams调用
+ */
+public final class ArgumentBindingPlan {
+
+    /** 无参方法的计划 */
+    public static final ArgumentBindingPlan EMPTY = new ArgumentBindingPlan(new ParameterBinding[0]);
+
+    private static final ParameterNameDiscoverer PARAMETER_NAME_DISCOVERER = new ParameterNameDiscoverer();
+
+    private static final Class<?>[] PRIMITIVE_TYPES = {
+            boolean.class, byte.class, char.class, short.class, int.class, long.class, float.class, double.class};
+
+    private static final Class<?>[] WRAPPER_TYPES = {
+            Boolean.class, Byte.class, Character.class, Short.class, Integer.class, Long.class, Float.class, Double.class};
+
+    private final ParameterBinding[] bindings;
+
+    /** 参数类型，基本类型已替换为包装类型，用于调用前的类型检查 */
+    private final Class<?>[] argumentTypes;
+
+    private ArgumentBindingPlan(ParameterBinding[] bindings) {
+        this.bindings = bindings;
+        this.argumentTypes = new Class<?>[bindings.length];
+        for (int i = 0; i < bindings.length; i++) {
+            argumentTypes[i] = wrap(bindings[i].getType());
+        }
+    }
+
+    /**
+     * 编译方法的参数绑定计划
+     *
+     * @throws IllegalArgumentException 默认值无法转换为参数类型
+     */
+    public static ArgumentBindingPlan compile(Method method) {
+        return compile(method, PARAMETER_NAME_DISCOVERER.getParameterNames(method));
+    }
+
+    /**
+     * 编译方法的参数绑定计划
+     *
+     * @param parameterNames 参数名，与方法参数一一对应
+     * @throws IllegalArgumentException 默认值无法转换为参数类型
+     */
+    public static ArgumentBindingPlan compile(Method method, String[] parameterNames) {
+        Parameter[] parameters = method.getParameters();
+        if (parameters.length == 0) {
+            return EMPTY;
+        }
+        Type[] genericTypes = method.getGenericParameterTypes();
+        ParameterBinding[] bindings = new ParameterBinding[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            RequestParam requestParam = parameters[i].getAnnotation(RequestParam.class);
+            String defaultText = requestParam == null || ValueConstants.DEFAULT_NONE.equals(requestParam.defaultValue())
+                    ? null : requestParam.defaultValue();
+            boolean required = requestParam != null && requestParam.required() && defaultText == null;
+            boolean wholeBody = parameters.length == 1 && requestParam == null;
+            // 内部类的构造器等情况下泛型参数可能少于实际参数
+            Type genericType = genericTypes.length == parameters.length ? genericTypes[i] : parameters[i].getType();
+            bindings[i] = new ParameterBinding(i, parameterNames[i], parameters[i].getType(), genericType,
+                    required, wholeBody, defaultText);
+        }
+        return new ArgumentBindingPlan(bindings);
+    }
+
+    /**
+     * 绑定方法参数
+     *
+     * @param params 请求参数，可为null
+     * @return 与方法参数一一对应的参数数组
+     * @throws com.changjiang.bff.core.validation.ParameterValidationException 必填参数缺失或类型转换失败
+     */
+    public Object[] bind(Map<String, Object> params) {
+        Map<String, Object> source = params == null ? Collections.emptyMap() : params;
+        Object[] args = new Object[bindings.length];
+        for (int i = 0; i < bindings.length; i++) {
+            args[i] = bindings[i].resolve(source);
+        }
+        return args;
+    }
+
+    /**
+     * 检查参数类型是否与方法参数一致
+     *
+     * @throws IllegalArgumentException 参数个数或类型不匹配
+     */
+    public void checkTypes(Object[] args) {
+        if (args.length != argumentTypes.length) {
+            throw new IllegalArgumentException("参数个数不匹配");
+        }
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] != null && !argumentTypes[i].isInstance(args[i])) {
+                throw new IllegalArgumentException("参数类型不匹配: " + bindings[i].getName());
+            }
+        }
+    }
+
+    /**
+     * 参数绑定信息，按方法参数顺序
+     */
+    public List<ParameterBinding> getBindings() {
+        return Collections.unmodifiableList(Arrays.asList(bindings));
+    }
+
+    public int size() {
+        return bindings.length;
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        if (type.isPrimitive()) {
+            for (int i = 0; i < PRIMITIVE_TYPES.length; i++) {
+                if (PRIMITIVE_TYPES[i] == type) {
+                    return WRAPPER_TYPES[i];
+                }
+            }
+        }
+        return type;
+    }
+}
@@ -0,0 +1,227 @@
+package com.changjiang.bff.core.binding;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.util.Date;
+
+/**
+ * 日期时间参数绑定
+ * 主要职责：
+ * 1. 按输入的形状(长度和分隔符)选择解析方式，不再逐个格式尝试并依赖异常
+ * 2. 常用格式手写解析：yyyy-MM-dd、yyyy-MM-dd HH:mm、yyyy-MM-dd HH:mm:ss，日期分隔符可为'-'或'/'，日期与时间之间可为' '或'T'
+ * 3. 纯数字和数值按毫秒时间戳处理
+ * 4. 带毫秒、时区偏移或'Z'的输入使用缓存的DateTimeFormatter(线程安全)
+ * 5. 支持Date、LocalDate、LocalDateTime、Instant、OffsetDateTime
+ *
+ * 时区规则：
+ * - 输入没有时区时按系统默认时区解释，与原SimpleDateFormat行为一致
+ * - 转换为LocalDate/LocalDateTime时，带时区的输入先换算到系统默认时区
+ *
+ * 调用关系：
+ * - 被ArgumentBinders注册为简单类型绑定器
+ */
+public final class DateTimeBinders {
+
+    /** yyyy-MM-dd HH:mm:ss[.SSSSSSSSS]，日期与时间之间为空格 */
+    private static final DateTimeFormatter LOCAL_DATE_TIME_SPACE = new DateTimeFormatterBuilder()
+            .append(DateTimeFormatter.ISO_LOCAL_DATE)
+            .appendLiteral(' ')
+            .append(DateTimeFormatter.ISO_LOCAL_TIME)
+            .toFormatter();
+
+    /** yyyy-MM-dd HH:mm:ss[.SSS]+08:00 或 Z，日期与时间之间为空格 */
+    private static final DateTimeFormatter OFFSET_DATE_TIME_SPACE = new DateTimeFormatterBuilder()
+            .append(LOCAL_DATE_TIME_SPACE)
+            .appendOffsetId()
+            .toFormatter();
+
+    private DateTimeBinders() {
+    }
+
+    /**
+     * 是否为支持的日期时间类型
+     */
+    public static boolean isDateTimeType(Class<?> type) {
+        return type == Date.class || type == LocalDate.class || type == LocalDateTime.class
+                || type == Instant.class || type == OffsetDateTime.class;
+    }
+
+    /**
+     * 按目标类型创建绑定器
+     *
+     * @return 不支持的类型返回null
+     */
+    public static ArgumentBinder forType(Class<?> type) {
+        if (type == Date.class) {
+            return value -> value instanceof Date ? value : Date.from(toInstant(parse(value)));
+        }
+        if (type == Instant.class) {
+            return value -> value instanceof Instant ? value : toInstant(parse(value));
+        }
+        if (type == LocalDateTime.class) {
+            return value -> value instanceof LocalDateTime ? value : toLocalDateTime(parse(value));
+        }
+        if (type == LocalDate.class) {
+            return value -> value instanceof LocalDate ? value : toLocalDate(parse(value));
+        }
+        if (type == OffsetDateTime.class) {
+            return value -> value instanceof OffsetDateTime ? value : toOffsetDateTime(parse(value));
+        }
+        return null;
+    }
+
+    /**
+     * 解析输入
+     *
+     * @return LocalDate、LocalDateTime、OffsetDateTime或Instant之一
+     * @throws IllegalArgumentException 无法识别的格式或无效的日期
+     */
+    static Object parse(Object value) {
+        if (value instanceof Number) {
+            return Instant.ofEpochMilli(((Number) value).longValue());
+        }
+        if (value instanceof Date) {
+            return ((Date) value).toInstant();
+        }
+        if (value instanceof ZonedDateTime) {
+            return ((ZonedDateTime) value).toOffsetDateTime();
+        }
+        if (value instanceof LocalDate || value instanceof LocalDateTime
+                || value instanceof OffsetDateTime || value instanceof Instant) {
+            return value;
+        }
+        String text = value.toString().trim();
+        try {
+            Object parsed = parseText(text);
+            if (parsed == null) {
+                throw new IllegalArgumentException("Invalid date format: " + text);
+            }
+            return parsed;
+        } catch (DateTimeException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid date format: " + text, e);
+        }
+    }
+
+    private static Object parseText(String text) {
+        int length = text.length();
+        if (length == 0) {
+            return null;
+        }
+        if (isEpoch(text)) {
+            return Instant.ofEpochMilli(Long.parseLong(text));
+        }
+        if (length < 10 || !isDigits(text, 0, 4)) {
+            return null;
+        }
+        char dateSeparator = text.charAt(4);
+        if ((dateSeparator != '-' && dateSeparator != '/') || text.charAt(7) != dateSeparator
+                || !isDigits(text, 5, 7) || !isDigits(text, 8, 10)) {
+            return null;
+        }
+        LocalDate date = LocalDate.of(digits(text, 0, 4), digits(text, 5, 7), digits(text, 8, 10));
+        if (length == 10) {
+            return date;
+        }
+        char timeSeparator = text.charAt(10);
+        if (timeSeparator != ' ' && timeSeparator != 'T') {
+            return null;
+        }
+        if ((length == 16 || length == 19) && isTime(text, length)) {
+            int second = length == 19 ? digits(text, 17, 19) : 0;
+            return LocalDateTime.of(date.getYear(), date.getMonthValue(), date.getDayOfMonth(),
+                    digits(text, 11, 13), digits(text, 14, 16), second);
+        }
+        return parseWithFormatter(dateSeparator == '/' ? text.replace('/', '-') : text, timeSeparator);
+    }
+
+    /**
+     * 带毫秒或时区的输入，使用缓存的DateTimeFormatter
+     */
+    private static Object parseWithFormatter(String text, char timeSeparator) {
+        boolean offset = text.charAt(text.length() - 1) == 'Z' || text.indexOf('+', 11) > 0 || text.indexOf('-', 11) > 0;
+        if (timeSeparator == 'T') {
+            return offset ? OffsetDateTime.parse(text, DateTimeFormatter.ISO_OFFSET_DATE_TIME)
+                    : LocalDateTime.parse(text, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        }
+        return offset ? OffsetDateTime.parse(text, OFFSET_DATE_TIME_SPACE)
+                : LocalDateTime.parse(text, LOCAL_DATE_TIME_SPACE);
+    }
+
+    private static Instant toInstant(Object parsed) {
+        if (parsed instanceof Instant) {
+            return (Instant) parsed;
+        }
+        if (parsed instanceof OffsetDateTime) {
+            return ((OffsetDateTime) parsed).toInstant();
+        }
+        if (parsed instanceof LocalDateTime) {
+            return ((LocalDateTime) parsed).atZone(ZoneId.systemDefault()).toInstant();
+        }
+        return ((LocalDate) parsed).atStartOfDay(ZoneId.systemDefault()).toInstant();
+    }
+
+    private static LocalDateTime toLocalDateTime(Object parsed) {
+        if (parsed instanceof LocalDateTime) {
+            return (LocalDateTime) parsed;
+        }
+        if (parsed instanceof LocalDate) {
+            return ((LocalDate) parsed).atStartOfDay();
+        }
+        return LocalDateTime.ofInstant(toInstant(parsed), ZoneId.systemDefault());
+    }
+
+    private static LocalDate toLocalDate(Object parsed) {
+        if (parsed instanceof LocalDate) {
+            return (LocalDate) parsed;
+        }
+        return toLocalDateTime(parsed).toLocalDate();
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Object parsed) {
+        if (parsed instanceof OffsetDateTime) {
+            return (OffsetDateTime) parsed;
+        }
+        return OffsetDateTime.ofInstant(toInstant(parsed), ZoneId.systemDefault());
+    }
+
+    /**
+     * 纯数字(可带负号)按毫秒时间戳处理
+     */
+    private static boolean isEpoch(String text) {
+        int start = text.charAt(0) == '-' ? 1 : 0;
+        return text.length() > start && isDigits(text, start, text.length());
+    }
+
+    /**
+     * HH:mm 或 HH:mm:ss
+     */
+    private static boolean isTime(String text, int length) {
+        return isDigits(text, 11, 13) && text.charAt(13) == ':' && isDigits(text, 14, 16)
+                && (length == 16 || (text.charAt(16) == ':' && isDigits(text, 17, 19)));
+    }
+
+    private static boolean isDigits(String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digits(String text, int from, int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            result = result * 10 + (text.charAt(i) - '0');
+        }
+        return result;
+    }
+}
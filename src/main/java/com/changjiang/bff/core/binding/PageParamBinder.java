@@ -0,0 +1,189 @@
+package com.changjiang.bff.core.binding;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 分页参数绑定器
+ * 主要职责：
+ * 1. 注册API时按类型结构识别分页参数：公开的无参构造器，以及setPageNum、setPageSize(int/Integer/long)和单参数的setData，
+ *    且没有其他可写属性(setter或公开字段)，否则按普通实体绑定，避免其他字段被静默丢弃
+ * 2. 构造器和setter在识别时解析为MethodHandle，请求时不再反射查找
+ * 3. data字段按setData的参数类型绑定：Object时保持JSONObject，声明了具体类型时转换为该类型
+ *
+ * 请求格式：{"pageNum": 1, "pageSize": 10, "data": {...}}，pageNum默认1，pageSize默认10，缺少data时绑定为null
+ *
+ * 调用关系：
+ * - 由ArgumentBinders.forType在编译参数绑定计划时创建
+ */
+final class PageParamBinder implements ArgumentBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageParamBinder.class);
+
+    private static final MethodType INT_SETTER = MethodType.methodType(void.class, Object.class, int.class);
+
+    private static final MethodType OBJECT_SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /** 分页参数类型允许的可写属性 */
+    private static final Set<String> PAGE_SETTERS = Set.of("setPageNum", "setPageSize", "setData");
+
+    private final Class<?> type;
+
+    private final MethodHandle constructor;
+
+    private final MethodHandle setPageNum;
+
+    private final MethodHandle setPageSize;
+
+    private final MethodHandle setData;
+
+    /** data字段的绑定器，setData参数为Object时为null */
+    private final ArgumentBinder dataBinder;
+
+    private PageParamBinder(Class<?> type, MethodHandle constructor, MethodHandle setPageNum,
+                            MethodHandle setPageSize, MethodHandle setData, ArgumentBinder dataBinder) {
+        this.type = type;
+        this.constructor = constructor;
+        this.setPageNum = setPageNum;
+        this.setPageSize = setPageSize;
+        this.setData = setData;
+        this.dataBinder = dataBinder;
+    }
+
+    /**
+     * 按类型结构识别分页参数
+     *
+     * @return 不是分页参数类型时返回null
+     */
+    static PageParamBinder compile(Class<?> type) {
+        if (!Modifier.isPublic(type.getModifiers()) || type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            return null;
+        }
+        Method pageNum = findSetter(type, "setPageNum", true);
+        Method pageSize = findSetter(type, "setPageSize", true);
+        Method data = findSetter(type, "setData", false);
+        if (pageNum == null || pageSize == null || data == null) {
+            return null;
+        }
+        String otherProperty = findOtherWritableProperty(type);
+        if (otherProperty != null) {
+            logger.debug("{} has page setters and writable property {}, bind as entity", type.getName(), otherProperty);
+            return null;
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> dataType = data.getParameterTypes()[0];
+            Type dataGenericType = data.getGenericParameterTypes()[0];
+            ArgumentBinder dataBinder = dataType == Object.class ? null : ArgumentBinders.forType(dataType, dataGenericType);
+            return new PageParamBinder(type,
+                    lookup.unreflectConstructor(type.getConstructor()).asType(MethodType.methodType(Object.class)),
+                    lookup.unreflect(pageNum).asType(INT_SETTER),
+                    lookup.unreflect(pageSize).asType(INT_SETTER),
+                    lookup.unreflect(data).asType(OBJECT_SETTER),
+                    dataBinder);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            logger.debug("{} has page setters but cannot be instantiated, bind as entity: {}", type.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 查找公开的单参数setter
+     *
+     * @param number 参数是否须为int、Integer或long
+     */
+    private static Method findSetter(Class<?> type, String name, boolean number) {
+        for (Method method : type.getMethods()) {
+            if (!method.getName().equals(name) || method.getParameterCount() != 1 || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            Class<?> parameterType = method.getParameterTypes()[0];
+            if (!number || parameterType == int.class || parameterType == Integer.class || parameterType == long.class) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 查找分页字段以外的可写属性：公开的单参数setter或公开的非final字段
+     *
+     * @return 属性名，没有时返回null
+     */
+    private static String findOtherWritableProperty(Class<?> type) {
+        for (Method method : type.getMethods()) {
+            String name = method.getName();
+            if (name.length() > 3 && name.startsWith("set") && method.getParameterCount() == 1
+                    && !Modifier.isStatic(method.getModifiers()) && !PAGE_SETTERS.contains(name)) {
+                return name;
+            }
+        }
+        for (Field field : type.getFields()) {
+            int modifiers = field.getModifiers();
+            if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)) {
+                return field.getName();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Object bind(Object value) {
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Cannot convert to page type: " + type.getName());
+        }
+        Map<?, ?> params = (Map<?, ?>) value;
+        Object data = params.get("data");
+        if (data == null) {
+            logger.warn("分页参数中缺少data字段");
+            return null;
+        }
+        Object boundData = dataBinder == null ? toJSONObject(data) : dataBinder.bind(data);
+        try {
+            Object page = (Object) constructor.invokeExact();
+            setPageNum.invokeExact(page, intValue(params.get("pageNum"), 1));
+            setPageSize.invokeExact(page, intValue(params.get("pageSize"), 10));
+            setData.invokeExact(page, boundData);
+            return page;
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("创建分页对象失败: " + type.getName(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JSONObject toJSONObject(Object data) {
+        if (data instanceof JSONObject) {
+            return (JSONObject) data;
+        }
+        if (data instanceof Map) {
+            return new JSONObject((Map<String, Object>) data);
+        }
+        if (data instanceof String) {
+            return JSON.parseObject((String) data);
+        }
+        throw new IllegalArgumentException("分页参数data字段不是对象");
+    }
+
+    private static int intValue(Object value, int defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        String text = value.toString().trim();
+        return text.isEmpty() ? defaultValue : Integer.parseInt(text);
+    }
+}
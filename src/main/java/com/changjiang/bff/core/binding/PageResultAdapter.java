@@ -0,0 +1,175 @@
+package com.changjiang.bff.core.binding;
+
+import com.changjiang.bff.entity.PageResult;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * 分页结果适配器
+ * 主要职责：
+ * 1. 按类型结构识别后端返回的分页对象：公开的getContent(Collection)、getTotal(long/int)、getPageNum(int)、getPageSize(int)
+ * 2. 每个类型只识别一次，getter解析为MethodHandle后缓存，之后不再反射查找
+ * 3. 逐个遍历分页内容(forEachContent)，或一次转换为PageResult，不创建中间列表
+ *
+ * 调用关系：
+ * - ApiScanner注册API时按返回类型预先识别
+ * - 被CrpcTransferService处理RPC响应时调用
+ */
+public final class PageResultAdapter {
+
+    /** 按类型缓存，不是分页类型时缓存NONE */
+    private static final ClassValue<PageResultAdapter> ADAPTERS = new ClassValue<PageResultAdapter>() {
+        @Override
+        protected PageResultAdapter computeValue(Class<?> type) {
+            PageResultAdapter adapter = compile(type);
+            return adapter == null ? NONE : adapter;
+        }
+    };
+
+    private static final PageResultAdapter NONE = new PageResultAdapter(null, null, null, null);
+
+    private final MethodHandle content;
+
+    private final MethodHandle total;
+
+    private final MethodHandle pageNum;
+
+    private final MethodHandle pageSize;
+
+    private PageResultAdapter(MethodHandle content, MethodHandle total, MethodHandle pageNum, MethodHandle pageSize) {
+        this.content = content;
+        this.total = total;
+        this.pageNum = pageNum;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * 获取类型的分页适配器
+     *
+     * @return 不是分页类型时返回null
+     */
+    public static PageResultAdapter forClass(Class<?> type) {
+        PageResultAdapter adapter = ADAPTERS.get(type);
+        return adapter == NONE ? null : adapter;
+    }
+
+    private static PageResultAdapter compile(Class<?> type) {
+        if (!Modifier.isPublic(type.getModifiers())) {
+            return null;
+        }
+        Method content = findGetter(type, "getContent");
+        Method total = findGetter(type, "getTotal");
+        Method pageNum = findGetter(type, "getPageNum");
+        Method pageSize = findGetter(type, "getPageSize");
+        if (content == null || total == null || pageNum == null || pageSize == null
+                || !Collection.class.isAssignableFrom(content.getReturnType())
+                || !isInteger(total.getReturnType(), true)
+                || !isInteger(pageNum.getReturnType(), false)
+                || !isInteger(pageSize.getReturnType(), false)) {
+            return null;
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            return new PageResultAdapter(
+                    lookup.unreflect(content).asType(MethodType.methodType(Collection.class, Object.class)),
+                    lookup.unreflect(total).asType(MethodType.methodType(long.class, Object.class)),
+                    lookup.unreflect(pageNum).asType(MethodType.methodType(int.class, Object.class)),
+                    lookup.unreflect(pageSize).asType(MethodType.methodType(int.class, Object.class)));
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static Method findGetter(Class<?> type, String name) {
+        try {
+            Method method = type.getMethod(name);
+            return Modifier.isStatic(method.getModifiers()) ? null : method;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * int/Integer，allowLong时还可以是long/Long
+     */
+    private static boolean isInteger(Class<?> type, boolean allowLong) {
+        return type == int.class || type == Integer.class || (allowLong && (type == long.class || type == Long.class));
+    }
+
+    /**
+     * 分页内容，可能为null
+     */
+    public Collection<?> content(Object page) {
+        try {
+            return (Collection<?>) content.invokeExact(page);
+        } catch (Throwable e) {
+            throw new IllegalStateException("读取分页内容失败: " + page.getClass().getName(), e);
+        }
+    }
+
+    public long total(Object page) {
+        try {
+            return (long) total.invokeExact(page);
+        } catch (Throwable e) {
+            throw new IllegalStateException("读取分页总数失败: " + page.getClass().getName(), e);
+        }
+    }
+
+    public int pageNum(Object page) {
+        try {
+            return (int) pageNum.invokeExact(page);
+        } catch (Throwable e) {
+            throw new IllegalStateException("读取分页页码失败: " + page.getClass().getName(), e);
+        }
+    }
+
+    public int pageSize(Object page) {
+        try {
+            return (int) pageSize.invokeExact(page);
+        } catch (Throwable e) {
+            throw new IllegalStateException("读取分页大小失败: " + page.getClass().getName(), e);
+        }
+    }
+
+    /**
+     * 逐个处理分页内容，不复制
+     */
+    public void forEachContent(Object page, Consumer<Object> consumer) {
+        Collection<?> elements = content(page);
+        if (elements != null) {
+            elements.forEach(consumer);
+        }
+    }
+
+    /**
+     * 转换为PageResult
+     *
+     * @param mapper 元素转换，如脱敏；为null时直接使用原内容
+     */
+    public PageResult<Object> toPageResult(Object page, UnaryOperator<Object> mapper) {
+        Collection<?> elements = content(page);
+        List<Object> converted;
+        if (elements == null) {
+            converted = null;
+        } else if (mapper == null && elements instanceof List) {
+            @SuppressWarnings("unchecked")
+            List<Object> list = (List<Object>) elements;
+            converted = list;
+        } else {
+            converted = new ArrayList<>(elements.size());
+            for (Object element : elements) {
+                converted.add(mapper == null ? element : mapper.apply(element));
+            }
+        }
+        return PageResult.of(converted, total(page), pageNum(page), pageSize(page));
+    }
+}
@@ -0,0 +1,124 @@
+package com.changjiang.bff.core.binding;
+
+import com.changjiang.bff.core.validation.ParameterValidationException;
+
+import java.lang.reflect.Type;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * 单个方法参数的绑定信息
+ * 参数名、类型、泛型类型、必填标记、默认值和绑定器在注册API时确定，不可变
+ *
+ * 调用关系：
+ * - 由ArgumentBindingPlan.compile创建
+ * - 请求时被ArgumentBindingPlan.bind调用
+ */
+public final class ParameterBinding {
+
+    private static final String RULE_REQUIRED = "required";
+
+    private static final String RULE_TYPE = "type";
+
+    private final int index;
+
+    private final String name;
+
+    private final Class<?> type;
+
+    private final Type genericType;
+
+    private final boolean required;
+
+    /** 是否绑定整个请求体，只用于未标注@RequestParam的单参数方法 */
+    private final boolean wholeBody;
+
+    /** 默认值原文，没有默认值时为null */
+    private final String defaultText;
+
+    /** 已转换的默认值，只有不可变的简单类型在注册时转换 */
+    private final Object defaultValue;
+
+    private final ArgumentBinder binder;
+
+    ParameterBinding(int index, String name, Class<?> type, Type genericType, boolean required,
+                     boolean wholeBody, String defaultText) {
+        this.index = index;
+        this.name = name;
+        this.type = type;
+        this.genericType = genericType;
+        this.required = required;
+        this.wholeBody = wholeBody;
+        this.defaultText = defaultText;
+        this.binder = wholeBody ? ArgumentBinders.forBody(name, type, genericType) : ArgumentBinders.forType(type, genericType);
+        this.defaultValue = defaultText != null && ArgumentBinders.isSimpleType(type) && type != Date.class
+                ? ArgumentBinders.forType(type, genericType).bind(defaultText) : null;
+    }
+
+    /**
+     * 从请求参数中取值并转换
+     *
+     * @throws ParameterValidationException 必填参数缺失或类型转换失败
+     */
+    Object resolve(Map<String, Object> params) {
+        Object raw;
+        if (wholeBody) {
+            raw = params.isEmpty() ? null : params;
+        } else {
+            raw = params.get(name);
+        }
+        Object value = raw == null ? null : convert(raw);
+        if (value != null) {
+            return value;
+        }
+        if (defaultValue != null) {
+            return defaultValue;
+        }
+        if (defaultText != null) {
+            return convert(defaultText);
+        }
+        if (required || type.isPrimitive()) {
+            throw new ParameterValidationException(name, RULE_REQUIRED, "参数" + name + "不能为空");
+        }
+        return null;
+    }
+
+    private Object convert(Object raw) {
+        try {
+            return binder.bind(raw);
+        } catch (ParameterValidationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new ParameterValidationException(name, RULE_TYPE,
+                    "参数" + name + "无法转换为" + type.getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public Type getGenericType() {
+        return genericType;
+    }
+
+    public boolean isRequired() {
+        return required;
+    }
+
+    public boolean isWholeBody() {
+        return wholeBody;
+    }
+
+    public String getDefaultText() {
+        return defaultText;
+    }
+}
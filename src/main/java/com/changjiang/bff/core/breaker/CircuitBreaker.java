@@ -0,0 +1,198 @@
+package com.changjiang.bff.core.breaker;
+
+import com.changjiang.bff.config.CircuitBreakerProperties;
+import com.changjiang.bff.enums.CircuitState;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 熔断器
+ * 主要职责：
+ * 1. 在环形缓冲区中统计最近调用的失败率和慢调用率
+ * 2. 超过阈值时打开，打开期间直接拒绝调用
+ * 3. 等待时间结束后进入半开状态，按试探请求的结果关闭或重新打开
+ *
+ * 调用关系：
+ * - 由CircuitBreakerRegistry按registryId或路由创建
+ * - 状态变化通过TransitionListener通知CircuitBreakerRegistry输出日志和指标
+ */
+public final class CircuitBreaker {
+
+    /**
+     * 状态变化监听
+     */
+    interface TransitionListener {
+        void onTransition(CircuitBreaker breaker, CircuitState from, CircuitState to);
+    }
+
+    private final String name;
+
+    private final CircuitBreakerProperties properties;
+
+    private final TransitionListener listener;
+
+    private final OutcomeRingBuffer window;
+
+    private final AtomicReference<CircuitState> state = new AtomicReference<>(CircuitState.CLOSED);
+
+    /** 打开时间 */
+    private volatile long openedAtNanos;
+
+    /** 半开状态剩余的试探许可 */
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+
+    /** 半开状态已完成的试探请求数 */
+    private final AtomicInteger halfOpenCalls = new AtomicInteger();
+
+    /** 半开状态失败的试探请求数 */
+    private final AtomicInteger halfOpenFailures = new AtomicInteger();
+
+    /** 半开状态的慢试探请求数 */
+    private final AtomicInteger halfOpenSlowCalls = new AtomicInteger();
+
+    /** 累计拒绝数 */
+    private final AtomicLong rejected = new AtomicLong();
+
+    CircuitBreaker(String name, CircuitBreakerProperties properties, TransitionListener listener) {
+        this.name = name;
+        this.properties = properties;
+        this.listener = listener;
+        this.window = new OutcomeRingBuffer(properties.getWindowSize());
+    }
+
+    /**
+     * 尝试放行一次调用
+     *
+     * @return 放行时所处的状态，需要在调用结束时传回；被拒绝时返回null
+     */
+    public CircuitState tryAcquire() {
+        CircuitState current = state.get();
+        if (current == CircuitState.CLOSED) {
+            return CircuitState.CLOSED;
+        }
+        if (current == CircuitState.OPEN) {
+            if (System.nanoTime() - openedAtNanos < TimeUnit.MILLISECONDS.toNanos(properties.getWaitDurationInOpenMillis())) {
+                rejected.incrementAndGet();
+                return null;
+            }
+            if (transition(CircuitState.OPEN, CircuitState.HALF_OPEN)) {
+                halfOpenCalls.set(0);
+                halfOpenFailures.set(0);
+                halfOpenSlowCalls.set(0);
+                halfOpenPermits.set(properties.getPermittedCallsInHalfOpen());
+            }
+            current = state.get();
+            if (current == CircuitState.CLOSED) {
+                return CircuitState.CLOSED;
+            }
+            if (current == CircuitState.OPEN) {
+                rejected.incrementAndGet();
+                return null;
+            }
+        }
+        int permits;
+        do {
+            permits = halfOpenPermits.get();
+            if (permits <= 0) {
+                rejected.incrementAndGet();
+                return null;
+            }
+        } while (!halfOpenPermits.compareAndSet(permits, permits - 1));
+        return CircuitState.HALF_OPEN;
+    }
+
+    /**
+     * 记录调用结果
+     *
+     * @param acquiredState tryAcquire返回的状态
+     */
+    public void onResult(CircuitState acquiredState, long durationNanos, boolean failure) {
+        boolean slow = durationNanos >= TimeUnit.MILLISECONDS.toNanos(properties.getSlowCallDurationMillis());
+        if (acquiredState == CircuitState.HALF_OPEN) {
+            onHalfOpenResult(failure, slow);
+            return;
+        }
+        window.record(failure, slow);
+        int calls = window.getCalls();
+        if (calls >= properties.getMinimumCalls() && exceedsThreshold(calls, window.getFailures(), window.getSlowCalls())) {
+            open(CircuitState.CLOSED);
+        }
+    }
+
+    /**
+     * 调用以与下游健康无关的原因结束，半开状态下归还试探许可
+     */
+    public void onIgnore(CircuitState acquiredState) {
+        if (acquiredState == CircuitState.HALF_OPEN) {
+            halfOpenPermits.incrementAndGet();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CircuitState getState() {
+        return state.get();
+    }
+
+    public int getBufferedCalls() {
+        return window.getCalls();
+    }
+
+    public float getFailureRate() {
+        int calls = window.getCalls();
+        return calls == 0 ? 0 : window.getFailures() * 100f / calls;
+    }
+
+    public float getSlowCallRate() {
+        int calls = window.getCalls();
+        return calls == 0 ? 0 : window.getSlowCalls() * 100f / calls;
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    private void onHalfOpenResult(boolean failure, boolean slow) {
+        if (failure) {
+            halfOpenFailures.incrementAndGet();
+        }
+        if (slow) {
+            halfOpenSlowCalls.incrementAndGet();
+        }
+        int calls = halfOpenCalls.incrementAndGet();
+        if (calls < properties.getPermittedCallsInHalfOpen()) {
+            return;
+        }
+        if (exceedsThreshold(calls, halfOpenFailures.get(), halfOpenSlowCalls.get())) {
+            open(CircuitState.HALF_OPEN);
+        } else if (transition(CircuitState.HALF_OPEN, CircuitState.CLOSED)) {
+            window.reset();
+        }
+    }
+
+    private boolean exceedsThreshold(int calls, int failures, int slowCalls) {
+        return failures * 100L >= (long) properties.getFailureRateThreshold() * calls
+                || slowCalls * 100L >= (long) properties.getSlowCallRateThreshold() * calls;
+    }
+
+    private void open(CircuitState from) {
+        // 先写打开时间再切换状态，避免其他线程按旧的打开时间立即进入半开
+        openedAtNanos = System.nanoTime();
+        if (transition(from, CircuitState.OPEN)) {
+            window.reset();
+        }
+    }
+
+    private boolean transition(CircuitState from, CircuitState to) {
+        if (!state.compareAndSet(from, to)) {
+            return false;
+        }
+        listener.onTransition(this, from, to);
+        return true;
+    }
+}
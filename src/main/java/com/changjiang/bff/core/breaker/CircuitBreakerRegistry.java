@@ -0,0 +1,316 @@
+package com.changjiang.bff.core.breaker;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import com.changjiang.bff.config.CircuitBreakerProperties;
+import com.changjiang.bff.constants.PubConstants;
+import com.changjiang.bff.core.ServiceApiInfo;
+import com.changjiang.bff.core.deadline.RequestDeadlineManager;
+import com.changjiang.bff.core.stream.CompletionIterator;
+import com.changjiang.bff.enums.CircuitState;
+import com.changjiang.bff.exception.ServiceException;
+import com.changjiang.bff.util.CallerIdResolver;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.grpc.Context;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import javax.annotation.PostConstruct;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 熔断器注册表
+ * 主要职责：
+ * 1. 为每个registryId创建熔断器，为配置的路由额外创建路由级熔断器
+ * 2. 熔断器打开时快速失败，配置了降级的路由返回同一用户相同参数最近一次成功的结果
+ * 3. 状态变化时输出日志和指标
+ *
+ * 使用场景：
+ * - 下游不可用时避免每个请求都等待完整超时、占用工作线程
+ *
+ * 调用关系：
+ * - 被MethodInvocationServiceIml.invokeService调用
+ * - 快速失败时抛出ServiceException，错误码为PubConstants.ERROR_CIRCUIT_OPEN
+ * - 下游返回Iterator(服务端流)时不缓存降级结果，调用结果在流读完或出错时记录
+ */
+@Component
+public class CircuitBreakerRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreakerRegistry.class);
+
+    private static final String REGISTRY_PREFIX = "registry:";
+
+    private static final String ROUTE_PREFIX = "route:";
+
+    @Autowired
+    private CircuitBreakerProperties breakerProperties;
+
+    @Autowired
+    private CallerIdResolver callerIdResolver;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    /**
+     * 熔断器
+     * key: registry:<registryId> 或 route:<url>
+     */
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    /**
+     * 路由熔断配置
+     * key: 路由URL
+     */
+    private final Map<String, RouteBreakerConfig> routes = new ConcurrentHashMap<>();
+
+    /**
+     * 降级缓存
+     * key: 路由URL、调用用户ID和完整的请求参数JSON, value: 最近一次成功的结果
+     */
+    private Cache<String, Object> fallbackCache;
+
+    private final CircuitBreaker.TransitionListener transitionListener = this::onTransition;
+
+    @PostConstruct
+    public void init() {
+        fallbackCache = CacheBuilder.newBuilder()
+                .maximumSize(breakerProperties.getFallbackCacheSize())
+                .expireAfterWrite(breakerProperties.getFallbackTtlSeconds(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 在熔断保护下执行下游调用
+     *
+     * @param params 请求参数，与调用用户一起作为降级缓存的键
+     * @throws ServiceException 熔断器打开且没有可用的降级结果时抛出
+     */
+    public Object invoke(ServiceApiInfo apiInfo, JSONObject params, Callable<Object> call) throws Exception {
+        if (!breakerProperties.isEnabled() || apiInfo.getRegistryId() == null) {
+            return call.call();
+        }
+        RouteBreakerConfig route = routeConfig(apiInfo);
+        CircuitBreaker registryBreaker = route.registryBreaker;
+        CircuitBreaker routeBreaker = route.routeBreaker;
+        String fallbackKey = route.fallback ? fallbackKey(route.url, params) : null;
+
+        CircuitState registryState = registryBreaker.tryAcquire();
+        if (registryState == null) {
+            return fallback(route, fallbackKey, registryBreaker);
+        }
+        CircuitState routeState = null;
+        if (routeBreaker != null) {
+            routeState = routeBreaker.tryAcquire();
+            if (routeState == null) {
+                registryBreaker.onIgnore(registryState);
+                return fallback(route, fallbackKey, routeBreaker);
+            }
+        }
+
+        // 服务端流在读取线程上结束，按发起调用时的Context判断超时是否由调用方预算造成
+        Context context = Context.current();
+        long start = System.nanoTime();
+        try {
+            Object result = call.call();
+            long duration = System.nanoTime() - start;
+            if (result instanceof Iterator) {
+                return observeStream((Iterator<?>) result, duration, context,
+                        registryBreaker, registryState, routeBreaker, routeState);
+            }
+            registryBreaker.onResult(registryState, duration, false);
+            if (routeBreaker != null) {
+                routeBreaker.onResult(routeState, duration, false);
+            }
+            if (fallbackKey != null && result != null) {
+                fallbackCache.put(fallbackKey, result);
+            }
+            return result;
+        } catch (Exception | Error e) {
+            long duration = System.nanoTime() - start;
+            if (isDownstreamFailure(e, context)) {
+                registryBreaker.onResult(registryState, duration, true);
+                if (routeBreaker != null) {
+                    routeBreaker.onResult(routeState, duration, true);
+                }
+            } else {
+                registryBreaker.onIgnore(registryState);
+                if (routeBreaker != null) {
+                    routeBreaker.onIgnore(routeState);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 服务端流读完时记录成功，读取出错时按下游故障判断，提前关闭时不计入
+     * 慢调用按建立流的耗时判断，流的持续时间取决于数据量
+     */
+    private static Iterator<?> observeStream(Iterator<?> stream, long openDuration, Context context,
+                                             CircuitBreaker registryBreaker, CircuitState registryState,
+                                             CircuitBreaker routeBreaker, CircuitState routeState) {
+        return new CompletionIterator<>(stream, (completed, error) -> {
+            if (completed || (error != null && isDownstreamFailure(error, context))) {
+                boolean failed = !completed;
+                registryBreaker.onResult(registryState, openDuration, failed);
+                if (routeBreaker != null) {
+                    routeBreaker.onResult(routeState, openDuration, failed);
+                }
+            } else {
+                registryBreaker.onIgnore(registryState);
+                if (routeBreaker != null) {
+                    routeBreaker.onIgnore(routeState);
+                }
+            }
+        });
+    }
+
+    /**
+     * 所有熔断器的状态和统计
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        breakers.forEach((name, breaker) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("state", breaker.getState());
+            item.put("bufferedCalls", breaker.getBufferedCalls());
+            item.put("failureRate", breaker.getFailureRate());
+            item.put("slowCallRate", breaker.getSlowCallRate());
+            item.put("rejected", breaker.getRejected());
+            result.put(name, item);
+        });
+        return result;
+    }
+
+    private Object fallback(RouteBreakerConfig route, String fallbackKey, CircuitBreaker breaker) {
+        if (fallbackKey != null) {
+            Object cached = fallbackCache.getIfPresent(fallbackKey);
+            if (cached != null) {
+                logger.debug("Circuit {} open, serving cached fallback for {}", breaker.getName(), route.url);
+                return cached;
+            }
+        }
+        throw new ServiceException(PubConstants.ERROR_CIRCUIT_OPEN, "服务暂不可用，请稍后重试: " + breaker.getName());
+    }
+
+    /**
+     * 判断是否为下游故障
+     * 网关自身的参数错误、限流等异常和下游的业务错误不计入失败率；
+     * 请求自身的截止时间已到或由客户端指定时，DEADLINE_EXCEEDED是调用方预算不足，也不计入
+     *
+     * @param context 发起调用时的Context
+     */
+    private static boolean isDownstreamFailure(Throwable t, Context context) {
+        if (t instanceof ServiceException || t instanceof IllegalArgumentException) {
+            return false;
+        }
+        switch (Status.fromThrowable(t).getCode()) {
+            case INVALID_ARGUMENT:
+            case NOT_FOUND:
+            case ALREADY_EXISTS:
+            case PERMISSION_DENIED:
+            case FAILED_PRECONDITION:
+            case OUT_OF_RANGE:
+            case UNAUTHENTICATED:
+                return false;
+            case DEADLINE_EXCEEDED:
+                return !RequestDeadlineManager.isCallerDeadline(context);
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * 降级缓存的键，比较完整的请求参数，不同用户的结果互不可见
+     *
+     * @return 无法识别调用用户且未开启匿名降级时返回null，不缓存也不降级
+     */
+    private String fallbackKey(String url, JSONObject params) {
+        String userId = callerIdResolver.getUserId();
+        if (userId == null && !breakerProperties.isFallbackAnonymous()) {
+            return null;
+        }
+        return url + '\n' + (userId == null ? "" : userId) + '\n' + (params == null ? "" : JSON.toJSONString(params));
+    }
+
+    private RouteBreakerConfig routeConfig(ServiceApiInfo apiInfo) {
+        String url = apiInfo.getUrl();
+        RouteBreakerConfig config = routes.get(url);
+        if (config != null) {
+            return config;
+        }
+        return routes.computeIfAbsent(url, k -> {
+            CircuitBreaker registryBreaker = breaker(REGISTRY_PREFIX + apiInfo.getRegistryId());
+            CircuitBreaker routeBreaker = matches(breakerProperties.getRouteBreakers(), k) ? breaker(ROUTE_PREFIX + k) : null;
+            return new RouteBreakerConfig(k, registryBreaker, routeBreaker, matches(breakerProperties.getFallbackRoutes(), k));
+        });
+    }
+
+    private boolean matches(List<String> patterns, String url) {
+        return patterns.stream().anyMatch(pattern -> pathMatcher.match(pattern, url));
+    }
+
+    private CircuitBreaker breaker(String name) {
+        return breakers.computeIfAbsent(name, k -> {
+            CircuitBreaker breaker = new CircuitBreaker(k, breakerProperties, transitionListener);
+            if (meterRegistry != null) {
+                Gauge.builder("bff.circuit.state", breaker, b -> b.getState().ordinal())
+                        .tag("name", k).description("0=CLOSED, 1=OPEN, 2=HALF_OPEN").register(meterRegistry);
+                Gauge.builder("bff.circuit.failure.rate", breaker, CircuitBreaker::getFailureRate)
+                        .tag("name", k).register(meterRegistry);
+                Gauge.builder("bff.circuit.rejected", breaker, CircuitBreaker::getRejected)
+                        .tag("name", k).register(meterRegistry);
+            }
+            return breaker;
+        });
+    }
+
+    private void onTransition(CircuitBreaker breaker, CircuitState from, CircuitState to) {
+        if (to == CircuitState.OPEN) {
+            logger.warn("Circuit breaker {} transitioned from {} to {}, failureRate: {}%, slowCallRate: {}%",
+                    breaker.getName(), from, to, breaker.getFailureRate(), breaker.getSlowCallRate());
+        } else {
+            logger.info("Circuit breaker {} transitioned from {} to {}", breaker.getName(), from, to);
+        }
+        if (meterRegistry != null) {
+            meterRegistry.counter("bff.circuit.transition", "name", breaker.getName(),
+                    "from", from.name(), "to", to.name()).increment();
+        }
+    }
+
+    /**
+     * 路由熔断配置
+     */
+    private static final class RouteBreakerConfig {
+
+        private final String url;
+
+        private final CircuitBreaker registryBreaker;
+
+        private final CircuitBreaker routeBreaker;
+
+        private final boolean fallback;
+
+        RouteBreakerConfig(String url, CircuitBreaker registryBreaker, CircuitBreaker routeBreaker, boolean fallback) {
+            this.url = url;
+            this.registryBreaker = registryBreaker;
+            this.routeBreaker = routeBreaker;
+            this.fallback = fallback;
+        }
+    }
+}
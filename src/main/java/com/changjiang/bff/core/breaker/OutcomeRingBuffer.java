@@ -0,0 +1,75 @@
+package com.changjiang.bff.core.breaker;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 调用结果环形缓冲区
+ * 主要职责：
+ * 1. 无锁记录最近windowSize次调用的结果
+ * 2. 覆盖旧结果时同步调整调用数、失败数和慢调用数
+ *
+ * 每个槽位用位标记结果: bit0 已记录, bit1 失败, bit2 慢调用
+ */
+final class OutcomeRingBuffer {
+
+    private static final int RECORDED = 1;
+
+    private static final int FAILURE = 2;
+
+    private static final int SLOW = 4;
+
+    private final AtomicIntegerArray slots;
+
+    private final AtomicLong cursor = new AtomicLong();
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private final AtomicInteger slowCalls = new AtomicInteger();
+
+    OutcomeRingBuffer(int size) {
+        this.slots = new AtomicIntegerArray(Math.max(size, 1));
+    }
+
+    void record(boolean failure, boolean slow) {
+        int outcome = RECORDED | (failure ? FAILURE : 0) | (slow ? SLOW : 0);
+        int index = (int) Math.floorMod(cursor.getAndIncrement(), (long) slots.length());
+        int previous = slots.getAndSet(index, outcome);
+        adjust(previous, -1);
+        adjust(outcome, 1);
+    }
+
+    void reset() {
+        for (int i = 0; i < slots.length(); i++) {
+            adjust(slots.getAndSet(i, 0), -1);
+        }
+    }
+
+    int getCalls() {
+        return calls.get();
+    }
+
+    int getFailures() {
+        return failures.get();
+    }
+
+    int getSlowCalls() {
+        return slowCalls.get();
+    }
+
+    private void adjust(int outcome, int delta) {
+        if ((outcome & RECORDED) == 0) {
+            return;
+        }
+        calls.addAndGet(delta);
+        if ((outcome & FAILURE) != 0) {
+            failures.addAndGet(delta);
+        }
+        if ((outcome & SLOW) != 0) {
+            slowCalls.addAndGet(delta);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.changjiang.bff.core.channel;
+
+import com.changjiang.bff.config.GrpcChannelPoolProperties;
+import com.changjiang.bff.core.NpcsgptwPropertyUtils;
+import com.changjiang.bff.exception.ServiceException;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.MethodDescriptor;
+import io.grpc.stub.AbstractStub;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下游gRPC连接池管理器
+ * 主要职责：
+ * 1. 按registryId读取 grpc.registry.services.* 配置，为每个注册中心创建连接池
+ * 2. 每个地址建立多个HTTP/2连接，启动时立即建立连接
+ * 3. 定期重新解析地址，新增地址建立连接，下线地址等待在途请求完成后关闭
+ * 4. 把路由客户端存根的调用转到连接池，按最少在途请求选择连接
+ *
+ * 调用关系：
+ * - ApiScanner注册路由时调用route，GrpcServiceFactory创建的存根的调用改走连接池，工厂自己的连接不再使用
+ * - 被HedgingInvoker用于判断注册中心是否有多个地址可以对冲
+ * - 被AdminController用于展示连接池状态
+ */
+@Component
+public class GrpcChannelPoolManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(GrpcChannelPoolManager.class);
+
+    /** 注册中心配置前缀 */
+    private static final String REGISTRY_PREFIX = "grpc.registry.services";
+
+    @Autowired
+    private GrpcChannelPoolProperties poolProperties;
+
+    @Autowired
+    private NpcsgptwPropertyUtils npcgwPropertyUtils;
+
+    /**
+     * 连接池
+     * key: registryId, value: 连接池
+     */
+    private final Map<String, LeastOutstandingChannel> pools = new ConcurrentHashMap<>();
+
+    /**
+     * 配置的地址
+     * key: registryId, value: 未解析的 host:port 列表
+     */
+    private final Map<String, List<String>> configuredEndpoints = new ConcurrentHashMap<>();
+
+    /**
+     * 上一次解析成功的地址
+     * key: host:port, value: 解析后的 ip:port 列表，DNS暂时失败时沿用
+     */
+    private final Map<String, List<String>> lastResolved = new ConcurrentHashMap<>();
+
+    /** 地址重新解析和连接回收的调度线程 */
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        if (!poolProperties.isEnabled()) {
+            logger.info("gRPC channel pool disabled");
+            return;
+        }
+        configuredEndpoints.putAll(loadRegistryEndpoints());
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "grpc-channel-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        configuredEndpoints.keySet().forEach(registryId -> pools.put(registryId, new LeastOutstandingChannel(registryId)));
+        reResolve();
+
+        long interval = poolProperties.getReResolveIntervalSeconds();
+        if (interval > 0) {
+            scheduler.scheduleWithFixedDelay(this::reResolve, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        pools.values().forEach(pool -> pool.getSubchannels().forEach(sub -> sub.getChannel().shutdownNow()));
+    }
+
+    /**
+     * 获取注册中心对应的连接池
+     */
+    public LeastOutstandingChannel getChannel(String registryId) {
+        LeastOutstandingChannel pool = pools.get(registryId);
+        if (pool == null) {
+            throw new ServiceException("CHANNEL_NOT_FOUND", "未配置注册中心连接: " + registryId);
+        }
+        return pool;
+    }
+
+    /**
+     * 把客户端存根的调用转到注册中心的连接池
+     * 存根的withInterceptors返回同类型的新存根，拦截器不再调用存根原来的Channel；
+     * 未启用连接池、注册中心没有配置地址或客户端不是gRPC存根时原样返回
+     *
+     * @param registryId 注册中心ID
+     * @param client GrpcServiceFactory创建的客户端
+     * @return 调用走连接池的客户端
+     */
+    public Object route(String registryId, Object client) {
+        LeastOutstandingChannel pool = pools.get(registryId);
+        if (pool == null || !(client instanceof AbstractStub)) {
+            return client;
+        }
+        return ((AbstractStub<?>) client).withInterceptors(new PoolRoutingInterceptor(pool));
+    }
+
+    /**
+     * 注册中心连接池中不同地址的数量
+     *
+     * @return 未启用连接池或注册中心没有配置地址时返回0
+     */
+    public int getEndpointCount(String registryId) {
+        LeastOutstandingChannel pool = pools.get(registryId);
+        return pool == null ? 0 : pool.getEndpointCount();
+    }
+
+    /**
+     * 获取所有连接池
+     */
+    public Map<String, LeastOutstandingChannel> getPools() {
+        return Collections.unmodifiableMap(pools);
+    }
+
+    /**
+     * 连接池状态快照
+     */
+    public Map<String, List<Map<String, Object>>> snapshot() {
+        Map<String, List<Map<String, Object>>> result = new LinkedHashMap<>();
+        pools.forEach((registryId, pool) -> {
+            List<Map<String, Object>> channels = new ArrayList<>();
+            for (PooledSubchannel sub : pool.getSubchannels()) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("endpoint", sub.getEndpoint());
+                item.put("index", sub.getIndex());
+                item.put("state", sub.getState().name());
+                item.put("outstanding", sub.getOutstanding());
+                channels.add(item);
+            }
+            result.put(registryId, channels);
+        });
+        return result;
+    }
+
+    /**
+     * 重新解析所有注册中心的地址并更新连接列表
+     */
+    public synchronized void reResolve() {
+        configuredEndpoints.forEach((registryId, endpoints) -> {
+            try {
+                updatePool(pools.get(registryId), resolveEndpoints(endpoints));
+            } catch (Exception e) {
+                logger.error("Re-resolve endpoints failed, registryId: {}", registryId, e);
+            }
+        });
+    }
+
+    /**
+     * 按解析结果更新连接池
+     * 未变化的地址保留原连接，新增地址建立连接，下线地址优雅关闭
+     */
+    private void updatePool(LeastOutstandingChannel pool, Set<String> endpoints) {
+        Map<String, List<PooledSubchannel>> current = new LinkedHashMap<>();
+        for (PooledSubchannel sub : pool.getSubchannels()) {
+            current.computeIfAbsent(sub.getEndpoint(), k -> new ArrayList<>()).add(sub);
+        }
+        if (current.keySet().equals(endpoints)) {
+            return;
+        }
+
+        List<PooledSubchannel> next = new ArrayList<>();
+        for (String endpoint : endpoints) {
+            List<PooledSubchannel> existing = current.remove(endpoint);
+            if (existing != null) {
+                next.addAll(existing);
+                continue;
+            }
+            for (int i = 0; i < poolProperties.getChannelsPerEndpoint(); i++) {
+                PooledSubchannel sub = new PooledSubchannel(endpoint, i, createChannel(endpoint));
+                if (poolProperties.isEagerConnect()) {
+                    sub.connect();
+                }
+                next.add(sub);
+            }
+        }
+        pool.setSubchannels(next);
+        logger.info("Channel pool updated, registryId: {}, endpoints: {}, channels: {}",
+                pool.getRegistryId(), endpoints, next.size());
+
+        current.values().forEach(removed -> removed.forEach(this::drain));
+    }
+
+    /**
+     * 优雅关闭下线的连接，超时后强制关闭
+     */
+    private void drain(PooledSubchannel sub) {
+        ManagedChannel channel = sub.getChannel();
+        channel.shutdown();
+        scheduler.schedule(() -> {
+            if (!channel.isTerminated()) {
+                logger.warn("Force shutdown channel: {}, outstanding: {}", sub.getEndpoint(), sub.getOutstanding());
+                channel.shutdownNow();
+            }
+        }, poolProperties.getDrainTimeoutSeconds(), TimeUnit.SECONDS);
+    }
+
+    private ManagedChannel createChannel(String endpoint) {
+        int offset = endpoint.lastIndexOf(':');
+        return ManagedChannelBuilder.forAddress(endpoint.substring(0, offset), Integer.parseInt(endpoint.substring(offset + 1)))
+                .usePlaintext()
+                .keepAliveTime(poolProperties.getKeepAliveTimeSeconds(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 将 host:port 解析为 ip:port
+     * 解析失败时沿用上一次的结果，避免DNS抖动导致连接被全部关闭
+     */
+    private Set<String> resolveEndpoints(List<String> endpoints) {
+        Set<String> resolved = new LinkedHashSet<>();
+        for (String endpoint : endpoints) {
+            int offset = endpoint.lastIndexOf(':');
+            String host = endpoint.substring(0, offset);
+            String port = endpoint.substring(offset + 1);
+            try {
+                List<String> addresses = new ArrayList<>();
+                for (InetAddress address : InetAddress.getAllByName(host)) {
+                    addresses.add(address.getHostAddress() + ":" + port);
+                }
+                lastResolved.put(endpoint, addresses);
+                resolved.addAll(addresses);
+            } catch (UnknownHostException e) {
+                logger.warn("Resolve host failed, use last result: {}", endpoint);
+                resolved.addAll(lastResolved.getOrDefault(endpoint, Collections.emptyList()));
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * 读取 grpc.registry.services.<registryId>.* 配置
+     * 优先使用 endpoints(逗号分隔)，否则使用 host + port
+     */
+    private Map<String, List<String>> loadRegistryEndpoints() {
+        Map<String, Object> properties = npcgwPropertyUtils.getSubProperties(REGISTRY_PREFIX);
+        Set<String> registryIds = new LinkedHashSet<>();
+        for (String name : properties.keySet()) {
+            int offset = name.indexOf('.');
+            if (offset > 0) {
+                registryIds.add(name.substring(0, offset));
+            }
+        }
+
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        for (String registryId : registryIds) {
+            if ("false".equalsIgnoreCase(String.valueOf(properties.get(registryId + ".enabled")))) {
+                continue;
+            }
+            List<String> endpoints = new ArrayList<>();
+            Object configured = properties.get(registryId + ".endpoints");
+            if (configured != null && StringUtils.hasText(configured.toString())) {
+                for (String endpoint : configured.toString().split(",")) {
+                    if (StringUtils.hasText(endpoint)) {
+                        endpoints.add(endpoint.trim());
+                    }
+                }
+            } else if (properties.get(registryId + ".host") != null && properties.get(registryId + ".port") != null) {
+                endpoints.add(properties.get(registryId + ".host") + ":" + properties.get(registryId + ".port"));
+            }
+            if (endpoints.isEmpty()) {
+                logger.warn("No endpoint configured for registry: {}", registryId);
+                continue;
+            }
+            result.put(registryId, endpoints);
+        }
+        return result;
+    }
+
+    /**
+     * 把调用转到连接池的拦截器，忽略存根原来的Channel
+     */
+    private static final class PoolRoutingInterceptor implements ClientInterceptor {
+
+        private final LeastOutstandingChannel pool;
+
+        PoolRoutingInterceptor(LeastOutstandingChannel pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                                   CallOptions callOptions, Channel next) {
+            return pool.newCall(method, callOptions);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.changjiang.bff.core.channel;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 最少在途请求连接池
+ * 主要职责：
+ * 1. 对一个注册中心下的多个地址、多个HTTP/2连接做统一封装
+ * 2. 每次调用选择在途请求最少的可用连接，分散单连接的并发流限制
+ * 3. 支持在运行中替换连接列表(地址重新解析后)
+ *
+ * 使用场景：
+ * - 作为gRPC Stub的Channel，例如 XxxGrpc.newBlockingStub(pool)
+ *
+ * 调用关系：
+ * - 由GrpcChannelPoolManager按registryId创建和维护，路由客户端存根的调用经拦截器转到这里
+ */
+public class LeastOutstandingChannel extends Channel {
+
+    /** 注册中心ID */
+    private final String registryId;
+
+    /** 连接列表快照，整体替换，读路径无锁 */
+    private volatile PooledSubchannel[] subchannels = new PooledSubchannel[0];
+
+    /** 不同地址的数量，随连接列表一起更新 */
+    private volatile int endpointCount;
+
+    public LeastOutstandingChannel(String registryId) {
+        this.registryId = registryId;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions) {
+        PooledSubchannel subchannel = pick();
+        if (subchannel == null) {
+            return new UnavailableCall<>(registryId);
+        }
+        return new CountingCall<>(subchannel.getChannel().newCall(method, callOptions), subchannel);
+    }
+
+    @Override
+    public String authority() {
+        PooledSubchannel[] snapshot = subchannels;
+        return snapshot.length == 0 ? registryId : snapshot[0].getChannel().authority();
+    }
+
+    public String getRegistryId() {
+        return registryId;
+    }
+
+    public List<PooledSubchannel> getSubchannels() {
+        return Collections.unmodifiableList(Arrays.asList(subchannels));
+    }
+
+    /**
+     * 连接列表中不同地址的数量
+     */
+    public int getEndpointCount() {
+        return endpointCount;
+    }
+
+    /**
+     * 替换连接列表
+     */
+    void setSubchannels(List<PooledSubchannel> next) {
+        Set<String> endpoints = new HashSet<>();
+        for (PooledSubchannel subchannel : next) {
+            endpoints.add(subchannel.getEndpoint());
+        }
+        this.subchannels = next.toArray(new PooledSubchannel[0]);
+        this.endpointCount = endpoints.size();
+    }
+
+    /**
+     * 选择在途请求最少的可用连接
+     * 从随机位置开始扫描，避免在途数相同时总是选中同一个连接；
+     * Context中有RequestEndpoints时优先选择同一请求未使用过的地址
+     */
+    PooledSubchannel pick() {
+        PooledSubchannel[] snapshot = subchannels;
+        int size = snapshot.length;
+        if (size == 0) {
+            return null;
+        }
+        if (size == 1) {
+            return snapshot[0];
+        }
+        RequestEndpoints used = RequestEndpoints.current();
+        int start = ThreadLocalRandom.current().nextInt(size);
+        PooledSubchannel best = null;
+        int bestOutstanding = Integer.MAX_VALUE;
+        PooledSubchannel bestUsed = null;
+        int bestUsedOutstanding = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            PooledSubchannel candidate = snapshot[(start + i) % size];
+            if (!candidate.isUsable()) {
+                continue;
+            }
+            int outstanding = candidate.getOutstanding();
+            if (used != null && used.isUsed(candidate.getEndpoint())) {
+                if (outstanding < bestUsedOutstanding) {
+                    bestUsed = candidate;
+                    bestUsedOutstanding = outstanding;
+                }
+                continue;
+            }
+            if (outstanding < bestOutstanding) {
+                best = candidate;
+                bestOutstanding = outstanding;
+                if (outstanding == 0) {
+                    break;
+                }
+            }
+        }
+        if (best == null) {
+            // 未使用过的地址都不可用时退回已使用的地址；全部不可用时仍然选择一个连接，由gRPC负责重连和失败返回
+            best = bestUsed != null ? bestUsed : snapshot[start];
+        }
+        if (used != null) {
+            used.add(best.getEndpoint());
+        }
+        return best;
+    }
+
+    /**
+     * 统计在途请求的调用包装
+     */
+    private static final class CountingCall<ReqT, RespT> extends ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT> {
+
+        private final PooledSubchannel subchannel;
+
+        CountingCall(ClientCall<ReqT, RespT> delegate, PooledSubchannel subchannel) {
+            super(delegate);
+            this.subchannel = subchannel;
+        }
+
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+            subchannel.acquire();
+            try {
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        subchannel.release();
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            } catch (RuntimeException e) {
+                subchannel.release();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 没有可用连接时直接返回UNAVAILABLE
+     */
+    private static final class UnavailableCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+
+        private final String registryId;
+
+        UnavailableCall(String registryId) {
+            this.registryId = registryId;
+        }
+
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+            responseListener.onClose(Status.UNAVAILABLE.withDescription("No channel available for registry: " + registryId),
+                    new Metadata());
+        }
+
+        @Override
+        public void request(int numMessages) {
+        }
+
+        @Override
+        public void cancel(String message, Throwable cause) {
+        }
+
+        @Override
+        public void halfClose() {
+        }
+
+        @Override
+        public void sendMessage(ReqT message) {
+        }
+    }
+}
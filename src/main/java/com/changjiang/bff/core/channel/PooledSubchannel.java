@@ -0,0 +1,79 @@
+package com.changjiang.bff.core.channel;
+
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 连接池中的单个连接
+ * 主要职责：
+ * 1. 持有一个到具体地址的HTTP/2连接
+ * 2. 记录该连接上的在途请求数，供最少在途请求选择使用
+ */
+public class PooledSubchannel {
+
+    /** 目标地址 host:port */
+    private final String endpoint;
+
+    /** 同一地址下的连接序号 */
+    private final int index;
+
+    /** gRPC连接 */
+    private final ManagedChannel channel;
+
+    /** 在途请求数 */
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    public PooledSubchannel(String endpoint, int index, ManagedChannel channel) {
+        this.endpoint = endpoint;
+        this.index = index;
+        this.channel = channel;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public ManagedChannel getChannel() {
+        return channel;
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    void acquire() {
+        outstanding.incrementAndGet();
+    }
+
+    void release() {
+        outstanding.decrementAndGet();
+    }
+
+    /**
+     * 当前连接状态，不触发连接
+     */
+    public ConnectivityState getState() {
+        return channel.getState(false);
+    }
+
+    /**
+     * 触发建立连接
+     */
+    public void connect() {
+        channel.getState(true);
+    }
+
+    /**
+     * 连接是否可用于新请求
+     */
+    public boolean isUsable() {
+        ConnectivityState state = channel.getState(false);
+        return state != ConnectivityState.SHUTDOWN && state != ConnectivityState.TRANSIENT_FAILURE;
+    }
+}
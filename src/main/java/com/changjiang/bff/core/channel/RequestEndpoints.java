@@ -0,0 +1,48 @@
+package com.changjiang.bff.core.channel;
+
+import io.grpc.Context;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一次请求内各次下游调用已使用的地址
+ * 主要职责：
+ * 1. 通过gRPC Context在同一请求的多次调用之间共享
+ * 2. 连接池选择连接时避开已使用的地址，使对冲调用落到另一个实例上
+ *
+ * 调用关系：
+ * - 由HedgingInvoker为每个对冲请求创建，主调用和对冲调用在同一个Context中执行
+ * - 被LeastOutstandingChannel.pick读取和记录
+ */
+public final class RequestEndpoints {
+
+    private static final Context.Key<RequestEndpoints> KEY = Context.key("bff-request-endpoints");
+
+    private final Set<String> used = ConcurrentHashMap.newKeySet();
+
+    private RequestEndpoints() {
+    }
+
+    /**
+     * 返回记录已使用地址的子Context
+     */
+    public static Context track(Context context) {
+        return context.withValue(KEY, new RequestEndpoints());
+    }
+
+    /**
+     * 当前Context中的地址记录，未记录时返回null
+     */
+    static RequestEndpoints current() {
+        return KEY.get();
+    }
+
+    boolean isUsed(String endpoint) {
+        return used.contains(endpoint);
+    }
+
+    void add(String endpoint) {
+        used.add(endpoint);
+    }
+}
@@ -0,0 +1,201 @@
+package com.changjiang.bff.core.deadline;
+
+import com.changjiang.bff.config.DeadlineProperties;
+import com.changjiang.bff.constants.PubConstants;
+import com.changjiang.bff.core.ApiScanCompletedEvent;
+import com.changjiang.bff.exception.ServiceException;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求截止时间管理
+ * 主要职责：
+ * 1. 根据客户端请求头或路由默认值计算请求的截止时间，请求头的值限制在[minTimeoutMillis, maxTimeoutMillis]内
+ * 2. 以带截止时间、可取消的gRPC Context承载截止时间，请求线程上发起的gRPC调用自动使用剩余时间作为deadline
+ * 3. 调用下游前检查剩余时间，已耗尽时快速失败
+ * 4. 单次下游调用在取调用超时和剩余时间中较早者的子Context中执行
+ * 5. 标记截止时间是否来自客户端，由调用方预算造成的下游超时不计入熔断和并发限制
+ *
+ * 使用场景：
+ * - 客户端放弃或断开后，不再继续等待下游
+ * - 参数绑定等网关内耗时自动从下游可用时间中扣除
+ *
+ * 调用关系：
+ * - 被RequestDeadlineFilter在请求开始和结束时调用
+ * - 被MethodInvocationServiceIml和CrpcTransferService在调用下游前调用
+ * - CircuitBreakerRegistry、RegistryConcurrencyLimiter通过isCallerDeadline判断超时是否计入
+ */
+@Component
+public class RequestDeadlineManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestDeadlineManager.class);
+
+    /** 截止时间来自客户端请求头 */
+    private static final Context.Key<Boolean> CLIENT_DEADLINE = Context.key("bff-client-deadline");
+
+    @Autowired
+    private DeadlineProperties deadlineProperties;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    /**
+     * 路由超时时间，API扫描完成后按配置解析
+     * key: 路由URL, value: 超时时间(毫秒)
+     */
+    private volatile Map<String, Long> routeTimeouts = Collections.emptyMap();
+
+    /** Context截止时间到达时负责取消的调度线程 */
+    private ScheduledExecutorService deadlineScheduler;
+
+    @PostConstruct
+    public void init() {
+        deadlineScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "request-deadline");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (deadlineScheduler != null) {
+            deadlineScheduler.shutdownNow();
+        }
+    }
+
+    @EventListener
+    public void onApiScanCompleted(ApiScanCompletedEvent event) {
+        Map<String, Long> timeouts = new HashMap<>();
+        for (String url : event.getApiRegistry().keySet()) {
+            deadlineProperties.getRouteTimeouts().entrySet().stream()
+                    .filter(entry -> pathMatcher.match(entry.getKey(), url))
+                    .findFirst()
+                    .ifPresent(entry -> timeouts.put(url, entry.getValue()));
+        }
+        routeTimeouts = Collections.unmodifiableMap(timeouts);
+    }
+
+    public boolean isEnabled() {
+        return deadlineProperties.isEnabled();
+    }
+
+    /**
+     * 创建请求的截止时间Context
+     * 截止时间来自客户端请求头时在Context中标记，供isCallerDeadline判断
+     *
+     * @param route         路由URL(不含/changjiang前缀)
+     * @param clientTimeout 客户端请求头中的剩余时间，可以为空
+     */
+    public Context.CancellableContext open(String route, String clientTimeout) {
+        long requested = clientTimeoutMillis(clientTimeout);
+        Context context = Context.current();
+        long timeoutMillis;
+        if (requested > 0) {
+            timeoutMillis = requested;
+            context = context.withValue(CLIENT_DEADLINE, Boolean.TRUE);
+        } else {
+            Long routeTimeout = routeTimeouts.get(route);
+            timeoutMillis = routeTimeout != null ? routeTimeout : deadlineProperties.getDefaultTimeoutMillis();
+        }
+        return context.withDeadline(Deadline.after(timeoutMillis, TimeUnit.MILLISECONDS), deadlineScheduler);
+    }
+
+    /**
+     * 下游调用的DEADLINE_EXCEEDED是否由请求自身的时间预算造成：请求的截止时间已到，或截止时间由客户端请求头指定
+     * 这类超时反映的是调用方给出的预算而不是下游的健康状况，熔断和并发限制不计入
+     *
+     * @param context 发起下游调用时的Context
+     */
+    public static boolean isCallerDeadline(Context context) {
+        if (Boolean.TRUE.equals(CLIENT_DEADLINE.get(context))) {
+            return true;
+        }
+        Deadline deadline = context.getDeadline();
+        return deadline != null && deadline.isExpired();
+    }
+
+    /**
+     * 调用下游前检查剩余时间
+     *
+     * @throws ServiceException 剩余时间已耗尽或请求已被取消
+     */
+    public void ensureRemaining() {
+        Context context = Context.current();
+        Deadline deadline = context.getDeadline();
+        if (context.isCancelled() || (deadline != null && deadline.isExpired())) {
+            throw new ServiceException(PubConstants.ERROR_DEADLINE_EXCEEDED, "请求已取消或超时");
+        }
+    }
+
+    /**
+     * 在单次调用的截止时间内执行下游调用
+     * 截止时间取调用超时和请求剩余时间中较早的一个，以子Context承载，不修改共享的代理配置；
+     * 调用结束后取消子Context
+     *
+     * @param timeoutMillis 本次调用的超时时间(毫秒)
+     * @throws ServiceException 剩余时间已耗尽或请求已被取消
+     */
+    public <T> T callWithin(long timeoutMillis, Callable<T> call) throws Exception {
+        ensureRemaining();
+        // 父Context的截止时间更早时沿用父Context的截止时间
+        Context.CancellableContext callContext = Context.current()
+                .withDeadline(Deadline.after(timeoutMillis, TimeUnit.MILLISECONDS), deadlineScheduler);
+        try {
+            return callContext.call(call);
+        } finally {
+            callContext.cancel(null);
+        }
+    }
+
+    /**
+     * 当前请求的剩余时间
+     *
+     * @return 毫秒，没有截止时间时返回-1
+     */
+    public long remainingMillis() {
+        Deadline deadline = Context.current().getDeadline();
+        if (deadline == null) {
+            return -1;
+        }
+        return Math.max(deadline.timeRemaining(TimeUnit.MILLISECONDS), 0);
+    }
+
+    /**
+     * 解析客户端请求头，限制在[minTimeoutMillis, maxTimeoutMillis]内
+     *
+     * @return 毫秒，未传入或无效时返回-1
+     */
+    private long clientTimeoutMillis(String clientTimeout) {
+        if (!StringUtils.hasText(clientTimeout)) {
+            return -1;
+        }
+        try {
+            long requested = Long.parseLong(clientTimeout.trim());
+            if (requested <= 0) {
+                return -1;
+            }
+            return Math.max(deadlineProperties.getMinTimeoutMillis(),
+                    Math.min(requested, deadlineProperties.getMaxTimeoutMillis()));
+        } catch (NumberFormatException e) {
+            logger.debug("Invalid {} header: {}", deadlineProperties.getHeader(), clientTimeout);
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.changjiang.bff.core.hedge;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对冲额度
+ * 每个请求积累少量额度，每次对冲消耗一个完整额度，
+ * 使对冲请求数不超过请求总数的固定比例，避免故障期间放大下游负载
+ */
+final class HedgeBudget {
+
+    /** 额度精度，1个额度记为1000 */
+    private static final long UNIT = 1000;
+
+    private final AtomicLong milliTokens;
+
+    private final long maxMilliTokens;
+
+    private final long depositMilliTokens;
+
+    HedgeBudget(double ratio, int maxTokens) {
+        this.maxMilliTokens = Math.max(maxTokens, 1) * UNIT;
+        this.depositMilliTokens = Math.max(Math.round(ratio * UNIT), 0);
+        this.milliTokens = new AtomicLong(maxMilliTokens);
+    }
+
+    /**
+     * 积累额度，额度已满时不做写操作
+     */
+    void deposit() {
+        long current;
+        while ((current = milliTokens.get()) < maxMilliTokens) {
+            if (milliTokens.compareAndSet(current, Math.min(maxMilliTokens, current + depositMilliTokens))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 尝试消耗一个对冲额度
+     */
+    boolean tryAcquire() {
+        long current;
+        while ((current = milliTokens.get()) >= UNIT) {
+            if (milliTokens.compareAndSet(current, current - UNIT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    double available() {
+        return milliTokens.get() / (double) UNIT;
+    }
+}
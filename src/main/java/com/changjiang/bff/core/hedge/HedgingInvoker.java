@@ -0,0 +1,400 @@
+package com.changjiang.bff.core.hedge;
+
+import com.changjiang.bff.config.HedgingProperties;
+import com.changjiang.bff.core.ApiScanCompletedEvent;
+import com.changjiang.bff.core.ServiceApiInfo;
+import com.changjiang.bff.core.channel.GrpcChannelPoolManager;
+import com.changjiang.bff.core.channel.RequestEndpoints;
+import io.grpc.Context;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对冲调用器
+ * 主要职责：
+ * 1. 统计幂等路由下游调用的延迟分布
+ * 2. 调用超过观测到的p95仍未返回时，再发起一次调用，先成功返回者生效，另一次调用被取消
+ * 3. 按注册中心限制对冲额度，避免故障期间放大下游负载
+ * 4. 只对连接池中有多个地址的注册中心对冲，对冲调用避开主调用已使用的地址
+ *
+ * 使用场景：
+ * - 少数慢实例拖高p99的只读、幂等接口
+ * - 非幂等路由、只有一个地址的注册中心直接在请求线程调用，不产生额外开销
+ *
+ * 调用关系：
+ * - 被MethodInvocationServiceIml.invokeService调用，每次调用(包括对冲调用)各自经过RegistryConcurrencyLimiter取得并发名额
+ * - 幂等路由由 grpc.hedging.idempotent-routes 配置
+ * - 通过GrpcChannelPoolManager获取注册中心的地址数，通过RequestEndpoints让连接池为对冲调用选择其他地址
+ */
+@Component
+public class HedgingInvoker {
+
+    private static final Logger logger = LoggerFactory.getLogger(HedgingInvoker.class);
+
+    @Autowired
+    private HedgingProperties hedgingProperties;
+
+    @Autowired
+    private GrpcChannelPoolManager channelPoolManager;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    /**
+     * 路由对冲状态
+     * key: 路由URL
+     */
+    private final Map<String, RouteHedgeState> routes = new ConcurrentHashMap<>();
+
+    /**
+     * 注册中心对冲额度
+     * key: registryId
+     */
+    private final Map<String, RegistryHedgeState> registries = new ConcurrentHashMap<>();
+
+    /** 下游调用线程池 */
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(hedgingProperties.getExecutorThreads(), hedgingProperties.getExecutorThreads(),
+                60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread thread = new Thread(r, "grpc-hedging-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * API扫描完成后预先解析每个路由是否幂等
+     */
+    @EventListener
+    public void onApiScanCompleted(ApiScanCompletedEvent event) {
+        event.getApiRegistry().values().forEach(this::routeState);
+    }
+
+    /**
+     * 执行下游调用
+     *
+     * @param apiInfo 路由信息
+     * @param call    一次下游调用，对冲时会被并发执行两次，必须是幂等的
+     */
+    public Object invoke(ServiceApiInfo apiInfo, Callable<Object> call) throws Exception {
+        RouteHedgeState route = routeState(apiInfo);
+        if (!route.idempotent || !hedgingProperties.isEnabled()) {
+            return call.call();
+        }
+        if (channelPoolManager.getEndpointCount(route.registry.registryId) < 2) {
+            // 只有一个地址时对冲调用和主调用落在同一个实例上，不能绕开慢实例
+            return call.call();
+        }
+        route.registry.budget.deposit();
+
+        long delayMicros = route.hedgeDelayMicros();
+        Race race = new Race(route, RequestEndpoints.track(Context.current()));
+        Future<?> primary = submit(race, call);
+        if (primary == null) {
+            // 线程池耗尽，直接在请求线程调用
+            return race.runInline(call);
+        }
+
+        Future<?> hedge = null;
+        try {
+            if (delayMicros < 0) {
+                return race.await();
+            }
+            try {
+                return race.await(delayMicros);
+            } catch (TimeoutException e) {
+                hedge = tryHedge(route, race, call);
+                return race.await();
+            }
+        } finally {
+            // 取消仍在执行的一方，gRPC阻塞调用在线程中断时会取消对应的请求
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * 各注册中心的对冲额度和对冲次数
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        registries.forEach((registryId, state) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("endpoints", channelPoolManager.getEndpointCount(registryId));
+            item.put("availableTokens", state.budget.available());
+            item.put("hedged", state.hedged.get());
+            item.put("hedgeWon", state.hedgeWon.get());
+            item.put("budgetExhausted", state.budgetExhausted.get());
+            result.put(registryId, item);
+        });
+        return result;
+    }
+
+    private Future<?> tryHedge(RouteHedgeState route, Race race, Callable<Object> call) {
+        RegistryHedgeState registry = route.registry;
+        if (!registry.budget.tryAcquire()) {
+            registry.budgetExhausted.incrementAndGet();
+            increment(registry.budgetExhaustedCounter);
+            return null;
+        }
+        if (!race.addAttempt()) {
+            return null;
+        }
+        Future<?> hedge = submit(race, call);
+        if (hedge == null) {
+            race.attemptSkipped();
+            return null;
+        }
+        registry.hedged.incrementAndGet();
+        increment(registry.hedgedCounter);
+        logger.debug("Hedging request, url: {}, delay: {}us", route.url, route.hedgeDelayMicros());
+        return hedge;
+    }
+
+    private Future<?> submit(Race race, Callable<Object> call) {
+        try {
+            // 传递请求的gRPC Context，使截止时间和取消对执行线程上的调用生效，两次调用共享已使用的地址
+            return executor.submit(race.context.wrap(() -> race.run(call)));
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    private RouteHedgeState routeState(ServiceApiInfo apiInfo) {
+        String url = apiInfo.getUrl() != null ? apiInfo.getUrl() : apiInfo.getServiceConfig().url();
+        RouteHedgeState state = routes.get(url);
+        if (state != null) {
+            return state;
+        }
+        return routes.computeIfAbsent(url, k -> {
+            String registryId = apiInfo.getRegistryId() != null ? apiInfo.getRegistryId()
+                    : apiInfo.getServiceConfig().registryId();
+            // 服务端流不对冲：两个流无法合并，且先返回Iterator的调用不代表先读完
+            Class<?> responseType = apiInfo.getResponseType();
+            boolean serverStream = responseType != null && Iterator.class.isAssignableFrom(responseType);
+            boolean idempotent = !serverStream && hedgingProperties.getIdempotentRoutes().stream()
+                    .anyMatch(pattern -> pathMatcher.match(pattern, k));
+            if (idempotent) {
+                logger.info("Hedging enabled for idempotent route: {}, registryId: {}", k, registryId);
+            }
+            return new RouteHedgeState(k, idempotent, registries.computeIfAbsent(registryId, this::registryState));
+        });
+    }
+
+    private RegistryHedgeState registryState(String registryId) {
+        RegistryHedgeState state = new RegistryHedgeState(registryId,
+                new HedgeBudget(hedgingProperties.getBudgetRatio(), hedgingProperties.getBudgetMaxTokens()));
+        if (meterRegistry != null) {
+            state.hedgedCounter = Counter.builder("bff.hedge.sent").tag("registryId", registryId).register(meterRegistry);
+            state.hedgeWonCounter = Counter.builder("bff.hedge.won").tag("registryId", registryId).register(meterRegistry);
+            state.budgetExhaustedCounter = Counter.builder("bff.hedge.budget.exhausted")
+                    .tag("registryId", registryId).register(meterRegistry);
+            Gauge.builder("bff.hedge.budget.available", state.budget, HedgeBudget::available)
+                    .tag("registryId", registryId).register(meterRegistry);
+        }
+        return state;
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    /**
+     * 路由对冲状态
+     */
+    private final class RouteHedgeState {
+
+        private final String url;
+
+        private final boolean idempotent;
+
+        private final RegistryHedgeState registry;
+
+        private final LatencyWindow latency;
+
+        RouteHedgeState(String url, boolean idempotent, RegistryHedgeState registry) {
+            this.url = url;
+            this.idempotent = idempotent;
+            this.registry = registry;
+            this.latency = new LatencyWindow(TimeUnit.SECONDS.toNanos(hedgingProperties.getWindowSeconds()));
+        }
+
+        /**
+         * 对冲触发延迟
+         *
+         * @return 微秒，样本不足时返回-1表示不对冲
+         */
+        long hedgeDelayMicros() {
+            long quantile = latency.quantile(hedgingProperties.getQuantile(), hedgingProperties.getMinSamples());
+            if (quantile < 0) {
+                return -1;
+            }
+            return Math.min(Math.max(quantile, TimeUnit.MILLISECONDS.toMicros(hedgingProperties.getMinDelayMillis())),
+                    TimeUnit.MILLISECONDS.toMicros(hedgingProperties.getMaxDelayMillis()));
+        }
+    }
+
+    /**
+     * 注册中心对冲状态
+     */
+    private static final class RegistryHedgeState {
+
+        private final String registryId;
+
+        private final HedgeBudget budget;
+
+        private final AtomicLong hedged = new AtomicLong();
+
+        private final AtomicLong hedgeWon = new AtomicLong();
+
+        private final AtomicLong budgetExhausted = new AtomicLong();
+
+        private Counter hedgedCounter;
+
+        private Counter hedgeWonCounter;
+
+        private Counter budgetExhaustedCounter;
+
+        RegistryHedgeState(String registryId, HedgeBudget budget) {
+            this.registryId = registryId;
+            this.budget = budget;
+        }
+    }
+
+    /**
+     * 一次请求的多次调用
+     * 第一个成功的调用完成结果，全部失败时以最后一个失败作为结果
+     */
+    private static final class Race {
+
+        private final RouteHedgeState route;
+
+        /** 执行各次调用的gRPC Context，记录已使用的地址 */
+        private final Context context;
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        /** 尚未结束的调用数 */
+        private final AtomicInteger pending = new AtomicInteger(1);
+
+        /** 已发起的调用数，用于判断是否由对冲调用胜出 */
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        /** 最近一次调用失败的异常 */
+        private volatile Throwable lastError;
+
+        Race(RouteHedgeState route, Context context) {
+            this.route = route;
+            this.context = context;
+        }
+
+        void run(Callable<Object> call) {
+            int attempt = attempts.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                Object value = call.call();
+                route.latency.record((System.nanoTime() - start) / 1000);
+                if (result.complete(value) && attempt > 1) {
+                    route.registry.hedgeWon.incrementAndGet();
+                    increment(route.registry.hedgeWonCounter);
+                }
+            } catch (Throwable t) {
+                lastError = t;
+                if (pending.decrementAndGet() == 0) {
+                    result.completeExceptionally(t);
+                }
+            }
+        }
+
+        Object runInline(Callable<Object> call) throws Exception {
+            long start = System.nanoTime();
+            Object value = call.call();
+            route.latency.record((System.nanoTime() - start) / 1000);
+            return value;
+        }
+
+        /**
+         * 增加一次调用，结果已确定时不再增加
+         */
+        boolean addAttempt() {
+            if (result.isDone()) {
+                return false;
+            }
+            pending.incrementAndGet();
+            return true;
+        }
+
+        void attemptSkipped() {
+            if (pending.decrementAndGet() == 0) {
+                result.completeExceptionally(lastError);
+            }
+        }
+
+        Object await(long timeoutMicros) throws Exception {
+            try {
+                return result.get(timeoutMicros, TimeUnit.MICROSECONDS);
+            } catch (ExecutionException e) {
+                throw unwrap(e);
+            }
+        }
+
+        Object await() throws Exception {
+            try {
+                return result.get();
+            } catch (ExecutionException e) {
+                throw unwrap(e);
+            }
+        }
+
+        private static Exception unwrap(ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            return cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.changjiang.bff.core.hedge;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 滑动窗口延迟分布
+ * 主要职责：
+ * 1. 以对数分桶(每个2的幂分4个子桶，误差约25%)无锁记录延迟
+ * 2. 按当前窗口和上一个窗口的合计估算延迟分位数
+ *
+ * 使用场景：
+ * - 估算路由的p95，作为对冲请求的触发延迟
+ */
+final class LatencyWindow {
+
+    /** 桶数量，覆盖到约2^40微秒 */
+    private static final int BUCKETS = 160;
+
+    private final long windowNanos;
+
+    private volatile AtomicLongArray current = new AtomicLongArray(BUCKETS);
+
+    private volatile AtomicLongArray previous = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+
+    LatencyWindow(long windowNanos) {
+        this.windowNanos = windowNanos;
+    }
+
+    /**
+     * 记录一次延迟
+     */
+    void record(long micros) {
+        rotateIfNeeded();
+        current.incrementAndGet(bucketOf(micros));
+    }
+
+    /**
+     * 估算分位数
+     *
+     * @return 分位数所在桶的上界(微秒)，样本不足时返回-1
+     */
+    long quantile(double q, int minSamples) {
+        rotateIfNeeded();
+        AtomicLongArray cur = current;
+        AtomicLongArray prev = previous;
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += cur.get(i) + prev.get(i);
+        }
+        if (total < minSamples || total == 0) {
+            return -1;
+        }
+        long rank = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += cur.get(i) + prev.get(i);
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    private void rotateIfNeeded() {
+        long start = windowStart.get();
+        long now = System.nanoTime();
+        if (now - start < windowNanos || !windowStart.compareAndSet(start, now)) {
+            return;
+        }
+        // 两个窗口都已过期时直接丢弃
+        previous = now - start >= 2 * windowNanos ? new AtomicLongArray(BUCKETS) : current;
+        current = new AtomicLongArray(BUCKETS);
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < 4) {
+            return (int) Math.max(micros, 0);
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exp - 2)) & 3;
+        return Math.min((exp - 1) * 4 + sub, BUCKETS - 1);
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < 4) {
+            return bucket + 1;
+        }
+        int exp = bucket / 4 + 1;
+        int sub = bucket % 4;
+        return (long) (5 + sub) << (exp - 2);
+    }
+}
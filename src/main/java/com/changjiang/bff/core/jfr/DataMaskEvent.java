@@ -0,0 +1,61 @@
+package com.changjiang.bff.core.jfr;
+
+import com.changjiang.bff.core.metrics.RequestTimeline;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 数据脱敏JFR事件
+ * 一次对响应数据的完整脱敏(包括递归处理的集合和嵌套对象)一个事件，流式写出时每行一个事件
+ *
+ * 调用关系：
+ * - 由StreamingResponseWriter逐行脱敏时begin和提交，与RequestPhase.MASK阶段同时记录
+ * - 普通Result响应不脱敏，不产生该事件
+ */
+@Name(DataMaskEvent.NAME)
+@Label("Data Mask")
+@Category({"Changjiang BFF", "Gateway"})
+@Description("A masking pass over a response object graph")
+@StackTrace(false)
+public class DataMaskEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "com.changjiang.bff.DataMask";
+
+    @Label("Route")
+    public String route;
+
+    @Label("Root Type")
+    public Class<?> rootType;
+
+    @Label("Elements")
+    @Description("Collection size for collections and maps, otherwise 1")
+    public int elements;
+
+    /**
+     * 结束脱敏，事件需要提交时才填充字段
+     *
+     * @param data 脱敏前的数据
+     */
+    public void finish(Object data) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        route = RequestTimeline.current().getRoute();
+        rootType = data.getClass();
+        if (data instanceof Collection) {
+            elements = ((Collection<?>) data).size();
+        } else if (data instanceof Map) {
+            elements = ((Map<?, ?>) data).size();
+        } else {
+            elements = 1;
+        }
+        commit();
+    }
+}
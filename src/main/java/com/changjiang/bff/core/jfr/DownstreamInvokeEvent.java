@@ -0,0 +1,42 @@
+package com.changjiang.bff.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 下游调用JFR事件
+ * 覆盖熔断、并发限制和对冲在内的整个下游调用，事件时长即INVOKE阶段耗时
+ *
+ * 调用关系：
+ * - 由MethodInvocationServiceIml.invokeService在调用下游前后begin和提交
+ */
+@Name(DownstreamInvokeEvent.NAME)
+@Label("Downstream Invoke")
+@Category({"Changjiang BFF", "Downstream"})
+@Description("A downstream gRPC invocation including circuit breaker, concurrency limit and hedging")
+@StackTrace(false)
+public class DownstreamInvokeEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "com.changjiang.bff.DownstreamInvoke";
+
+    @Label("Route")
+    public String route;
+
+    @Label("Registry Id")
+    public String registryId;
+
+    @Label("Service")
+    public String service;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Success")
+    public boolean success;
+
+    @Label("Error")
+    public String error;
+}
@@ -0,0 +1,79 @@
+package com.changjiang.bff.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * 网关请求JFR事件
+ * 每个/changjiang/**请求一个事件，事件的开始和结束即请求的开始和结束，各阶段耗时来自RequestTimeline
+ *
+ * 调用关系：
+ * - 由RequestTimelineFilter在请求开始时begin，结束时填充字段并提交
+ * - 未开启JFR录制时begin/shouldCommit为空操作，字段不会被填充
+ */
+@Name(GatewayRequestEvent.NAME)
+@Label("Gateway Request")
+@Category({"Changjiang BFF", "Gateway"})
+@Description("A /changjiang request with its route, payload sizes and phase durations")
+@StackTrace(false)
+public class GatewayRequestEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "com.changjiang.bff.Request";
+
+    @Label("Route")
+    public String route;
+
+    @Label("Registry Id")
+    public String registryId;
+
+    @Label("HTTP Status")
+    public int status;
+
+    @Label("Result Code")
+    public String resultCode;
+
+    @Label("Bytes In")
+    @DataAmount
+    public long bytesIn;
+
+    @Label("Bytes Out")
+    @DataAmount
+    public long bytesOut;
+
+    @Label("Allocated")
+    @DataAmount
+    public long allocatedBytes;
+
+    @Label("Route Lookup")
+    @Timespan
+    public long routeLookup;
+
+    @Label("Bind")
+    @Timespan
+    public long bind;
+
+    @Label("Validate")
+    @Timespan
+    public long validate;
+
+    @Label("Invoke")
+    @Timespan
+    public long invoke;
+
+    @Label("Mask")
+    @Timespan
+    public long mask;
+
+    @Label("Envelope")
+    @Timespan
+    public long envelope;
+
+    @Label("Serialize")
+    @Timespan
+    public long serialize;
+}
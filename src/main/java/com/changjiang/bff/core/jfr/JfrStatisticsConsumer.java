@@ -0,0 +1,85 @@
+package com.changjiang.bff.core.jfr;
+
+import com.changjiang.bff.config.JfrProperties;
+import com.changjiang.bff.core.metrics.RouteStatistics;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+
+/**
+ * 进程内JFR流式消费
+ * 主要职责：
+ * 1. 启用后在进程内开启一个RecordingStream，订阅网关请求、下游调用和GC事件
+ * 2. 将请求/响应字节数、下游调用耗时和GC停顿时间汇总到RouteStatistics
+ *
+ * 使用场景：
+ * - 需要在路由实时统计中查看流量大小、下游耗时和GC影响，而不开启外部JFR录制
+ *
+ * 调用关系：
+ * - 消费GatewayRequestEvent、DownstreamInvokeEvent和jdk.GarbageCollection
+ * - 调用RouteStatistics.recordTransfer/recordDownstream/recordGcPause
+ * - 事件在独立的JFR消费线程上处理，不占用请求线程
+ */
+@Component
+public class JfrStatisticsConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(JfrStatisticsConsumer.class);
+
+    private static final String GC_EVENT = "jdk.GarbageCollection";
+
+    @Autowired
+    private JfrProperties jfrProperties;
+
+    @Autowired
+    private RouteStatistics routeStatistics;
+
+    private RecordingStream stream;
+
+    @PostConstruct
+    public void init() {
+        if (!jfrProperties.isStreamingEnabled()) {
+            return;
+        }
+        try {
+            RecordingStream recordingStream = new RecordingStream();
+            recordingStream.setMaxAge(Duration.ofSeconds(jfrProperties.getStreamingMaxAgeSeconds()));
+            recordingStream.enable(GatewayRequestEvent.NAME).withThreshold(Duration.ZERO).withoutStackTrace();
+            recordingStream.enable(DownstreamInvokeEvent.NAME).withThreshold(Duration.ZERO).withoutStackTrace();
+            recordingStream.enable(GC_EVENT).withThreshold(Duration.ZERO);
+            recordingStream.onEvent(GatewayRequestEvent.NAME, this::onRequest);
+            recordingStream.onEvent(DownstreamInvokeEvent.NAME, this::onDownstream);
+            recordingStream.onEvent(GC_EVENT, this::onGarbageCollection);
+            recordingStream.startAsync();
+            stream = recordingStream;
+            logger.info("JFR statistics streaming started, maxAgeSeconds: {}", jfrProperties.getStreamingMaxAgeSeconds());
+        } catch (Exception e) {
+            logger.warn("Start JFR statistics streaming error: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void onRequest(RecordedEvent event) {
+        routeStatistics.recordTransfer(event.getString("route"), event.getLong("bytesIn"), event.getLong("bytesOut"));
+    }
+
+    private void onDownstream(RecordedEvent event) {
+        routeStatistics.recordDownstream(event.getString("route"), event.getDuration().toNanos());
+    }
+
+    private void onGarbageCollection(RecordedEvent event) {
+        routeStatistics.recordGcPause(event.getDuration("sumOfPauses").toNanos());
+    }
+}
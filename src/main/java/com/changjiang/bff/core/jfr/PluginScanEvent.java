@@ -0,0 +1,52 @@
+package com.changjiang.bff.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 插件扫描JFR事件
+ * ApiScanner的每个步骤一个事件：解析坐标(resolve)、扫描单个JAR(scan)
+ *
+ * 调用关系：
+ * - 由ApiScanner.scanAllApis、scanJarFile begin和提交
+ */
+@Name(PluginScanEvent.NAME)
+@Label("Plugin Scan")
+@Category({"Changjiang BFF", "Startup"})
+@Description("A step of the plugin API scan: resolving a Maven coordinate or scanning a JAR")
+@StackTrace(false)
+public class PluginScanEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "com.changjiang.bff.PluginScan";
+
+    public static final String STEP_RESOLVE = "resolve";
+
+    public static final String STEP_SCAN = "scan";
+
+    @Label("Step")
+    public String step;
+
+    @Label("Coordinate")
+    public String coordinate;
+
+    @Label("JAR")
+    public String jar;
+
+    @Label("JAR Count")
+    public int jarCount;
+
+    @Label("Classes Scanned")
+    public int classesScanned;
+
+    @Label("Methods Found")
+    public int methodsFound;
+
+    @Label("APIs Registered")
+    public int apisRegistered;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,168 @@
+package com.changjiang.bff.core.limit;
+
+import com.changjiang.bff.config.ConcurrencyLimitProperties;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 梯度并发上限
+ * 主要职责：
+ * 1. 无锁地控制在途请求数不超过当前上限
+ * 2. 按采样窗口比较短期RTT和长期RTT，RTT升高时降低上限，RTT平稳时逐步放大上限
+ * 3. 下游超时、不可用或过载时按比例缩减上限
+ *
+ * 算法：
+ * - gradient = clamp(rttTolerance * longRtt / shortRtt, 0.5, 1.0)
+ * - newLimit = limit * gradient + sqrt(limit)
+ * - limit = limit * (1 - smoothing) + newLimit * smoothing，并限制在[minLimit, maxLimit]
+ * - 窗口内最大在途请求数不到上限一半时不放大上限，避免低负载时上限无限增长
+ *
+ * 调用关系：
+ * - 由RegistryConcurrencyLimiter按registryId创建
+ */
+public final class GradientConcurrencyLimit {
+
+    private final ConcurrencyLimitProperties properties;
+
+    /** 当前上限，只由窗口结算线程写入 */
+    private volatile double limit;
+
+    /** 在途请求数 */
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    /** 窗口内最大在途请求数 */
+    private final AtomicInteger windowMaxInflight = new AtomicInteger();
+
+    /** 窗口内RTT总和(纳秒) */
+    private final AtomicLong windowRttSum = new AtomicLong();
+
+    /** 窗口内样本数 */
+    private final AtomicInteger windowSamples = new AtomicInteger();
+
+    /** 窗口内是否出现下游过载信号 */
+    private final AtomicBoolean windowDropped = new AtomicBoolean();
+
+    /** 窗口开始时间 */
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+
+    /** 长期RTT(纳秒)，只由窗口结算线程写入 */
+    private volatile double longRtt;
+
+    /** 累计拒绝数 */
+    private final AtomicLong rejected = new AtomicLong();
+
+    public GradientConcurrencyLimit(ConcurrencyLimitProperties properties) {
+        this.properties = properties;
+        this.limit = properties.getInitialLimit();
+    }
+
+    /**
+     * 尝试获取一个并发许可
+     *
+     * @return 在途请求数已达上限时返回false
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inflight.get();
+            if (current >= (int) limit) {
+                rejected.incrementAndGet();
+                return false;
+            }
+        } while (!inflight.compareAndSet(current, current + 1));
+        int inflightNow = current + 1;
+        if (inflightNow > windowMaxInflight.get()) {
+            windowMaxInflight.accumulateAndGet(inflightNow, Math::max);
+        }
+        return true;
+    }
+
+    /**
+     * 调用成功，记录RTT
+     */
+    public void onSuccess(long rttNanos) {
+        inflight.decrementAndGet();
+        windowRttSum.addAndGet(rttNanos);
+        windowSamples.incrementAndGet();
+        settleIfWindowEnded();
+    }
+
+    /**
+     * 下游超时、不可用或过载
+     */
+    public void onDropped() {
+        inflight.decrementAndGet();
+        windowDropped.set(true);
+        settleIfWindowEnded();
+    }
+
+    /**
+     * 与下游容量无关的失败(业务异常、参数错误等)，只释放许可
+     */
+    public void onIgnore() {
+        inflight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public double getLongRttMillis() {
+        return longRtt / 1_000_000.0;
+    }
+
+    /**
+     * 窗口结束时由一个线程结算并调整上限
+     */
+    private void settleIfWindowEnded() {
+        long start = windowStart.get();
+        long now = System.nanoTime();
+        if (now - start < properties.getSampleWindowMillis() * 1_000_000L) {
+            return;
+        }
+        boolean dropped = windowDropped.get();
+        if (!dropped && windowSamples.get() < properties.getMinWindowSamples()) {
+            return;
+        }
+        if (!windowStart.compareAndSet(start, now)) {
+            return;
+        }
+        int samples = windowSamples.getAndSet(0);
+        long rttSum = windowRttSum.getAndSet(0);
+        int maxInflight = windowMaxInflight.getAndSet(inflight.get());
+        windowDropped.set(false);
+
+        double current = limit;
+        double next;
+        if (dropped) {
+            next = current * properties.getBackoffRatio();
+        } else {
+            double shortRtt = (double) rttSum / samples;
+            double longAlpha = 2.0 / (properties.getLongWindow() + 1);
+            double longValue = longRtt == 0 ? shortRtt : longRtt * (1 - longAlpha) + shortRtt * longAlpha;
+            // 长期RTT明显高于短期RTT时加速回落，使负载下降后能尽快恢复
+            if (longValue / shortRtt > 2) {
+                longValue *= 0.95;
+            }
+            longRtt = longValue;
+
+            if (maxInflight < current / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, properties.getRttTolerance() * longValue / shortRtt));
+            double estimated = current * gradient + Math.sqrt(current);
+            next = current * (1 - properties.getSmoothing()) + estimated * properties.getSmoothing();
+        }
+        limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), next));
+    }
+}
@@ -0,0 +1,170 @@
+package com.changjiang.bff.core.limit;
+
+import com.changjiang.bff.config.ConcurrencyLimitProperties;
+import com.changjiang.bff.constants.PubConstants;
+import com.changjiang.bff.core.ServiceApiInfo;
+import com.changjiang.bff.core.deadline.RequestDeadlineManager;
+import com.changjiang.bff.core.stream.CompletionIterator;
+import com.changjiang.bff.exception.ServiceException;
+import io.grpc.Context;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 注册中心并发限制器
+ * 主要职责：
+ * 1. 为每个registryId维护一个自适应并发上限
+ * 2. 在途请求数达到上限时立即拒绝，不排队等待
+ * 3. 按调用结果反馈RTT和过载信号，输出上限、在途数和拒绝数指标
+ *
+ * 使用场景：
+ * - 下游容量随时间变化，固定线程池和重试次数无法适配的场景
+ * - 下游变慢时保护网关线程和下游服务
+ *
+ * 调用关系：
+ * - 被MethodInvocationServiceIml.invokeService在HedgingInvoker内调用，对冲调用与原调用各占一个名额
+ * - 下游返回Iterator(服务端流)时名额保持到流读完或StreamingResponseWriter关闭流
+ * - 拒绝时抛出ServiceException，错误码为PubConstants.ERROR_CONCURRENCY_LIMIT_EXCEEDED
+ * - 通过RequestDeadlineManager.isCallerDeadline排除调用方预算造成的超时，避免客户端的短超时压低上限
+ */
+@Component
+public class RegistryConcurrencyLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistryConcurrencyLimiter.class);
+
+    @Autowired
+    private ConcurrencyLimitProperties limitProperties;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 注册中心并发上限
+     * key: registryId
+     */
+    private final Map<String, LimitState> limits = new ConcurrentHashMap<>();
+
+    /**
+     * 在并发限制内执行下游调用
+     * 返回服务端流时包装为CompletionIterator，流结束时释放名额
+     *
+     * @throws ServiceException 并发超限时立即抛出
+     */
+    public Object invoke(ServiceApiInfo apiInfo, Callable<Object> call) throws Exception {
+        String registryId = apiInfo.getRegistryId();
+        if (!limitProperties.isEnabled() || registryId == null) {
+            return call.call();
+        }
+        LimitState state = limits.get(registryId);
+        if (state == null) {
+            state = limits.computeIfAbsent(registryId, this::createLimit);
+        }
+        GradientConcurrencyLimit limit = state.limit;
+        if (!limit.tryAcquire()) {
+            if (state.rejectedCounter != null) {
+                state.rejectedCounter.increment();
+            }
+            logger.debug("Concurrency limit exceeded, registryId: {}, limit: {}", registryId, limit.getLimit());
+            throw new ServiceException(PubConstants.ERROR_CONCURRENCY_LIMIT_EXCEEDED,
+                    "服务繁忙，请稍后重试: " + registryId);
+        }
+
+        // 服务端流在读取线程上结束，按发起调用时的Context判断超时是否由调用方预算造成
+        Context context = Context.current();
+        long start = System.nanoTime();
+        try {
+            Object result = call.call();
+            if (result instanceof Iterator) {
+                // 服务端流的持续时间取决于数据量，不作为RTT样本
+                return new CompletionIterator<>((Iterator<?>) result, (completed, error) -> {
+                    if (error != null && isOverload(error, context)) {
+                        limit.onDropped();
+                    } else {
+                        limit.onIgnore();
+                    }
+                });
+            }
+            limit.onSuccess(System.nanoTime() - start);
+            return result;
+        } catch (Exception | Error e) {
+            if (isOverload(e, context)) {
+                limit.onDropped();
+            } else {
+                limit.onIgnore();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 各注册中心的并发上限、在途请求数和拒绝数
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        limits.forEach((registryId, state) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("limit", state.limit.getLimit());
+            item.put("inflight", state.limit.getInflight());
+            item.put("rejected", state.limit.getRejected());
+            item.put("longRttMillis", state.limit.getLongRttMillis());
+            result.put(registryId, item);
+        });
+        return result;
+    }
+
+    /**
+     * 判断是否为下游容量不足的信号
+     * 截止时间来自客户端或请求本身已超时的DEADLINE_EXCEEDED反映的是调用方预算，不是下游过载
+     */
+    private static boolean isOverload(Throwable t, Context context) {
+        switch (Status.fromThrowable(t).getCode()) {
+            case DEADLINE_EXCEEDED:
+                return !RequestDeadlineManager.isCallerDeadline(context);
+            case UNAVAILABLE:
+            case RESOURCE_EXHAUSTED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private LimitState createLimit(String registryId) {
+        LimitState state = new LimitState(new GradientConcurrencyLimit(limitProperties));
+        if (meterRegistry != null) {
+            Gauge.builder("bff.concurrency.limit", state.limit, GradientConcurrencyLimit::getLimit)
+                    .tag("registryId", registryId).register(meterRegistry);
+            Gauge.builder("bff.concurrency.inflight", state.limit, GradientConcurrencyLimit::getInflight)
+                    .tag("registryId", registryId).register(meterRegistry);
+            state.rejectedCounter = Counter.builder("bff.concurrency.rejected")
+                    .tag("registryId", registryId).register(meterRegistry);
+        }
+        logger.info("Concurrency limit created, registryId: {}, initialLimit: {}", registryId, limitProperties.getInitialLimit());
+        return state;
+    }
+
+    /**
+     * 注册中心并发状态
+     */
+    private static final class LimitState {
+
+        private final GradientConcurrencyLimit limit;
+
+        private Counter rejectedCounter;
+
+        LimitState(GradientConcurrencyLimit limit) {
+            this.limit = limit;
+        }
+    }
+}
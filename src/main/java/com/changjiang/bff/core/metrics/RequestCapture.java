@@ -0,0 +1,40 @@
+package com.changjiang.bff.core.metrics;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 慢请求/大分配请求采样
+ * 保存请求的耗时、资源使用、各阶段耗时和脱敏后的请求体
+ */
+@Data
+@Builder
+public class RequestCapture {
+
+    /** 采样时间(毫秒时间戳) */
+    private long timestamp;
+
+    /** 采样原因: SLOW | ALLOCATION */
+    private String reason;
+
+    private String route;
+
+    private String registryId;
+
+    /** 请求总耗时(毫秒) */
+    private double totalMillis;
+
+    /** 请求线程CPU时间(毫秒)，不支持统计时为-1 */
+    private double cpuMillis;
+
+    /** 请求线程分配的字节数，不支持统计时为-1 */
+    private long allocatedBytes;
+
+    /** 各阶段耗时(毫秒)，只包含有记录的阶段 */
+    private Map<String, Double> phases;
+
+    /** 脱敏后的请求体，超过长度时截断 */
+    private String bodySample;
+}
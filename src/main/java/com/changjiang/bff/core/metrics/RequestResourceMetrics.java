@@ -0,0 +1,305 @@
+package com.changjiang.bff.core.metrics;
+
+import com.alibaba.fastjson2.JSON;
+import com.changjiang.bff.config.RequestResourceProperties;
+import com.changjiang.bff.enums.MaskType;
+import com.changjiang.bff.enums.RequestPhase;
+import com.changjiang.bff.util.NpcsDataMaskUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 请求资源统计
+ * 主要职责：
+ * 1. 用ThreadMXBean的线程分配计数和线程CPU时间，统计每个请求在请求线程上分配的字节数和CPU时间
+ * 2. 按路由汇总请求数、总分配字节数、总CPU时间和最大值，输出为Micrometer指标
+ * 3. 耗时或分配量超过阈值的请求保留采样(阶段耗时和脱敏后的请求体)，最多保留captureCapacity条
+ *
+ * 指标：
+ * - bff.request.allocated.bytes{route, registryId}  累计分配字节数
+ * - bff.request.cpu.time{route, registryId}         累计CPU时间(纳秒)
+ *
+ * 说明：
+ * - 只统计请求线程，下游调用在对冲线程池或gRPC线程中的开销不计入
+ * - JVM不支持线程分配计数或CPU时间时，对应值为-1
+ *
+ * 调用关系：
+ * - 被RequestTimelineFilter在请求开始和结束时调用
+ * - 被AdminController调用查询路由汇总和采样
+ */
+@Component
+public class RequestResourceMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestResourceMetrics.class);
+
+    private static final RequestPhase[] PHASES = RequestPhase.values();
+
+    private static final String REASON_SLOW = "SLOW";
+
+    private static final String REASON_ALLOCATION = "ALLOCATION";
+
+    @Autowired
+    private RequestResourceProperties resourceProperties;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    /** 支持线程分配计数时为HotSpot扩展的ThreadMXBean，否则为null */
+    private com.sun.management.ThreadMXBean allocationBean;
+
+    /** 支持当前线程CPU时间时为ThreadMXBean，否则为null */
+    private java.lang.management.ThreadMXBean cpuBean;
+
+    /**
+     * 路由汇总
+     * key: 路由URL
+     */
+    private final Map<String, RouteResources> routes = new ConcurrentHashMap<>();
+
+    /** 采样环形缓冲区 */
+    private AtomicReferenceArray<RequestCapture> captures;
+
+    /** 下一个采样写入位置 */
+    private final AtomicLong captureIndex = new AtomicLong();
+
+    private Map<String, MaskType> maskRules;
+
+    private long slowThresholdNanos;
+
+    @PostConstruct
+    public void init() {
+        captures = new AtomicReferenceArray<>(Math.max(resourceProperties.getCaptureCapacity(), 1));
+        slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(resourceProperties.getSlowThresholdMillis());
+        Map<String, MaskType> rules = new HashMap<>();
+        resourceProperties.getMaskFields().forEach((field, type) -> rules.put(field.toLowerCase(), type));
+        maskRules = rules;
+        if (!resourceProperties.isEnabled()) {
+            return;
+        }
+
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspotBean = (com.sun.management.ThreadMXBean) threadBean;
+            if (hotspotBean.isThreadAllocatedMemorySupported()) {
+                hotspotBean.setThreadAllocatedMemoryEnabled(true);
+                allocationBean = hotspotBean;
+            }
+        }
+        if (threadBean.isCurrentThreadCpuTimeSupported()) {
+            if (!threadBean.isThreadCpuTimeEnabled()) {
+                threadBean.setThreadCpuTimeEnabled(true);
+            }
+            cpuBean = threadBean;
+        }
+        logger.info("Request resource accounting enabled, allocation: {}, cpu: {}",
+                allocationBean != null, cpuBean != null);
+    }
+
+    /**
+     * 请求开始，记录请求线程当前的分配字节数和CPU时间
+     */
+    public void begin(RequestTimeline timeline) {
+        if (resourceProperties.isEnabled()) {
+            timeline.resourceStart(allocatedBytes(), cpuNanos());
+        }
+    }
+
+    /**
+     * 请求结束，计算资源使用并按路由汇总，超过阈值时保留采样
+     * 需在RequestTimeline.end之后调用
+     */
+    public void record(RequestTimeline timeline) {
+        if (!resourceProperties.isEnabled()) {
+            return;
+        }
+        timeline.resourceEnd(allocatedBytes(), cpuNanos());
+        String route = timeline.getRoute();
+        if (route == null) {
+            return;
+        }
+        RouteResources resources = routes.get(route);
+        if (resources == null) {
+            resources = routes.computeIfAbsent(route, k -> createRoute(k, timeline.getRegistryId()));
+        }
+        resources.record(timeline.getAllocatedBytes(), timeline.getCpuNanos());
+
+        String reason = captureReason(timeline);
+        if (reason != null) {
+            capture(timeline, reason);
+        }
+    }
+
+    /**
+     * 各路由的请求数、平均和最大分配字节数、平均和最大CPU时间(毫秒)
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        routes.forEach((route, resources) -> {
+            long count = resources.count.sum();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("registryId", resources.registryId);
+            item.put("count", count);
+            if (allocationBean != null) {
+                long allocated = resources.allocatedBytes.sum();
+                item.put("allocatedBytes", allocated);
+                item.put("avgAllocatedBytes", count == 0 ? 0 : allocated / count);
+                item.put("maxAllocatedBytes", resources.maxAllocatedBytes.get());
+            }
+            if (cpuBean != null) {
+                long cpu = resources.cpuNanos.sum();
+                item.put("cpuMillis", cpu / 1_000_000.0);
+                item.put("avgCpuMillis", count == 0 ? 0 : cpu / 1_000_000.0 / count);
+                item.put("maxCpuMillis", resources.maxCpuNanos.get() / 1_000_000.0);
+            }
+            result.put(route, item);
+        });
+        return result;
+    }
+
+    /**
+     * 保留的采样，按时间从新到旧
+     */
+    public List<RequestCapture> captures() {
+        List<RequestCapture> result = new ArrayList<>();
+        long next = captureIndex.get();
+        int capacity = captures.length();
+        for (long i = next - 1; i >= 0 && i >= next - capacity; i--) {
+            RequestCapture capture = captures.get((int) (i % capacity));
+            if (capture != null) {
+                result.add(capture);
+            }
+        }
+        return result;
+    }
+
+    private String captureReason(RequestTimeline timeline) {
+        if (slowThresholdNanos > 0 && timeline.getTotalNanos() >= slowThresholdNanos) {
+            return REASON_SLOW;
+        }
+        long allocationThreshold = resourceProperties.getAllocationThresholdBytes();
+        if (allocationThreshold > 0 && timeline.getAllocatedBytes() >= allocationThreshold) {
+            return REASON_ALLOCATION;
+        }
+        return null;
+    }
+
+    /**
+     * 保留采样，只在超过阈值的请求上执行，允许分配对象
+     */
+    private void capture(RequestTimeline timeline, String reason) {
+        try {
+            Map<String, Double> phases = new LinkedHashMap<>();
+            for (RequestPhase phase : PHASES) {
+                long nanos = timeline.getPhaseNanos(phase);
+                if (nanos > 0) {
+                    phases.put(phase.name(), nanos / 1_000_000.0);
+                }
+            }
+            RequestCapture capture = RequestCapture.builder()
+                    .timestamp(System.currentTimeMillis())
+                    .reason(reason)
+                    .route(timeline.getRoute())
+                    .registryId(timeline.getRegistryId())
+                    .totalMillis(timeline.getTotalNanos() / 1_000_000.0)
+                    .cpuMillis(timeline.getCpuNanos() < 0 ? -1 : timeline.getCpuNanos() / 1_000_000.0)
+                    .allocatedBytes(timeline.getAllocatedBytes())
+                    .phases(phases)
+                    .bodySample(bodySample(timeline.getRequestBody()))
+                    .build();
+            long index = captureIndex.getAndIncrement();
+            captures.set((int) (index % captures.length()), capture);
+        } catch (Exception e) {
+            logger.warn("Capture request error, route: {}", timeline.getRoute(), e);
+        }
+    }
+
+    private String bodySample(Object body) {
+        if (body == null) {
+            return null;
+        }
+        String sample = JSON.toJSONString(NpcsDataMaskUtil.maskByFieldName(body, maskRules));
+        int maxChars = resourceProperties.getBodySampleMaxChars();
+        return sample.length() <= maxChars ? sample : sample.substring(0, maxChars) + "...";
+    }
+
+    private long allocatedBytes() {
+        return allocationBean == null ? -1 : allocationBean.getCurrentThreadAllocatedBytes();
+    }
+
+    private long cpuNanos() {
+        return cpuBean == null ? -1 : cpuBean.getCurrentThreadCpuTime();
+    }
+
+    private RouteResources createRoute(String route, String registryId) {
+        RouteResources resources = new RouteResources(registryId == null ? "" : registryId);
+        if (meterRegistry != null) {
+            if (allocationBean != null) {
+                FunctionCounter.builder("bff.request.allocated.bytes", resources.allocatedBytes, LongAdder::sum)
+                        .tag("route", route)
+                        .tag("registryId", resources.registryId)
+                        .baseUnit("bytes")
+                        .register(meterRegistry);
+            }
+            if (cpuBean != null) {
+                FunctionCounter.builder("bff.request.cpu.time", resources.cpuNanos, LongAdder::sum)
+                        .tag("route", route)
+                        .tag("registryId", resources.registryId)
+                        .baseUnit("nanoseconds")
+                        .register(meterRegistry);
+            }
+        }
+        return resources;
+    }
+
+    /**
+     * 单个路由的资源汇总
+     */
+    private static final class RouteResources {
+
+        private final String registryId;
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder allocatedBytes = new LongAdder();
+
+        private final LongAdder cpuNanos = new LongAdder();
+
+        private final LongAccumulator maxAllocatedBytes = new LongAccumulator(Math::max, 0);
+
+        private final LongAccumulator maxCpuNanos = new LongAccumulator(Math::max, 0);
+
+        RouteResources(String registryId) {
+            this.registryId = registryId;
+        }
+
+        void record(long allocated, long cpu) {
+            count.increment();
+            if (allocated >= 0) {
+                allocatedBytes.add(allocated);
+                maxAllocatedBytes.accumulate(allocated);
+            }
+            if (cpu >= 0) {
+                cpuNanos.add(cpu);
+                maxCpuNanos.accumulate(cpu);
+            }
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.changjiang.bff.core.metrics;
+
+import com.changjiang.bff.core.trace.TraceContext;
+import com.changjiang.bff.enums.RequestPhase;
+
+/**
+ * 请求时间线
+ * 主要职责：
+ * 1. 在请求线程上记录各阶段的耗时
+ * 2. 记录请求期间线程分配的字节数和CPU时间
+ * 3. 每个线程复用同一个实例，记录过程不分配对象
+ *
+ * 使用方式：
+ * <pre>
+ * long start = System.nanoTime();
+ * ...
+ * RequestTimeline.current().record(RequestPhase.BIND, start);
+ * </pre>
+ *
+ * 调用关系：
+ * - 由RequestTimelineFilter在请求开始时begin、结束时end
+ * - 请求处理过程中的各个阶段调用record
+ * - 请求结束后由RoutePhaseMetrics、RequestResourceMetrics汇总，由AccessLogWriter写入访问日志，
+ *   由RequestTracer生成span
+ */
+public final class RequestTimeline {
+
+    private static final RequestPhase[] PHASES = RequestPhase.values();
+
+    private static final ThreadLocal<RequestTimeline> CURRENT = ThreadLocal.withInitial(RequestTimeline::new);
+
+    /** 各阶段耗时(纳秒)，按RequestPhase.ordinal()索引 */
+    private final long[] phaseNanos = new long[PHASES.length];
+
+    /** 各阶段第一次开始的时间，按RequestPhase.ordinal()索引，未记录时为0 */
+    private final long[] phaseStartNanos = new long[PHASES.length];
+
+    /** 是否处于请求中，请求外的记录会被忽略 */
+    private boolean active;
+
+    private String route;
+
+    private String registryId;
+
+    private long startNanos;
+
+    private long endNanos;
+
+    /** 开始序列化响应的时间 */
+    private long serializeStartNanos;
+
+    /** 请求开始时线程已分配的字节数，未统计时为-1 */
+    private long startAllocatedBytes = -1;
+
+    /** 请求开始时线程已使用的CPU时间(纳秒)，未统计时为-1 */
+    private long startCpuNanos = -1;
+
+    /** 请求分配的字节数，未统计时为-1 */
+    private long allocatedBytes = -1;
+
+    /** 请求使用的CPU时间(纳秒)，未统计时为-1 */
+    private long cpuNanos = -1;
+
+    /** 请求体，只保存引用，用于慢请求采样和访问日志 */
+    private Object requestBody;
+
+    /** 响应码(Result.code) */
+    private String resultCode;
+
+    /** 追踪上下文，未启用追踪时为null */
+    private TraceContext trace;
+
+    private RequestTimeline() {
+    }
+
+    /**
+     * 开始一个请求，复用当前线程的实例
+     */
+    public static RequestTimeline begin() {
+        RequestTimeline timeline = CURRENT.get();
+        timeline.reset();
+        timeline.active = true;
+        timeline.startNanos = System.nanoTime();
+        return timeline;
+    }
+
+    /**
+     * 当前线程的时间线，请求外调用时返回未激活的实例
+     */
+    public static RequestTimeline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 记录一个阶段的耗时，同一阶段多次记录时累加
+     *
+     * @param phaseStartNanos 阶段开始时的System.nanoTime()
+     */
+    public void record(RequestPhase phase, long phaseStartNanos) {
+        if (active) {
+            int index = phase.ordinal();
+            phaseNanos[index] += System.nanoTime() - phaseStartNanos;
+            if (this.phaseStartNanos[index] == 0) {
+                this.phaseStartNanos[index] = phaseStartNanos;
+            }
+        }
+    }
+
+    /**
+     * 标记路由和注册中心
+     */
+    public void route(String route, String registryId) {
+        if (active) {
+            this.route = route;
+            this.registryId = registryId;
+        }
+    }
+
+    /**
+     * 标记开始序列化响应
+     */
+    public void markSerializeStart() {
+        if (active) {
+            serializeStartNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * 记录请求体引用
+     */
+    public void body(Object requestBody) {
+        if (active) {
+            this.requestBody = requestBody;
+        }
+    }
+
+    /**
+     * 绑定追踪上下文
+     */
+    public void trace(TraceContext trace) {
+        if (active) {
+            this.trace = trace;
+        }
+    }
+
+    /**
+     * 记录响应码
+     */
+    public void resultCode(String resultCode) {
+        if (active) {
+            this.resultCode = resultCode;
+        }
+    }
+
+    /**
+     * 记录请求开始时线程的分配字节数和CPU时间
+     */
+    public void resourceStart(long threadAllocatedBytes, long threadCpuNanos) {
+        startAllocatedBytes = threadAllocatedBytes;
+        startCpuNanos = threadCpuNanos;
+    }
+
+    /**
+     * 记录请求结束时线程的分配字节数和CPU时间，计算请求期间的差值
+     */
+    public void resourceEnd(long threadAllocatedBytes, long threadCpuNanos) {
+        if (startAllocatedBytes >= 0 && threadAllocatedBytes >= 0) {
+            allocatedBytes = threadAllocatedBytes - startAllocatedBytes;
+        }
+        if (startCpuNanos >= 0 && threadCpuNanos >= 0) {
+            cpuNanos = threadCpuNanos - startCpuNanos;
+        }
+    }
+
+    /**
+     * 结束请求，序列化阶段按开始序列化到请求结束计算
+     */
+    public void end() {
+        endNanos = System.nanoTime();
+        if (active && serializeStartNanos > 0) {
+            int index = RequestPhase.SERIALIZE.ordinal();
+            phaseNanos[index] += endNanos - serializeStartNanos;
+            if (phaseStartNanos[index] == 0) {
+                phaseStartNanos[index] = serializeStartNanos;
+            }
+        }
+        active = false;
+    }
+
+    /**
+     * 释放请求体和追踪上下文的引用，避免线程上复用的实例持有已结束请求的数据
+     */
+    public void release() {
+        requestBody = null;
+        trace = null;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public String getRegistryId() {
+        return registryId;
+    }
+
+    public long getPhaseNanos(RequestPhase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * 阶段第一次开始的时间(System.nanoTime())，未记录时为0
+     */
+    public long getPhaseStartNanos(RequestPhase phase) {
+        return phaseStartNanos[phase.ordinal()];
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public long getTotalNanos() {
+        return endNanos - startNanos;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    public Object getRequestBody() {
+        return requestBody;
+    }
+
+    public String getResultCode() {
+        return resultCode;
+    }
+
+    public TraceContext getTrace() {
+        return trace;
+    }
+
+    private void reset() {
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] = 0;
+            phaseStartNanos[i] = 0;
+        }
+        route = null;
+        registryId = null;
+        startNanos = 0;
+        endNanos = 0;
+        serializeStartNanos = 0;
+        startAllocatedBytes = -1;
+        startCpuNanos = -1;
+        allocatedBytes = -1;
+        cpuNanos = -1;
+        requestBody = null;
+        resultCode = null;
+        trace = null;
+    }
+}
@@ -0,0 +1,231 @@
+package com.changjiang.bff.core.metrics;
+
+import com.changjiang.bff.config.PhaseMetricsProperties;
+import com.changjiang.bff.enums.RequestPhase;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 路由阶段耗时统计
+ * 主要职责：
+ * 1. 按路由、阶段用HdrHistogram Recorder记录耗时(微秒)，记录过程无锁且不分配对象
+ * 2. 定期汇总区间直方图，计算最近一个区间的分位数并输出为Micrometer指标
+ * 3. 累计自启动以来的直方图，供管理接口查询
+ *
+ * 指标：
+ * - bff.request.phase.latency{route, registryId, phase, quantile=0.5|0.99|max}，单位毫秒
+ * - phase为RequestPhase各阶段和TOTAL(整个请求)
+ *
+ * 调用关系：
+ * - 被RequestTimelineFilter在请求结束时调用
+ * - 被AdminController调用查询累计分布
+ */
+@Component
+public class RoutePhaseMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoutePhaseMetrics.class);
+
+    private static final RequestPhase[] PHASES = RequestPhase.values();
+
+    /** 整个请求的耗时位于阶段数组的最后一位 */
+    private static final int TOTAL = PHASES.length;
+
+    private static final String TOTAL_NAME = "TOTAL";
+
+    @Autowired
+    private PhaseMetricsProperties phaseProperties;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 路由直方图
+     * key: 路由URL
+     */
+    private final Map<String, RouteHistograms> routes = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private long highestTrackableMicros;
+
+    @PostConstruct
+    public void init() {
+        highestTrackableMicros = TimeUnit.MILLISECONDS.toMicros(phaseProperties.getHighestTrackableMillis());
+        if (!phaseProperties.isEnabled()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "route-phase-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = phaseProperties.getReportIntervalSeconds();
+        scheduler.scheduleAtFixedRate(this::rollAll, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 记录一个请求的各阶段耗时
+     */
+    public void record(RequestTimeline timeline) {
+        String route = timeline.getRoute();
+        if (route == null || !phaseProperties.isEnabled()) {
+            return;
+        }
+        RouteHistograms histograms = routes.get(route);
+        if (histograms == null) {
+            histograms = routes.computeIfAbsent(route, k -> createRoute(k, timeline.getRegistryId()));
+        }
+        for (RequestPhase phase : PHASES) {
+            long nanos = timeline.getPhaseNanos(phase);
+            if (nanos > 0) {
+                histograms.recorders[phase.ordinal()].recordValue(toMicros(nanos));
+            }
+        }
+        histograms.recorders[TOTAL].recordValue(toMicros(timeline.getTotalNanos()));
+    }
+
+    /**
+     * 自启动以来各路由各阶段的耗时分布(毫秒)
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        routes.forEach((route, histograms) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("registryId", histograms.registryId);
+            synchronized (histograms) {
+                for (int i = 0; i <= TOTAL; i++) {
+                    Histogram histogram = histograms.cumulative[i];
+                    if (histogram.getTotalCount() == 0) {
+                        continue;
+                    }
+                    Map<String, Object> phase = new LinkedHashMap<>();
+                    phase.put("count", histogram.getTotalCount());
+                    phase.put("mean", histogram.getMean() / 1000.0);
+                    phase.put("p50", histogram.getValueAtPercentile(50) / 1000.0);
+                    phase.put("p90", histogram.getValueAtPercentile(90) / 1000.0);
+                    phase.put("p99", histogram.getValueAtPercentile(99) / 1000.0);
+                    phase.put("p999", histogram.getValueAtPercentile(99.9) / 1000.0);
+                    phase.put("max", histogram.getMaxValue() / 1000.0);
+                    item.put(phaseName(i), phase);
+                }
+            }
+            result.put(route, item);
+        });
+        return result;
+    }
+
+    private long toMicros(long nanos) {
+        return Math.min(Math.max(nanos / 1000, 0), highestTrackableMicros);
+    }
+
+    private void rollAll() {
+        try {
+            routes.values().forEach(RouteHistograms::roll);
+        } catch (Exception e) {
+            logger.error("Roll route phase histograms error", e);
+        }
+    }
+
+    private RouteHistograms createRoute(String route, String registryId) {
+        RouteHistograms histograms = new RouteHistograms(registryId == null ? "" : registryId,
+                highestTrackableMicros, phaseProperties.getSignificantDigits());
+        if (meterRegistry != null) {
+            for (int i = 0; i <= TOTAL; i++) {
+                IntervalStats stats = histograms.interval[i];
+                registerGauge(route, histograms.registryId, phaseName(i), "0.5", stats, s -> s.p50);
+                registerGauge(route, histograms.registryId, phaseName(i), "0.99", stats, s -> s.p99);
+                registerGauge(route, histograms.registryId, phaseName(i), "max", stats, s -> s.max);
+            }
+        }
+        return histograms;
+    }
+
+    private void registerGauge(String route, String registryId, String phase, String quantile, IntervalStats stats,
+                               ToDoubleFunction<IntervalStats> value) {
+        Gauge.builder("bff.request.phase.latency", stats, value)
+                .tag("route", route)
+                .tag("registryId", registryId)
+                .tag("phase", phase)
+                .tag("quantile", quantile)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    private static String phaseName(int index) {
+        return index == TOTAL ? TOTAL_NAME : PHASES[index].name();
+    }
+
+    /**
+     * 最近一个区间的分位数(毫秒)
+     */
+    private static final class IntervalStats {
+
+        private volatile double p50;
+
+        private volatile double p99;
+
+        private volatile double max;
+    }
+
+    /**
+     * 单个路由的直方图
+     * recorders由请求线程并发写入；interval、cumulative只由汇总线程写入
+     */
+    private static final class RouteHistograms {
+
+        private final String registryId;
+
+        private final Recorder[] recorders = new Recorder[TOTAL + 1];
+
+        /** 可回收的区间直方图，与recorders一一对应 */
+        private final Histogram[] spare = new Histogram[TOTAL + 1];
+
+        private final Histogram[] cumulative = new Histogram[TOTAL + 1];
+
+        private final IntervalStats[] interval = new IntervalStats[TOTAL + 1];
+
+        RouteHistograms(String registryId, long highestTrackableMicros, int significantDigits) {
+            this.registryId = registryId;
+            for (int i = 0; i <= TOTAL; i++) {
+                recorders[i] = new Recorder(1, highestTrackableMicros, significantDigits);
+                cumulative[i] = new Histogram(1, highestTrackableMicros, significantDigits);
+                interval[i] = new IntervalStats();
+            }
+        }
+
+        synchronized void roll() {
+            for (int i = 0; i <= TOTAL; i++) {
+                Histogram histogram = recorders[i].getIntervalHistogram(spare[i]);
+                IntervalStats stats = interval[i];
+                stats.p50 = histogram.getValueAtPercentile(50) / 1000.0;
+                stats.p99 = histogram.getValueAtPercentile(99) / 1000.0;
+                stats.max = histogram.getMaxValue() / 1000.0;
+                cumulative[i].add(histogram);
+                spare[i] = histogram;
+            }
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.changjiang.bff.core.metrics;
+
+import com.alibaba.fastjson2.JSON;
+import com.changjiang.bff.config.RouteStatsProperties;
+import com.changjiang.bff.constants.BasicConstants;
+import com.changjiang.bff.core.ApiScanCompletedEvent;
+import com.changjiang.bff.core.ServiceApiInfo;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 路由实时统计
+ * 主要职责：
+ * 1. 为ApiScanner.apiRegistry中的每个路由维护请求数、错误数、处理中请求数和最近的错误码
+ * 2. 计数使用LongAdder，耗时使用HdrHistogram Recorder，请求线程之间不争用同一个变量
+ * 3. 后台线程每个窗口(默认1秒)汇总一次，计算QPS、错误率和p50/p99/p999，并预先生成紧凑JSON快照
+ * 4. 管理接口直接返回预先生成的快照，每秒抓取也不会在请求路径上产生开销
+ * 5. 接收JFR流式消费得到的请求/响应字节数、下游调用耗时和GC停顿，未启用时这些值为0
+ *
+ * 快照格式：
+ * {"ts":1700000000000,"windowMs":1000,
+ *  "gcPauseMs":3.2,
+ *  "fields":["route","registryId","qps","errorRate","inFlight","p50","p99","p999","lastErrorCode","requests","errors",
+ *            "bytesInPerSec","bytesOutPerSec","downstreamP99"],
+ *  "rows":[["/elearn/course/query","elearn",120.0,0.0083,3,4.2,18.5,40.1,"999503",102400,12,61440.0,245760.0,16.2]]}
+ * 耗时单位为毫秒，requests、errors为启动以来的累计值
+ *
+ * 调用关系：
+ * - 监听ApiScanCompletedEvent，登记所有路由，重新扫描时保留已有路由的计数
+ * - 被RequestTimelineFilter在请求开始时enter、结束时exit
+ * - 被JfrStatisticsConsumer调用记录字节数、下游调用耗时和GC停顿
+ * - 被AdminController调用查询快照
+ */
+@Component
+public class RouteStatistics {
+
+    private static final Logger logger = LoggerFactory.getLogger(RouteStatistics.class);
+
+    /** 动态路由的请求前缀，按完整请求URI查找，请求路径上不截取字符串 */
+    private static final String ROUTE_PREFIX = "/changjiang";
+
+    private static final List<String> FIELDS = Collections.unmodifiableList(Arrays.asList(
+            "route", "registryId", "qps", "errorRate", "inFlight", "p50", "p99", "p999", "lastErrorCode",
+            "requests", "errors", "bytesInPerSec", "bytesOutPerSec", "downstreamP99"));
+
+    private static final byte[] EMPTY_SNAPSHOT = "{\"rows\":[]}".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private RouteStatsProperties statsProperties;
+
+    /**
+     * 路由统计
+     * key: 完整请求URI(/changjiang + 路由)
+     */
+    private volatile Map<String, RouteStats> routes = Collections.emptyMap();
+
+    /** 按路由排序的统计，汇总线程使用 */
+    private volatile List<RouteStats> ordered = Collections.emptyList();
+
+    /** 最近一个窗口的快照(UTF-8 JSON) */
+    private volatile byte[] snapshot = EMPTY_SNAPSHOT;
+
+    private ScheduledExecutorService scheduler;
+
+    private long highestTrackableMicros;
+
+    private long lastRollNanos;
+
+    /** 当前窗口内的GC停顿时间(纳秒) */
+    private final LongAdder gcPauseNanos = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        highestTrackableMicros = TimeUnit.MILLISECONDS.toMicros(statsProperties.getHighestTrackableMillis());
+        if (!statsProperties.isEnabled()) {
+            return;
+        }
+        lastRollNanos = System.nanoTime();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "route-statistics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long window = statsProperties.getWindowMillis();
+        scheduler.scheduleAtFixedRate(this::roll, window, window, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 登记所有路由，已有路由沿用原来的统计
+     */
+    @EventListener
+    public void onApiScanCompleted(ApiScanCompletedEvent event) {
+        if (!statsProperties.isEnabled()) {
+            return;
+        }
+        Map<String, RouteStats> current = routes;
+        Map<String, RouteStats> updated = new HashMap<>(event.getApiRegistry().size() * 2);
+        Map<String, RouteStats> sorted = new TreeMap<>();
+        for (Map.Entry<String, ServiceApiInfo> entry : event.getApiRegistry().entrySet()) {
+            String key = ROUTE_PREFIX + entry.getKey();
+            RouteStats stats = current.get(key);
+            if (stats == null) {
+                String registryId = entry.getValue().getRegistryId();
+                stats = new RouteStats(entry.getKey(), registryId == null ? "" : registryId,
+                        statsProperties.getSignificantDigits());
+            }
+            updated.put(key, stats);
+            sorted.put(entry.getKey(), stats);
+        }
+        routes = Collections.unmodifiableMap(updated);
+        ordered = Collections.unmodifiableList(new ArrayList<>(sorted.values()));
+        logger.info("Route statistics registered {} routes", updated.size());
+    }
+
+    /**
+     * 请求开始
+     *
+     * @param requestUri 请求URI
+     * @return 路由统计，不是已登记的路由时返回null
+     */
+    public RouteStats enter(String requestUri) {
+        RouteStats stats = routes.get(requestUri);
+        if (stats != null) {
+            stats.inFlight.increment();
+        }
+        return stats;
+    }
+
+    /**
+     * 请求结束，需在RequestTimeline.end之后调用
+     * 有响应码时以响应码判断成败，没有响应码时以HTTP状态码判断
+     */
+    public void exit(RouteStats stats, RequestTimeline timeline, int status) {
+        if (stats == null) {
+            return;
+        }
+        stats.inFlight.decrement();
+        stats.requests.increment();
+        stats.latency.recordValue(Math.min(Math.max(timeline.getTotalNanos() / 1000, 0), highestTrackableMicros));
+        String code = timeline.getResultCode();
+        boolean error = code != null ? !BasicConstants.TRADE_SUCCESS.equals(code) : status >= 400;
+        if (error) {
+            stats.errors.increment();
+            stats.lastErrorCode = code != null ? code : String.valueOf(status);
+        }
+    }
+
+    /**
+     * 记录请求和响应的字节数，小于0表示未知
+     */
+    public void recordTransfer(String route, long bytesIn, long bytesOut) {
+        RouteStats stats = routes.get(ROUTE_PREFIX + route);
+        if (stats != null) {
+            stats.bytesIn.add(Math.max(bytesIn, 0));
+            stats.bytesOut.add(Math.max(bytesOut, 0));
+        }
+    }
+
+    /**
+     * 记录一次下游调用的耗时
+     */
+    public void recordDownstream(String route, long nanos) {
+        RouteStats stats = routes.get(ROUTE_PREFIX + route);
+        if (stats != null) {
+            stats.downstream.recordValue(Math.min(Math.max(nanos / 1000, 0), highestTrackableMicros));
+        }
+    }
+
+    /**
+     * 记录一次GC的停顿时间
+     */
+    public void recordGcPause(long nanos) {
+        gcPauseNanos.add(nanos);
+    }
+
+    /**
+     * 最近一个窗口的紧凑JSON快照
+     */
+    public byte[] snapshotBytes() {
+        return snapshot;
+    }
+
+    /**
+     * 最近一个窗口的统计，按路由排序
+     */
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (RouteStats stats : ordered) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            Object[] row = stats.row();
+            for (int i = 0; i < FIELDS.size(); i++) {
+                item.put(FIELDS.get(i), row[i]);
+            }
+            result.add(item);
+        }
+        return result;
+    }
+
+    /**
+     * 汇总一个窗口
+     */
+    private void roll() {
+        try {
+            long now = System.nanoTime();
+            double seconds = Math.max(now - lastRollNanos, 1) / 1_000_000_000.0;
+            lastRollNanos = now;
+            List<RouteStats> list = ordered;
+            List<Object[]> rows = new ArrayList<>(list.size());
+            for (RouteStats stats : list) {
+                stats.roll(seconds);
+                rows.add(stats.row());
+            }
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("ts", System.currentTimeMillis());
+            body.put("windowMs", statsProperties.getWindowMillis());
+            body.put("gcPauseMs", round(gcPauseNanos.sumThenReset() / 1_000_000.0, 100));
+            body.put("fields", FIELDS);
+            body.put("rows", rows);
+            snapshot = JSON.toJSONBytes(body);
+        } catch (Exception e) {
+            logger.error("Roll route statistics error", e);
+        }
+    }
+
+    private static double round(double value, double scale) {
+        return Math.round(value * scale) / scale;
+    }
+
+    /**
+     * 单个路由的统计
+     * 计数和recorder由请求线程并发写入；窗口值只由汇总线程写入
+     */
+    public static final class RouteStats {
+
+        private final String route;
+
+        private final String registryId;
+
+        private final LongAdder requests = new LongAdder();
+
+        private final LongAdder errors = new LongAdder();
+
+        private final LongAdder inFlight = new LongAdder();
+
+        /** 按实际记录的值分配计数数组，没有流量的路由几乎不占内存 */
+        private final Recorder latency;
+
+        private final LongAdder bytesIn = new LongAdder();
+
+        private final LongAdder bytesOut = new LongAdder();
+
+        private final Recorder downstream;
+
+        private Histogram downstreamSpare;
+
+        private volatile String lastErrorCode;
+
+        private Histogram spare;
+
+        private long lastRequests;
+
+        private long lastErrors;
+
+        private long lastBytesIn;
+
+        private long lastBytesOut;
+
+        /** 最近一个窗口的值，整体替换 */
+        private volatile double[] window = new double[8];
+
+        RouteStats(String route, String registryId, int significantDigits) {
+            this.route = route;
+            this.registryId = registryId;
+            this.latency = new Recorder(significantDigits, true);
+            this.downstream = new Recorder(significantDigits, true);
+        }
+
+        void roll(double seconds) {
+            long totalRequests = requests.sum();
+            long totalErrors = errors.sum();
+            long windowRequests = totalRequests - lastRequests;
+            long windowErrors = totalErrors - lastErrors;
+            lastRequests = totalRequests;
+            lastErrors = totalErrors;
+
+            long totalBytesIn = bytesIn.sum();
+            long totalBytesOut = bytesOut.sum();
+            long windowBytesIn = totalBytesIn - lastBytesIn;
+            long windowBytesOut = totalBytesOut - lastBytesOut;
+            lastBytesIn = totalBytesIn;
+            lastBytesOut = totalBytesOut;
+
+            Histogram histogram = latency.getIntervalHistogram(spare);
+            spare = histogram;
+            boolean empty = histogram.getTotalCount() == 0;
+            Histogram downstreamHistogram = downstream.getIntervalHistogram(downstreamSpare);
+            downstreamSpare = downstreamHistogram;
+            window = new double[]{
+                    round(windowRequests / seconds, 100),
+                    windowRequests == 0 ? 0 : round((double) windowErrors / windowRequests, 10000),
+                    empty ? 0 : histogram.getValueAtPercentile(50) / 1000.0,
+                    empty ? 0 : histogram.getValueAtPercentile(99) / 1000.0,
+                    empty ? 0 : histogram.getValueAtPercentile(99.9) / 1000.0,
+                    round(windowBytesIn / seconds, 100),
+                    round(windowBytesOut / seconds, 100),
+                    downstreamHistogram.getTotalCount() == 0 ? 0
+                            : downstreamHistogram.getValueAtPercentile(99) / 1000.0
+            };
+        }
+
+        Object[] row() {
+            double[] values = window;
+            return new Object[]{route, registryId, values[0], values[1], inFlight.sum(), values[2], values[3],
+                    values[4], lastErrorCode, requests.sum(), errors.sum(), values[5], values[6], values[7]};
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.changjiang.bff.core.registry;
+
+import com.changjiang.bff.config.RegistryProbeProperties;
+import com.changjiang.bff.core.CrcpBFFConfig;
+import com.changjiang.bff.core.CrpcReferenceConfigCacheLoader;
+import com.changjiang.bff.core.NpcsgptwPropertyUtils;
+import com.changjiang.bff.core.RegistryConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * mesh主备注册中心选择器
+ * 主要职责：
+ * 1. 定期探测mesh主注册中心和备份注册中心的连通性和延迟
+ * 2. 根据健康状态和延迟，带迟滞地在主备之间切换流量
+ * 3. 将探测延迟、健康状态和当前生效的注册中心输出为指标
+ *
+ * 切换规则：
+ * - 另一方不健康时不切换
+ * - 当前方连续失败达到阈值时立即切换
+ * - 当前为主注册中心且延迟持续高于备份的latencyRatio倍时切换到备份
+ * - 当前为备份且主注册中心恢复健康、延迟不再明显偏高时切回主注册中心
+ * - 健康状态下的切换需连续满足switchThreshold次，且距上次切换超过minSwitchIntervalSeconds
+ *
+ * 调用关系：
+ * - 切换判断由RegistryPair.evaluate完成，探测线程传入当前时间
+ * - 被CrpcTransferService调用，选择本次调用使用的注册中心
+ * - 主备注册中心各自对应一个已缓存的服务代理，切换时不重建代理
+ */
+@Component
+public class MeshRegistrySelector {
+
+    private static final Logger logger = LoggerFactory.getLogger(MeshRegistrySelector.class);
+
+    /** mesh协议 */
+    private static final String MESH_PROTOCOL = "mesh";
+
+    /** CRPC注册中心配置前缀 */
+    private static final String REGISTRY_PREFIX = "cpc.registries";
+
+    @Autowired
+    private RegistryProbeProperties probeProperties;
+
+    @Autowired
+    private CrpcReferenceConfigCacheLoader crpcReferenceConfigCacheLoader;
+
+    @Autowired
+    private NpcsgptwPropertyUtils npcgwPropertyUtils;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 主备注册中心对
+     * key: 主注册中心地址
+     */
+    private final Map<String, RegistryPair> pairs = new ConcurrentHashMap<>();
+
+    /** 探测线程 */
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        if (!probeProperties.isEnabled()) {
+            logger.info("Mesh registry probe disabled");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "mesh-registry-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (CrcpBFFConfig config : npcgwPropertyUtils.getPropertiesAppGroup(REGISTRY_PREFIX).values()) {
+            if (MESH_PROTOCOL.equalsIgnoreCase(config.getProtocol()) && StringUtils.hasText(config.getAddress())) {
+                register(config.getAddress());
+            }
+        }
+        scheduler.scheduleWithFixedDelay(this::probeAll, 0, probeProperties.getIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 选择本次调用使用的注册中心
+     *
+     * @return 当前生效的注册中心；非mesh协议、未启用探测或没有备份注册中心时返回null，表示使用原地址
+     */
+    public RegistryConfig select(String address, String protocol) {
+        if (scheduler == null || !MESH_PROTOCOL.equalsIgnoreCase(protocol) || !StringUtils.hasText(address)) {
+            return null;
+        }
+        RegistryPair pair = pairs.get(address);
+        if (pair == null) {
+            pair = register(address);
+        }
+        if (pair == null) {
+            return null;
+        }
+        return pair.getActive().getRegistry();
+    }
+
+    /**
+     * 主备状态快照
+     */
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (RegistryPair pair : pairs.values()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("primary", describe(pair.getPrimary()));
+            item.put("backup", describe(pair.getBackup()));
+            item.put("active", pair.isBackupActive() ? "backup" : "primary");
+            item.put("switchCount", pair.getSwitchCount());
+            result.add(item);
+        }
+        return result;
+    }
+
+    /**
+     * 登记主注册中心，备份注册中心来自 cpc.registries.nacosconf
+     */
+    private RegistryPair register(String primaryAddress) {
+        RegistryConfig backup = crpcReferenceConfigCacheLoader.getBackupRegistry();
+        if (backup == null || !StringUtils.hasText(backup.getAddress()) || primaryAddress.equals(backup.getAddress())) {
+            return null;
+        }
+        return pairs.computeIfAbsent(primaryAddress, k -> {
+            RegistryConfig primary = new RegistryConfig();
+            primary.setAddress(primaryAddress);
+            primary.setProtocol(MESH_PROTOCOL);
+            primary.setBackupRegistry(backup);
+            RegistryPair pair = new RegistryPair(new RegistryProbe(primary, "primary"), new RegistryProbe(backup, "backup"));
+            registerMetrics(pair);
+            logger.info("Mesh registry pair registered, primary: {}, backup: {}", primaryAddress, backup.getAddress());
+            return pair;
+        });
+    }
+
+    private void probeAll() {
+        for (RegistryPair pair : pairs.values()) {
+            try {
+                probe(pair.getPrimary());
+                probe(pair.getBackup());
+                evaluate(pair);
+            } catch (Exception e) {
+                logger.error("Probe mesh registry error, primary: {}", pair.getPrimary().getRegistry().getAddress(), e);
+            }
+        }
+    }
+
+    /**
+     * 探测注册中心
+     * 地址可以包含协议前缀和多个逗号分隔的 host:port，任意一个连通即视为成功，取最先成功的连接耗时
+     */
+    private void probe(RegistryProbe probe) {
+        String address = probe.getRegistry().getAddress();
+        int schemeOffset = address.indexOf("://");
+        if (schemeOffset >= 0) {
+            address = address.substring(schemeOffset + 3);
+        }
+        for (String hostPort : address.split(",")) {
+            int offset = hostPort.lastIndexOf(':');
+            if (offset <= 0) {
+                continue;
+            }
+            long start = System.nanoTime();
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(hostPort.substring(0, offset).trim(),
+                        Integer.parseInt(hostPort.substring(offset + 1).trim())), probeProperties.getConnectTimeoutMillis());
+                probe.recordSuccess((System.nanoTime() - start) / 1_000_000.0, probeProperties.getEwmaAlpha());
+                return;
+            } catch (IOException | IllegalArgumentException e) {
+                logger.debug("Probe {} failed: {}", hostPort, e.getMessage());
+            }
+        }
+        probe.recordFailure();
+    }
+
+    /**
+     * 根据探测结果判断是否切换
+     */
+    private void evaluate(RegistryPair pair) {
+        if (!pair.evaluate(probeProperties, System.nanoTime())) {
+            return;
+        }
+        int failureThreshold = probeProperties.getFailureThreshold();
+        RegistryProbe primary = pair.getPrimary();
+        RegistryProbe backup = pair.getBackup();
+        logger.warn("Mesh registry switched to {}: {}, primary[healthy={}, ewma={}ms], backup[healthy={}, ewma={}ms]",
+                pair.isBackupActive() ? "backup" : "primary", pair.getActive().getRegistry().getAddress(),
+                primary.isHealthy(failureThreshold), primary.getEwmaLatencyMillis(),
+                backup.isHealthy(failureThreshold), backup.getEwmaLatencyMillis());
+    }
+
+    private void registerMetrics(RegistryPair pair) {
+        if (meterRegistry == null) {
+            return;
+        }
+        String primaryAddress = pair.getPrimary().getRegistry().getAddress();
+        for (RegistryProbe probe : new RegistryProbe[]{pair.getPrimary(), pair.getBackup()}) {
+            String registry = probe.getRegistry().getAddress();
+            Gauge.builder("bff.registry.probe.latency", probe, RegistryProbe::getLastLatencyMillis)
+                    .tag("registry", registry).tag("role", probe.getRole()).tag("primary", primaryAddress)
+                    .baseUnit("milliseconds").register(meterRegistry);
+            Gauge.builder("bff.registry.probe.latency.ewma", probe, RegistryProbe::getEwmaLatencyMillis)
+                    .tag("registry", registry).tag("role", probe.getRole()).tag("primary", primaryAddress)
+                    .baseUnit("milliseconds").register(meterRegistry);
+            Gauge.builder("bff.registry.probe.healthy", probe, p -> p.isHealthy(probeProperties.getFailureThreshold()) ? 1 : 0)
+                    .tag("registry", registry).tag("role", probe.getRole()).tag("primary", primaryAddress)
+                    .register(meterRegistry);
+        }
+        Gauge.builder("bff.registry.active.backup", pair, p -> p.isBackupActive() ? 1 : 0)
+                .tag("primary", primaryAddress).register(meterRegistry);
+        pair.setSwitchCounter(Counter.builder("bff.registry.switch").tag("primary", primaryAddress).register(meterRegistry));
+    }
+
+    private Map<String, Object> describe(RegistryProbe probe) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("address", probe.getRegistry().getAddress());
+        item.put("protocol", probe.getRegistry().getProtocol());
+        item.put("healthy", probe.isHealthy(probeProperties.getFailureThreshold()));
+        item.put("lastLatencyMillis", probe.getLastLatencyMillis());
+        item.put("ewmaLatencyMillis", probe.getEwmaLatencyMillis());
+        item.put("consecutiveFailures", probe.getConsecutiveFailures());
+        return item;
+    }
+}
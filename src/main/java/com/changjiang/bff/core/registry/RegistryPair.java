@@ -0,0 +1,115 @@
+package com.changjiang.bff.core.registry;
+
+import com.changjiang.bff.config.RegistryProbeProperties;
+import io.micrometer.core.instrument.Counter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * mesh主备注册中心对
+ * 主要职责：
+ * 1. 保存主备注册中心的探测状态和当前生效的一方
+ * 2. 根据探测结果带迟滞地判断是否切换，切换规则见MeshRegistrySelector
+ *
+ * 除backupActive、switchCount外的可变字段只由探测线程访问
+ */
+final class RegistryPair {
+
+    private final RegistryProbe primary;
+
+    private final RegistryProbe backup;
+
+    /** 当前是否使用备份注册中心 */
+    private volatile boolean backupActive;
+
+    /** 连续满足切换条件的次数 */
+    private int switchStreak;
+
+    /** 上次切换时间 */
+    private long lastSwitchNanos;
+
+    /** 累计切换次数 */
+    private volatile long switchCount;
+
+    /** 切换计数指标 */
+    private Counter switchCounter;
+
+    RegistryPair(RegistryProbe primary, RegistryProbe backup) {
+        this.primary = primary;
+        this.backup = backup;
+    }
+
+    /**
+     * 根据两侧最近的探测结果判断是否切换，满足条件时切换
+     *
+     * @param nowNanos 本次判断的时间(System.nanoTime)
+     * @return 是否发生了切换
+     */
+    boolean evaluate(RegistryProbeProperties properties, long nowNanos) {
+        int failureThreshold = properties.getFailureThreshold();
+        RegistryProbe current = backupActive ? backup : primary;
+        RegistryProbe other = backupActive ? primary : backup;
+        boolean currentHealthy = current.isHealthy(failureThreshold);
+
+        boolean shouldSwitch;
+        if (!other.isHealthy(failureThreshold)) {
+            shouldSwitch = false;
+        } else if (!currentHealthy) {
+            shouldSwitch = true;
+        } else {
+            boolean primarySlower = primary.getEwmaLatencyMillis()
+                    > backup.getEwmaLatencyMillis() * properties.getLatencyRatio();
+            shouldSwitch = backupActive != primarySlower;
+        }
+
+        if (!shouldSwitch) {
+            switchStreak = 0;
+            return false;
+        }
+        if (currentHealthy) {
+            if (++switchStreak < properties.getSwitchThreshold()) {
+                return false;
+            }
+            long sinceLastSwitch = nowNanos - lastSwitchNanos;
+            if (switchCount > 0 && sinceLastSwitch < TimeUnit.SECONDS.toNanos(properties.getMinSwitchIntervalSeconds())) {
+                return false;
+            }
+        }
+
+        backupActive = !backupActive;
+        lastSwitchNanos = nowNanos;
+        switchStreak = 0;
+        switchCount++;
+        if (switchCounter != null) {
+            switchCounter.increment();
+        }
+        return true;
+    }
+
+    RegistryProbe getPrimary() {
+        return primary;
+    }
+
+    RegistryProbe getBackup() {
+        return backup;
+    }
+
+    /**
+     * 当前生效的注册中心探测状态
+     */
+    RegistryProbe getActive() {
+        return backupActive ? backup : primary;
+    }
+
+    boolean isBackupActive() {
+        return backupActive;
+    }
+
+    long getSwitchCount() {
+        return switchCount;
+    }
+
+    void setSwitchCounter(Counter switchCounter) {
+        this.switchCounter = switchCounter;
+    }
+}
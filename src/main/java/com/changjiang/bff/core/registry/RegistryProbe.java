@@ -0,0 +1,91 @@
+package com.changjiang.bff.core.registry;
+
+import com.changjiang.bff.core.RegistryConfig;
+
+/**
+ * 单个注册中心的探测状态
+ * 主要职责：
+ * 1. 记录最近一次和指数加权平均的探测延迟
+ * 2. 记录连续成功/失败次数，用于健康判定
+ *
+ * 只由探测线程写入，调用线程和指标采集读取
+ */
+public class RegistryProbe {
+
+    /** 注册中心配置 */
+    private final RegistryConfig registry;
+
+    /** 角色: primary/backup */
+    private final String role;
+
+    /** 最近一次探测延迟(毫秒)，失败时为-1 */
+    private volatile double lastLatencyMillis = -1;
+
+    /** 指数加权平均延迟(毫秒)，尚无成功探测时为-1 */
+    private volatile double ewmaLatencyMillis = -1;
+
+    /** 连续失败次数 */
+    private volatile int consecutiveFailures;
+
+    /** 连续成功次数 */
+    private volatile int consecutiveSuccesses;
+
+    /** 累计探测次数 */
+    private volatile long probeCount;
+
+    public RegistryProbe(RegistryConfig registry, String role) {
+        this.registry = registry;
+        this.role = role;
+    }
+
+    void recordSuccess(double latencyMillis, double alpha) {
+        lastLatencyMillis = latencyMillis;
+        ewmaLatencyMillis = ewmaLatencyMillis < 0 ? latencyMillis : alpha * latencyMillis + (1 - alpha) * ewmaLatencyMillis;
+        consecutiveSuccesses++;
+        consecutiveFailures = 0;
+        probeCount++;
+    }
+
+    void recordFailure() {
+        lastLatencyMillis = -1;
+        consecutiveFailures++;
+        consecutiveSuccesses = 0;
+        probeCount++;
+    }
+
+    /**
+     * 是否健康
+     * 从未探测成功或连续失败达到阈值时视为不健康
+     */
+    public boolean isHealthy(int failureThreshold) {
+        return ewmaLatencyMillis >= 0 && consecutiveFailures < failureThreshold;
+    }
+
+    public RegistryConfig getRegistry() {
+        return registry;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public double getLastLatencyMillis() {
+        return lastLatencyMillis;
+    }
+
+    public double getEwmaLatencyMillis() {
+        return ewmaLatencyMillis;
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public int getConsecutiveSuccesses() {
+        return consecutiveSuccesses;
+    }
+
+    public long getProbeCount() {
+        return probeCount;
+    }
+}
@@ -0,0 +1,90 @@
+package com.changjiang.bff.core.stream;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 完成回调迭代器
+ * 主要职责：
+ * 1. 包装gRPC服务端流的阻塞迭代器，流读完、读取出错或提前关闭时回调一次
+ * 2. 回调只执行一次，读取线程和请求线程都可能触发
+ * 3. 关闭时依次关闭被包装的完成回调迭代器
+ *
+ * 使用场景：
+ * - 并发名额和熔断结果需要保持到服务端流读完，而不是在调用返回Iterator时结束
+ *
+ * 调用关系：
+ * - 由RegistryConcurrencyLimiter、CircuitBreakerRegistry在下游调用返回Iterator时创建
+ * - StreamingResponseWriter读完或放弃读取服务端流后调用close
+ */
+public final class CompletionIterator<T> implements Iterator<T>, AutoCloseable {
+
+    /**
+     * 完成回调
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * @param completed 是否读完整个流
+         * @param error     读取失败的异常；读完和提前关闭时为null
+         */
+        void onComplete(boolean completed, Throwable error);
+    }
+
+    private final Iterator<T> delegate;
+
+    private final Listener listener;
+
+    private final AtomicBoolean done = new AtomicBoolean();
+
+    public CompletionIterator(Iterator<T> delegate, Listener listener) {
+        this.delegate = delegate;
+        this.listener = listener;
+    }
+
+    @Override
+    public boolean hasNext() {
+        boolean hasNext;
+        try {
+            hasNext = delegate.hasNext();
+        } catch (RuntimeException | Error e) {
+            complete(false, e);
+            throw e;
+        }
+        if (!hasNext) {
+            complete(true, null);
+        }
+        return hasNext;
+    }
+
+    @Override
+    public T next() {
+        try {
+            return delegate.next();
+        } catch (NoSuchElementException e) {
+            throw e;
+        } catch (RuntimeException | Error e) {
+            complete(false, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 放弃读取剩余的流，尚未完成时按提前关闭回调
+     */
+    @Override
+    public void close() {
+        complete(false, null);
+        if (delegate instanceof CompletionIterator) {
+            ((CompletionIterator<?>) delegate).close();
+        }
+    }
+
+    private void complete(boolean completed, Throwable error) {
+        if (done.compareAndSet(false, true)) {
+            listener.onComplete(completed, error);
+        }
+    }
+}
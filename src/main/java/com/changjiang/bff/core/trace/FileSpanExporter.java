@@ -0,0 +1,57 @@
+package com.changjiang.bff.core.trace;
+
+import com.alibaba.fastjson2.JSON;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 文件span导出器
+ * 每个span一行JSON追加写入文件，供本地测试或由日志采集程序转发
+ */
+public class FileSpanExporter implements SpanExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileSpanExporter.class);
+
+    private final Path path;
+
+    private final BufferedWriter writer;
+
+    public FileSpanExporter(Path path) throws IOException {
+        this.path = path;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized void export(List<SpanData> spans) {
+        try {
+            for (SpanData span : spans) {
+                writer.write(JSON.toJSONString(span));
+                writer.newLine();
+            }
+            writer.flush();
+        } catch (IOException e) {
+            logger.warn("Write spans to {} error: {}", path, e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.warn("Close span file {} error: {}", path, e.getMessage());
+        }
+    }
+}
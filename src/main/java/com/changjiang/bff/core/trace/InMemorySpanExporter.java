@@ -0,0 +1,61 @@
+package com.changjiang.bff.core.trace;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 内存span导出器
+ * 保留最近capacity个请求的span，供本地测试和管理接口查询
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final int capacity;
+
+    private final Deque<List<SpanData>> traces;
+
+    public InMemorySpanExporter(int capacity) {
+        this.capacity = Math.max(capacity, 1);
+        this.traces = new ArrayDeque<>(this.capacity);
+    }
+
+    @Override
+    public synchronized void export(List<SpanData> spans) {
+        if (traces.size() == capacity) {
+            traces.removeFirst();
+        }
+        traces.addLast(Collections.unmodifiableList(spans));
+    }
+
+    /**
+     * 最近的请求，按时间从新到旧
+     */
+    public synchronized List<List<SpanData>> recent(int limit) {
+        List<List<SpanData>> result = new ArrayList<>(Math.min(limit, traces.size()));
+        Iterator<List<SpanData>> iterator = traces.descendingIterator();
+        while (iterator.hasNext() && result.size() < limit) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    /**
+     * 按traceId查询，同一trace可能包含多个请求
+     */
+    public synchronized List<SpanData> find(String traceId) {
+        List<SpanData> result = new ArrayList<>();
+        for (List<SpanData> spans : traces) {
+            if (!spans.isEmpty() && spans.get(0).getTraceId().equals(traceId)) {
+                result.addAll(spans);
+            }
+        }
+        return result;
+    }
+
+    public synchronized void clear() {
+        traces.clear();
+    }
+}
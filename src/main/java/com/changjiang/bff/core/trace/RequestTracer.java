@@ -0,0 +1,297 @@
+package com.changjiang.bff.core.trace;
+
+import com.changjiang.bff.config.TracingProperties;
+import com.changjiang.bff.core.metrics.RequestTimeline;
+import com.changjiang.bff.enums.RequestPhase;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 请求追踪
+ * 主要职责：
+ * 1. 请求开始时延续上游traceparent或新建追踪，按采样率做头部采样
+ * 2. 请求结束时根据请求时间线生成根span和各阶段的子span，下游调用的span作为下游请求的父span
+ * 3. 未采中的慢请求在结束时仍然保留(尾部保留)，其余请求不生成span
+ * 4. 保留的span放入有界队列，由后台线程交给SpanExporter导出，队列写满时丢弃
+ *
+ * 使用场景：
+ * - 按traceId把客户端的慢请求和下游gRPC调用关联起来
+ * - 本地测试时通过内存或文件导出器查看span
+ *
+ * 调用关系：
+ * - 被RequestTimelineFilter在请求开始和结束时调用
+ * - span数据来自RequestTimeline，请求处理过程中不额外计时
+ * - 导出到内置导出器(bff.tracing.exporter)和所有SpanExporter Bean
+ * - 被AdminController调用查询统计和最近的span
+ */
+@Component
+public class RequestTracer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestTracer.class);
+
+    private static final RequestPhase[] PHASES = RequestPhase.values();
+
+    private static final String RETENTION_HEAD = "head";
+
+    private static final String RETENTION_TAIL = "tail";
+
+    @Autowired
+    private TracingProperties tracingProperties;
+
+    @Autowired(required = false)
+    private List<SpanExporter> customExporters = Collections.emptyList();
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final List<SpanExporter> exporters = new ArrayList<>();
+
+    private InMemorySpanExporter inMemoryExporter;
+
+    private BlockingQueue<List<SpanData>> queue;
+
+    private long slowThresholdNanos;
+
+    /** System.nanoTime()换算为微秒时间戳的偏移量 */
+    private long epochOffsetMicros;
+
+    private final LongAdder started = new LongAdder();
+
+    private final LongAdder headRetained = new LongAdder();
+
+    private final LongAdder tailRetained = new LongAdder();
+
+    private final LongAdder exported = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile boolean running;
+
+    private Thread exportThread;
+
+    @PostConstruct
+    public void init() {
+        if (!tracingProperties.isEnabled()) {
+            return;
+        }
+        String exporter = tracingProperties.getExporter();
+        if ("memory".equalsIgnoreCase(exporter)) {
+            inMemoryExporter = new InMemorySpanExporter(tracingProperties.getMemoryCapacity());
+            exporters.add(inMemoryExporter);
+        } else if ("file".equalsIgnoreCase(exporter)) {
+            try {
+                exporters.add(new FileSpanExporter(Paths.get(tracingProperties.getFilePath())));
+            } catch (IOException e) {
+                logger.warn("Open span file {} error, file exporter disabled: {}",
+                        tracingProperties.getFilePath(), e.getMessage());
+            }
+        } else if (!"none".equalsIgnoreCase(exporter)) {
+            logger.warn("Unknown span exporter: {}, supported: memory | file | none", exporter);
+        }
+        exporters.addAll(customExporters);
+
+        queue = new ArrayBlockingQueue<>(Math.max(tracingProperties.getQueueCapacity(), 1));
+        slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(tracingProperties.getSlowThresholdMillis());
+        epochOffsetMicros = System.currentTimeMillis() * 1000 - System.nanoTime() / 1000;
+        if (meterRegistry != null) {
+            registerCounter("head", headRetained);
+            registerCounter("tail", tailRetained);
+            registerCounter("dropped", dropped);
+        }
+        running = true;
+        exportThread = new Thread(this::drain, "span-exporter");
+        exportThread.setDaemon(true);
+        exportThread.start();
+        logger.info("Request tracing enabled, sampleRate: {}, slowThresholdMillis: {}, exporters: {}",
+                tracingProperties.getSampleRate(), tracingProperties.getSlowThresholdMillis(), exporters.size());
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        if (exportThread == null) {
+            return;
+        }
+        running = false;
+        exportThread.interrupt();
+        exportThread.join(TimeUnit.SECONDS.toMillis(5));
+        for (SpanExporter exporter : exporters) {
+            exporter.shutdown();
+        }
+    }
+
+    /**
+     * 开始追踪
+     *
+     * @param traceparent 上游传入的traceparent，可为null
+     * @return 未启用追踪时返回null
+     */
+    public TraceContext start(String traceparent) {
+        if (queue == null) {
+            return null;
+        }
+        started.increment();
+        TraceContext upstream = TraceContext.fromTraceparent(traceparent);
+        if (upstream != null) {
+            return upstream;
+        }
+        double rate = tracingProperties.getSampleRate();
+        return TraceContext.newTrace(rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate));
+    }
+
+    /**
+     * 结束追踪，需在RequestTimeline.end之后调用
+     * 只有采中或慢请求才生成span，其余请求没有额外开销
+     */
+    public void finish(RequestTimeline timeline, int status) {
+        TraceContext trace = timeline.getTrace();
+        if (trace == null || queue == null) {
+            return;
+        }
+        String retention;
+        if (trace.isSampled()) {
+            retention = RETENTION_HEAD;
+        } else if (slowThresholdNanos > 0 && timeline.getTotalNanos() >= slowThresholdNanos) {
+            retention = RETENTION_TAIL;
+        } else {
+            return;
+        }
+
+        List<SpanData> spans = buildSpans(trace, timeline, status, retention);
+        if (!queue.offer(spans)) {
+            dropped.increment();
+            return;
+        }
+        (RETENTION_HEAD.equals(retention) ? headRetained : tailRetained).increment();
+    }
+
+    /**
+     * 追踪统计
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", queue != null);
+        result.put("sampleRate", tracingProperties.getSampleRate());
+        result.put("slowThresholdMillis", tracingProperties.getSlowThresholdMillis());
+        result.put("exporter", tracingProperties.getExporter());
+        result.put("customExporters", customExporters.size());
+        result.put("started", started.sum());
+        result.put("headRetained", headRetained.sum());
+        result.put("tailRetained", tailRetained.sum());
+        result.put("exported", exported.sum());
+        result.put("dropped", dropped.sum());
+        result.put("pending", queue == null ? 0 : queue.size());
+        return result;
+    }
+
+    /**
+     * 内存导出器，内置导出器不是memory时返回null
+     */
+    public InMemorySpanExporter getInMemoryExporter() {
+        return inMemoryExporter;
+    }
+
+    private List<SpanData> buildSpans(TraceContext trace, RequestTimeline timeline, int status, String retention) {
+        String traceId = trace.getTraceId();
+        String rootSpanId = TraceContext.spanIdHex(trace.getRootSpanId());
+        String route = timeline.getRoute();
+
+        Map<String, Object> rootAttributes = new LinkedHashMap<>();
+        rootAttributes.put("http.route", route);
+        rootAttributes.put("registryId", timeline.getRegistryId());
+        rootAttributes.put("result.code", timeline.getResultCode());
+        rootAttributes.put("http.status_code", status);
+
+        List<SpanData> spans = new ArrayList<>(PHASES.length + 1);
+        spans.add(SpanData.builder()
+                .traceId(traceId)
+                .spanId(rootSpanId)
+                .parentSpanId(trace.getParentSpanId() == 0 ? null : TraceContext.spanIdHex(trace.getParentSpanId()))
+                .name(route == null ? "unknown" : route)
+                .startEpochMicros(toEpochMicros(timeline.getStartNanos()))
+                .durationMicros(timeline.getTotalNanos() / 1000)
+                .retention(retention)
+                .attributes(rootAttributes)
+                .build());
+
+        for (RequestPhase phase : PHASES) {
+            long phaseStart = timeline.getPhaseStartNanos(phase);
+            if (phaseStart == 0) {
+                continue;
+            }
+            long spanId = phase == RequestPhase.INVOKE
+                    ? trace.getInvokeSpanId() : TraceContext.nonZero(ThreadLocalRandom.current().nextLong());
+            spans.add(SpanData.builder()
+                    .traceId(traceId)
+                    .spanId(TraceContext.spanIdHex(spanId))
+                    .parentSpanId(rootSpanId)
+                    .name(phase.name().toLowerCase())
+                    .startEpochMicros(toEpochMicros(phaseStart))
+                    .durationMicros(timeline.getPhaseNanos(phase) / 1000)
+                    .retention(retention)
+                    .attributes(Collections.emptyMap())
+                    .build());
+        }
+        return spans;
+    }
+
+    private long toEpochMicros(long nanoTime) {
+        return epochOffsetMicros + nanoTime / 1000;
+    }
+
+    /**
+     * 导出线程：依次交给所有导出器，单个导出器出错不影响其他导出器
+     */
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+            List<SpanData> spans;
+            try {
+                spans = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    spans = queue.poll();
+                    if (spans == null) {
+                        return;
+                    }
+                } else {
+                    continue;
+                }
+            }
+            if (spans == null) {
+                continue;
+            }
+            for (SpanExporter exporter : exporters) {
+                try {
+                    exporter.export(spans);
+                } catch (Exception e) {
+                    logger.warn("Export spans error, exporter: {}", exporter.getClass().getSimpleName(), e);
+                }
+            }
+            exported.add(spans.size());
+        }
+    }
+
+    private void registerCounter(String result, LongAdder counter) {
+        FunctionCounter.builder("bff.tracing.requests", counter, LongAdder::sum)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,36 @@
+package com.changjiang.bff.core.trace;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 已结束的span
+ * 请求结束且需要保留时，由RequestTracer根据请求时间线生成，交给SpanExporter导出
+ */
+@Data
+@Builder
+public class SpanData {
+
+    private String traceId;
+
+    private String spanId;
+
+    /** 父span的ID，根span没有上游时为null */
+    private String parentSpanId;
+
+    /** 根span为路由，子span为阶段名(bind、invoke、mask、serialize等) */
+    private String name;
+
+    /** 开始时间(微秒时间戳) */
+    private long startEpochMicros;
+
+    /** 耗时(微秒) */
+    private long durationMicros;
+
+    /** 保留原因: head(头部采样) | tail(慢请求) */
+    private String retention;
+
+    private Map<String, Object> attributes;
+}
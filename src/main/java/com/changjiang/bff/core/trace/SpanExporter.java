@@ -0,0 +1,24 @@
+package com.changjiang.bff.core.trace;
+
+import java.util.List;
+
+/**
+ * span导出器
+ * 实现该接口并注册为Spring Bean即可接入其他追踪系统，内置内存和文件两种实现
+ *
+ * 调用关系：
+ * - 被RequestTracer的导出线程调用，每次传入同一个请求的全部span
+ */
+public interface SpanExporter {
+
+    /**
+     * 导出一个请求的span，第一个为根span
+     */
+    void export(List<SpanData> spans);
+
+    /**
+     * 关闭导出器，释放资源
+     */
+    default void shutdown() {
+    }
+}
@@ -0,0 +1,144 @@
+package com.changjiang.bff.core.trace;
+
+import io.grpc.Context;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 请求的追踪上下文
+ * 主要职责：
+ * 1. 保存traceId、根span和下游调用span的ID，以及头部采样结果
+ * 2. 按W3C traceparent格式解析上游传入的上下文、生成传给下游的上下文
+ *
+ * 调用关系：
+ * - 由RequestTracer在请求开始时创建，绑定到gRPC Context和RequestTimeline
+ * - 被TracingClientInterceptor读取并写入gRPC Metadata
+ */
+public final class TraceContext {
+
+    /** gRPC Context中的追踪上下文 */
+    public static final Context.Key<TraceContext> KEY = Context.key("bff-trace-context");
+
+    private static final String VERSION = "00";
+
+    private final long traceIdHigh;
+
+    private final long traceIdLow;
+
+    /** 上游span的ID，没有上游时为0 */
+    private final long parentSpanId;
+
+    /** 网关根span的ID */
+    private final long rootSpanId;
+
+    /** 下游调用(INVOKE阶段)span的ID，作为下游请求的父span */
+    private final long invokeSpanId;
+
+    /** 头部采样结果 */
+    private final boolean sampled;
+
+    /** 传给下游的traceparent，首次使用时生成 */
+    private String downstreamTraceparent;
+
+    private TraceContext(long traceIdHigh, long traceIdLow, long parentSpanId, boolean sampled) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        this.traceIdHigh = traceIdHigh;
+        this.traceIdLow = traceIdLow;
+        this.parentSpanId = parentSpanId;
+        this.rootSpanId = nonZero(random.nextLong());
+        this.invokeSpanId = nonZero(random.nextLong());
+        this.sampled = sampled;
+    }
+
+    /**
+     * 新建追踪
+     */
+    public static TraceContext newTrace(boolean sampled) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new TraceContext(random.nextLong(), nonZero(random.nextLong()), 0, sampled);
+    }
+
+    /**
+     * 延续上游的追踪，沿用上游的采样结果
+     *
+     * @param traceparent 格式: 00-{32位traceId}-{16位spanId}-{2位flags}
+     * @return 格式不正确时返回null
+     */
+    public static TraceContext fromTraceparent(String traceparent) {
+        if (traceparent == null || traceparent.length() != 55
+                || traceparent.charAt(2) != '-' || traceparent.charAt(35) != '-' || traceparent.charAt(52) != '-') {
+            return null;
+        }
+        try {
+            long high = Long.parseUnsignedLong(traceparent.substring(3, 19), 16);
+            long low = Long.parseUnsignedLong(traceparent.substring(19, 35), 16);
+            long parent = Long.parseUnsignedLong(traceparent.substring(36, 52), 16);
+            int flags = Integer.parseInt(traceparent.substring(53, 55), 16);
+            if ((high == 0 && low == 0) || parent == 0) {
+                return null;
+            }
+            return new TraceContext(high, low, parent, (flags & 1) == 1);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 传给下游的traceparent，父span为INVOKE阶段的span
+     */
+    public String downstreamTraceparent() {
+        String value = downstreamTraceparent;
+        if (value == null) {
+            StringBuilder sb = new StringBuilder(55).append(VERSION).append('-');
+            appendHex(sb, traceIdHigh);
+            appendHex(sb, traceIdLow);
+            appendHex(sb.append('-'), invokeSpanId);
+            sb.append(sampled ? "-01" : "-00");
+            value = sb.toString();
+            downstreamTraceparent = value;
+        }
+        return value;
+    }
+
+    public String getTraceId() {
+        StringBuilder sb = new StringBuilder(32);
+        appendHex(sb, traceIdHigh);
+        appendHex(sb, traceIdLow);
+        return sb.toString();
+    }
+
+    public long getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public long getRootSpanId() {
+        return rootSpanId;
+    }
+
+    public long getInvokeSpanId() {
+        return invokeSpanId;
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    /**
+     * span ID的16位十六进制表示
+     */
+    public static String spanIdHex(long spanId) {
+        StringBuilder sb = new StringBuilder(16);
+        appendHex(sb, spanId);
+        return sb.toString();
+    }
+
+    static long nonZero(long id) {
+        return id == 0 ? 1 : id;
+    }
+
+    private static void appendHex(StringBuilder sb, long value) {
+        for (int shift = 60; shift >= 0; shift -= 4) {
+            sb.append(Character.forDigit((int) (value >>> shift) & 0xF, 16));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.changjiang.bff.core.trace;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.stub.AbstractStub;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * 追踪上下文传播拦截器
+ * 将当前gRPC Context中的追踪上下文以W3C traceparent写入下游调用的Metadata，
+ * 下游据此把自己的span挂在网关INVOKE阶段的span下
+ *
+ * 调用关系：
+ * - ApiScanner注册路由时通过intercept把拦截器挂到GrpcServiceFactory创建的客户端存根上，只作用于路由的下游调用
+ * - 读取RequestTimelineFilter绑定的TraceContext.KEY，没有追踪上下文的调用原样透传
+ */
+@Component
+public class TracingClientInterceptor implements ClientInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(TracingClientInterceptor.class);
+
+    public static final Metadata.Key<String> TRACEPARENT =
+            Metadata.Key.of("traceparent", Metadata.ASCII_STRING_MARSHALLER);
+
+    /**
+     * 为路由的gRPC客户端加上本拦截器
+     * 存根的withInterceptors返回同类型的新存根，共用原Channel；不是gRPC存根的客户端原样返回，traceparent不会传播
+     *
+     * @param client GrpcServiceFactory创建的客户端
+     * @return 挂上拦截器的客户端
+     */
+    public Object intercept(Object client) {
+        if (client instanceof AbstractStub) {
+            return ((AbstractStub<?>) client).withInterceptors(this);
+        }
+        if (client != null) {
+            logger.warn("Client {} is not a gRPC stub, traceparent will not be propagated", client.getClass().getName());
+        }
+        return client;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                               CallOptions callOptions, Channel next) {
+        TraceContext trace = TraceContext.KEY.get();
+        if (trace == null) {
+            return next.newCall(method, callOptions);
+        }
+        return new ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT>(next.newCall(method, callOptions)) {
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                headers.discardAll(TRACEPARENT);
+                headers.put(TRACEPARENT, trace.downstreamTraceparent());
+                super.start(responseListener, headers);
+            }
+        };
+    }
+}
@@ -0,0 +1,22 @@
+package com.changjiang.bff.core.validation;
+
+/**
+ * 参数校验规则
+ * 规则在注册API时由ParameterRules解析并编译，实例不可变，可被多个请求线程共享
+ */
+public interface ParameterRule {
+
+    /**
+     * 规则名称: length | range | pattern
+     */
+    String getName();
+
+    /**
+     * 校验参数值
+     *
+     * @param name  参数名
+     * @param value 参数值，不为null
+     * @return 校验通过返回null，否则返回错误描述
+     */
+    String check(String name, Object value);
+}
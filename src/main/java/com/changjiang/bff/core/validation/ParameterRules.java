@@ -0,0 +1,196 @@
+package com.changjiang.bff.core.validation;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 参数校验规则解析
+ * 主要职责：
+ * 1. 将 规则名:参数 形式的校验字符串解析为不可变的ParameterRule
+ * 2. 解析时完成上下限转换和正则编译，请求时不再做字符串处理
+ * 3. 格式错误的规则在解析时直接抛出异常，不会留到请求时才发现
+ *
+ * 支持的规则：
+ * - length:min[,max]   字符串长度，max缺省时不限
+ * - range:min,max      数值范围(闭区间)
+ * - pattern:regex      正则整体匹配，regex中可以包含冒号
+ */
+public final class ParameterRules {
+
+    private ParameterRules() {
+    }
+
+    /**
+     * 解析校验规则
+     *
+     * @throws IllegalArgumentException 规则格式错误
+     */
+    public static ParameterRule parse(String parameter, String validation) {
+        if (validation == null || validation.trim().isEmpty()) {
+            throw invalid(parameter, validation, "rule is empty");
+        }
+        int offset = validation.indexOf(':');
+        String rule = (offset < 0 ? validation : validation.substring(0, offset)).trim().toLowerCase();
+        String argument = offset < 0 ? null : validation.substring(offset + 1);
+        if (argument == null || argument.isEmpty()) {
+            throw invalid(parameter, validation, "missing argument");
+        }
+        switch (rule) {
+            case "length":
+                return lengthRule(parameter, validation, argument);
+            case "range":
+                return rangeRule(parameter, validation, argument);
+            case "pattern":
+                return patternRule(parameter, validation, argument);
+            default:
+                throw invalid(parameter, validation, "unknown rule '" + rule + "'");
+        }
+    }
+
+    private static ParameterRule lengthRule(String parameter, String validation, String argument) {
+        String[] limits = argument.split(",");
+        if (limits.length > 2) {
+            throw invalid(parameter, validation, "expected length:min[,max]");
+        }
+        try {
+            int min = Integer.parseInt(limits[0].trim());
+            int max = limits.length > 1 ? Integer.parseInt(limits[1].trim()) : Integer.MAX_VALUE;
+            if (min < 0 || min > max) {
+                throw invalid(parameter, validation, "expected 0 <= min <= max");
+            }
+            return new LengthRule(min, max);
+        } catch (NumberFormatException e) {
+            throw invalid(parameter, validation, "length bounds must be integers");
+        }
+    }
+
+    private static ParameterRule rangeRule(String parameter, String validation, String argument) {
+        String[] limits = argument.split(",");
+        if (limits.length != 2) {
+            throw invalid(parameter, validation, "expected range:min,max");
+        }
+        try {
+            double min = Double.parseDouble(limits[0].trim());
+            double max = Double.parseDouble(limits[1].trim());
+            if (Double.isNaN(min) || Double.isNaN(max) || min > max) {
+                throw invalid(parameter, validation, "expected min <= max");
+            }
+            return new RangeRule(min, max);
+        } catch (NumberFormatException e) {
+            throw invalid(parameter, validation, "range bounds must be numbers");
+        }
+    }
+
+    private static ParameterRule patternRule(String parameter, String validation, String argument) {
+        try {
+            return new PatternRule(Pattern.compile(argument));
+        } catch (PatternSyntaxException e) {
+            throw invalid(parameter, validation, "invalid regex: " + e.getDescription());
+        }
+    }
+
+    private static IllegalArgumentException invalid(String parameter, String validation, String reason) {
+        return new IllegalArgumentException(
+                String.format("Invalid validation rule '%s' for parameter '%s': %s", validation, parameter, reason));
+    }
+
+    /**
+     * 字符串长度
+     */
+    static final class LengthRule implements ParameterRule {
+
+        private final int min;
+
+        private final int max;
+
+        LengthRule(int min, int max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public String getName() {
+            return "length";
+        }
+
+        @Override
+        public String check(String name, Object value) {
+            int length = value instanceof CharSequence ? ((CharSequence) value).length() : value.toString().length();
+            if (length >= min && length <= max) {
+                return null;
+            }
+            return max == Integer.MAX_VALUE
+                    ? String.format("Parameter '%s' length must be at least %d", name, min)
+                    : String.format("Parameter '%s' length must be between %d and %d", name, min, max);
+        }
+    }
+
+    /**
+     * 数值范围
+     */
+    static final class RangeRule implements ParameterRule {
+
+        private final double min;
+
+        private final double max;
+
+        RangeRule(double min, double max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public String getName() {
+            return "range";
+        }
+
+        @Override
+        public String check(String name, Object value) {
+            double number;
+            if (value instanceof Number) {
+                number = ((Number) value).doubleValue();
+            } else {
+                try {
+                    number = Double.parseDouble(value.toString().trim());
+                } catch (NumberFormatException e) {
+                    return String.format("Parameter '%s' must be a number", name);
+                }
+            }
+            if (number >= min && number <= max) {
+                return null;
+            }
+            return String.format("Parameter '%s' must be between %s and %s", name, format(min), format(max));
+        }
+
+        private static String format(double value) {
+            return value == Math.rint(value) && Math.abs(value) < 1e15
+                    ? String.valueOf((long) value) : String.valueOf(value);
+        }
+    }
+
+    /**
+     * 正则整体匹配
+     */
+    static final class PatternRule implements ParameterRule {
+
+        private final Pattern pattern;
+
+        PatternRule(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        @Override
+        public String getName() {
+            return "pattern";
+        }
+
+        @Override
+        public String check(String name, Object value) {
+            CharSequence text = value instanceof CharSequence ? (CharSequence) value : value.toString();
+            if (pattern.matcher(text).matches()) {
+                return null;
+            }
+            return String.format("Parameter '%s' does not match required pattern", name);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.changjiang.bff.core.validation;
+
+import com.changjiang.bff.core.ParameterDescription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 参数校验链
+ * 主要职责：
+ * 1. 注册API时将ParameterDescription的必填标记和校验规则编译为不可变的校验链
+ * 2. 请求时按参数顺序依次校验，遇到第一个失败立即抛出ParameterValidationException
+ *
+ * 调用关系：
+ * - 由ServiceApiInfo.compileValidations在注册时创建，规则格式错误时注册失败
+ * - 被ServiceApiInfo.validateParameters和MethodInvocationServiceIml的校验阶段调用
+ */
+public final class ParameterValidationChain {
+
+    /** 没有任何校验的链 */
+    public static final ParameterValidationChain EMPTY = new ParameterValidationChain(new ParameterValidator[0]);
+
+    private static final String RULE_REQUIRED = "required";
+
+    private final ParameterValidator[] validators;
+
+    private ParameterValidationChain(ParameterValidator[] validators) {
+        this.validators = validators;
+    }
+
+    /**
+     * 编译参数描述
+     *
+     * @throws IllegalArgumentException 校验规则格式错误
+     */
+    public static ParameterValidationChain compile(List<ParameterDescription> parameters) {
+        if (parameters == null || parameters.isEmpty()) {
+            return EMPTY;
+        }
+        List<ParameterValidator> validators = new ArrayList<>(parameters.size());
+        for (ParameterDescription parameter : parameters) {
+            List<String> validations = parameter.getValidations();
+            ParameterRule[] rules = new ParameterRule[validations == null ? 0 : validations.size()];
+            for (int i = 0; i < rules.length; i++) {
+                rules[i] = ParameterRules.parse(parameter.getName(), validations.get(i));
+            }
+            if (parameter.isRequired() || rules.length > 0) {
+                validators.add(new ParameterValidator(parameter.getName(), parameter.isRequired(), rules));
+            }
+        }
+        return validators.isEmpty() ? EMPTY : new ParameterValidationChain(validators.toArray(new ParameterValidator[0]));
+    }
+
+    /**
+     * 校验参数
+     *
+     * @throws ParameterValidationException 第一个校验失败的参数
+     */
+    public void validate(Map<String, Object> params) {
+        for (ParameterValidator validator : validators) {
+            validator.validate(params == null ? null : params.get(validator.name));
+        }
+    }
+
+    public boolean isEmpty() {
+        return validators.length == 0;
+    }
+
+    /**
+     * 单个参数的校验
+     */
+    private static final class ParameterValidator {
+
+        private final String name;
+
+        private final boolean required;
+
+        private final ParameterRule[] rules;
+
+        ParameterValidator(String name, boolean required, ParameterRule[] rules) {
+            this.name = name;
+            this.required = required;
+            this.rules = rules;
+        }
+
+        void validate(Object value) {
+            if (value == null) {
+                if (required) {
+                    throw new ParameterValidationException(name, RULE_REQUIRED,
+                            "Required parameter '" + name + "' is missing");
+                }
+                return;
+            }
+            for (ParameterRule rule : rules) {
+                String error = rule.check(name, value);
+                if (error != null) {
+                    throw new ParameterValidationException(name, rule.getName(), error);
+                }
+            }
+        }
+    }
+}
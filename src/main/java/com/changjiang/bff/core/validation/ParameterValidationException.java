@@ -0,0 +1,37 @@
+package com.changjiang.bff.core.validation;
+
+import com.changjiang.bff.constants.PubConstants;
+import com.changjiang.bff.exception.ServiceException;
+
+/**
+ * 参数校验失败
+ * 携带失败的参数名和规则名，错误码为PubConstants.ERROR_PARAMETER_INVALID
+ */
+public class ParameterValidationException extends ServiceException {
+
+    /** 校验失败的参数名 */
+    private final String parameter;
+
+    /** 校验失败的规则: required | type | length | range | pattern */
+    private final String rule;
+
+    public ParameterValidationException(String parameter, String rule, String message) {
+        super(PubConstants.ERROR_PARAMETER_INVALID, message);
+        this.parameter = parameter;
+        this.rule = rule;
+    }
+
+    public ParameterValidationException(String parameter, String rule, String message, Throwable cause) {
+        super(PubConstants.ERROR_PARAMETER_INVALID, message, cause);
+        this.parameter = parameter;
+        this.rule = rule;
+    }
+
+    public String getParameter() {
+        return parameter;
+    }
+
+    public String getRule() {
+        return rule;
+    }
+}
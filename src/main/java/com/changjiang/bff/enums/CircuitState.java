@@ -0,0 +1,11 @@
+package com.changjiang.bff.enums;
+/**
+ * 熔断器状态枚举
+ * 主要职责：
+ * 1. 定义熔断器的三种状态
+ */
+public enum CircuitState {
+    CLOSED,     // 关闭，正常放行
+    OPEN,       // 打开，快速失败
+    HALF_OPEN   // 半开，放行少量试探请求
+}
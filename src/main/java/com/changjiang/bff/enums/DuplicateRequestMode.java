@@ -0,0 +1,10 @@
+package com.changjiang.bff.enums;
+/**
+ * 重复请求处理方式枚举
+ * 主要职责：
+ * 1. 定义同一请求仍在处理中时，重复请求的处理方式
+ */
+public enum DuplicateRequestMode {
+    REJECT,     // 立即拒绝重复请求
+    JOIN        // 等待处理中的请求完成并返回相同结果；流式写出的路由按REJECT处理
+}
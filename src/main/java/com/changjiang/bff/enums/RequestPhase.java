@@ -0,0 +1,15 @@
+package com.changjiang.bff.enums;
+/**
+ * 请求阶段枚举
+ * 主要职责：
+ * 1. 定义/changjiang/**请求处理过程中计时的各个阶段
+ */
+public enum RequestPhase {
+    ROUTE_LOOKUP,   // 路由查找
+    BIND,           // 请求参数绑定
+    VALIDATE,       // 参数校验
+    INVOKE,         // 下游调用
+    MASK,           // 数据脱敏
+    ENVELOPE,       // 响应体构建
+    SERIALIZE       // 响应序列化
+}
@@ -0,0 +1,10 @@
+package com.changjiang.bff.enums;
+/**
+ * 流式响应格式枚举
+ * 主要职责：
+ * 1. 定义列表路由逐行写出时的响应格式
+ */
+public enum StreamingFormat {
+    NDJSON,         // 每行一条记录(application/x-ndjson)，最后一行为状态行
+    JSON_ARRAY      // 与Result结构一致，data数组分块写出(application/json)
+}
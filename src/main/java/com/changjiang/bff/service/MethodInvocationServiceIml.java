@@ -1,13 +1,22 @@
 package com.changjiang.bff.service;
 
-import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONObject;
+import com.changjiang.bff.constants.PubConstants;
 import com.changjiang.bff.core.ApiScanner;
 import com.changjiang.bff.core.ServiceApiInfo;
+import com.changjiang.bff.core.binding.ArgumentBindingPlan;
+import com.changjiang.bff.core.breaker.CircuitBreakerRegistry;
+import com.changjiang.bff.core.deadline.RequestDeadlineManager;
+import com.changjiang.bff.core.jfr.DownstreamInvokeEvent;
+import com.changjiang.bff.core.hedge.HedgingInvoker;
+import com.changjiang.bff.core.metrics.RequestTimeline;
+import com.changjiang.bff.core.limit.RegistryConcurrencyLimiter;
+import com.changjiang.bff.core.validation.ParameterValidationChain;
 import com.changjiang.bff.entity.RequestObject;
 import com.changjiang.bff.entity.ServiceInfo;
+import com.changjiang.bff.enums.RequestPhase;
+import com.changjiang.bff.exception.ServiceException;
 import com.changjiang.bff.service.impl.MethodInvocationService;
-import com.changjiang.bff.util.NpcsSerializerUtil;
 
 import com.changjiang.grpc.annotation.GrpcReference;
 import com.changjiang.grpc.annotation.GrpcService;
@@ -20,10 +29,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
 import java.lang.reflect.Method;
-import java.math.BigDecimal;
 import java.util.Iterator;
-import java.util.List;
-import java.util.Collection;
 
 /**
  * 方法调用服务
@@ -54,6 +60,18 @@ public class MethodInvocationServiceIml implements MethodInvocationService {
     @Autowired
     private ApiScanner apiScanner;
 
+    @Autowired
+    private HedgingInvoker hedgingInvoker;
+
+    @Autowired
+    private RegistryConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private RequestDeadlineManager deadlineManager;
+
     /**
      * 根据URL调用对应的服务方法。
      *
@@ -64,9 +82,11 @@ public class MethodInvocationServiceIml implements MethodInvocationService {
      */
     @Override
     public Object invokeService(String url, JSONObject params) throws Exception {
-        logger.info("尝试调用服务，URL: {}", url);
         // 1. 从 apiRegistry 中获取 ServiceApiInfo 对象
+        RequestTimeline timeline = RequestTimeline.current();
+        long phaseStart = System.nanoTime();
         ServiceApiInfo apiInfo = apiScanner.getApiRegistry().get(url);
+        timeline.record(RequestPhase.ROUTE_LOOKUP, phaseStart);
         if (apiInfo == null) {
             logger.error("未找到与URL {} 对应的服务", url);
             throw new IllegalArgumentException("未找到与URL " + url + " 对应的服务");
@@ -78,196 +98,82 @@ public class MethodInvocationServiceIml implements MethodInvocationService {
 
         // 3. 使用反射调用方法
         try {
-            logger.info("调用服务方法: {}.{}", method.getDeclaringClass().getName(), method.getName());
-            Object[] objects = handleRequestParams(apiInfo, params);
-            // Object o = "kunming";
-            // Object[] objects = new Object[]{o};
-            if (!method.getParameterTypes()[0].isAssignableFrom(objects[0].getClass())) {
-                throw new IllegalArgumentException("参数类型不匹配");
-            }
-            return method.invoke(serviceInstance, objects);
-        } catch (Exception e) {
-            logger.error("调用服务方法失败: {}.{}", method.getDeclaringClass().getName(), method.getName(), e);
-            throw e;
-        }
-    }
-
-    /**
-     * 处理前端请求参数并转换为适合后端微服务接口的参数类型。
-     *
-     * @param serviceInfo 后端服务信息对象，包含接口参数类型等相关信息。
-     * @param param      前端传入的 JSON 对象参数。
-     * @return 转换后的请求参数数组，供后端微服务调用使用。
-     */
-    public Object[] handleRequestParams(ServiceApiInfo serviceInfo, JSONObject param) {
-        logger.info("开始处理请求参数, serviceInfo: {}, param: {}", serviceInfo, param);
-
-        // 1. 获取参数类型信息
-        Class<?>[] reqTypes = serviceInfo.getRequestType();
-        if (reqTypes == null || reqTypes.length == 0) {
-            logger.warn("请求参数类型为空");
-            return new Object[]{null};
-        }
-        Class<?> reqType = reqTypes[0];
-
-        // 2. 如果请求参数为空，返回null
-        if (param == null || param.isEmpty()) {
-            logger.info("请求参数为空");
-            return new Object[]{null};
-        }
-
-        try {
-            // 3. 处理不同类型的参数
-            Object convertedParam = null;
-
-            // 3.1 处理基本类型
-            if (isPrimitiveOrWrapper(reqType)) {
-                convertedParam = handlePrimitiveType(param, reqType);
-            }
-            // 3.2 处理List类型
-            else if (List.class.isAssignableFrom(reqType)) {
-                convertedParam = handleListType(param, reqType);
-            }
-            // 3.3 处理分页类型
-            else if (reqType.getName().contains("PageParam") || reqType.getName().contains("Page")) {
-                convertedParam = handlePageType(param, reqType);
-            }
-            // 3.4 处理普通实体类型
-            else {
-                convertedParam = handleEntityType(param, reqType);
-            }
-
-            logger.info("参数处理完成, 转换后的参数: {}", convertedParam);
-            return new Object[]{convertedParam};
-
-        } catch (Exception e) {
-            logger.error("处理请求参数时发生错误", e);
-            throw new RuntimeException("参数转换失败: " + e.getMessage(), e);
-        }
-    }
-
-    /**
-     * 处理基本类型参数
-     */
-    private Object handlePrimitiveType(JSONObject param, Class<?> targetType) {
-        if (param.isEmpty()) {
-            return null;
-        }
-
-        String firstKey = param.keySet().iterator().next();
-        return param.getObject(firstKey, targetType);
-    }
-
-    /**
-     * 处理List类型参数
-     * 支持两种格式：
-     * 1. {"list": [...]} - 传统格式
-     * 2. {"data": [...]} - 新的标准格式
-     */
-    private Object handleListType(JSONObject param, Class<?> reqType) {
-        if (reqType == null) {
-            logger.warn("List的泛型类型未指定");
-            return null;
-        }
-
-        try {
-            // 1. 首先尝试从 "data" 字段获取数据（新的标准格式）
-            if (param.containsKey("data")) {
-                Object dataArray = param.get("data");
-                if (dataArray instanceof Collection) {
-                    return dataArray;
-                }
-                // 将data字段的内容转换为目标类型
-                String dataJson = JSON.toJSONString(dataArray);
-                logger.debug("从data字段解析List数据: {}", dataJson);
-                return NpcsSerializerUtil.readValueNormal(dataJson, reqType);
+            timeline.route(url, apiInfo.getRegistryId());
+            phaseStart = System.nanoTime();
+            ArgumentBindingPlan bindingPlan = apiInfo.resolveBindingPlan();
+            Object[] objects = bindingPlan.bind(params);
+            timeline.record(RequestPhase.BIND, phaseStart);
+            phaseStart = System.nanoTime();
+            bindingPlan.checkTypes(objects);
+            ParameterValidationChain validationChain = apiInfo.getValidationChain();
+            if (validationChain != null && !validationChain.isEmpty()) {
+                validationChain.validate(params);
             }
-
-            // 2. 尝试从 "list" 字段获取数据（兼容旧格式）
-            if (param.containsKey("list")) {
-                Object listData = param.get("list");
-                if (listData instanceof Collection) {
-                    return listData;
+            timeline.record(RequestPhase.VALIDATE, phaseStart);
+            // 参数绑定耗时已从截止时间中扣除，剩余时间耗尽时不再调用下游
+            deadlineManager.ensureRemaining();
+            // 熔断器打开时快速失败或返回降级结果；幂等路由在慢调用时发起对冲请求；
+            // 每次下游调用(包括对冲调用)各占一个并发名额，超出注册中心并发上限时立即拒绝
+            phaseStart = System.nanoTime();
+            DownstreamInvokeEvent event = new DownstreamInvokeEvent();
+            event.begin();
+            try {
+                Object result = circuitBreakerRegistry.invoke(apiInfo, params,
+                        () -> hedgingInvoker.invoke(apiInfo,
+                                () -> concurrencyLimiter.invoke(apiInfo, () -> method.invoke(serviceInstance, objects))));
+                event.success = true;
+                return result;
+            } catch (Exception e) {
+                event.error = e.getClass().getSimpleName();
+                throw e;
+            } finally {
+                timeline.record(RequestPhase.INVOKE, phaseStart);
+                event.end();
+                if (event.shouldCommit()) {
+                    event.route = url;
+                    event.registryId = apiInfo.getRegistryId();
+                    event.service = method.getDeclaringClass().getName();
+                    event.method = method.getName();
+                    event.commit();
                 }
-                String listJson = JSON.toJSONString(listData);
-                logger.debug("从list字段解析List数据: {}", listJson);
-                return NpcsSerializerUtil.readValueNormal(listJson, reqType);
             }
-            
-            // 3. 如果整个参数就是一个数组
-            if (param.size() == 1 && param.values().iterator().next() instanceof Collection) {
-                return param.values().iterator().next();
+        } catch (ServiceException e) {
+            // 限流、熔断、超时等网关拒绝是预期内的，过载时数量很大，不输出堆栈
+            if (isRejection(e.getCode())) {
+                logger.debug("调用服务方法被拒绝: {}.{}, code: {}, msg: {}",
+                        method.getDeclaringClass().getName(), method.getName(), e.getCode(), e.getMessage());
+            } else {
+                logger.warn("调用服务方法失败: {}.{}, code: {}, msg: {}",
+                        method.getDeclaringClass().getName(), method.getName(), e.getCode(), e.getMessage());
             }
-
-            // 4. 尝试直接转换整个参数对象
-            String jsonStr = NpcsSerializerUtil.writeValueAsStringNormal(param);
-            logger.debug("直接解析整个参数对象: {}", jsonStr);
-            return NpcsSerializerUtil.readValueNormal(jsonStr, reqType);
-            
-        } catch (Exception e) {
-            logger.error("处理List类型参数失败, param: {}, reqType: {}", param, reqType, e);
-            throw new RuntimeException("处理List类型参数失败: " + e.getMessage(), e);
-        }
-    }
-
-    /**
-     * 处理分页类型参数
-     */
-    private Object handlePageType(JSONObject param, Class<?> pageType) {
-        // 1. 提取分页基本参数
-        int pageNum = param.getIntValue("pageNum", 1);
-        int pageSize = param.getIntValue("pageSize", 10);
-
-        // 2. 获取数据部分
-        JSONObject dataObj = param.getJSONObject("data");
-        if (dataObj == null) {
-            logger.warn("分页参数中缺少data字段");
-            return null;
-        }
-
-        try {
-            // 3. 创建分页对象实例
-            Object pageInstance = pageType.getDeclaredConstructor().newInstance();
-
-            // 4. 设置分页基本参数
-            Method setPageNum = pageType.getMethod("setPageNum", int.class);
-            Method setPageSize = pageType.getMethod("setPageSize", int.class);
-            setPageNum.invoke(pageInstance, pageNum);
-            setPageSize.invoke(pageInstance, pageSize);
-
-            // 5. 设置查询条件
-            Method setData = pageType.getMethod("setData", Object.class);
-            setData.invoke(pageInstance, dataObj);
-
-            return pageInstance;
+            throw e;
         } catch (Exception e) {
-            logger.error("创建分页对象失败", e);
-            throw new RuntimeException("创建分页对象失败", e);
+            logger.error("调用服务方法失败: {}.{}", method.getDeclaringClass().getName(), method.getName(), e);
+            throw e;
         }
     }
 
     /**
-     * 处理实体类型参数
+     * 判断是否为网关主动拒绝(限流、熔断、超时、重复请求)
+     * 这类错误码是预期内的，过载时数量很大，调用方应降低日志级别
      */
-    private Object handleEntityType(JSONObject param, Class<?> entityType) {
-        String jsonStr = NpcsSerializerUtil.writeValueAsStringNormal(param);
-        return NpcsSerializerUtil.readValueNormal(jsonStr, entityType);
+    public static boolean isRejection(String code) {
+        return PubConstants.ERROR_CONCURRENCY_LIMIT_EXCEEDED.equals(code)
+                || PubConstants.ERROR_CIRCUIT_OPEN.equals(code)
+                || PubConstants.ERROR_DEADLINE_EXCEEDED.equals(code)
+                || PubConstants.ERROR_DUPLICATE_REQUEST.equals(code);
     }
 
     /**
-     * 判断是否为基本类型或其包装类
+     * 处理前端请求参数并转换为适合后端微服务接口的参数类型。
+     * 使用注册时编译的参数绑定计划，支持多参数方法，请求时不再反射读取方法参数。
+     *
+     * @param serviceInfo 后端服务信息对象，包含接口参数类型等相关信息。
+     * @param param      前端传入的 JSON 对象参数。
+     * @return 转换后的请求参数数组，与后端方法参数一一对应。
+     * @throws com.changjiang.bff.core.validation.ParameterValidationException 必填参数缺失或类型转换失败
      */
-    private boolean isPrimitiveOrWrapper(Class<?> type) {
-        return type.isPrimitive() ||
-                type == String.class ||
-                type == Integer.class ||
-                type == Long.class ||
-                type == Double.class ||
-                type == Float.class ||
-                type == Boolean.class ||
-                type == Byte.class ||
-                type == Short.class ||
-                type == Character.class ||
-                type == BigDecimal.class;
+    public Object[] handleRequestParams(ServiceApiInfo serviceInfo, JSONObject param) {
+        return serviceInfo.resolveBindingPlan().bind(param);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.changjiang.bff.util;
+
+import com.changjiang.bff.config.CallerIdentityProperties;
+import com.changjiang.bff.dto.LoginUserInfo;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.security.Principal;
+
+/**
+ * 调用方用户ID解析
+ * 主要职责：
+ * 1. 按bff.caller配置依次从请求属性、请求头读取用户ID
+ * 2. 都没有时使用容器认证的用户(Principal)
+ *
+ * 使用场景：
+ * - 按用户区分的降级缓存、重复请求拦截，无法识别用户时这两项功能不生效
+ *
+ * 调用关系：
+ * - 被CircuitBreakerRegistry、ConcurrentRequestInterceptAspect调用
+ * - 当前请求由SessionUtils.currentRequest获取
+ */
+@Component
+public class CallerIdResolver {
+
+    @Autowired
+    private CallerIdentityProperties identityProperties;
+
+    /**
+     * 当前请求的调用方用户ID，不在请求线程中或无法识别时返回null
+     */
+    public String getUserId() {
+        HttpServletRequest request = SessionUtils.currentRequest();
+        return request == null ? null : getUserId(request);
+    }
+
+    /**
+     * 请求的调用方用户ID，无法识别时返回null
+     */
+    public String getUserId(HttpServletRequest request) {
+        String attribute = identityProperties.getUserIdAttribute();
+        if (StringUtils.hasText(attribute)) {
+            Object value = request.getAttribute(attribute);
+            String userId = value instanceof LoginUserInfo ? ((LoginUserInfo) value).getUserId()
+                    : value == null ? null : value.toString();
+            if (StringUtils.hasText(userId)) {
+                return userId;
+            }
+        }
+        String header = identityProperties.getUserIdHeader();
+        if (StringUtils.hasText(header)) {
+            String userId = request.getHeader(header);
+            if (StringUtils.hasText(userId)) {
+                return userId.trim();
+            }
+        }
+        Principal principal = request.getUserPrincipal();
+        return principal == null ? null : principal.getName();
+    }
+}
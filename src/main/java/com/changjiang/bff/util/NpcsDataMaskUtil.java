@@ -7,7 +7,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.util.StringUtils;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -77,6 +80,52 @@ public class NpcsDataMaskUtil {
         }
     }
 
+    /**
+     * 按字段名脱敏
+     * 用于没有@DataMask注解的JSON数据(如请求体采样)，递归处理Map和集合，
+     * 字段名匹配规则(忽略大小写)时，字符串、数字等基本值转为字符串后按对应类型脱敏，
+     * 值为集合时逐个元素脱敏，返回脱敏后的副本
+     *
+     * @param obj   JSONObject、Map、集合或基本值
+     * @param rules key: 小写字段名, value: 脱敏类型
+     */
+    public static Object maskByFieldName(Object obj, Map<String, MaskType> rules) {
+        if (obj instanceof Map) {
+            Map<Object, Object> masked = new LinkedHashMap<>();
+            ((Map<?, ?>) obj).forEach((key, value) -> {
+                MaskType type = key == null ? null : rules.get(key.toString().toLowerCase());
+                masked.put(key, type != null ? maskMatchedValue(value, type, rules) : maskByFieldName(value, rules));
+            });
+            return masked;
+        }
+        if (obj instanceof Collection) {
+            List<Object> masked = new ArrayList<>(((Collection<?>) obj).size());
+            for (Object item : (Collection<?>) obj) {
+                masked.add(maskByFieldName(item, rules));
+            }
+            return masked;
+        }
+        return obj;
+    }
+
+    /**
+     * 脱敏字段名匹配规则的值
+     * 手机号、证件号等在JSON中可能是数字，转为字符串后脱敏；Map按其中的字段名继续处理
+     */
+    private static Object maskMatchedValue(Object value, MaskType type, Map<String, MaskType> rules) {
+        if (value == null || value instanceof Map) {
+            return maskByFieldName(value, rules);
+        }
+        if (value instanceof Collection) {
+            List<Object> masked = new ArrayList<>(((Collection<?>) value).size());
+            for (Object item : (Collection<?>) value) {
+                masked.add(maskMatchedValue(item, type, rules));
+            }
+            return masked;
+        }
+        return maskField(value.toString(), type);
+    }
+
     /**
      * 处理对象脱敏
      */
@@ -63,6 +63,22 @@ public class NpcsSerializerUtil {
         }
     }
     
+    /**
+     * 将JSONObject转换为指定类型的对象，FastJSON2转换失败时按readValueNormal依次尝试Jackson和逐个属性反射赋值，
+     * 字段类型不匹配的属性(如数字字段传入了非数字字符串)跳过，不使整个对象转换失败
+     */
+    public static <T> T convertToEntityLenient(JSONObject jsonObject, Class<T> targetType) {
+        try {
+            T result = jsonObject.to(targetType);
+            if (result != null) {
+                return result;
+            }
+        } catch (Exception e) {
+            logger.debug("FastJSON2转换失败，尝试其他方式: {}", e.getMessage());
+        }
+        return readValueNormal(jsonObject.toJSONString(), targetType);
+    }
+
     /**
      * 将Map转换为指定类型的对象
      */
@@ -104,13 +120,10 @@ public class NpcsSerializerUtil {
      */
     public static <T> T readValueNormal(String content, Class<T> valueType) {
         try {
-            logger.info("开始反序列化, content: {}, targetType: {}", content, valueType.getName());
-            
             // 1. 尝试使用FastJSON2直接转换
             try {
                 T result = JSON.parseObject(content, valueType);
                 if (result != null) {
-                    logger.info("FastJSON2转换成功, result: {}", result);
                     return result;
                 }
             } catch (Exception e) {
@@ -119,9 +132,7 @@ public class NpcsSerializerUtil {
             
             // 2. 尝试使用Jackson转换
             try {
-                T result = objectMapper.readValue(content, valueType);
-                logger.info("Jackson转换成功, result: {}", result);
-                return result;
+                return objectMapper.readValue(content, valueType);
             } catch (Exception e) {
                 logger.warn("Jackson转换失败: {}", e.getMessage());
             }
@@ -151,7 +162,6 @@ public class NpcsSerializerUtil {
                 }
             }
             
-            logger.info("反射方式转换成功, result: {}", instance);
             return (T) instance;
             
         } catch (Exception e) {
@@ -0,0 +1,32 @@
+package com.changjiang.bff.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * 会话工具类
+ * 主要职责：
+ * 1. 获取当前线程处理的请求
+ *
+ * 调用关系：
+ * - 被CallerIdResolver、ConcurrentRequestInterceptAspect、ResultEnvelopeHttpMessageConverter调用
+ * - 网关不保存登录会话，调用方用户ID由CallerIdResolver按bff.caller配置解析
+ */
+public class SessionUtils {
+
+    private SessionUtils() {
+    }
+
+    /**
+     * 当前请求，不在请求线程中时返回null
+     */
+    public static HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        return ((ServletRequestAttributes) attributes).getRequest();
+    }
+}
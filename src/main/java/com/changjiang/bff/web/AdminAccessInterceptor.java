@@ -0,0 +1,61 @@
+package com.changjiang.bff.web;
+
+import com.changjiang.bff.config.AdminAccessProperties;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * 管理接口访问拦截器
+ * 主要职责：
+ * 1. 管理接口关闭时返回404
+ * 2. 请求的直连地址在白名单中，或请求头中的管理令牌与配置一致时放行，否则返回403
+ *
+ * 使用场景：
+ * - 管理接口(包括配置重新加载、请求采样)与业务接口共用端口，不能对外开放
+ *
+ * 调用关系：
+ * - 由WebConfig注册到/admin/**
+ */
+public class AdminAccessInterceptor implements HandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminAccessInterceptor.class);
+
+    private final AdminAccessProperties accessProperties;
+
+    public AdminAccessInterceptor(AdminAccessProperties accessProperties) {
+        this.accessProperties = accessProperties;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!accessProperties.isEnabled()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return false;
+        }
+        if (accessProperties.getAllowedAddresses().contains(request.getRemoteAddr()) || tokenMatches(request)) {
+            return true;
+        }
+        logger.warn("Admin access denied, uri: {}, remoteAddr: {}", request.getRequestURI(), request.getRemoteAddr());
+        response.sendError(HttpServletResponse.SC_FORBIDDEN);
+        return false;
+    }
+
+    /**
+     * 按固定时间比较令牌
+     */
+    private boolean tokenMatches(HttpServletRequest request) {
+        String expected = accessProperties.getToken();
+        String actual = request.getHeader(accessProperties.getTokenHeader());
+        if (!StringUtils.hasText(expected) || actual == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), actual.getBytes(StandardCharsets.UTF_8));
+    }
+}
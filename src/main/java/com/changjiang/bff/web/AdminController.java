@@ -0,0 +1,234 @@
+package com.changjiang.bff.web;
+
+import com.changjiang.bff.constants.BasicConstants;
+import com.changjiang.bff.core.CrpcReferenceConfigCacheLoader;
+import com.changjiang.bff.core.MethodPolicy;
+import com.changjiang.bff.core.MethodPolicyRegistry;
+import com.changjiang.bff.core.accesslog.AccessLogWriter;
+import com.changjiang.bff.core.breaker.CircuitBreakerRegistry;
+import com.changjiang.bff.core.channel.GrpcChannelPoolManager;
+import com.changjiang.bff.core.hedge.HedgingInvoker;
+import com.changjiang.bff.core.limit.RegistryConcurrencyLimiter;
+import com.changjiang.bff.core.metrics.RequestCapture;
+import com.changjiang.bff.core.metrics.RequestResourceMetrics;
+import com.changjiang.bff.core.metrics.RoutePhaseMetrics;
+import com.changjiang.bff.core.metrics.RouteStatistics;
+import com.changjiang.bff.core.registry.MeshRegistrySelector;
+import com.changjiang.bff.core.trace.InMemorySpanExporter;
+import com.changjiang.bff.core.trace.RequestTracer;
+import com.changjiang.bff.core.trace.SpanData;
+import com.changjiang.bff.object.response.Result;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 网关管理控制器
+ * 主要职责：
+ * 1. 展示网关运行时的生效配置
+ * 2. 提供配置重新加载等运维操作
+ * 3. 所有接口由AdminAccessInterceptor做访问控制，默认只允许本机访问
+ *
+ * 调用关系：
+ * - 调用MethodPolicyRegistry获取方法调用策略
+ * - 调用CrpcReferenceConfigCacheLoader刷新服务代理
+ * - 调用GrpcChannelPoolManager获取下游连接池状态
+ * - 调用MeshRegistrySelector获取主备注册中心探测状态
+ * - 调用HedgingInvoker获取对冲额度和对冲次数
+ * - 调用RegistryConcurrencyLimiter获取各注册中心的并发上限
+ * - 调用CircuitBreakerRegistry获取熔断器状态
+ * - 调用RoutePhaseMetrics获取各路由各阶段的耗时分布
+ * - 调用RouteStatistics获取各路由实时的QPS、错误率、处理中请求数和耗时分位数
+ * - 调用RequestResourceMetrics获取各路由的分配字节数、CPU时间和慢请求采样
+ * - 调用AccessLogWriter获取访问日志的写入、丢弃和采样情况
+ * - 调用RequestTracer获取追踪统计和内存导出器中的span
+ */
+@RestController
+@RequestMapping(value = "/admin", produces = MediaType.APPLICATION_JSON_VALUE)
+public class AdminController {
+
+    @Autowired
+    private MethodPolicyRegistry methodPolicyRegistry;
+
+    @Autowired
+    private CrpcReferenceConfigCacheLoader crpcReferenceConfigCacheLoader;
+
+    @Autowired
+    private GrpcChannelPoolManager grpcChannelPoolManager;
+
+    @Autowired
+    private MeshRegistrySelector meshRegistrySelector;
+
+    @Autowired
+    private HedgingInvoker hedgingInvoker;
+
+    @Autowired
+    private RegistryConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private RoutePhaseMetrics routePhaseMetrics;
+
+    @Autowired
+    private RouteStatistics routeStatistics;
+
+    @Autowired
+    private RequestResourceMetrics requestResourceMetrics;
+
+    @Autowired
+    private AccessLogWriter accessLogWriter;
+
+    @Autowired
+    private RequestTracer requestTracer;
+
+    /**
+     * 查询所有(接口, 方法)生效的超时、重试和负载均衡配置
+     */
+    @GetMapping("/crpc/method-policies")
+    public Result<List<MethodPolicy>> methodPolicies() {
+        return success(methodPolicyRegistry.getEffectivePolicies());
+    }
+
+    /**
+     * 重新加载方法调用策略，并在后台重建已加载的服务代理
+     */
+    @PostMapping("/crpc/method-policies/reload")
+    public Result<List<MethodPolicy>> reloadMethodPolicies() {
+        methodPolicyRegistry.reload();
+        crpcReferenceConfigCacheLoader.refreshAll();
+        return success(methodPolicyRegistry.getEffectivePolicies());
+    }
+
+    /**
+     * 查询下游gRPC连接池状态(每个连接的地址、状态和在途请求数)
+     */
+    @GetMapping("/grpc/channel-pools")
+    public Result<Map<String, List<Map<String, Object>>>> channelPools() {
+        return success(grpcChannelPoolManager.snapshot());
+    }
+
+    /**
+     * 查询mesh主备注册中心的探测延迟、健康状态和当前生效的注册中心
+     */
+    @GetMapping("/crpc/registries")
+    public Result<List<Map<String, Object>>> registries() {
+        return success(meshRegistrySelector.snapshot());
+    }
+
+    /**
+     * 查询各注册中心的对冲额度和对冲次数
+     */
+    @GetMapping("/grpc/hedging")
+    public Result<Map<String, Map<String, Object>>> hedging() {
+        return success(hedgingInvoker.snapshot());
+    }
+
+    /**
+     * 查询各注册中心的自适应并发上限、在途请求数和拒绝数
+     */
+    @GetMapping("/grpc/concurrency-limits")
+    public Result<Map<String, Map<String, Object>>> concurrencyLimits() {
+        return success(concurrencyLimiter.snapshot());
+    }
+
+    /**
+     * 查询所有熔断器的状态、失败率和拒绝数
+     */
+    @GetMapping("/grpc/circuit-breakers")
+    public Result<Map<String, Map<String, Object>>> circuitBreakers() {
+        return success(circuitBreakerRegistry.snapshot());
+    }
+
+    /**
+     * 查询各路由各阶段(路由查找、绑定、校验、下游调用、脱敏、响应构建、序列化)的耗时分布
+     */
+    @GetMapping("/metrics/route-phases")
+    public Result<Map<String, Map<String, Object>>> routePhases() {
+        return success(routePhaseMetrics.snapshot());
+    }
+
+    /**
+     * 查询所有路由最近一个统计窗口的QPS、错误率、处理中请求数、耗时分位数和最近的错误码
+     */
+    @GetMapping("/metrics/routes")
+    public Result<List<Map<String, Object>>> routes() {
+        return success(routeStatistics.snapshot());
+    }
+
+    /**
+     * 最近一个统计窗口的紧凑快照，供监控每秒抓取
+     * 直接返回预先生成的JSON，不经过Result包装和序列化
+     */
+    @GetMapping("/metrics/routes/snapshot")
+    public byte[] routesSnapshot() {
+        return routeStatistics.snapshotBytes();
+    }
+
+    /**
+     * 查询各路由每个请求的分配字节数和CPU时间(平均、最大、累计)
+     */
+    @GetMapping("/metrics/route-resources")
+    public Result<Map<String, Map<String, Object>>> routeResources() {
+        return success(requestResourceMetrics.snapshot());
+    }
+
+    /**
+     * 查询超过耗时或分配阈值的请求采样(阶段耗时和脱敏后的请求体)，按时间从新到旧
+     * 请求体采样可能含业务数据，只允许AdminAccessInterceptor放行的请求访问
+     */
+    @GetMapping("/metrics/request-captures")
+    public Result<List<RequestCapture>> requestCaptures() {
+        return success(requestResourceMetrics.captures());
+    }
+
+    /**
+     * 查询访问日志缓冲区的积压、写入、丢弃和未采样数量，以及各路由的采样率
+     */
+    @GetMapping("/access-log")
+    public Result<Map<String, Object>> accessLog() {
+        return success(accessLogWriter.snapshot());
+    }
+
+    /**
+     * 查询追踪的采样、保留、导出和丢弃数量
+     */
+    @GetMapping("/tracing")
+    public Result<Map<String, Object>> tracing() {
+        return success(requestTracer.snapshot());
+    }
+
+    /**
+     * 查询内存导出器中的span
+     * 指定traceId时返回该trace的span，否则返回最近limit个请求的span
+     */
+    @GetMapping("/tracing/traces")
+    public Result<List<List<SpanData>>> traces(@RequestParam(required = false) String traceId,
+                                               @RequestParam(defaultValue = "20") int limit) {
+        InMemorySpanExporter exporter = requestTracer.getInMemoryExporter();
+        if (exporter == null) {
+            return success(Collections.emptyList());
+        }
+        if (traceId != null && !traceId.isEmpty()) {
+            List<SpanData> spans = exporter.find(traceId);
+            return success(spans.isEmpty() ? Collections.emptyList() : Collections.singletonList(spans));
+        }
+        return success(exporter.recent(limit));
+    }
+
+    private <T> Result<T> success(T data) {
+        Result<T> result = new Result<>();
+        result.setCode(BasicConstants.TRADE_SUCCESS);
+        result.setData(data);
+        return result;
+    }
+}
@@ -8,6 +8,9 @@ import com.changjiang.bff.service.MethodInvocationServiceIml;
 import com.changjiang.bff.service.TransferService;
 import com.changjiang.bff.constants.PubConstants;
 import com.changjiang.bff.dto.SessionInfo;
+import com.changjiang.bff.core.metrics.RequestTimeline;
+import com.changjiang.bff.enums.RequestPhase;
+import com.changjiang.bff.exception.ServiceException;
 import com.changjiang.bff.service.impl.MethodInvocationService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -45,6 +48,13 @@ public abstract class DefaultController {
     @Autowired
     private MethodInvocationService methodInvocationService;
 
+    /**
+     * 流式响应写出器
+     * 列表和服务端流路由逐行写出，不组装Result
+     */
+    @Autowired
+    private StreamingResponseWriter streamingResponseWriter;
+
     /**
      * 组装会话信息
      * 主要功能：
@@ -93,7 +103,7 @@ public abstract class DefaultController {
      * 
      * @param inputObject 输入参数
      * @param servletRequest HTTP请求对象
-     * @return 统一响应结果
+     * @return 统一响应结果；结果已流式写出时返回null
      * @throws Exception 调用异常
      */
     protected <T> Result<T> executeTransferToCrpcService(JSONObject inputObject, HttpServletRequest servletRequest) throws Exception {
@@ -102,14 +112,13 @@ public abstract class DefaultController {
         T resData = null;
         String errMsg = null;
         String uri = null;
+        long envelopeStart = 0;
 
         try {
             // 获取请求的URI，用于日志记录和异常处理
             uri = servletRequest.getRequestURI().trim().replace("/changjiang","");
             // 登录用户信息（已注释）
             //LoginUserInfo user = SessionUtils.getLoginUserInfo();
-            // 记录用户信息日志
-            logger.info("controller.executeTransferToCrpcServce.userInfo: " + inputObject);
             // 组装会话信息（已注释）
             //SessionInfo sessionInfo = assembleSessionInfo(user);
             // 设置请求的IP地址（已注释）
@@ -119,6 +128,12 @@ public abstract class DefaultController {
             // 执行跨服务调用到Crpc服务
             //T srvRes = (T) transferService.executeTransferToCrpcService(inputObject, uri);
             T srvRes = methodInvocationService.invokeService(uri, inputObject);
+            // 流式路由的结果已逐行写出到响应，结果码由写出器记录
+            if (streamingResponseWriter.stream(uri, srvRes)) {
+                return null;
+            }
+            srvRes = (T) streamingResponseWriter.drain(srvRes);
+            envelopeStart = System.nanoTime();
             // 根据服务调用结果进行处理
             if (srvRes instanceof Map) {
                 // 如果返回结果是Map类型，提取相应的代码、数据和错误消息
@@ -139,6 +154,15 @@ public abstract class DefaultController {
                 code = BasicConstants.TRADE_SUCCESS;
                 resData = srvRes;
             }
+        } catch (ServiceException e) {
+            // 业务异常(如并发超限)保留其错误码，网关拒绝在过载时数量很大，只在fine级别记录
+            code = e.getCode();
+            errMsg = e.getMessage();
+            if (MethodInvocationServiceIml.isRejection(code)) {
+                logger.fine("DefaultController.executeLogic.path:" + uri + ", code:" + code + ", error:" + e.getMessage());
+            } else {
+                logger.warning("DefaultController.executeLogic.path:" + uri + ", code:" + code + ", error:" + e.getMessage());
+            }
         } catch (Exception e) {
             // 捕获调用过程中的异常，并记录日志
             code = PubConstants.ERROR_INVOKE_EXCEPTION;
@@ -147,6 +171,13 @@ public abstract class DefaultController {
         }
 
         // 根据调用结果构建并返回响应体
-        return buildResponseBody(resData, code, errMsg);
+        if (envelopeStart == 0) {
+            envelopeStart = System.nanoTime();
+        }
+        Result<T> result = buildResponseBody(resData, code, errMsg);
+        RequestTimeline timeline = RequestTimeline.current();
+        timeline.record(RequestPhase.ENVELOPE, envelopeStart);
+        timeline.resultCode(code);
+        return result;
     }
 }
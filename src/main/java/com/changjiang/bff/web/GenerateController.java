@@ -2,6 +2,7 @@ package com.changjiang.bff.web;
 
 import com.alibaba.fastjson2.JSONObject;
 import com.changjiang.bff.constants.BasicConstants;
+import com.changjiang.bff.core.metrics.RequestTimeline;
 import com.changjiang.bff.object.response.Result;
 import com.changjiang.grpc.annotation.GrpcReference;
 import org.slf4j.Logger;
@@ -49,6 +50,8 @@ public class GenerateController extends DefaultController {
             }
             // 获取请求的URI并去除空格
             uri = attrs.getRequest().getRequestURI().trim();
+            // 记录请求体引用，慢请求采样时使用
+            RequestTimeline.current().body(inputObject);
             // 调用方法处理请求并返回结果
             @SuppressWarnings("unchecked")
             Result<?> objectResult = executeTransferToCrpcService(inputObject, attrs.getRequest());
@@ -0,0 +1,79 @@
+package com.changjiang.bff.web;
+
+import com.alibaba.fastjson2.JSONWriter;
+import com.alibaba.fastjson2.writer.ObjectWriter;
+import com.alibaba.fastjson2.writer.ObjectWriterProvider;
+
+import java.lang.reflect.Type;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.function.Function;
+
+/**
+ * 与Jackson一致的日期写出器
+ * 主要职责：
+ * 1. 按Spring Boot默认的Jackson配置(WRITE_DATES_AS_TIMESTAMPS关闭，时区UTC)写出日期类型
+ * 2. java.util.Date及java.sql.Timestamp：yyyy-MM-dd'T'HH:mm:ss.SSS+00:00
+ * 3. java.time类型：ISO-8601，带偏移量的类型先转换到UTC
+ *
+ * 调用关系：
+ * - 由ResultEnvelopeWriter在bff.response.writer.date-format=jackson时注册到独立的ObjectWriterProvider，
+ *   不影响其他位置的fastjson2序列化
+ */
+final class JacksonDateWriters {
+
+    private static final DateTimeFormatter DATE_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSxxx").withZone(ZoneOffset.UTC);
+
+    private JacksonDateWriters() {
+    }
+
+    static void register(ObjectWriterProvider provider) {
+        ObjectWriter<?> dateWriter = new FormattedWriter(
+                value -> DATE_FORMATTER.format(Instant.ofEpochMilli(((Date) value).getTime())));
+        provider.register(Date.class, dateWriter);
+        provider.register(java.sql.Timestamp.class, dateWriter);
+        provider.register(java.sql.Date.class, new FormattedWriter(Object::toString));
+        provider.register(java.sql.Time.class, new FormattedWriter(Object::toString));
+        provider.register(LocalDateTime.class, new FormattedWriter(
+                value -> DateTimeFormatter.ISO_LOCAL_DATE_TIME.format((LocalDateTime) value)));
+        provider.register(LocalDate.class, new FormattedWriter(
+                value -> DateTimeFormatter.ISO_LOCAL_DATE.format((LocalDate) value)));
+        provider.register(LocalTime.class, new FormattedWriter(
+                value -> DateTimeFormatter.ISO_LOCAL_TIME.format((LocalTime) value)));
+        provider.register(Instant.class, new FormattedWriter(
+                value -> DateTimeFormatter.ISO_INSTANT.format((Instant) value)));
+        provider.register(OffsetDateTime.class, new FormattedWriter(value -> DateTimeFormatter.ISO_OFFSET_DATE_TIME
+                .format(((OffsetDateTime) value).withOffsetSameInstant(ZoneOffset.UTC))));
+        provider.register(ZonedDateTime.class, new FormattedWriter(value -> DateTimeFormatter.ISO_OFFSET_DATE_TIME
+                .format(((ZonedDateTime) value).withZoneSameInstant(ZoneOffset.UTC))));
+    }
+
+    /**
+     * 按格式化函数写出为字符串
+     */
+    private static final class FormattedWriter implements ObjectWriter<Object> {
+
+        private final Function<Object, String> formatter;
+
+        FormattedWriter(Function<Object, String> formatter) {
+            this.formatter = formatter;
+        }
+
+        @Override
+        public void write(JSONWriter jsonWriter, Object object, Object fieldName, Type fieldType, long features) {
+            if (object == null) {
+                jsonWriter.writeNull();
+                return;
+            }
+            jsonWriter.writeString(formatter.apply(object));
+        }
+    }
+}
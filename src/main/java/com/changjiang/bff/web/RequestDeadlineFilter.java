@@ -0,0 +1,93 @@
+package com.changjiang.bff.web;
+
+import com.changjiang.bff.config.DeadlineProperties;
+import com.changjiang.bff.core.deadline.RequestDeadlineManager;
+import io.grpc.Context;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 请求截止时间过滤器
+ * 主要职责：
+ * 1. 为/changjiang/**请求建立带截止时间的gRPC Context，并绑定到请求线程
+ * 2. 请求结束时取消Context，仍在进行的下游调用(如对冲请求)随之取消
+ * 3. 异步请求在超时、出错(包括客户端断开)时取消Context
+ *
+ * 调用关系：
+ * - 调用RequestDeadlineManager计算截止时间
+ */
+@Component
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    private static final String ROUTE_PREFIX = "/changjiang";
+
+    @Autowired
+    private RequestDeadlineManager deadlineManager;
+
+    @Autowired
+    private DeadlineProperties deadlineProperties;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !deadlineManager.isEnabled() || !request.getRequestURI().startsWith(ROUTE_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String route = request.getRequestURI().trim().replace(ROUTE_PREFIX, "");
+        Context.CancellableContext context = deadlineManager.open(route, request.getHeader(deadlineProperties.getHeader()));
+        Context previous = context.attach();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            context.detach(previous);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new CancelOnCompletion(context));
+            } else {
+                context.cancel(null);
+            }
+        }
+    }
+
+    /**
+     * 异步请求结束、超时或出错时取消Context
+     */
+    private static final class CancelOnCompletion implements AsyncListener {
+
+        private final Context.CancellableContext context;
+
+        CancelOnCompletion(Context.CancellableContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            context.cancel(null);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            context.cancel(event.getThrowable());
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            context.cancel(event.getThrowable());
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.changjiang.bff.web;
+
+import com.changjiang.bff.config.TracingProperties;
+import com.changjiang.bff.core.accesslog.AccessLogWriter;
+import com.changjiang.bff.core.jfr.GatewayRequestEvent;
+import com.changjiang.bff.core.metrics.RequestResourceMetrics;
+import com.changjiang.bff.core.metrics.RequestTimeline;
+import com.changjiang.bff.core.metrics.RoutePhaseMetrics;
+import com.changjiang.bff.core.metrics.RouteStatistics;
+import com.changjiang.bff.core.trace.RequestTracer;
+import com.changjiang.bff.core.trace.TraceContext;
+import com.changjiang.bff.enums.RequestPhase;
+import io.grpc.Context;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 请求时间线过滤器
+ * 主要职责：
+ * 1. 为/changjiang/**请求开始当前线程的请求时间线
+ * 2. 请求结束后将各阶段耗时汇总到RoutePhaseMetrics
+ * 3. 统计请求线程分配的字节数和CPU时间，汇总到RequestResourceMetrics
+ * 4. 请求结束后交给AccessLogWriter异步写访问日志
+ * 5. 开始请求追踪，追踪上下文绑定到gRPC Context，供下游调用写入traceparent
+ * 6. 统计路由的处理中请求数、请求数、错误数和耗时
+ * 7. 提交GatewayRequestEvent，JFR未录制该事件时不统计响应字节数
+ *
+ * 调用关系：
+ * - 调用RequestTimeline.begin/end
+ * - 调用RoutePhaseMetrics.record
+ * - 调用RequestResourceMetrics.begin/record
+ * - 调用AccessLogWriter.log
+ * - 调用RequestTracer.start/finish
+ * - 调用RouteStatistics.enter/exit
+ */
+@Component
+public class RequestTimelineFilter extends OncePerRequestFilter {
+
+    private static final String ROUTE_PREFIX = "/changjiang";
+
+    private static final String TRACEPARENT_HEADER = "traceparent";
+
+    @Autowired
+    private RoutePhaseMetrics routePhaseMetrics;
+
+    @Autowired
+    private RequestResourceMetrics requestResourceMetrics;
+
+    @Autowired
+    private AccessLogWriter accessLogWriter;
+
+    @Autowired
+    private RequestTracer requestTracer;
+
+    @Autowired
+    private RouteStatistics routeStatistics;
+
+    @Autowired
+    private TracingProperties tracingProperties;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(ROUTE_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestTimeline timeline = RequestTimeline.begin();
+        GatewayRequestEvent event = new GatewayRequestEvent();
+        event.begin();
+        CountingResponseWrapper counting = null;
+        if (event.isEnabled()) {
+            counting = new CountingResponseWrapper(response);
+            response = counting;
+        }
+        requestResourceMetrics.begin(timeline);
+        RouteStatistics.RouteStats routeStats = routeStatistics.enter(request.getRequestURI());
+        TraceContext trace = requestTracer.start(request.getHeader(TRACEPARENT_HEADER));
+        Context traced = null;
+        Context previous = null;
+        if (trace != null) {
+            timeline.trace(trace);
+            String header = tracingProperties.getResponseHeader();
+            if (header != null && !header.isEmpty()) {
+                response.setHeader(header, trace.getTraceId());
+            }
+            traced = Context.current().withValue(TraceContext.KEY, trace);
+            previous = traced.attach();
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (traced != null) {
+                traced.detach(previous);
+            }
+            timeline.end();
+            event.end();
+            requestResourceMetrics.record(timeline);
+            routePhaseMetrics.record(timeline);
+            routeStatistics.exit(routeStats, timeline, response.getStatus());
+            accessLogWriter.log(timeline, request, response);
+            requestTracer.finish(timeline, response.getStatus());
+            if (event.shouldCommit()) {
+                commit(event, timeline, request, counting, response.getStatus());
+            }
+            timeline.release();
+        }
+    }
+
+    private static void commit(GatewayRequestEvent event, RequestTimeline timeline, HttpServletRequest request,
+                               CountingResponseWrapper counting, int status) {
+        event.route = timeline.getRoute() != null ? timeline.getRoute() : request.getRequestURI();
+        event.registryId = timeline.getRegistryId();
+        event.status = status;
+        event.resultCode = timeline.getResultCode();
+        event.bytesIn = request.getContentLengthLong();
+        event.bytesOut = counting == null ? -1 : counting.getBytesWritten();
+        event.allocatedBytes = timeline.getAllocatedBytes();
+        event.routeLookup = timeline.getPhaseNanos(RequestPhase.ROUTE_LOOKUP);
+        event.bind = timeline.getPhaseNanos(RequestPhase.BIND);
+        event.validate = timeline.getPhaseNanos(RequestPhase.VALIDATE);
+        event.invoke = timeline.getPhaseNanos(RequestPhase.INVOKE);
+        event.mask = timeline.getPhaseNanos(RequestPhase.MASK);
+        event.envelope = timeline.getPhaseNanos(RequestPhase.ENVELOPE);
+        event.serialize = timeline.getPhaseNanos(RequestPhase.SERIALIZE);
+        event.commit();
+    }
+}
@@ -0,0 +1,35 @@
+package com.changjiang.bff.web;
+
+import com.changjiang.bff.core.metrics.RequestTimeline;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * 响应计时切面
+ * 在消息转换器序列化响应之前标记序列化开始时间，序列化阶段耗时在请求结束时计算
+ *
+ * 调用关系：
+ * - 作用于GenerateController的响应
+ * - 调用RequestTimeline.markSerializeStart
+ */
+@ControllerAdvice(assignableTypes = GenerateController.class)
+public class ResponseTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        RequestTimeline.current().markSerializeStart();
+        return body;
+    }
+}
@@ -0,0 +1,100 @@
+package com.changjiang.bff.web;
+
+import com.changjiang.bff.object.response.Result;
+import com.changjiang.bff.util.SessionUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Result消息转换器
+ * 排在Jackson转换器之前，只写出/changjiang下动态路由的Result，不参与请求体读取；
+ * 管理接口等其他Result仍由Jackson写出
+ *
+ * 调用关系：
+ * - 由WebConfig在bff.response.writer.enabled=true时注册
+ * - 委托ResultEnvelopeWriter编码
+ */
+public class ResultEnvelopeHttpMessageConverter extends AbstractHttpMessageConverter<Result<?>> {
+
+    private static final String ROUTE_PREFIX = "/changjiang";
+
+    private final ResultEnvelopeWriter envelopeWriter;
+
+    public ResultEnvelopeHttpMessageConverter(ResultEnvelopeWriter envelopeWriter) {
+        super(StandardCharsets.UTF_8, MediaType.APPLICATION_JSON);
+        this.envelopeWriter = envelopeWriter;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Result.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        if (!super.canWrite(clazz, mediaType)) {
+            return false;
+        }
+        HttpServletRequest request = SessionUtils.currentRequest();
+        return request != null && request.getRequestURI().startsWith(ROUTE_PREFIX);
+    }
+
+    @Override
+    protected Result<?> readInternal(Class<? extends Result<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Result is write-only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Result<?> result, HttpOutputMessage outputMessage) throws IOException {
+        // 响应头在第一次获取响应流时提交，先设置Content-Length再写出
+        LengthAwareOutput output = new LengthAwareOutput(outputMessage);
+        envelopeWriter.write(result, output);
+    }
+
+    /**
+     * 第一次写出时设置Content-Length，ResultEnvelopeWriter只写出一次完整的缓冲区
+     */
+    private static final class LengthAwareOutput extends OutputStream {
+
+        private final HttpOutputMessage outputMessage;
+
+        private OutputStream body;
+
+        LengthAwareOutput(HttpOutputMessage outputMessage) {
+            this.outputMessage = outputMessage;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (body == null) {
+                outputMessage.getHeaders().setContentLength(len);
+            }
+            body().write(b, off, len);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            body().write(b);
+        }
+
+        private OutputStream body() throws IOException {
+            if (body == null) {
+                body = outputMessage.getBody();
+            }
+            return body;
+        }
+    }
+}
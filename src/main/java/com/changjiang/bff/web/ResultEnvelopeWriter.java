@@ -0,0 +1,283 @@
+package com.changjiang.bff.web;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONFactory;
+import com.alibaba.fastjson2.JSONWriter;
+import com.alibaba.fastjson2.writer.ObjectWriter;
+import com.alibaba.fastjson2.writer.ObjectWriterProvider;
+import com.changjiang.bff.config.ResponseWriterProperties;
+import com.changjiang.bff.constants.BasicConstants;
+import com.changjiang.bff.constants.PubConstants;
+import com.changjiang.bff.core.ApiScanCompletedEvent;
+import com.changjiang.bff.core.ServiceApiInfo;
+import com.changjiang.bff.core.metrics.RequestTimeline;
+import com.changjiang.bff.object.response.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Result响应写出器
+ * 主要职责：
+ * 1. 按{"msg":...,"code":...,"data":...}的固定结构直接写出Result，字段顺序与原Jackson输出一致
+ * 2. code和msg的常用取值(成功码、网关错误码、null)预先编码为UTF-8字节，其余取值首次出现时编码并缓存(有上限)
+ * 3. data使用fastjson2按路由缓存的ObjectWriter序列化，路由的返回类型在API扫描完成后预先解析；
+ *    日期格式默认与Spring Boot的Jackson输出一致，见JacksonDateWriters
+ * 4. 整个响应先写入线程复用的缓冲区，再一次写出到响应流并设置Content-Length
+ *
+ * 使用场景：
+ * - GenerateController返回的动态路由响应；管理接口仍由Jackson写出
+ *
+ * 调用关系：
+ * - 被ResultEnvelopeHttpMessageConverter调用
+ * - 路由取自RequestTimeline，由MethodInvocationServiceIml在路由查找后设置
+ */
+@Component
+public class ResultEnvelopeWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultEnvelopeWriter.class);
+
+    private static final byte[] MSG_PREFIX = "{\"msg\":".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] CODE_PREFIX = ",\"code\":".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] DATA_PREFIX = ",\"data\":".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte END = '}';
+
+    /** 没有路由信息时使用的键 */
+    private static final String NO_ROUTE = "";
+
+    /** 与Jackson一致的日期格式 */
+    public static final String JACKSON_DATE_FORMAT = "jackson";
+
+    @Autowired
+    private ResponseWriterProperties writerProperties;
+
+    private ObjectWriterProvider writerProvider = JSONFactory.getDefaultObjectWriterProvider();
+
+    /** 日期格式，jackson格式由注册的写出器处理，为null */
+    private String dateFormat;
+
+    /** 预编码的code，只包含常量，不随请求增长 */
+    private final Map<String, byte[]> encodedCodes = new ConcurrentHashMap<>();
+
+    /** 预编码的msg，首次出现时编码，条数有上限 */
+    private final Map<String, byte[]> encodedMessages = new ConcurrentHashMap<>();
+
+    /** 按路由缓存的data写出器 */
+    private final Map<String, RouteDataWriter> routeWriters = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<EnvelopeBuffer> buffers = ThreadLocal.withInitial(EnvelopeBuffer::new);
+
+    public ResultEnvelopeWriter() {
+        for (String code : new String[]{
+                BasicConstants.TRADE_SUCCESS,
+                BasicConstants.TRADE_FAILURE_PARAMS_ERROR,
+                BasicConstants.SUCCESS_CODE,
+                BasicConstants.ERROR_CODE,
+                PubConstants.ERROR_INVOKE_EXCEPTION,
+                PubConstants.ERROR_CONCURRENCY_LIMIT_EXCEEDED,
+                PubConstants.ERROR_DUPLICATE_REQUEST,
+                PubConstants.ERROR_CIRCUIT_OPEN,
+                PubConstants.ERROR_DEADLINE_EXCEEDED,
+                PubConstants.ERROR_PARAMETER_INVALID}) {
+            encodedCodes.put(code, JSON.toJSONBytes(code));
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (JACKSON_DATE_FORMAT.equalsIgnoreCase(writerProperties.getDateFormat())) {
+            // 独立的Provider，日期写出器不影响其他位置的fastjson2序列化
+            writerProvider = new ObjectWriterProvider();
+            JacksonDateWriters.register(writerProvider);
+        } else {
+            dateFormat = writerProperties.getDateFormat();
+        }
+    }
+
+    /**
+     * API扫描完成后按返回类型预先解析各路由的data写出器
+     */
+    @EventListener
+    public void onApiScanCompleted(ApiScanCompletedEvent event) {
+        int resolved = 0;
+        for (Map.Entry<String, ServiceApiInfo> entry : event.getApiRegistry().entrySet()) {
+            Class<?> responseType = entry.getValue().getResponseType();
+            if (responseType == null || responseType == Object.class || responseType == void.class
+                    || responseType.isInterface() || Modifier.isAbstract(responseType.getModifiers())) {
+                continue;
+            }
+            try {
+                routeWriters.put(entry.getKey(), new RouteDataWriter(responseType, resolveWriter(responseType)));
+                resolved++;
+            } catch (Exception e) {
+                logger.warn("Resolve response writer error, route: {}, type: {}: {}",
+                        entry.getKey(), responseType.getName(), e.getMessage());
+            }
+        }
+        logger.info("Response writers resolved for {} routes", resolved);
+    }
+
+    /**
+     * 写出Result
+     *
+     * @return 写出的字节数
+     */
+    public int write(Result<?> result, OutputStream out) throws IOException {
+        EnvelopeBuffer buffer = buffers.get();
+        buffer.reset();
+        try {
+            encode(result, buffer);
+            int length = buffer.size();
+            buffer.writeTo(out);
+            return length;
+        } finally {
+            if (buffer.capacity() > writerProperties.getMaxRetainedBufferBytes()) {
+                buffers.remove();
+            }
+        }
+    }
+
+    /**
+     * 编码Result到缓冲区，调用方可在写出前读取长度
+     */
+    public void encode(Result<?> result, ByteArrayOutputStream buffer) throws IOException {
+        buffer.write(MSG_PREFIX, 0, MSG_PREFIX.length);
+        byte[] msg = encodeMessage(result.getMsg());
+        buffer.write(msg, 0, msg.length);
+        buffer.write(CODE_PREFIX, 0, CODE_PREFIX.length);
+        byte[] code = encodeCode(result.getCode());
+        buffer.write(code, 0, code.length);
+        buffer.write(DATA_PREFIX, 0, DATA_PREFIX.length);
+        writeData(result.getData(), buffer);
+        buffer.write(END);
+    }
+
+    /**
+     * 编码code，常用取值直接返回预编码的字节
+     */
+    public byte[] encodeCode(String code) {
+        if (code == null) {
+            return NULL;
+        }
+        byte[] encoded = encodedCodes.get(code);
+        return encoded != null ? encoded : JSON.toJSONBytes(code);
+    }
+
+    /**
+     * 编码msg，缓存条数有上限
+     */
+    public byte[] encodeMessage(String msg) {
+        if (msg == null) {
+            return NULL;
+        }
+        byte[] encoded = encodedMessages.get(msg);
+        if (encoded == null) {
+            encoded = JSON.toJSONBytes(msg);
+            if (encodedMessages.size() < writerProperties.getMessageCacheSize()) {
+                encodedMessages.putIfAbsent(msg, encoded);
+            }
+        }
+        return encoded;
+    }
+
+    private void writeData(Object data, ByteArrayOutputStream buffer) throws IOException {
+        if (data == null) {
+            buffer.write(NULL, 0, NULL.length);
+            return;
+        }
+        String route = RequestTimeline.current().getRoute();
+        String key = route == null ? NO_ROUTE : route;
+        Class<?> dataType = data.getClass();
+        RouteDataWriter routeWriter = routeWriters.get(key);
+        if (routeWriter == null || routeWriter.type != dataType) {
+            routeWriter = new RouteDataWriter(dataType, resolveWriter(dataType));
+            routeWriters.put(key, routeWriter);
+        }
+        writeValue(data, routeWriter.writer, newWriteContext(), buffer);
+    }
+
+    /**
+     * 创建与Result的data一致的写出配置(日期格式、null字段)
+     * 同一线程可在多次writeValue间复用
+     */
+    public JSONWriter.Context newWriteContext() {
+        JSONWriter.Context context = new JSONWriter.Context(writerProvider);
+        if (dateFormat != null) {
+            context.setDateFormat(dateFormat);
+        }
+        if (writerProperties.isWriteNulls()) {
+            context.config(JSONWriter.Feature.WriteNulls, true);
+        }
+        return context;
+    }
+
+    /**
+     * 获取类型的写出器，由fastjson2按类型缓存
+     */
+    public ObjectWriter<?> resolveWriter(Class<?> dataType) {
+        return writerProvider.getObjectWriter(dataType, dataType, false);
+    }
+
+    /**
+     * 按给定写出器将值编码到缓冲区，null写出为null
+     * 供StreamingResponseWriter逐行写出时使用
+     */
+    public void writeValue(Object value, ObjectWriter<?> writer, JSONWriter.Context context,
+                           ByteArrayOutputStream buffer) throws IOException {
+        if (value == null) {
+            buffer.write(NULL, 0, NULL.length);
+            return;
+        }
+        // JSONWriter的内部缓冲区由fastjson2在close时归还复用
+        try (JSONWriter jsonWriter = JSONWriter.ofUTF8(context)) {
+            writer.write(jsonWriter, value, null, null, 0L);
+            jsonWriter.flushTo(buffer);
+        }
+    }
+
+    /**
+     * 路由的data写出器
+     * 同一路由的data类型通常固定，类型变化时(如错误时返回Map)整体替换，不可变
+     */
+    private static final class RouteDataWriter {
+
+        private final Class<?> type;
+
+        private final ObjectWriter<?> writer;
+
+        RouteDataWriter(Class<?> type, ObjectWriter<?> writer) {
+            this.type = type;
+            this.writer = writer;
+        }
+    }
+
+    /**
+     * 线程复用的写缓冲区
+     */
+    private static final class EnvelopeBuffer extends ByteArrayOutputStream {
+
+        EnvelopeBuffer() {
+            super(4096);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+}
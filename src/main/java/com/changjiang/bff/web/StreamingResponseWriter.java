@@ -0,0 +1,553 @@
+package com.changjiang.bff.web;
+
+import com.alibaba.fastjson2.JSONWriter;
+import com.alibaba.fastjson2.writer.ObjectWriter;
+import com.changjiang.bff.config.StreamingResponseProperties;
+import com.changjiang.bff.constants.BasicConstants;
+import com.changjiang.bff.constants.PubConstants;
+import com.changjiang.bff.core.ApiScanCompletedEvent;
+import com.changjiang.bff.core.ServiceApiInfo;
+import com.changjiang.bff.core.jfr.DataMaskEvent;
+import com.changjiang.bff.core.metrics.RequestTimeline;
+import com.changjiang.bff.enums.RequestPhase;
+import com.changjiang.bff.enums.StreamingFormat;
+import com.changjiang.bff.exception.ServiceException;
+import com.changjiang.bff.object.response.Result;
+import com.changjiang.bff.util.NpcsDataMaskUtil;
+import io.grpc.Context;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 流式响应写出器
+ * 主要职责：
+ * 1. API扫描完成后按返回类型识别可流式写出的路由：返回Iterable的列表路由和返回Iterator的服务端流路由
+ * 2. 逐行脱敏(bff.response.streaming.mask-rows开启时)、序列化到按请求分配的缓冲区，缓冲字节数或距上次写出的时间达到阈值时写出并flush，响应使用分块传输
+ * 3. 服务端流由有界线程池中的线程读取到有界队列，队列满时读取线程阻塞，后端流随之暂停，请求线程按时间间隔等待队列以便定时写出
+ * 4. 写出过程中出错时在已写出的内容后追加错误信息，客户端断开时停止读取后端流
+ * 5. 读取结束或放弃读取时关闭服务端流，释放并发名额并记录熔断结果；读取线程已满时拒绝请求
+ *
+ * 响应格式：
+ * - JSON_ARRAY：{"msg":null,"code":"000000","data":[...]}，出错时为{..."data":[...],"error":{"code":..,"msg":..}}
+ * - NDJSON：每行一条记录，最后一行为状态行{"code":..,"msg":..,"rows":N}，没有状态行说明响应被截断
+ *
+ * 使用场景：
+ * - 返回数万行的导出、对账类列表路由
+ * - gRPC服务端流方法(阻塞stub返回Iterator)
+ *
+ * 调用关系：
+ * - 被DefaultController在服务调用返回后调用，已写出时不再组装Result；未写出的服务端流由drain读完
+ * - 行的序列化配置取自ResultEnvelopeWriter，与普通响应的data一致
+ */
+@Component
+public class StreamingResponseWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingResponseWriter.class);
+
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+    private static final byte[] ARRAY_START = ("{\"msg\":null,\"code\":\"" + BasicConstants.TRADE_SUCCESS + "\",\"data\":[")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] ARRAY_END = "]}".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] ERROR_PREFIX = "],\"error\":{\"code\":".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] ERROR_END = "}}".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] STATUS_PREFIX = "{\"code\":".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] MSG_PREFIX = ",\"msg\":".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] ROWS_PREFIX = ",\"rows\":".getBytes(StandardCharsets.UTF_8);
+
+    /** 服务端流读取结束 */
+    private static final Object END = new Object();
+
+    /** 服务端流中的null元素，队列不接受null */
+    private static final Object NULL_ROW = new Object();
+
+    @Autowired
+    private StreamingResponseProperties streamingProperties;
+
+    @Autowired
+    private ResultEnvelopeWriter envelopeWriter;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    /** 返回Iterable或Iterator的路由 */
+    private volatile Set<String> streamableRoutes = Collections.emptySet();
+
+    /** 始终流式写出的路由：配置的路由和返回Iterator的路由 */
+    private volatile Set<String> forcedRoutes = Collections.emptySet();
+
+    /** 服务端流读取线程，每个流式请求占用一个，不排队 */
+    private ExecutorService pullExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        pullExecutor = new ThreadPoolExecutor(0, streamingProperties.getPullThreads(),
+                60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread thread = new Thread(r, "stream-pull-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (pullExecutor != null) {
+            pullExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * API扫描完成后按返回类型识别流式路由
+     */
+    @EventListener
+    public void onApiScanCompleted(ApiScanCompletedEvent event) {
+        Set<String> streamable = new HashSet<>();
+        Set<String> forced = new HashSet<>();
+        for (Map.Entry<String, ServiceApiInfo> entry : event.getApiRegistry().entrySet()) {
+            Class<?> responseType = entry.getValue().getResponseType();
+            if (responseType == null || Map.class.isAssignableFrom(responseType)) {
+                continue;
+            }
+            String route = entry.getKey();
+            if (Iterator.class.isAssignableFrom(responseType)) {
+                streamable.add(route);
+                forced.add(route);
+            } else if (Iterable.class.isAssignableFrom(responseType)) {
+                streamable.add(route);
+                if (matchesConfiguredRoute(route)) {
+                    forced.add(route);
+                }
+            }
+        }
+        streamableRoutes = Collections.unmodifiableSet(streamable);
+        forcedRoutes = Collections.unmodifiableSet(forced);
+        logger.info("Streaming response resolved for {} routes, {} always streamed", streamable.size(), forced.size());
+    }
+
+    /**
+     * 路由的结果是否可能流式写出，流式写出时调用方拿不到可共享的结果
+     *
+     * @param route 路由，不含/changjiang前缀
+     */
+    public boolean isStreamable(String route) {
+        return streamingProperties.isEnabled() && streamableRoutes.contains(route);
+    }
+
+    private boolean matchesConfiguredRoute(String route) {
+        for (String pattern : streamingProperties.getRoutes()) {
+            if (pathMatcher.match(pattern, route)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 流式写出服务调用结果
+     * 写出过程中的错误(包括客户端断开)在内部处理，不抛出
+     *
+     * @param route  路由，不含/changjiang前缀
+     * @param result 服务调用结果
+     * @return 已流式写出返回true；路由或结果不适用时返回false，由调用方按普通响应处理
+     * @throws ServiceException 服务端流读取线程已满时抛出，此时尚未写出响应
+     */
+    public boolean stream(String route, Object result) {
+        if (!streamingProperties.isEnabled() || route == null || !streamableRoutes.contains(route)
+                || !(result instanceof Iterable || result instanceof Iterator)) {
+            return false;
+        }
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes)) {
+            return false;
+        }
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        HttpServletRequest request = attributes.getRequest();
+        HttpServletResponse response = attributes.getResponse();
+        String accept = request.getHeader("Accept");
+        boolean ndjsonAccepted = accept != null && accept.contains(NDJSON_MEDIA_TYPE);
+        if (response == null || response.isCommitted() || (!ndjsonAccepted && !forcedRoutes.contains(route))) {
+            return false;
+        }
+
+        // 先占用读取线程再写响应头，线程已满时调用方仍可返回普通的错误响应
+        ServerStreamPull streamPull = result instanceof Iterator ? startPull((Iterator<?>) result) : null;
+        StreamingFormat format = ndjsonAccepted ? StreamingFormat.NDJSON : streamingProperties.getFormat();
+        RequestTimeline timeline = RequestTimeline.current();
+        timeline.markSerializeStart();
+        response.setContentType((format == StreamingFormat.NDJSON ? NDJSON_MEDIA_TYPE : "application/json") + ";charset=UTF-8");
+        RowSink sink = new RowSink(response, format, timeline);
+        String code = BasicConstants.TRADE_SUCCESS;
+        try {
+            if (streamPull != null) {
+                code = pull(streamPull, sink);
+            } else {
+                for (Object row : (Iterable<?>) result) {
+                    sink.row(row);
+                }
+                sink.finish();
+            }
+        } catch (IOException e) {
+            code = PubConstants.ERROR_INVOKE_EXCEPTION;
+            logger.warn("Streaming response aborted, route: {}, rows: {}: {}", route, sink.rows, e.getMessage());
+        } catch (RuntimeException e) {
+            code = sink.failQuietly(e);
+            logger.error("Streaming response failed, route: {}, rows: {}", route, sink.rows, e);
+        }
+        timeline.resultCode(code);
+        return true;
+    }
+
+    /**
+     * 未流式写出的服务端流在请求线程读完转为List，按普通响应返回
+     * 读完时释放并发名额、记录熔断结果，不把未读完的流交给Result序列化
+     *
+     * @param result 服务调用结果
+     * @return 服务端流读出的行；其他结果原样返回
+     */
+    public Object drain(Object result) {
+        if (!(result instanceof Iterator)) {
+            return result;
+        }
+        Iterator<?> iterator = (Iterator<?>) result;
+        try {
+            List<Object> rows = new ArrayList<>();
+            iterator.forEachRemaining(rows::add);
+            return rows;
+        } finally {
+            close(iterator);
+        }
+    }
+
+    /**
+     * 在读取线程中开始读取服务端流，队列满时暂停读取
+     *
+     * @throws ServiceException 读取线程已满
+     */
+    private ServerStreamPull startPull(Iterator<?> iterator) {
+        ServerStreamPull streamPull = new ServerStreamPull(iterator,
+                new ArrayBlockingQueue<>(streamingProperties.getQueueCapacity()));
+        try {
+            // 读取线程沿用请求的gRPC Context，后端调用的截止时间和取消随之传递
+            streamPull.producer = pullExecutor.submit(Context.current().wrap(streamPull::run));
+        } catch (RejectedExecutionException e) {
+            close(iterator);
+            logger.warn("Streaming pull threads exhausted, max: {}", streamingProperties.getPullThreads());
+            throw new ServiceException(PubConstants.ERROR_CONCURRENCY_LIMIT_EXCEEDED, "流式响应繁忙，请稍后重试");
+        }
+        return streamPull;
+    }
+
+    /**
+     * 从读取队列写出服务端流，定时写出缓冲区
+     *
+     * @return 结果码
+     */
+    private String pull(ServerStreamPull streamPull, RowSink sink) throws IOException {
+        BlockingQueue<Object> queue = streamPull.queue;
+        try {
+            while (true) {
+                Object item = queue.poll(sink.millisUntilFlush(), TimeUnit.MILLISECONDS);
+                if (item == null) {
+                    sink.flushIfDue();
+                } else if (item == END) {
+                    sink.finish();
+                    return BasicConstants.TRADE_SUCCESS;
+                } else if (item instanceof PullFailure) {
+                    RuntimeException error = ((PullFailure) item).error;
+                    logger.error("Server stream failed after {} rows", sink.rows, error);
+                    return sink.fail(error);
+                } else {
+                    sink.row(item == NULL_ROW ? null : item);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Streaming interrupted", e);
+        } finally {
+            streamPull.cancel();
+        }
+    }
+
+    private static void close(Iterator<?> iterator) {
+        if (iterator instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) iterator).close();
+            } catch (Exception e) {
+                logger.warn("Close server stream failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 一次服务端流的读取，读取线程写入队列，请求线程消费
+     */
+    private static final class ServerStreamPull {
+
+        private final Iterator<?> iterator;
+
+        private final BlockingQueue<Object> queue;
+
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        private Future<?> producer;
+
+        ServerStreamPull(Iterator<?> iterator, BlockingQueue<Object> queue) {
+            this.iterator = iterator;
+            this.queue = queue;
+        }
+
+        void run() {
+            try {
+                while (!cancelled.get() && iterator.hasNext()) {
+                    Object row = iterator.next();
+                    queue.put(row == null ? NULL_ROW : row);
+                }
+                queue.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                try {
+                    queue.put(new PullFailure(e));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        /**
+         * 停止读取并关闭服务端流，流已读完时关闭不改变结果
+         */
+        void cancel() {
+            cancelled.set(true);
+            producer.cancel(true);
+            close(iterator);
+        }
+    }
+
+    /**
+     * 服务端流读取失败
+     */
+    private static final class PullFailure {
+
+        private final RuntimeException error;
+
+        PullFailure(RuntimeException error) {
+            this.error = error;
+        }
+    }
+
+    /**
+     * 一次流式响应的写出状态，只在请求线程使用
+     */
+    private final class RowSink {
+
+        private final HttpServletResponse response;
+
+        private final StreamingFormat format;
+
+        private final RequestTimeline timeline;
+
+        private final boolean maskRows = streamingProperties.isMaskRows();
+
+        private final int flushBytes = streamingProperties.getFlushBytes();
+
+        private final long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(streamingProperties.getFlushIntervalMillis());
+
+        private final ByteArrayOutputStream buffer;
+
+        private final JSONWriter.Context context = envelopeWriter.newWriteContext();
+
+        /** 最近一行的类型和写出器，列表中的行类型通常相同 */
+        private Class<?> rowType;
+
+        private ObjectWriter<?> rowWriter;
+
+        private OutputStream out;
+
+        private long lastFlushNanos = System.nanoTime();
+
+        private long rows;
+
+        RowSink(HttpServletResponse response, StreamingFormat format, RequestTimeline timeline) {
+            this.response = response;
+            this.format = format;
+            this.timeline = timeline;
+            this.buffer = new ByteArrayOutputStream(flushBytes + 1024);
+        }
+
+        void row(Object row) throws IOException {
+            if (format == StreamingFormat.JSON_ARRAY) {
+                if (rows == 0) {
+                    buffer.write(ARRAY_START, 0, ARRAY_START.length);
+                } else {
+                    buffer.write(',');
+                }
+            }
+            if (maskRows && row != null) {
+                long maskStart = System.nanoTime();
+                DataMaskEvent maskEvent = new DataMaskEvent();
+                maskEvent.begin();
+                Object unmasked = row;
+                row = NpcsDataMaskUtil.doDataMask(row);
+                maskEvent.finish(unmasked);
+                timeline.record(RequestPhase.MASK, maskStart);
+            }
+            if (row != null && row.getClass() != rowType) {
+                rowType = row.getClass();
+                rowWriter = envelopeWriter.resolveWriter(rowType);
+            }
+            envelopeWriter.writeValue(row, rowWriter, context, buffer);
+            if (format == StreamingFormat.NDJSON) {
+                buffer.write('\n');
+            }
+            rows++;
+            if (buffer.size() >= flushBytes) {
+                flush();
+            } else {
+                flushIfDue();
+            }
+        }
+
+        /**
+         * 距下次定时写出的等待时间，至少1毫秒
+         */
+        long millisUntilFlush() {
+            long remaining = flushIntervalNanos - (System.nanoTime() - lastFlushNanos);
+            return Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining));
+        }
+
+        void flushIfDue() throws IOException {
+            if (System.nanoTime() - lastFlushNanos >= flushIntervalNanos) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            if (buffer.size() > 0) {
+                buffer.writeTo(out());
+                buffer.reset();
+            }
+            if (out != null) {
+                out.flush();
+            }
+            lastFlushNanos = System.nanoTime();
+        }
+
+        void finish() throws IOException {
+            if (format == StreamingFormat.JSON_ARRAY) {
+                if (rows == 0) {
+                    buffer.write(ARRAY_START, 0, ARRAY_START.length);
+                }
+                buffer.write(ARRAY_END, 0, ARRAY_END.length);
+            } else {
+                writeStatus(BasicConstants.TRADE_SUCCESS, null);
+            }
+            flush();
+        }
+
+        /**
+         * 写出错误信息
+         * JSON_ARRAY格式尚未写出任何内容时改为写出普通的错误Result
+         *
+         * @return 错误码
+         */
+        String fail(RuntimeException error) throws IOException {
+            String code = error instanceof ServiceException
+                    ? ((ServiceException) error).getCode() : PubConstants.ERROR_INVOKE_EXCEPTION;
+            String msg = error.getLocalizedMessage();
+            if (format == StreamingFormat.NDJSON) {
+                writeStatus(code, msg);
+            } else if (out == null) {
+                Result<Object> result = new Result<>();
+                result.setCode(code);
+                result.setMsg(msg);
+                buffer.reset();
+                envelopeWriter.encode(result, buffer);
+            } else {
+                buffer.write(ERROR_PREFIX, 0, ERROR_PREFIX.length);
+                writeCodeAndMessage(code, msg);
+                buffer.write(ERROR_END, 0, ERROR_END.length);
+            }
+            flush();
+            return code;
+        }
+
+        /**
+         * 写出行时出错(如行序列化失败)，尽量写出错误信息
+         */
+        String failQuietly(RuntimeException error) {
+            try {
+                return fail(error);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Write streaming error trailer failed: {}", e.getMessage());
+                return error instanceof ServiceException
+                        ? ((ServiceException) error).getCode() : PubConstants.ERROR_INVOKE_EXCEPTION;
+            }
+        }
+
+        private void writeStatus(String code, String msg) {
+            buffer.write(STATUS_PREFIX, 0, STATUS_PREFIX.length);
+            writeCodeAndMessage(code, msg);
+            buffer.write(ROWS_PREFIX, 0, ROWS_PREFIX.length);
+            byte[] count = Long.toString(rows).getBytes(StandardCharsets.US_ASCII);
+            buffer.write(count, 0, count.length);
+            buffer.write('}');
+            buffer.write('\n');
+        }
+
+        private void writeCodeAndMessage(String code, String msg) {
+            byte[] encodedCode = envelopeWriter.encodeCode(code);
+            buffer.write(encodedCode, 0, encodedCode.length);
+            buffer.write(MSG_PREFIX, 0, MSG_PREFIX.length);
+            byte[] encodedMsg = envelopeWriter.encodeMessage(msg);
+            buffer.write(encodedMsg, 0, encodedMsg.length);
+        }
+
+        /**
+         * 第一次写出时获取响应流，此后响应头已提交
+         */
+        private OutputStream out() throws IOException {
+            if (out == null) {
+                out = response.getOutputStream();
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.changjiang.bff.aspect;
+
+import com.changjiang.bff.annotation.ConcurrentRequestIntercept;
+import com.changjiang.bff.config.CallerIdentityProperties;
+import com.changjiang.bff.config.ConcurrentInterceptProperties;
+import com.changjiang.bff.config.StreamingResponseProperties;
+import com.changjiang.bff.constants.BasicConstants;
+import com.changjiang.bff.constants.PubConstants;
+import com.changjiang.bff.core.ApiScanCompletedEvent;
+import com.changjiang.bff.core.ServiceApiInfo;
+import com.changjiang.bff.enums.DuplicateRequestMode;
+import com.changjiang.bff.exception.ServiceException;
+import com.changjiang.bff.object.response.Result;
+import com.changjiang.bff.util.CallerIdResolver;
+import com.changjiang.bff.web.StreamingResponseWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ConcurrentRequestInterceptAspect对并发重复请求的拒绝和合并
+ */
+class ConcurrentRequestInterceptAspectTest {
+
+    private static final String USER_HEADER = "X-User-Id";
+
+    private static final String SUBMIT = "/changjiang/elearn/order/submit";
+
+    private static final String EXPORT = "/changjiang/elearn/order/export";
+
+    private final ConcurrentInterceptProperties interceptProperties = new ConcurrentInterceptProperties();
+
+    private final OrderEndpoint target = new OrderEndpoint();
+
+    private OrderEndpoint endpoint;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        CallerIdentityProperties identityProperties = new CallerIdentityProperties();
+        identityProperties.setUserIdHeader(USER_HEADER);
+        CallerIdResolver callerIdResolver = new CallerIdResolver();
+        ReflectionTestUtils.setField(callerIdResolver, "identityProperties", identityProperties);
+
+        StreamingResponseWriter streamingResponseWriter = new StreamingResponseWriter();
+        ReflectionTestUtils.setField(streamingResponseWriter, "streamingProperties", new StreamingResponseProperties());
+        streamingResponseWriter.onApiScanCompleted(new ApiScanCompletedEvent(this, Collections.singletonMap(
+                EXPORT.replace("/changjiang", ""), ServiceApiInfo.builder().responseType(Iterator.class).build())));
+
+        ConcurrentRequestInterceptAspect aspect = new ConcurrentRequestInterceptAspect();
+        ReflectionTestUtils.setField(aspect, "interceptProperties", interceptProperties);
+        ReflectionTestUtils.setField(aspect, "callerIdResolver", callerIdResolver);
+        ReflectionTestUtils.setField(aspect, "streamingResponseWriter", streamingResponseWriter);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        endpoint = factory.getProxy();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        target.release.countDown();
+        executor.shutdownNow();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void duplicateIsRejectedWhileFirstIsInFlight() throws Exception {
+        Future<Result<Object>> first = submitInFlight("u1", SUBMIT, () -> endpoint.submit("{\"orderId\":1}"));
+
+        bind("u1", SUBMIT);
+        assertEquals(PubConstants.ERROR_DUPLICATE_REQUEST, endpoint.submit("{\"orderId\":1}").getCode());
+        assertEquals(1, target.invocations.get());
+
+        target.release.countDown();
+        assertEquals(BasicConstants.TRADE_SUCCESS, first.get(5, TimeUnit.SECONDS).getCode());
+        // 完成后立即移除登记，之后的相同请求正常处理
+        assertEquals(BasicConstants.TRADE_SUCCESS, endpoint.submit("{\"orderId\":1}").getCode());
+    }
+
+    @Test
+    void differentBodyOrUserIsNotDuplicate() throws Exception {
+        Future<Result<Object>> first = submitInFlight("u1", SUBMIT, () -> endpoint.submit("{\"orderId\":1}"));
+        target.entered = new CountDownLatch(2);
+
+        Future<Result<Object>> otherBody = executor.submit(() -> {
+            bind("u1", SUBMIT);
+            return endpoint.submit("{\"orderId\":2}");
+        });
+        Future<Result<Object>> otherUser = executor.submit(() -> {
+            bind("u2", SUBMIT);
+            return endpoint.submit("{\"orderId\":1}");
+        });
+        assertTrue(target.entered.await(5, TimeUnit.SECONDS));
+
+        target.release.countDown();
+        assertEquals(BasicConstants.TRADE_SUCCESS, first.get(5, TimeUnit.SECONDS).getCode());
+        assertEquals(BasicConstants.TRADE_SUCCESS, otherBody.get(5, TimeUnit.SECONDS).getCode());
+        assertEquals(BasicConstants.TRADE_SUCCESS, otherUser.get(5, TimeUnit.SECONDS).getCode());
+    }
+
+    @Test
+    void requestWithoutUserIsNotIntercepted() throws Exception {
+        Future<Result<Object>> first = submitInFlight(null, SUBMIT, () -> endpoint.submit("{\"orderId\":1}"));
+        target.entered = new CountDownLatch(1);
+
+        Future<Result<Object>> second = executor.submit(() -> {
+            bind(null, SUBMIT);
+            return endpoint.submit("{\"orderId\":1}");
+        });
+        assertTrue(target.entered.await(5, TimeUnit.SECONDS));
+
+        target.release.countDown();
+        assertEquals(BasicConstants.TRADE_SUCCESS, first.get(5, TimeUnit.SECONDS).getCode());
+        assertEquals(BasicConstants.TRADE_SUCCESS, second.get(5, TimeUnit.SECONDS).getCode());
+    }
+
+    @Test
+    void rejectionIsThrownWhenResultCannotCarryCode() throws Exception {
+        Future<String> first = submitInFlight("u1", SUBMIT, () -> endpoint.submitCode("{\"orderId\":1}"));
+
+        bind("u1", SUBMIT);
+        ServiceException e = assertThrows(ServiceException.class, () -> endpoint.submitCode("{\"orderId\":1}"));
+        assertEquals(PubConstants.ERROR_DUPLICATE_REQUEST, e.getCode());
+
+        target.release.countDown();
+        assertEquals(BasicConstants.TRADE_SUCCESS, first.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void joinedDuplicateReceivesResultOfFirst() throws Exception {
+        Future<Result<Object>> first = submitInFlight("u1", SUBMIT, () -> endpoint.join("{\"orderId\":1}"));
+        AtomicReference<Thread> joiner = new AtomicReference<>();
+        Future<Result<Object>> joined = executor.submit(() -> {
+            joiner.set(Thread.currentThread());
+            bind("u1", SUBMIT);
+            return endpoint.join("{\"orderId\":1}");
+        });
+        awaitJoining(joiner);
+
+        target.release.countDown();
+
+        Result<Object> result = first.get(5, TimeUnit.SECONDS);
+        assertSame(result, joined.get(5, TimeUnit.SECONDS));
+        assertEquals(1, target.invocations.get());
+    }
+
+    @Test
+    void joinTimeoutIsRejected() throws Exception {
+        interceptProperties.setJoinTimeoutMillis(100);
+        Future<Result<Object>> first = submitInFlight("u1", SUBMIT, () -> endpoint.join("{\"orderId\":1}"));
+
+        bind("u1", SUBMIT);
+        long start = System.nanoTime();
+        Result<Object> joined = endpoint.join("{\"orderId\":1}");
+
+        assertEquals(PubConstants.ERROR_DUPLICATE_REQUEST, joined.getCode());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertFalse(first.isDone());
+        target.release.countDown();
+        assertEquals(BasicConstants.TRADE_SUCCESS, first.get(5, TimeUnit.SECONDS).getCode());
+        assertEquals(1, target.invocations.get());
+    }
+
+    @Test
+    void joinOnStreamedRouteIsRejected() throws Exception {
+        Future<Result<Object>> first = submitInFlight("u1", EXPORT, () -> endpoint.join("{\"month\":\"2024-01\"}"));
+
+        bind("u1", EXPORT);
+        long start = System.nanoTime();
+        Result<Object> joined = endpoint.join("{\"month\":\"2024-01\"}");
+
+        // 先到的请求直接写出响应，没有可共享的结果，不等待
+        assertEquals(PubConstants.ERROR_DUPLICATE_REQUEST, joined.getCode());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertFalse(first.isDone());
+        target.release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 在其他线程发起请求，等待其进入被拦截的方法
+     */
+    private <T> Future<T> submitInFlight(String userId, String uri, Callable<T> call)
+            throws InterruptedException {
+        Future<T> future = executor.submit(() -> {
+            bind(userId, uri);
+            return call.call();
+        });
+        assertTrue(target.entered.await(5, TimeUnit.SECONDS), "first request did not start");
+        return future;
+    }
+
+    /**
+     * 等待重复请求进入对先到请求结果的限时等待
+     */
+    private static void awaitJoining(AtomicReference<Thread> joiner) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            Thread thread = joiner.get();
+            if (thread != null && thread.getState() == Thread.State.TIMED_WAITING) {
+                return;
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("duplicate request did not join");
+    }
+
+    private static void bind(String userId, String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        if (userId != null) {
+            request.addHeader(USER_HEADER, userId);
+        }
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    /**
+     * 被拦截的接口，调用在release前阻塞
+     */
+    public static class OrderEndpoint {
+
+        final AtomicInteger invocations = new AtomicInteger();
+
+        volatile CountDownLatch entered = new CountDownLatch(1);
+
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @ConcurrentRequestIntercept
+        public Result<Object> submit(String body) throws InterruptedException {
+            return handle(body);
+        }
+
+        @ConcurrentRequestIntercept
+        public String submitCode(String body) throws InterruptedException {
+            return handle(body).getCode();
+        }
+
+        @ConcurrentRequestIntercept(mode = DuplicateRequestMode.JOIN)
+        public Result<Object> join(String body) throws InterruptedException {
+            return handle(body);
+        }
+
+        private Result<Object> handle(String body) throws InterruptedException {
+            invocations.incrementAndGet();
+            entered.countDown();
+            release.await();
+            Result<Object> result = new Result<>();
+            result.setCode(BasicConstants.TRADE_SUCCESS);
+            result.setData(body);
+            return result;
+        }
+    }
+}
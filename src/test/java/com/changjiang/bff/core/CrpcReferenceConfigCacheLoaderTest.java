@@ -0,0 +1,284 @@
+package com.changjiang.bff.core;
+
+import com.changjiang.bff.annotation.ServiceConfig;
+import com.changjiang.bff.config.CrpcProperties;
+import com.changjiang.bff.entity.ServiceInfo;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CrpcReferenceConfigCacheLoader的单次创建保证和分批预热
+ */
+class CrpcReferenceConfigCacheLoaderTest {
+
+    private static final String REGISTRY_ID = "elearn";
+
+    private static final String ADDRESS = "10.0.0.1:8848";
+
+    private static final String PROTOCOL = "nacos";
+
+    private final CrpcProperties crpcProperties = new CrpcProperties();
+
+    private final AtomicReference<Thread> refreshThread = new AtomicReference<>();
+
+    private TestLoader loader;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        loader = new TestLoader();
+        ReflectionTestUtils.setField(loader, "crpcProperties", crpcProperties);
+        ReflectionTestUtils.setField(loader, "npcgwPropertyUtils", new RegistryPropertyUtils());
+        loader.init();
+        // 换成记录线程的刷新线程池，用于判断刷新是否在等待创建结果
+        loader.destroy();
+        ReflectionTestUtils.setField(loader, "refreshExecutor", Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "crpc-proxy-refresh");
+            thread.setDaemon(true);
+            refreshThread.set(thread);
+            return thread;
+        }));
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        loader.release.countDown();
+        loader.clearCache();
+        loader.destroy();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentLoadReloadAndLoadAllCreateProxyOnce() throws Exception {
+        loader.release = new CountDownLatch(1);
+        ServiceInfo key = serviceInfo(CourseService.class);
+
+        Future<Object> loaded = executor.submit(() -> loader.getProxy(key));
+        assertTrue(loader.entered.await(5, TimeUnit.SECONDS), "load did not start");
+
+        AtomicReference<Thread> loadAllThread = new AtomicReference<>();
+        Future<Map<ServiceInfo, Object>> loadedAll = executor.submit(() -> {
+            loadAllThread.set(Thread.currentThread());
+            return loader.loadAll(Collections.singletonList(key));
+        });
+        ListenableFuture<Object> reloaded = loader.reload(key, new Object());
+        awaitWaiting(loadAllThread);
+        awaitWaiting(refreshThread);
+
+        loader.release.countDown();
+
+        Object proxy = loaded.get(5, TimeUnit.SECONDS);
+        assertSame(proxy, loadedAll.get(5, TimeUnit.SECONDS).get(key));
+        assertSame(proxy, reloaded.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loader.creations.get());
+        assertEquals(1, loader.maxConcurrent.get());
+    }
+
+    @Test
+    void reloadAfterCreationBuildsNewProxy() throws Exception {
+        ServiceInfo key = serviceInfo(CourseService.class);
+        Object first = loader.getProxy(key);
+
+        Object second = loader.reload(key, first).get(5, TimeUnit.SECONDS);
+
+        assertNotSame(first, second);
+        assertEquals(2, loader.creations.get());
+    }
+
+    @Test
+    void prewarmLoadsInBatchesThroughLoadAll() throws Exception {
+        crpcProperties.setProxyCachePrewarmBatchSize(2);
+
+        loader.prewarm(apiInfos(CourseService.class, OrderService.class, ReportService.class, PaymentService.class));
+
+        // PaymentService所在注册中心未配置，不预热
+        assertEquals(Arrays.asList(2, 1), loader.batches);
+        assertEquals(3, loader.getCacheSize());
+        assertEquals(3, loader.creations.get());
+
+        loader.getProxy(serviceInfo(OrderService.class));
+        assertEquals(3, loader.creations.get());
+    }
+
+    @Test
+    void unavailableProxyIsNotCachedWithItsBatch() throws Exception {
+        crpcProperties.setProxyCachePrewarmBatchSize(2);
+        loader.unavailable.add(CourseService.class);
+
+        loader.prewarm(apiInfos(CourseService.class, OrderService.class, ReportService.class));
+
+        assertEquals(2, loader.getCacheSize());
+        assertNull(loader.getProxy(serviceInfo(CourseService.class)));
+        assertEquals(4, loader.creations.get());
+    }
+
+    @Test
+    void prewarmStopsAtTimeout() {
+        crpcProperties.setProxyCachePrewarmTimeoutSeconds(0);
+
+        loader.prewarm(apiInfos(CourseService.class, OrderService.class));
+
+        assertTrue(loader.batches.isEmpty());
+        assertEquals(0, loader.getCacheSize());
+    }
+
+    private static List<ServiceApiInfo> apiInfos(Class<?>... interfaces) {
+        List<ServiceApiInfo> apiInfos = new ArrayList<>();
+        for (Class<?> interfaceClass : interfaces) {
+            Method method = interfaceClass.getMethods()[0];
+            apiInfos.add(ServiceApiInfo.builder()
+                    .method(method)
+                    .serviceConfig(method.getAnnotation(ServiceConfig.class))
+                    .build());
+        }
+        return apiInfos;
+    }
+
+    private static ServiceInfo serviceInfo(Class<?> interfaceClass) {
+        ServiceInfo serviceInfo = new ServiceInfo();
+        serviceInfo.setInterfaceClass(interfaceClass);
+        serviceInfo.setAddress(ADDRESS);
+        serviceInfo.setProtocol(PROTOCOL);
+        return serviceInfo;
+    }
+
+    /**
+     * 等待线程阻塞在共享创建结果或ReferenceConfig.get()上
+     */
+    private static void awaitWaiting(AtomicReference<Thread> threadRef) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            Thread thread = threadRef.get();
+            if (thread != null && thread.getState() == Thread.State.WAITING) {
+                return;
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("thread did not wait for proxy creation");
+    }
+
+    /**
+     * 用计数的ReferenceConfig代替RPC框架，记录loadAll的批次
+     */
+    private static final class TestLoader extends CrpcReferenceConfigCacheLoader {
+
+        final AtomicInteger creations = new AtomicInteger();
+
+        final AtomicInteger concurrent = new AtomicInteger();
+
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+
+        final CountDownLatch entered = new CountDownLatch(1);
+
+        final Set<Class<?>> unavailable = ConcurrentHashMap.newKeySet();
+
+        final List<Integer> batches = Collections.synchronizedList(new ArrayList<>());
+
+        volatile CountDownLatch release = new CountDownLatch(0);
+
+        @Override
+        public ReferenceConfig getRpcProxy(ServiceInfo serviceInfo) {
+            return new ReferenceConfig<Object>() {
+                @Override
+                public Object get() {
+                    creations.incrementAndGet();
+                    maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                    try {
+                        entered.countDown();
+                        release.await();
+                        return unavailable.contains(serviceInfo.getInterfaceClass()) ? null : new Object();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException(e);
+                    } finally {
+                        concurrent.decrementAndGet();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public Map<ServiceInfo, Object> loadAll(Iterable<? extends ServiceInfo> keys) throws Exception {
+            int size = 0;
+            for (ServiceInfo ignored : keys) {
+                size++;
+            }
+            batches.add(size);
+            return super.loadAll(keys);
+        }
+    }
+
+    /**
+     * 只配置elearn注册中心
+     */
+    private static final class RegistryPropertyUtils extends NpcsgptwPropertyUtils {
+
+        RegistryPropertyUtils() {
+            super(null);
+        }
+
+        @Override
+        public CrcpBFFConfig getBackupProperties(String backupAlias) {
+            return null;
+        }
+
+        @Override
+        public Map<String, CrcpBFFConfig> getPropertiesAppGroup(String regiPrefix) {
+            CrcpBFFConfig registry = new CrcpBFFConfig();
+            registry.setRegistryId(REGISTRY_ID);
+            registry.setAddress(ADDRESS);
+            registry.setProtocol(PROTOCOL);
+            Map<String, CrcpBFFConfig> registries = new HashMap<>();
+            registries.put(REGISTRY_ID, registry);
+            return registries;
+        }
+    }
+
+    public interface CourseService {
+        @ServiceConfig(url = "/elearn/course/query", registryId = REGISTRY_ID)
+        Object query(Object request);
+    }
+
+    public interface OrderService {
+        @ServiceConfig(url = "/elearn/order/query", registryId = REGISTRY_ID)
+        Object query(Object request);
+    }
+
+    public interface ReportService {
+        @ServiceConfig(url = "/elearn/report/query", registryId = REGISTRY_ID)
+        Object query(Object request);
+    }
+
+    public interface PaymentService {
+        @ServiceConfig(url = "/pay/payment/query", registryId = "pay")
+        Object query(Object request);
+    }
+}
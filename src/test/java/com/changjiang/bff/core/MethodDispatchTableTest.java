@@ -0,0 +1,225 @@
+package com.changjiang.bff.core;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * MethodDispatchTable的重载解析、null参数、基本类型参数和解析结果缓存
+ */
+class MethodDispatchTableTest {
+
+    private final Target target = new Target();
+
+    @Test
+    void overloadWithSameArityResolvesByRuntimeType() throws Throwable {
+        assertEquals("String", call("call", "text"));
+        assertEquals("Integer", call("call", 1));
+        assertEquals("CharSequence", call("call", new StringBuilder("text")));
+        assertEquals("Object", call("call", 1L));
+        assertEquals("String,String", call("call", "a", "b"));
+    }
+
+    @Test
+    void nullArgumentPicksMostSpecificReferenceParameter() throws Throwable {
+        assertEquals("String", call("describe", (Object) null));
+    }
+
+    @Test
+    void ambiguousNullArgumentPicksFirstBySignature() throws Throwable {
+        // name(java.lang.Integer)按签名排在name(java.lang.String)之前
+        assertEquals("Integer", call("name", (Object) null));
+    }
+
+    @Test
+    void nullArgumentDoesNotMatchPrimitiveParameter() throws Throwable {
+        assertNull(lookup("primitive", (Object) null));
+        assertEquals("Integer", call("add", (Object) null));
+    }
+
+    @Test
+    void boxedArgumentMatchesPrimitiveParameter() throws Throwable {
+        assertEquals(7, call("primitive", 7));
+    }
+
+    @Test
+    void boxedParameterIsMoreSpecificThanPrimitive() throws Throwable {
+        assertEquals("Integer", call("add", 1));
+    }
+
+    @Test
+    void ambiguousPrimitiveOverloadPicksFirstBySignature() throws Throwable {
+        // pair(int,java.lang.Integer)按签名排在pair(java.lang.Integer,int)之前
+        assertEquals("int,Integer", call("pair", 1, 2));
+    }
+
+    @Test
+    void primitiveParameterDoesNotWiden() {
+        assertNull(lookup("size", 1));
+        assertNotNull(lookup("size", 1L));
+    }
+
+    @Test
+    void unknownMethodOrArityReturnsNull() {
+        assertNull(lookup("missing", "text"));
+        assertNull(lookup("call", "a", "b", "c"));
+        assertNull(lookup("primitive", "text"));
+    }
+
+    @Test
+    void noArgumentMethodAcceptsNullArgs() throws Throwable {
+        MethodDispatchTable.MethodInvoker invoker = table().lookup("none", null);
+
+        assertEquals("none", invoker.invoke(target, null));
+    }
+
+    @Test
+    void resolutionIsCachedByRuntimeTypes() {
+        MethodDispatchTable table = table();
+        Map<?, ?> resolved = resolved(table);
+        resolved.clear();
+
+        MethodDispatchTable.MethodInvoker first = table.lookup("call", new Object[]{"a"});
+        MethodDispatchTable.MethodInvoker second = table.lookup("call", new Object[]{"b"});
+        assertSame(first, second);
+        assertEquals(1, resolved.size());
+
+        table.lookup("call", new Object[]{1});
+        table.lookup("call", new Object[]{null});
+        assertEquals(3, resolved.size());
+    }
+
+    @Test
+    void unresolvableCallIsCachedAsNotFound() {
+        MethodDispatchTable table = table();
+        Map<?, ?> resolved = resolved(table);
+        resolved.clear();
+
+        assertNull(table.lookup("add", new Object[]{"text"}));
+        assertNull(table.lookup("add", new Object[]{"text"}));
+        assertEquals(1, resolved.size());
+    }
+
+    @Test
+    void singleCandidateIsNotCached() {
+        MethodDispatchTable table = table();
+        Map<?, ?> resolved = resolved(table);
+        resolved.clear();
+
+        table.lookup("primitive", new Object[]{1});
+
+        assertEquals(0, resolved.size());
+    }
+
+    @Test
+    void tableIsSharedPerClass() {
+        assertSame(table(), MethodDispatchTable.forClass(Target.class));
+    }
+
+    @Test
+    void targetExceptionIsThrownUnwrapped() {
+        MethodDispatchTable.MethodInvoker invoker = lookup("fail", "boom");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> invoker.invoke(target, new Object[]{"boom"}));
+        assertEquals("boom", e.getMessage());
+    }
+
+    private Object call(String methodName, Object... args) throws Throwable {
+        MethodDispatchTable.MethodInvoker invoker = lookup(methodName, args);
+        assertNotNull(invoker, methodName);
+        return invoker.invoke(target, args);
+    }
+
+    private static MethodDispatchTable.MethodInvoker lookup(String methodName, Object... args) {
+        return table().lookup(methodName, args);
+    }
+
+    private static MethodDispatchTable table() {
+        return MethodDispatchTable.forClass(Target.class);
+    }
+
+    private static Map<?, ?> resolved(MethodDispatchTable table) {
+        return (Map<?, ?>) ReflectionTestUtils.getField(table, "resolved");
+    }
+
+    /**
+     * 泛化调用的目标代理
+     */
+    public static class Target {
+
+        public String call(String value) {
+            return "String";
+        }
+
+        public String call(Integer value) {
+            return "Integer";
+        }
+
+        public String call(CharSequence value) {
+            return "CharSequence";
+        }
+
+        public String call(Object value) {
+            return "Object";
+        }
+
+        public String call(String first, String second) {
+            return "String,String";
+        }
+
+        public String describe(Object value) {
+            return "Object";
+        }
+
+        public String describe(String value) {
+            return "String";
+        }
+
+        public String name(String value) {
+            return "String";
+        }
+
+        public String name(Integer value) {
+            return "Integer";
+        }
+
+        public String add(int value) {
+            return "int";
+        }
+
+        public String add(Integer value) {
+            return "Integer";
+        }
+
+        public String pair(int first, Integer second) {
+            return "int,Integer";
+        }
+
+        public String pair(Integer first, int second) {
+            return "Integer,int";
+        }
+
+        public long size(long value) {
+            return value;
+        }
+
+        public int primitive(int value) {
+            return value;
+        }
+
+        public String none() {
+            return "none";
+        }
+
+        public String fail(String message) {
+            throw new IllegalStateException(message);
+        }
+    }
+}
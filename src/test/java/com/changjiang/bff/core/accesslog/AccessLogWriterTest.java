@@ -0,0 +1,170 @@
+package com.changjiang.bff.core.accesslog;
+
+import com.changjiang.bff.config.AccessLogProperties;
+import com.changjiang.bff.config.RequestResourceProperties;
+import com.changjiang.bff.constants.BasicConstants;
+import com.changjiang.bff.core.ApiScanCompletedEvent;
+import com.changjiang.bff.core.metrics.RequestTimeline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AccessLogWriter环形缓冲区的申请、丢弃和写出
+ */
+class AccessLogWriterTest {
+
+    private static final String ROUTE = "/elearn/course/query";
+
+    private final AccessLogProperties properties = new AccessLogProperties();
+
+    private AccessLogWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        properties.setSampleRate(1);
+        properties.setSlowThresholdMillis(0);
+        properties.setBufferSize(5);
+        writer = new AccessLogWriter();
+        ReflectionTestUtils.setField(writer, "accessLogProperties", properties);
+        ReflectionTestUtils.setField(writer, "resourceProperties", new RequestResourceProperties());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writer.destroy();
+    }
+
+    @Test
+    void bufferSizeIsRoundedUpToPowerOfTwo() {
+        writer.init();
+        assertEquals(8, writer.snapshot().get("bufferSize"));
+    }
+
+    @Test
+    void disabledWriterIgnoresRequests() {
+        properties.setEnabled(false);
+        writer.init();
+
+        log(BasicConstants.TRADE_SUCCESS);
+
+        Map<String, Object> snapshot = writer.snapshot();
+        assertEquals(false, snapshot.get("enabled"));
+        assertEquals(0L, snapshot.get("pending"));
+        assertEquals(0L, snapshot.get("sampledOut"));
+    }
+
+    @Test
+    void fullRingDropsNewEntriesWithoutBlocking() throws InterruptedException {
+        writer.init();
+        // 停止写日志线程，已申请的槽位不再被读取
+        writer.destroy();
+
+        for (int i = 0; i < 10; i++) {
+            log(BasicConstants.TRADE_SUCCESS);
+        }
+
+        Map<String, Object> snapshot = writer.snapshot();
+        assertEquals(8L, snapshot.get("pending"));
+        assertEquals(2L, snapshot.get("dropped"));
+        assertEquals(0L, snapshot.get("written"));
+    }
+
+    @Test
+    void concurrentProducersAreAllWrittenOrDropped() throws Exception {
+        writer.init();
+        int threads = 4;
+        int perThread = 100;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread producer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int j = 0; j < perThread; j++) {
+                    log(BasicConstants.TRADE_SUCCESS);
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        start.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        Map<String, Object> snapshot = awaitDrained();
+        assertEquals((long) threads * perThread, (long) snapshot.get("written") + (long) snapshot.get("dropped"));
+        assertTrue((long) snapshot.get("written") >= 8, snapshot.toString());
+    }
+
+    @Test
+    void failedRequestsBypassSampling() throws Exception {
+        properties.setSampleRate(0);
+        properties.setSlowThresholdMillis(60_000);
+        writer.init();
+
+        log(BasicConstants.TRADE_SUCCESS);
+        log("999999");
+
+        Map<String, Object> snapshot = awaitDrained();
+        assertEquals(1L, snapshot.get("sampledOut"));
+        assertEquals(1L, snapshot.get("written"));
+    }
+
+    @Test
+    void routeSampleRateOverridesDefault() throws Exception {
+        properties.setSampleRate(0);
+        properties.setSlowThresholdMillis(60_000);
+        properties.getRouteSampleRates().put("/elearn/**", 1.0);
+        writer.init();
+        writer.onApiScanCompleted(new ApiScanCompletedEvent(this, Collections.singletonMap(ROUTE, null)));
+
+        log(BasicConstants.TRADE_SUCCESS);
+
+        Map<String, Object> snapshot = awaitDrained();
+        assertEquals(0L, snapshot.get("sampledOut"));
+        assertEquals(1L, snapshot.get("written"));
+    }
+
+    private void log(String resultCode) {
+        RequestTimeline timeline = RequestTimeline.begin();
+        timeline.route(ROUTE, "elearn");
+        timeline.resultCode(resultCode);
+        timeline.end();
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/changjiang" + ROUTE);
+        writer.log(timeline, request, new MockHttpServletResponse());
+        timeline.release();
+    }
+
+    /**
+     * 等待写日志线程写出全部已申请的槽位
+     */
+    private Map<String, Object> awaitDrained() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        Map<String, Object> snapshot = writer.snapshot();
+        while ((long) snapshot.get("pending") > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+            snapshot = writer.snapshot();
+        }
+        assertEquals(0L, snapshot.get("pending"), snapshot.toString());
+        return snapshot;
+    }
+}
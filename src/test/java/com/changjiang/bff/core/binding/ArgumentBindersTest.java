@@ -0,0 +1,177 @@
+package com.changjiang.bff.core.binding;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.changjiang.bff.util.NpcsSerializerUtil;
+import lombok.Data;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ArgumentBinders参数绑定
+ */
+class ArgumentBindersTest {
+
+    @BeforeAll
+    static void initSerializer() {
+        new NpcsSerializerUtil().init();
+    }
+
+    @Test
+    void entityIsBoundFromJsonObject() {
+        JSONObject json = new JSONObject();
+        json.put("id", "U1");
+        json.put("name", "用户1");
+        json.put("age", 30);
+
+        UserDto user = (UserDto) ArgumentBinders.forType(UserDto.class, UserDto.class).bind(json);
+
+        assertEquals("U1", user.getId());
+        assertEquals("用户1", user.getName());
+        assertEquals(30, user.getAge());
+    }
+
+    @Test
+    void entityIsBoundFromPlainMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", "U2");
+        map.put("age", "31");
+
+        UserDto user = (UserDto) ArgumentBinders.forType(UserDto.class, UserDto.class).bind(map);
+
+        assertEquals("U2", user.getId());
+        assertEquals(31, user.getAge());
+    }
+
+    @Test
+    void entityKeepsConvertibleFieldsWhenOneFieldCannotBeConverted() {
+        // FastJSON2和Jackson都因age无法转换而失败，按属性反射赋值时跳过age
+        JSONObject json = new JSONObject();
+        json.put("id", "U3");
+        json.put("name", "用户3");
+        json.put("age", "not-a-number");
+
+        UserDto user = (UserDto) ArgumentBinders.forType(UserDto.class, UserDto.class).bind(json);
+
+        assertEquals("U3", user.getId());
+        assertEquals("用户3", user.getName());
+        assertNull(user.getAge());
+    }
+
+    @Test
+    void entityInstanceIsPassedThrough() {
+        UserDto user = new UserDto();
+        assertSame(user, ArgumentBinders.forType(UserDto.class, UserDto.class).bind(user));
+    }
+
+    @Test
+    void listElementsAreBoundToDeclaredType() throws Exception {
+        List<?> users = (List<?>) binder("users").bind(Arrays.asList(user("U1", 20), user("U2", 21)));
+
+        assertEquals(2, users.size());
+        assertInstanceOf(UserDto.class, users.get(0));
+        assertEquals("U2", ((UserDto) users.get(1)).getId());
+        assertEquals(21, ((UserDto) users.get(1)).getAge());
+    }
+
+    @Test
+    void simpleElementsAreConverted() throws Exception {
+        List<?> ids = (List<?>) binder("ids").bind(Arrays.asList("1", 2, "3"));
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids);
+    }
+
+    @Test
+    void setKeepsOrderAndRemovesDuplicates() throws Exception {
+        Object codes = binder("codes").bind(Arrays.asList("B", "A", "B"));
+        assertInstanceOf(LinkedHashSet.class, codes);
+        assertEquals(Arrays.asList("B", "A"), Arrays.asList(((Set<?>) codes).toArray()));
+    }
+
+    @Test
+    void arrayTextIsParsedAsElementType() throws Exception {
+        List<?> users = (List<?>) binder("users").bind("[{\"id\":\"U1\",\"age\":20}]");
+        assertEquals("U1", ((UserDto) users.get(0)).getId());
+        assertEquals(Arrays.asList(1L, 2L), binder("ids").bind("[1,2]"));
+    }
+
+    @Test
+    void rawListKeepsElementsUnchanged() throws Exception {
+        List<Object> values = Arrays.asList("a", 1);
+        assertSame(values, binder("raw").bind(values));
+    }
+
+    @Test
+    void failingElementIndexIsReported() throws Exception {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> binder("ids").bind(Arrays.asList("1", "x", "3")));
+        assertTrue(e.getMessage().startsWith("第1个元素"), e.getMessage());
+    }
+
+    @Test
+    void nullElementsArePreserved() throws Exception {
+        List<?> users = (List<?>) binder("users").bind(Arrays.asList(null, user("U1", 20)));
+        assertNull(users.get(0));
+        assertEquals("U1", ((UserDto) users.get(1)).getId());
+    }
+
+    @Test
+    void nonCollectionValueIsRejected() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> binder("ids").bind(Collections.singletonMap("a", 1)));
+    }
+
+    /**
+     * Signatures中同名方法唯一参数的绑定器
+     */
+    private static ArgumentBinder binder(String method) throws Exception {
+        for (Method candidate : Signatures.class.getDeclaredMethods()) {
+            if (candidate.getName().equals(method)) {
+                return ArgumentBinders.forType(candidate.getParameterTypes()[0], candidate.getGenericParameterTypes()[0]);
+            }
+        }
+        throw new NoSuchMethodException(method);
+    }
+
+    private static Map<String, Object> user(String id, int age) {
+        Map<String, Object> user = new LinkedHashMap<>();
+        user.put("id", id);
+        user.put("age", age);
+        return user;
+    }
+
+    @SuppressWarnings({"unused", "rawtypes"})
+    interface Signatures {
+
+        void users(List<UserDto> users);
+
+        void ids(List<Long> ids);
+
+        void codes(Set<String> codes);
+
+        void raw(List raw);
+    }
+
+    @Data
+    public static class UserDto {
+
+        private String id;
+
+        private String name;
+
+        private Integer age;
+    }
+}
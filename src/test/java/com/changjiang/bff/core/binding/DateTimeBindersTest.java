@@ -0,0 +1,120 @@
+package com.changjiang.bff.core.binding;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * DateTimeBinders日期时间解析
+ */
+class DateTimeBindersTest {
+
+    private static final long EPOCH_MILLIS = 1700000000000L;
+
+    @Test
+    void commonFormatsAreParsedWithoutFormatter() {
+        assertEquals(LocalDate.of(2024, 1, 2), DateTimeBinders.parse("2024-01-02"));
+        assertEquals(LocalDate.of(2024, 1, 2), DateTimeBinders.parse("2024/01/02"));
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4), DateTimeBinders.parse("2024-01-02 03:04"));
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5), DateTimeBinders.parse("2024-01-02 03:04:05"));
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5), DateTimeBinders.parse("2024-01-02T03:04:05"));
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5), DateTimeBinders.parse(" 2024/01/02 03:04:05 "));
+    }
+
+    @Test
+    void millisAndOffsetsUseFormatter() {
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5, 120_000_000),
+                DateTimeBinders.parse("2024-01-02 03:04:05.120"));
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5, 120_000_000),
+                DateTimeBinders.parse("2024-01-02T03:04:05.12"));
+        assertEquals(OffsetDateTime.of(2024, 1, 2, 3, 4, 5, 0, ZoneOffset.ofHours(8)),
+                DateTimeBinders.parse("2024-01-02T03:04:05+08:00"));
+        assertEquals(OffsetDateTime.of(2024, 1, 2, 3, 4, 5, 0, ZoneOffset.ofHours(-5)),
+                DateTimeBinders.parse("2024-01-02 03:04:05-05:00"));
+        assertEquals(OffsetDateTime.of(2024, 1, 2, 3, 4, 5, 0, ZoneOffset.UTC),
+                DateTimeBinders.parse("2024-01-02T03:04:05Z"));
+    }
+
+    @Test
+    void epochMillisAreAcceptedAsTextAndNumber() {
+        assertEquals(Instant.ofEpochMilli(EPOCH_MILLIS), DateTimeBinders.parse(String.valueOf(EPOCH_MILLIS)));
+        assertEquals(Instant.ofEpochMilli(EPOCH_MILLIS), DateTimeBinders.parse(EPOCH_MILLIS));
+        assertEquals(Instant.ofEpochMilli(-1000), DateTimeBinders.parse("-1000"));
+    }
+
+    @Test
+    void invalidInputIsRejected() {
+        assertInvalid("");
+        assertInvalid("abc");
+        assertInvalid("2024-1-2");
+        assertInvalid("2024-01-02X03:04");
+        assertInvalid("2024-13-01");
+        assertInvalid("2024-02-30");
+        assertInvalid("2024-01-02 25:00");
+        assertInvalid("2024-01-02 03:04:05+25:00");
+    }
+
+    @Test
+    void localInputUsesSystemZone() {
+        Date date = (Date) DateTimeBinders.forType(Date.class).bind("2024-01-02 03:04:05");
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5).atZone(ZoneId.systemDefault()).toInstant(), date.toInstant());
+
+        Instant instant = (Instant) DateTimeBinders.forType(Instant.class).bind("2024-01-02");
+        assertEquals(LocalDate.of(2024, 1, 2).atStartOfDay(ZoneId.systemDefault()).toInstant(), instant);
+    }
+
+    @Test
+    void offsetInputIsConvertedToSystemZoneForLocalTypes() {
+        OffsetDateTime input = OffsetDateTime.of(2024, 1, 2, 3, 4, 5, 0, ZoneOffset.UTC);
+        LocalDateTime expected = LocalDateTime.ofInstant(input.toInstant(), ZoneId.systemDefault());
+
+        assertEquals(expected, DateTimeBinders.forType(LocalDateTime.class).bind("2024-01-02T03:04:05Z"));
+        assertEquals(expected.toLocalDate(), DateTimeBinders.forType(LocalDate.class).bind("2024-01-02T03:04:05Z"));
+        assertEquals(input.toInstant(), DateTimeBinders.forType(Instant.class).bind("2024-01-02T03:04:05Z"));
+    }
+
+    @Test
+    void localDateIsExpandedToStartOfDay() {
+        assertEquals(LocalDateTime.of(2024, 1, 2, 0, 0), DateTimeBinders.forType(LocalDateTime.class).bind("2024-01-02"));
+        assertEquals(LocalDate.of(2024, 1, 2), DateTimeBinders.forType(LocalDate.class).bind("2024-01-02 23:59:59"));
+    }
+
+    @Test
+    void offsetDateTimeKeepsParsedOffset() {
+        OffsetDateTime expected = OffsetDateTime.of(2024, 1, 2, 3, 4, 5, 0, ZoneOffset.ofHours(8));
+        assertEquals(expected, DateTimeBinders.forType(OffsetDateTime.class).bind("2024-01-02T03:04:05+08:00"));
+    }
+
+    @Test
+    void instancesOfTargetTypeArePassedThrough() {
+        Date date = new Date(EPOCH_MILLIS);
+        assertSame(date, DateTimeBinders.forType(Date.class).bind(date));
+        LocalDate localDate = LocalDate.of(2024, 1, 2);
+        assertSame(localDate, DateTimeBinders.forType(LocalDate.class).bind(localDate));
+        assertEquals(new Date(EPOCH_MILLIS), DateTimeBinders.forType(Date.class).bind(Instant.ofEpochMilli(EPOCH_MILLIS)));
+    }
+
+    @Test
+    void unsupportedTypesHaveNoBinder() {
+        assertTrue(DateTimeBinders.isDateTimeType(LocalDateTime.class));
+        assertFalse(DateTimeBinders.isDateTimeType(String.class));
+        assertNull(DateTimeBinders.forType(String.class));
+    }
+
+    private static void assertInvalid(String text) {
+        assertThrows(IllegalArgumentException.class, () -> DateTimeBinders.parse(text), text);
+    }
+}
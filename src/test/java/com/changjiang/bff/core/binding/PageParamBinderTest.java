@@ -0,0 +1,222 @@
+package com.changjiang.bff.core.binding;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.changjiang.bff.core.binding.ArgumentBindersTest.UserDto;
+import com.changjiang.bff.entity.PageResult;
+import com.changjiang.bff.util.NpcsSerializerUtil;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * PageParamBinder分页参数识别绑定与PageResultAdapter分页结果适配
+ */
+class PageParamBinderTest {
+
+    @BeforeAll
+    static void initSerializer() {
+        new NpcsSerializerUtil().init();
+    }
+
+    @Test
+    void pageTypeIsRecognizedByStructure() {
+        assertNotNull(PageParamBinder.compile(JsonPageParam.class));
+        assertNotNull(PageParamBinder.compile(TypedPageParam.class));
+        assertInstanceOf(PageParamBinder.class, ArgumentBinders.forType(TypedPageParam.class, TypedPageParam.class));
+    }
+
+    @Test
+    void typeWithOtherWritablePropertiesIsNotPageType() {
+        assertNull(PageParamBinder.compile(SortedPageParam.class));
+        assertNull(PageParamBinder.compile(PublicFieldPageParam.class));
+        assertNull(PageParamBinder.compile(UserDto.class));
+    }
+
+    @Test
+    void typeWithOtherWritablePropertiesIsBoundAsEntity() {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("pageNum", 2);
+        params.put("pageSize", 20);
+        params.put("sort", "name");
+
+        SortedPageParam page = (SortedPageParam) ArgumentBinders.forType(SortedPageParam.class, SortedPageParam.class)
+                .bind(params);
+
+        assertEquals(2, page.getPageNum());
+        assertEquals(20, page.getPageSize());
+        assertEquals("name", page.getSort());
+    }
+
+    @Test
+    void objectDataIsKeptAsJsonObject() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("keyword", "abc");
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("pageNum", "3");
+        params.put("pageSize", 50L);
+        params.put("data", data);
+
+        JsonPageParam page = (JsonPageParam) PageParamBinder.compile(JsonPageParam.class).bind(params);
+
+        assertEquals(3, page.getPageNum());
+        assertEquals(50, page.getPageSize());
+        assertInstanceOf(JSONObject.class, page.getData());
+        assertEquals("abc", ((JSONObject) page.getData()).getString("keyword"));
+    }
+
+    @Test
+    void declaredDataTypeIsConverted() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", "U1");
+        data.put("age", 20);
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("data", data);
+
+        TypedPageParam page = (TypedPageParam) PageParamBinder.compile(TypedPageParam.class).bind(params);
+
+        assertEquals(1, page.getPageNum());
+        assertEquals(10, page.getPageSize());
+        assertEquals("U1", page.getData().getId());
+        assertEquals(20, page.getData().getAge());
+    }
+
+    @Test
+    void missingDataBindsNullAndNonObjectIsRejected() {
+        PageParamBinder binder = PageParamBinder.compile(JsonPageParam.class);
+        assertNull(binder.bind(new LinkedHashMap<>()));
+        assertThrows(IllegalArgumentException.class, () -> binder.bind("page"));
+    }
+
+    @Test
+    void pageResultTypeIsRecognizedByGetters() {
+        assertNotNull(PageResultAdapter.forClass(BackendPage.class));
+        assertNotNull(PageResultAdapter.forClass(PageResult.class));
+        assertNull(PageResultAdapter.forClass(UserDto.class));
+        assertNull(PageResultAdapter.forClass(JsonPageParam.class));
+    }
+
+    @Test
+    void pageResultIsConverted() {
+        BackendPage page = new BackendPage();
+        page.setContent(new LinkedHashSet<>(Arrays.asList("a", "b")));
+        page.setTotal(42);
+        page.setPageNum(2);
+        page.setPageSize(2);
+        PageResultAdapter adapter = PageResultAdapter.forClass(BackendPage.class);
+
+        PageResult<Object> result = adapter.toPageResult(page, value -> value.toString().toUpperCase());
+
+        assertEquals(Arrays.asList("A", "B"), result.getContent());
+        assertEquals(42L, result.getTotal());
+        assertEquals(2, result.getPageNum());
+        assertEquals(2, result.getPageSize());
+
+        List<Object> visited = new ArrayList<>();
+        adapter.forEachContent(page, visited::add);
+        assertEquals(Arrays.asList("a", "b"), visited);
+    }
+
+    @Test
+    void listContentIsNotCopiedWithoutMapper() {
+        List<Object> content = new ArrayList<>(Arrays.asList("a", "b"));
+        PageResult<Object> page = PageResult.of(content, 2, 1, 10);
+
+        PageResult<Object> result = PageResultAdapter.forClass(PageResult.class).toPageResult(page, null);
+
+        assertSame(content, result.getContent());
+    }
+
+    @Test
+    void nullContentIsPreserved() {
+        BackendPage page = new BackendPage();
+        PageResultAdapter adapter = PageResultAdapter.forClass(BackendPage.class);
+
+        assertNull(adapter.toPageResult(page, null).getContent());
+        adapter.forEachContent(page, value -> {
+            throw new AssertionError("unexpected element " + value);
+        });
+    }
+
+    @Data
+    public static class JsonPageParam {
+
+        private int pageNum;
+
+        private int pageSize;
+
+        private Object data;
+    }
+
+    @Data
+    public static class TypedPageParam {
+
+        private Integer pageNum;
+
+        private Integer pageSize;
+
+        private UserDto data;
+    }
+
+    @Data
+    public static class SortedPageParam {
+
+        private int pageNum;
+
+        private int pageSize;
+
+        private Object data;
+
+        private String sort;
+    }
+
+    /**
+     * 只有分页字段的setter，另有公开字段
+     */
+    public static class PublicFieldPageParam {
+
+        public String sort;
+
+        @Getter
+        @Setter
+        private int pageNum;
+
+        @Getter
+        @Setter
+        private int pageSize;
+
+        @Getter
+        @Setter
+        private Object data;
+    }
+
+    /**
+     * 后端服务返回的分页对象，total为int，内容为Set
+     */
+    @Data
+    public static class BackendPage {
+
+        private LinkedHashSet<String> content;
+
+        private int total;
+
+        private int pageNum;
+
+        private int pageSize;
+    }
+}
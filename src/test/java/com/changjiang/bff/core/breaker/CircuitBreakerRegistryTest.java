@@ -0,0 +1,134 @@
+package com.changjiang.bff.core.breaker;
+
+import com.changjiang.bff.config.CircuitBreakerProperties;
+import com.changjiang.bff.config.DeadlineProperties;
+import com.changjiang.bff.constants.PubConstants;
+import com.changjiang.bff.core.ServiceApiInfo;
+import com.changjiang.bff.core.deadline.RequestDeadlineManager;
+import com.changjiang.bff.enums.CircuitState;
+import com.changjiang.bff.exception.ServiceException;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * CircuitBreakerRegistry对下游故障的判断
+ */
+class CircuitBreakerRegistryTest {
+
+    private static final String BREAKER = "registry:elearn";
+
+    private final ServiceApiInfo apiInfo = ServiceApiInfo.builder()
+            .url("/elearn/course/query").registryId("elearn").build();
+
+    private CircuitBreakerRegistry registry;
+
+    private RequestDeadlineManager deadlineManager;
+
+    private ScheduledExecutorService scheduler;
+
+    @BeforeEach
+    void setUp() {
+        CircuitBreakerProperties properties = new CircuitBreakerProperties();
+        properties.setWindowSize(10);
+        properties.setMinimumCalls(2);
+        properties.setFailureRateThreshold(50);
+        registry = new CircuitBreakerRegistry();
+        ReflectionTestUtils.setField(registry, "breakerProperties", properties);
+        registry.init();
+
+        deadlineManager = new RequestDeadlineManager();
+        ReflectionTestUtils.setField(deadlineManager, "deadlineProperties", new DeadlineProperties());
+        deadlineManager.init();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        deadlineManager.destroy();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void downstreamTimeoutsOpenBreaker() {
+        Context.CancellableContext context = deadlineManager.open("/elearn/course/query", null);
+        try {
+            context.run(() -> {
+                invokeFailing(Status.DEADLINE_EXCEEDED);
+                invokeFailing(Status.DEADLINE_EXCEEDED);
+
+                ServiceException e = assertThrows(ServiceException.class,
+                        () -> registry.invoke(apiInfo, null, () -> "ok"));
+                assertEquals(PubConstants.ERROR_CIRCUIT_OPEN, e.getCode());
+            });
+        } finally {
+            context.cancel(null);
+        }
+        assertEquals(CircuitState.OPEN, registry.snapshot().get(BREAKER).get("state"));
+    }
+
+    @Test
+    void timeoutsUnderClientDeadlineAreNotCounted() {
+        Context.CancellableContext context = deadlineManager.open("/elearn/course/query", "1000");
+        try {
+            context.run(() -> {
+                for (int i = 0; i < 5; i++) {
+                    invokeFailing(Status.DEADLINE_EXCEEDED);
+                }
+            });
+        } finally {
+            context.cancel(null);
+        }
+        assertEquals(CircuitState.CLOSED, registry.snapshot().get(BREAKER).get("state"));
+        assertEquals(0, registry.snapshot().get(BREAKER).get("bufferedCalls"));
+    }
+
+    @Test
+    void timeoutsAfterRequestDeadlineExpiredAreNotCounted() {
+        Context.CancellableContext context = Context.current()
+                .withDeadline(Deadline.after(0, TimeUnit.MILLISECONDS), scheduler);
+        try {
+            context.run(() -> {
+                for (int i = 0; i < 5; i++) {
+                    invokeFailing(Status.DEADLINE_EXCEEDED);
+                }
+            });
+        } finally {
+            context.cancel(null);
+        }
+        assertEquals(CircuitState.CLOSED, registry.snapshot().get(BREAKER).get("state"));
+    }
+
+    @Test
+    void unavailableUnderClientDeadlineIsCounted() {
+        Context.CancellableContext context = deadlineManager.open("/elearn/course/query", "1000");
+        try {
+            context.run(() -> {
+                invokeFailing(Status.UNAVAILABLE);
+                invokeFailing(Status.UNAVAILABLE);
+            });
+        } finally {
+            context.cancel(null);
+        }
+        assertEquals(CircuitState.OPEN, registry.snapshot().get(BREAKER).get("state"));
+    }
+
+    private void invokeFailing(Status status) {
+        assertThrows(StatusRuntimeException.class,
+                () -> registry.invoke(apiInfo, null, () -> {
+                    throw status.asRuntimeException();
+                }));
+    }
+}
@@ -0,0 +1,176 @@
+package com.changjiang.bff.core.breaker;
+
+import com.changjiang.bff.config.CircuitBreakerProperties;
+import com.changjiang.bff.enums.CircuitState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * CircuitBreaker状态转换
+ */
+class CircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private CircuitBreakerProperties properties;
+
+    private final List<String> transitions = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        properties = new CircuitBreakerProperties();
+        properties.setWindowSize(10);
+        properties.setMinimumCalls(4);
+        properties.setFailureRateThreshold(50);
+        properties.setSlowCallDurationMillis(100);
+        properties.setSlowCallRateThreshold(75);
+        properties.setWaitDurationInOpenMillis(0);
+        properties.setPermittedCallsInHalfOpen(2);
+    }
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 3; i++) {
+            call(breaker, FAST, true);
+        }
+        assertEquals(CircuitState.CLOSED, breaker.getState());
+        assertEquals(3, breaker.getBufferedCalls());
+        assertEquals(100f, breaker.getFailureRate());
+    }
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() {
+        CircuitBreaker breaker = breaker();
+        call(breaker, FAST, false);
+        call(breaker, FAST, false);
+        call(breaker, FAST, true);
+        assertEquals(CircuitState.CLOSED, breaker.getState());
+
+        call(breaker, FAST, true);
+
+        assertEquals(CircuitState.OPEN, breaker.getState());
+        assertEquals(Arrays.asList("CLOSED->OPEN"), transitions);
+        assertEquals(0, breaker.getBufferedCalls());
+    }
+
+    @Test
+    void opensWhenSlowCallRateReachesThreshold() {
+        CircuitBreaker breaker = breaker();
+        call(breaker, FAST, false);
+        call(breaker, SLOW, false);
+        call(breaker, SLOW, false);
+        assertEquals(CircuitState.CLOSED, breaker.getState());
+
+        call(breaker, SLOW, false);
+
+        assertEquals(CircuitState.OPEN, breaker.getState());
+    }
+
+    @Test
+    void rejectsWhileOpen() {
+        properties.setWaitDurationInOpenMillis(60_000);
+        CircuitBreaker breaker = breaker();
+        open(breaker);
+
+        assertNull(breaker.tryAcquire());
+        assertNull(breaker.tryAcquire());
+        assertEquals(2, breaker.getRejected());
+        assertEquals(CircuitState.OPEN, breaker.getState());
+    }
+
+    @Test
+    void halfOpenLimitsTrialCallsAndCloses() {
+        CircuitBreaker breaker = breaker();
+        open(breaker);
+
+        CircuitState first = breaker.tryAcquire();
+        CircuitState second = breaker.tryAcquire();
+        assertEquals(CircuitState.HALF_OPEN, first);
+        assertEquals(CircuitState.HALF_OPEN, second);
+        assertNull(breaker.tryAcquire());
+
+        breaker.onResult(first, FAST, false);
+        assertEquals(CircuitState.HALF_OPEN, breaker.getState());
+        breaker.onResult(second, FAST, false);
+
+        assertEquals(CircuitState.CLOSED, breaker.getState());
+        assertEquals(Arrays.asList("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED"), transitions);
+        assertEquals(0, breaker.getBufferedCalls());
+        assertEquals(CircuitState.CLOSED, breaker.tryAcquire());
+    }
+
+    @Test
+    void failedTrialCallsReopen() {
+        CircuitBreaker breaker = breaker();
+        open(breaker);
+
+        CircuitState first = breaker.tryAcquire();
+        CircuitState second = breaker.tryAcquire();
+        breaker.onResult(first, FAST, false);
+        breaker.onResult(second, FAST, true);
+
+        assertEquals(CircuitState.OPEN, breaker.getState());
+        assertEquals(Arrays.asList("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->OPEN"), transitions);
+    }
+
+    @Test
+    void ignoredTrialCallReturnsPermit() {
+        CircuitBreaker breaker = breaker();
+        open(breaker);
+
+        CircuitState first = breaker.tryAcquire();
+        CircuitState second = breaker.tryAcquire();
+        assertNull(breaker.tryAcquire());
+
+        breaker.onIgnore(first);
+        CircuitState retry = breaker.tryAcquire();
+        assertEquals(CircuitState.HALF_OPEN, retry);
+
+        breaker.onResult(second, FAST, false);
+        breaker.onResult(retry, FAST, false);
+        assertEquals(CircuitState.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void resultsFromClosedStateDoNotAffectHalfOpenTrials() {
+        CircuitBreaker breaker = breaker();
+        CircuitState stale = breaker.tryAcquire();
+        open(breaker);
+        CircuitState trial = breaker.tryAcquire();
+
+        breaker.onResult(stale, FAST, true);
+
+        assertEquals(CircuitState.HALF_OPEN, breaker.getState());
+        breaker.onResult(trial, FAST, false);
+        breaker.onResult(breaker.tryAcquire(), FAST, false);
+        assertEquals(CircuitState.CLOSED, breaker.getState());
+    }
+
+    private CircuitBreaker breaker() {
+        return new CircuitBreaker("test", properties,
+                (breaker, from, to) -> transitions.add(from + "->" + to));
+    }
+
+    private static void open(CircuitBreaker breaker) {
+        while (breaker.getState() == CircuitState.CLOSED) {
+            call(breaker, FAST, true);
+        }
+    }
+
+    private static void call(CircuitBreaker breaker, long durationNanos, boolean failure) {
+        CircuitState acquired = breaker.tryAcquire();
+        assertEquals(CircuitState.CLOSED, acquired);
+        breaker.onResult(acquired, durationNanos, failure);
+    }
+}
@@ -0,0 +1,298 @@
+package com.changjiang.bff.core.channel;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ConnectivityState;
+import io.grpc.Context;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.stub.AbstractStub;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LeastOutstandingChannel的连接选择、在途计数、对冲调用避开已使用的地址，以及GrpcChannelPoolManager把存根调用转到连接池
+ */
+class LeastOutstandingChannelTest {
+
+    private static final MethodDescriptor<String, String> METHOD = MethodDescriptor.<String, String>newBuilder()
+            .setType(MethodDescriptor.MethodType.UNARY)
+            .setFullMethodName("elearn.CourseService/Query")
+            .setRequestMarshaller(new StringMarshaller())
+            .setResponseMarshaller(new StringMarshaller())
+            .build();
+
+    @Test
+    void picksSubchannelWithFewestOutstandingCalls() {
+        PooledSubchannel busy = subchannel("10.0.0.1:8084", 0, 2);
+        PooledSubchannel idle = subchannel("10.0.0.1:8084", 1, 0);
+        PooledSubchannel loaded = subchannel("10.0.0.2:8084", 0, 1);
+        LeastOutstandingChannel pool = pool(busy, idle, loaded);
+
+        // 扫描从随机位置开始，多次选择结果不变
+        for (int i = 0; i < 20; i++) {
+            assertSame(idle, pool.pick());
+        }
+    }
+
+    @Test
+    void unusableSubchannelsAreSkipped() {
+        PooledSubchannel failing = subchannel("10.0.0.1:8084", 0, 0);
+        PooledSubchannel loaded = subchannel("10.0.0.2:8084", 0, 3);
+        ((FakeChannel) failing.getChannel()).state = ConnectivityState.TRANSIENT_FAILURE;
+        LeastOutstandingChannel pool = pool(failing, loaded);
+
+        for (int i = 0; i < 20; i++) {
+            assertSame(loaded, pool.pick());
+        }
+    }
+
+    @Test
+    void someSubchannelIsPickedWhenNoneIsUsable() {
+        PooledSubchannel first = subchannel("10.0.0.1:8084", 0, 0);
+        PooledSubchannel second = subchannel("10.0.0.2:8084", 0, 0);
+        ((FakeChannel) first.getChannel()).state = ConnectivityState.TRANSIENT_FAILURE;
+        ((FakeChannel) second.getChannel()).state = ConnectivityState.SHUTDOWN;
+        LeastOutstandingChannel pool = pool(first, second);
+
+        PooledSubchannel picked = pool.pick();
+        assertTrue(picked == first || picked == second);
+    }
+
+    @Test
+    void trackedRequestAvoidsEndpointAlreadyUsed() {
+        PooledSubchannel first = subchannel("10.0.0.1:8084", 0, 0);
+        PooledSubchannel sameEndpoint = subchannel("10.0.0.1:8084", 1, 0);
+        PooledSubchannel other = subchannel("10.0.0.2:8084", 0, 5);
+        LeastOutstandingChannel pool = pool(first, sameEndpoint, other);
+
+        for (int i = 0; i < 20; i++) {
+            RequestEndpoints.track(Context.ROOT).run(() -> {
+                assertEquals("10.0.0.1:8084", pool.pick().getEndpoint());
+                // 另一个地址在途请求更多，对冲调用仍然选择它
+                assertSame(other, pool.pick());
+            });
+            assertNotEquals(other, pool.pick());
+        }
+    }
+
+    @Test
+    void usedEndpointIsPickedWhenNoOtherIsUsable() {
+        PooledSubchannel used = subchannel("10.0.0.1:8084", 0, 0);
+        PooledSubchannel failing = subchannel("10.0.0.2:8084", 0, 0);
+        ((FakeChannel) failing.getChannel()).state = ConnectivityState.TRANSIENT_FAILURE;
+        LeastOutstandingChannel pool = pool(used, failing);
+
+        RequestEndpoints.track(Context.ROOT).run(() -> {
+            assertSame(used, pool.pick());
+            assertSame(used, pool.pick());
+        });
+    }
+
+    @Test
+    void callIsCountedFromStartToClose() {
+        PooledSubchannel subchannel = subchannel("10.0.0.1:8084", 0, 0);
+        FakeChannel channel = (FakeChannel) subchannel.getChannel();
+        LeastOutstandingChannel pool = pool(subchannel);
+
+        ClientCall<String, String> call = pool.newCall(METHOD, CallOptions.DEFAULT);
+        assertEquals(0, subchannel.getOutstanding());
+        call.start(new ClientCall.Listener<String>() {
+        }, new Metadata());
+        assertEquals(1, subchannel.getOutstanding());
+
+        channel.calls.get(0).listener.onClose(Status.OK, new Metadata());
+
+        assertEquals(0, subchannel.getOutstanding());
+    }
+
+    @Test
+    void emptyPoolFailsCallWithUnavailable() {
+        LeastOutstandingChannel pool = pool();
+        AtomicReference<Status> closed = new AtomicReference<>();
+
+        pool.newCall(METHOD, CallOptions.DEFAULT).start(new ClientCall.Listener<String>() {
+            @Override
+            public void onClose(Status status, Metadata trailers) {
+                closed.set(status);
+            }
+        }, new Metadata());
+
+        assertEquals(Status.Code.UNAVAILABLE, closed.get().getCode());
+    }
+
+    @Test
+    void endpointCountIgnoresChannelsPerEndpoint() {
+        assertEquals(0, pool().getEndpointCount());
+        assertEquals(1, pool(subchannel("10.0.0.1:8084", 0, 0), subchannel("10.0.0.1:8084", 1, 0)).getEndpointCount());
+        assertEquals(2, pool(subchannel("10.0.0.1:8084", 0, 0), subchannel("10.0.0.1:8084", 1, 0),
+                subchannel("10.0.0.2:8084", 0, 0)).getEndpointCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void routedStubCallsGoToPool() {
+        PooledSubchannel subchannel = subchannel("10.0.0.1:8084", 0, 0);
+        GrpcChannelPoolManager manager = new GrpcChannelPoolManager();
+        ((Map<String, LeastOutstandingChannel>) ReflectionTestUtils.getField(manager, "pools"))
+                .put("elearn", pool(subchannel));
+        FakeChannel factoryChannel = new FakeChannel();
+        CourseStub stub = new CourseStub(factoryChannel);
+
+        CourseStub routed = (CourseStub) manager.route("elearn", stub);
+        routed.getChannel().newCall(METHOD, CallOptions.DEFAULT).start(new ClientCall.Listener<String>() {
+        }, new Metadata());
+
+        assertEquals(0, factoryChannel.calls.size());
+        assertEquals(1, ((FakeChannel) subchannel.getChannel()).calls.size());
+        assertEquals(1, subchannel.getOutstanding());
+        assertSame(stub, manager.route("order", stub));
+        assertSame("not a stub", manager.route("elearn", "not a stub"));
+    }
+
+    private static LeastOutstandingChannel pool(PooledSubchannel... subchannels) {
+        LeastOutstandingChannel pool = new LeastOutstandingChannel("elearn");
+        pool.setSubchannels(Arrays.asList(subchannels));
+        return pool;
+    }
+
+    private static PooledSubchannel subchannel(String endpoint, int index, int outstanding) {
+        PooledSubchannel subchannel = new PooledSubchannel(endpoint, index, new FakeChannel());
+        for (int i = 0; i < outstanding; i++) {
+            subchannel.acquire();
+        }
+        return subchannel;
+    }
+
+    /**
+     * 记录调用的连接，状态由测试设置
+     */
+    private static final class FakeChannel extends ManagedChannel {
+
+        private volatile ConnectivityState state = ConnectivityState.READY;
+
+        private final List<RecordingCall<?, ?>> calls = new ArrayList<>();
+
+        @Override
+        public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions) {
+            RecordingCall<ReqT, RespT> call = new RecordingCall<>();
+            calls.add(call);
+            return call;
+        }
+
+        @Override
+        public String authority() {
+            return "fake";
+        }
+
+        @Override
+        public ConnectivityState getState(boolean requestConnection) {
+            return state;
+        }
+
+        @Override
+        public ManagedChannel shutdown() {
+            state = ConnectivityState.SHUTDOWN;
+            return this;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return state == ConnectivityState.SHUTDOWN;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return isShutdown();
+        }
+
+        @Override
+        public ManagedChannel shutdownNow() {
+            return shutdown();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return isTerminated();
+        }
+    }
+
+    private static final class RecordingCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+
+        private Listener<RespT> listener;
+
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+            this.listener = responseListener;
+        }
+
+        @Override
+        public void request(int numMessages) {
+        }
+
+        @Override
+        public void cancel(String message, Throwable cause) {
+        }
+
+        @Override
+        public void halfClose() {
+        }
+
+        @Override
+        public void sendMessage(ReqT message) {
+        }
+    }
+
+    private static final class CourseStub extends AbstractStub<CourseStub> {
+
+        CourseStub(Channel channel) {
+            super(channel);
+        }
+
+        CourseStub(Channel channel, CallOptions callOptions) {
+            super(channel, callOptions);
+        }
+
+        @Override
+        protected CourseStub build(Channel channel, CallOptions callOptions) {
+            return new CourseStub(channel, callOptions);
+        }
+    }
+
+    private static final class StringMarshaller implements MethodDescriptor.Marshaller<String> {
+
+        @Override
+        public InputStream stream(String value) {
+            return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String parse(InputStream stream) {
+            try {
+                return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
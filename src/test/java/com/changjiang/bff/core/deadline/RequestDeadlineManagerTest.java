@@ -0,0 +1,142 @@
+package com.changjiang.bff.core.deadline;
+
+import com.changjiang.bff.config.DeadlineProperties;
+import com.changjiang.bff.constants.PubConstants;
+import com.changjiang.bff.core.ApiScanCompletedEvent;
+import com.changjiang.bff.core.ServiceApiInfo;
+import com.changjiang.bff.exception.ServiceException;
+import io.grpc.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RequestDeadlineManager截止时间计算
+ */
+class RequestDeadlineManagerTest {
+
+    private static final String REPORT = "/elearn/report/export";
+
+    private static final String COURSE = "/elearn/course/query";
+
+    /** 计算截止时间到读取剩余时间之间允许的误差(毫秒) */
+    private static final long TOLERANCE = 200;
+
+    private final DeadlineProperties properties = new DeadlineProperties();
+
+    private RequestDeadlineManager manager;
+
+    @BeforeEach
+    void setUp() {
+        properties.setDefaultTimeoutMillis(30000);
+        properties.setMinTimeoutMillis(500);
+        properties.setMaxTimeoutMillis(60000);
+        properties.getRouteTimeouts().put("/elearn/report/**", 45000L);
+        manager = new RequestDeadlineManager();
+        ReflectionTestUtils.setField(manager, "deadlineProperties", properties);
+        manager.init();
+        Map<String, ServiceApiInfo> registry = new LinkedHashMap<>();
+        registry.put(REPORT, ServiceApiInfo.builder().url(REPORT).build());
+        registry.put(COURSE, ServiceApiInfo.builder().url(COURSE).build());
+        manager.onApiScanCompleted(new ApiScanCompletedEvent(this, registry));
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.destroy();
+    }
+
+    @Test
+    void defaultTimeoutIsUsedWithoutHeader() {
+        assertRemaining(30000, COURSE, null);
+        assertRemaining(30000, COURSE, " ");
+    }
+
+    @Test
+    void routeTimeoutOverridesDefault() {
+        assertRemaining(45000, REPORT, null);
+    }
+
+    @Test
+    void headerOverridesRouteTimeout() {
+        assertRemaining(2000, REPORT, "2000");
+        assertRemaining(2000, COURSE, " 2000 ");
+    }
+
+    @Test
+    void invalidOrNonPositiveHeaderFallsBackToRouteTimeout() {
+        assertRemaining(45000, REPORT, "abc");
+        assertRemaining(45000, REPORT, "0");
+        assertRemaining(45000, REPORT, "-100");
+    }
+
+    @Test
+    void headerIsClampedToMinAndMax() {
+        assertRemaining(500, COURSE, "5");
+        assertRemaining(500, COURSE, "500");
+        assertRemaining(60000, COURSE, "600000");
+    }
+
+    @Test
+    void ensureRemainingFailsOnceRequestIsCancelled() throws Exception {
+        Context.CancellableContext context = manager.open(COURSE, "1000");
+        context.run(() -> assertDoesNotThrow(manager::ensureRemaining));
+
+        context.cancel(null);
+
+        context.run(() -> {
+            ServiceException e = assertThrows(ServiceException.class, manager::ensureRemaining);
+            assertEquals(PubConstants.ERROR_DEADLINE_EXCEEDED, e.getCode());
+        });
+    }
+
+    @Test
+    void callUsesEarlierOfCallTimeoutAndRequestDeadline() throws Exception {
+        Context.CancellableContext context = manager.open(COURSE, "1000");
+        try {
+            long remaining = context.call(() -> manager.callWithin(5000, manager::remainingMillis));
+            assertTrue(remaining <= 1000 && remaining > 1000 - TOLERANCE, "remaining " + remaining);
+
+            remaining = context.call(() -> manager.callWithin(600, manager::remainingMillis));
+            assertTrue(remaining <= 600 && remaining > 600 - TOLERANCE, "remaining " + remaining);
+        } finally {
+            context.cancel(null);
+        }
+    }
+
+    @Test
+    void clientDeadlineIsMarkedOnContext() {
+        Context.CancellableContext client = manager.open(COURSE, "2000");
+        Context.CancellableContext route = manager.open(COURSE, "abc");
+        try {
+            assertTrue(RequestDeadlineManager.isCallerDeadline(client));
+            assertFalse(RequestDeadlineManager.isCallerDeadline(route));
+            assertFalse(RequestDeadlineManager.isCallerDeadline(Context.ROOT));
+        } finally {
+            client.cancel(null);
+            route.cancel(null);
+        }
+    }
+
+    private void assertRemaining(long expectedMillis, String route, String header) {
+        Context.CancellableContext context = manager.open(route, header);
+        try {
+            long remaining = context.getDeadline().timeRemaining(TimeUnit.MILLISECONDS);
+            assertTrue(remaining <= expectedMillis && remaining > expectedMillis - TOLERANCE,
+                    "expected about " + expectedMillis + "ms for header " + header + " but was " + remaining);
+        } finally {
+            context.cancel(null);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.changjiang.bff.core.hedge;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * HedgeBudget的额度积累和消耗
+ */
+class HedgeBudgetTest {
+
+    @Test
+    void startsFullAndAcquiresWholeTokens() {
+        HedgeBudget budget = new HedgeBudget(0.1, 2);
+
+        assertEquals(2.0, budget.available());
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+        assertEquals(0.0, budget.available());
+    }
+
+    @Test
+    void depositsRefillOneTokenPerTenRequests() {
+        HedgeBudget budget = new HedgeBudget(0.1, 1);
+        assertTrue(budget.tryAcquire());
+
+        for (int i = 0; i < 9; i++) {
+            budget.deposit();
+            assertFalse(budget.tryAcquire());
+        }
+        budget.deposit();
+
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+    }
+
+    @Test
+    void depositsAreCappedAtMaxTokens() {
+        HedgeBudget budget = new HedgeBudget(0.5, 3);
+        assertTrue(budget.tryAcquire());
+
+        for (int i = 0; i < 100; i++) {
+            budget.deposit();
+        }
+
+        assertEquals(3.0, budget.available());
+    }
+
+    @Test
+    void zeroRatioNeverRefills() {
+        HedgeBudget budget = new HedgeBudget(0, 1);
+        assertTrue(budget.tryAcquire());
+
+        for (int i = 0; i < 100; i++) {
+            budget.deposit();
+        }
+
+        assertFalse(budget.tryAcquire());
+    }
+
+    @Test
+    void maxTokensIsAtLeastOne() {
+        HedgeBudget budget = new HedgeBudget(0.1, 0);
+
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+    }
+}
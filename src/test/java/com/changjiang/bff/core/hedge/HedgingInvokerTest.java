@@ -0,0 +1,174 @@
+package com.changjiang.bff.core.hedge;
+
+import com.changjiang.bff.config.HedgingProperties;
+import com.changjiang.bff.core.ServiceApiInfo;
+import com.changjiang.bff.core.channel.GrpcChannelPoolManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * HedgingInvoker的对冲触发、取消落后的调用和对冲条件
+ */
+class HedgingInvokerTest {
+
+    private static final String REGISTRY_ID = "elearn";
+
+    /** 对冲延迟固定为该值(毫秒) */
+    private static final long HEDGE_DELAY_MILLIS = 20;
+
+    private final HedgingProperties properties = new HedgingProperties();
+
+    private final ServiceApiInfo course = ServiceApiInfo.builder()
+            .url("/elearn/course/query").registryId(REGISTRY_ID).build();
+
+    private volatile int endpoints = 2;
+
+    private HedgingInvoker invoker;
+
+    @BeforeEach
+    void setUp() {
+        properties.setIdempotentRoutes(Collections.singletonList("/elearn/course/**"));
+        properties.setMinSamples(1);
+        properties.setMinDelayMillis(HEDGE_DELAY_MILLIS);
+        properties.setMaxDelayMillis(HEDGE_DELAY_MILLIS);
+        invoker = new HedgingInvoker();
+        ReflectionTestUtils.setField(invoker, "hedgingProperties", properties);
+        ReflectionTestUtils.setField(invoker, "channelPoolManager", new GrpcChannelPoolManager() {
+            @Override
+            public int getEndpointCount(String registryId) {
+                return endpoints;
+            }
+        });
+        invoker.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        invoker.destroy();
+    }
+
+    @Test
+    void slowPrimaryIsCancelledWhenHedgeWins() throws Exception {
+        warmUp();
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch primaryCancelled = new CountDownLatch(1);
+
+        Object result = invoker.invoke(course, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                return sleepUntilCancelled(primaryCancelled, "primary");
+            }
+            return "hedge";
+        });
+
+        assertEquals("hedge", result);
+        assertTrue(primaryCancelled.await(5, TimeUnit.SECONDS), "primary was not cancelled");
+        assertEquals(1L, registry().get("hedged"));
+        assertEquals(1L, registry().get("hedgeWon"));
+    }
+
+    @Test
+    void hedgeIsCancelledWhenPrimaryWins() throws Exception {
+        warmUp();
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch hedgeStarted = new CountDownLatch(1);
+        CountDownLatch hedgeCancelled = new CountDownLatch(1);
+
+        Object result = invoker.invoke(course, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                assertTrue(hedgeStarted.await(5, TimeUnit.SECONDS));
+                return "primary";
+            }
+            hedgeStarted.countDown();
+            return sleepUntilCancelled(hedgeCancelled, "hedge");
+        });
+
+        assertEquals("primary", result);
+        assertTrue(hedgeCancelled.await(5, TimeUnit.SECONDS), "hedge was not cancelled");
+        assertEquals(1L, registry().get("hedged"));
+        assertEquals(0L, registry().get("hedgeWon"));
+    }
+
+    @Test
+    void singleEndpointRegistryIsNotHedged() throws Exception {
+        endpoints = 1;
+        warmUp();
+        AtomicInteger attempts = new AtomicInteger();
+        Thread caller = Thread.currentThread();
+
+        Object result = invoker.invoke(course, () -> {
+            attempts.incrementAndGet();
+            assertSame(caller, Thread.currentThread());
+            Thread.sleep(HEDGE_DELAY_MILLIS * 3);
+            return "primary";
+        });
+
+        assertEquals("primary", result);
+        assertEquals(1, attempts.get());
+        assertEquals(0L, registry().get("hedged"));
+    }
+
+    @Test
+    void exhaustedBudgetSkipsHedge() throws Exception {
+        properties.setBudgetRatio(0);
+        properties.setBudgetMaxTokens(1);
+        warmUp();
+        AtomicInteger attempts = new AtomicInteger();
+
+        invoker.invoke(course, () -> attempts.incrementAndGet() == 1 ? slow("primary") : "hedge");
+        attempts.set(0);
+        Object result = invoker.invoke(course, () -> attempts.incrementAndGet() == 1 ? slow("primary") : "hedge");
+
+        assertEquals("primary", result);
+        assertEquals(1, attempts.get());
+        assertEquals(1L, registry().get("hedged"));
+        assertEquals(1L, registry().get("budgetExhausted"));
+    }
+
+    @Test
+    void nonIdempotentRouteRunsOnCallerThread() throws Exception {
+        ServiceApiInfo submit = ServiceApiInfo.builder().url("/elearn/order/submit").registryId(REGISTRY_ID).build();
+        Thread caller = Thread.currentThread();
+
+        Object result = invoker.invoke(submit, () -> Thread.currentThread());
+
+        assertSame(caller, result);
+    }
+
+    /**
+     * 积累一个延迟样本，之后的调用在对冲延迟后触发对冲
+     */
+    private void warmUp() throws Exception {
+        invoker.invoke(course, () -> "warm");
+    }
+
+    private static Object slow(String value) throws InterruptedException {
+        Thread.sleep(HEDGE_DELAY_MILLIS * 3);
+        return value;
+    }
+
+    private static Object sleepUntilCancelled(CountDownLatch cancelled, String value) throws InterruptedException {
+        try {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+            return value;
+        } catch (InterruptedException e) {
+            cancelled.countDown();
+            throw e;
+        }
+    }
+
+    private Map<String, Object> registry() {
+        return invoker.snapshot().get(REGISTRY_ID);
+    }
+}
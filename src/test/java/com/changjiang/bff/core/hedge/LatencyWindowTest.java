@@ -0,0 +1,79 @@
+package com.changjiang.bff.core.hedge;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LatencyWindow的分桶和分位数估算
+ */
+class LatencyWindowTest {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    @Test
+    void p95IsWithinBucketError() {
+        LatencyWindow window = new LatencyWindow(WINDOW_NANOS);
+        for (int i = 1; i <= 100; i++) {
+            window.record(i * 1000L);
+        }
+
+        long p95 = window.quantile(0.95, 20);
+
+        // 分位数取所在桶的上界，不低于真实值，误差不超过25%
+        assertTrue(p95 >= 95000 && p95 <= 95000 * 5 / 4, "p95 " + p95);
+    }
+
+    @Test
+    void quantileFollowsSlowTail() {
+        LatencyWindow window = new LatencyWindow(WINDOW_NANOS);
+        for (int i = 0; i < 90; i++) {
+            window.record(2000);
+        }
+        for (int i = 0; i < 10; i++) {
+            window.record(300000);
+        }
+
+        assertTrue(window.quantile(0.5, 20) <= 2500);
+        assertTrue(window.quantile(0.95, 20) >= 300000);
+    }
+
+    @Test
+    void tooFewSamplesDisableQuantile() {
+        LatencyWindow window = new LatencyWindow(WINDOW_NANOS);
+        assertEquals(-1, window.quantile(0.95, 1));
+
+        for (int i = 0; i < 19; i++) {
+            window.record(1000);
+        }
+        assertEquals(-1, window.quantile(0.95, 20));
+
+        window.record(1000);
+        assertTrue(window.quantile(0.95, 20) > 0);
+    }
+
+    @Test
+    void expiredWindowsAreDropped() throws InterruptedException {
+        LatencyWindow window = new LatencyWindow(TimeUnit.MILLISECONDS.toNanos(10));
+        for (int i = 0; i < 20; i++) {
+            window.record(1000);
+        }
+
+        // 超过两个窗口后当前窗口和上一个窗口都已过期
+        Thread.sleep(25);
+
+        assertEquals(-1, window.quantile(0.95, 1));
+    }
+
+    @Test
+    void upperBoundCoversEveryValueInBucket() {
+        for (long micros = 0; micros < 1_000_000; micros += 7) {
+            long upper = LatencyWindow.upperBound(LatencyWindow.bucketOf(micros));
+            assertTrue(upper > micros && upper <= Math.max(micros * 5 / 4, micros + 1),
+                    "micros " + micros + " upper " + upper);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.changjiang.bff.core.limit;
+
+import com.changjiang.bff.config.ConcurrencyLimitProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * GradientConcurrencyLimit许可控制与上限调整
+ * 采样窗口设为0，每次结果都结算一次窗口
+ */
+class GradientConcurrencyLimitTest {
+
+    private static final long FAST_RTT = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long SLOW_RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private ConcurrencyLimitProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(10);
+        properties.setMinLimit(2);
+        properties.setMaxLimit(20);
+        properties.setSampleWindowMillis(0);
+        properties.setMinWindowSamples(1);
+    }
+
+    @Test
+    void permitsAreLimitedAndReleased() {
+        properties.setInitialLimit(3);
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(properties);
+
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertEquals(3, limit.getInflight());
+        assertEquals(1, limit.getRejected());
+
+        limit.onIgnore();
+        assertEquals(2, limit.getInflight());
+        assertTrue(limit.tryAcquire());
+        assertEquals(3, limit.getLimit());
+    }
+
+    @Test
+    void ignoredResultsDoNotAdjustLimit() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(properties);
+        for (int i = 0; i < 20; i++) {
+            fill(limit);
+            releaseAll(limit, -1);
+        }
+        assertEquals(10, limit.getLimit());
+        assertEquals(0, limit.getInflight());
+    }
+
+    @Test
+    void droppedResultsBackOffToMinLimit() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(properties);
+
+        assertTrue(limit.tryAcquire());
+        limit.onDropped();
+        assertEquals(9, limit.getLimit());
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.onDropped();
+        }
+        assertEquals(2, limit.getLimit());
+        assertEquals(0, limit.getInflight());
+    }
+
+    @Test
+    void stableRttGrowsLimitUpToMaxLimit() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(properties);
+
+        fill(limit);
+        releaseAll(limit, FAST_RTT);
+        assertTrue(limit.getLimit() > 10, "limit " + limit.getLimit());
+
+        for (int i = 0; i < 100; i++) {
+            fill(limit);
+            releaseAll(limit, FAST_RTT);
+        }
+        assertEquals(20, limit.getLimit());
+        assertEquals(1, limit.getLongRttMillis(), 0.01);
+    }
+
+    @Test
+    void lowUtilizationDoesNotGrowLimit() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(properties);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.onSuccess(FAST_RTT);
+        }
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    void risingRttShrinksLimit() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(properties);
+        for (int i = 0; i < 5; i++) {
+            fill(limit);
+            releaseAll(limit, FAST_RTT);
+        }
+        int before = limit.getLimit();
+
+        fill(limit);
+        releaseAll(limit, SLOW_RTT);
+
+        assertTrue(limit.getLimit() < before, before + " -> " + limit.getLimit());
+    }
+
+    /**
+     * 获取许可直到达到上限
+     */
+    private static void fill(GradientConcurrencyLimit limit) {
+        while (limit.tryAcquire()) {
+            // 获取到上限为止
+        }
+    }
+
+    /**
+     * 释放全部许可，rttNanos小于0时按onIgnore释放
+     */
+    private static void releaseAll(GradientConcurrencyLimit limit, long rttNanos) {
+        while (limit.getInflight() > 0) {
+            if (rttNanos < 0) {
+                limit.onIgnore();
+            } else {
+                limit.onSuccess(rttNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.changjiang.bff.core.limit;
+
+import com.changjiang.bff.config.ConcurrencyLimitProperties;
+import com.changjiang.bff.config.DeadlineProperties;
+import com.changjiang.bff.core.ServiceApiInfo;
+import com.changjiang.bff.core.deadline.RequestDeadlineManager;
+import io.grpc.Context;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * RegistryConcurrencyLimiter对过载信号的判断
+ */
+class RegistryConcurrencyLimiterTest {
+
+    private static final String ROUTE = "/elearn/course/query";
+
+    private final ServiceApiInfo apiInfo = ServiceApiInfo.builder().url(ROUTE).registryId("elearn").build();
+
+    private RegistryConcurrencyLimiter limiter;
+
+    private RequestDeadlineManager deadlineManager;
+
+    @BeforeEach
+    void setUp() {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setEnabled(true);
+        properties.setInitialLimit(10);
+        properties.setMinLimit(2);
+        properties.setMaxLimit(20);
+        properties.setSampleWindowMillis(0);
+        properties.setMinWindowSamples(1);
+        limiter = new RegistryConcurrencyLimiter();
+        ReflectionTestUtils.setField(limiter, "limitProperties", properties);
+
+        deadlineManager = new RequestDeadlineManager();
+        ReflectionTestUtils.setField(deadlineManager, "deadlineProperties", new DeadlineProperties());
+        deadlineManager.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        deadlineManager.destroy();
+    }
+
+    @Test
+    void downstreamTimeoutsReduceLimit() {
+        runIn(deadlineManager.open(ROUTE, null), () -> invokeFailing(Status.DEADLINE_EXCEEDED));
+
+        assertEquals(9, limit());
+        assertEquals(0, snapshot().get("inflight"));
+    }
+
+    @Test
+    void timeoutsUnderClientDeadlineKeepLimit() {
+        runIn(deadlineManager.open(ROUTE, "1000"), () -> {
+            for (int i = 0; i < 5; i++) {
+                invokeFailing(Status.DEADLINE_EXCEEDED);
+            }
+        });
+
+        assertEquals(10, limit());
+        assertEquals(0, snapshot().get("inflight"));
+    }
+
+    @Test
+    void unavailableUnderClientDeadlineReducesLimit() {
+        runIn(deadlineManager.open(ROUTE, "1000"), () -> invokeFailing(Status.UNAVAILABLE));
+
+        assertEquals(9, limit());
+    }
+
+    @Test
+    void streamTimeoutUsesContextOfCall() throws Exception {
+        Context.CancellableContext context = deadlineManager.open(ROUTE, "1000");
+        Iterator<?> stream;
+        try {
+            stream = context.call(() -> (Iterator<?>) limiter.invoke(apiInfo, () -> failingStream(Status.DEADLINE_EXCEEDED)));
+        } finally {
+            context.cancel(null);
+        }
+
+        // 在Context之外读完流，模拟读取线程
+        assertEquals("a", stream.next());
+        assertThrows(StatusRuntimeException.class, stream::next);
+
+        assertEquals(10, limit());
+        assertEquals(0, snapshot().get("inflight"));
+    }
+
+    private void runIn(Context.CancellableContext context, Runnable runnable) {
+        try {
+            context.run(runnable);
+        } finally {
+            context.cancel(null);
+        }
+    }
+
+    private void invokeFailing(Status status) {
+        assertThrows(StatusRuntimeException.class, () -> limiter.invoke(apiInfo, () -> {
+            throw status.asRuntimeException();
+        }));
+    }
+
+    private static Iterator<String> failingStream(Status status) {
+        Iterator<String> rows = Arrays.asList("a").iterator();
+        return new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public String next() {
+                if (rows.hasNext()) {
+                    return rows.next();
+                }
+                throw status.asRuntimeException();
+            }
+        };
+    }
+
+    private Map<String, Object> snapshot() {
+        return limiter.snapshot().get("elearn");
+    }
+
+    private int limit() {
+        return (int) snapshot().get("limit");
+    }
+}
@@ -0,0 +1,194 @@
+package com.changjiang.bff.core.metrics;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.changjiang.bff.config.RouteStatsProperties;
+import com.changjiang.bff.constants.BasicConstants;
+import com.changjiang.bff.core.ApiScanCompletedEvent;
+import com.changjiang.bff.core.ServiceApiInfo;
+import com.changjiang.bff.core.metrics.RouteStatistics.RouteStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * RouteStatistics计数与窗口汇总
+ */
+class RouteStatisticsTest {
+
+    private static final String COURSE = "/elearn/course/query";
+
+    private static final String ORDER = "/order/list";
+
+    /** RouteStats.row()中各字段的下标 */
+    private static final int QPS = 2;
+    private static final int ERROR_RATE = 3;
+    private static final int IN_FLIGHT = 4;
+    private static final int P99 = 6;
+    private static final int LAST_ERROR_CODE = 8;
+    private static final int REQUESTS = 9;
+    private static final int ERRORS = 10;
+    private static final int BYTES_IN = 11;
+    private static final int BYTES_OUT = 12;
+    private static final int DOWNSTREAM_P99 = 13;
+
+    private RouteStatistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        RouteStatsProperties properties = new RouteStatsProperties();
+        // 窗口足够长，测试期间后台线程不会汇总
+        properties.setWindowMillis(TimeUnit.MINUTES.toMillis(10));
+        statistics = new RouteStatistics();
+        ReflectionTestUtils.setField(statistics, "statsProperties", properties);
+        statistics.init();
+        scan(COURSE, ORDER);
+    }
+
+    @AfterEach
+    void tearDown() {
+        statistics.destroy();
+    }
+
+    @Test
+    void unknownRouteIsNotTracked() {
+        assertNull(statistics.enter("/changjiang/unknown"));
+        assertNull(statistics.enter(COURSE));
+        statistics.exit(null, RequestTimeline.current(), 200);
+    }
+
+    @Test
+    void inFlightIsCountedUntilExit() {
+        RouteStats stats = statistics.enter("/changjiang" + COURSE);
+        assertEquals(1L, stats.row()[IN_FLIGHT]);
+
+        finish(stats, BasicConstants.TRADE_SUCCESS, 200);
+
+        assertEquals(0L, stats.row()[IN_FLIGHT]);
+        assertEquals(1L, stats.row()[REQUESTS]);
+    }
+
+    @Test
+    void rollComputesWindowRates() {
+        for (int i = 0; i < 3; i++) {
+            finish(statistics.enter("/changjiang" + COURSE), BasicConstants.TRADE_SUCCESS, 200);
+        }
+        RouteStats stats = statistics.enter("/changjiang" + COURSE);
+        finish(stats, "999503", 200);
+        statistics.recordTransfer(COURSE, 1000, 4000);
+
+        stats.roll(2.0);
+
+        Object[] row = stats.row();
+        assertEquals(2.0, row[QPS]);
+        assertEquals(0.25, row[ERROR_RATE]);
+        assertEquals("999503", row[LAST_ERROR_CODE]);
+        assertEquals(4L, row[REQUESTS]);
+        assertEquals(1L, row[ERRORS]);
+        assertEquals(500.0, row[BYTES_IN]);
+        assertEquals(2000.0, row[BYTES_OUT]);
+    }
+
+    @Test
+    void nextRollOnlyCountsNewRequests() {
+        RouteStats stats = statistics.enter("/changjiang" + COURSE);
+        finish(stats, "999999", 200);
+        statistics.recordDownstream(COURSE, TimeUnit.MILLISECONDS.toNanos(5));
+        stats.roll(1.0);
+
+        stats.roll(1.0);
+
+        Object[] row = stats.row();
+        assertEquals(0.0, row[QPS]);
+        assertEquals(0.0, row[ERROR_RATE]);
+        assertEquals(0.0, row[P99]);
+        assertEquals(0.0, row[DOWNSTREAM_P99]);
+        assertEquals(1L, row[REQUESTS]);
+        assertEquals("999999", row[LAST_ERROR_CODE]);
+    }
+
+    @Test
+    void httpStatusIsUsedWithoutResultCode() {
+        RouteStats stats = statistics.enter("/changjiang" + COURSE);
+        finish(stats, null, 500);
+        finish(statistics.enter("/changjiang" + COURSE), null, 200);
+
+        stats.roll(1.0);
+
+        assertEquals(0.5, stats.row()[ERROR_RATE]);
+        assertEquals("500", stats.row()[LAST_ERROR_CODE]);
+    }
+
+    @Test
+    void downstreamPercentileIsComputedPerWindow() {
+        for (int i = 1; i <= 100; i++) {
+            statistics.recordDownstream(COURSE, TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        RouteStats stats = statistics.enter("/changjiang" + COURSE);
+        finish(stats, BasicConstants.TRADE_SUCCESS, 200);
+
+        stats.roll(1.0);
+
+        assertEquals(99.0, (double) stats.row()[DOWNSTREAM_P99], 1.0);
+    }
+
+    @Test
+    void rescanKeepsExistingCounters() {
+        RouteStats stats = statistics.enter("/changjiang" + COURSE);
+        finish(stats, BasicConstants.TRADE_SUCCESS, 200);
+
+        scan(COURSE);
+
+        assertSame(stats, statistics.enter("/changjiang" + COURSE));
+        assertNull(statistics.enter("/changjiang" + ORDER));
+        assertEquals(1L, stats.row()[REQUESTS]);
+    }
+
+    @Test
+    void rollPublishesSortedSnapshot() {
+        finish(statistics.enter("/changjiang" + ORDER), BasicConstants.TRADE_SUCCESS, 200);
+        statistics.recordGcPause(TimeUnit.MILLISECONDS.toNanos(3));
+
+        ReflectionTestUtils.invokeMethod(statistics, "roll");
+
+        JSONObject snapshot = JSON.parseObject(statistics.snapshotBytes());
+        assertEquals(3.0, snapshot.getDoubleValue("gcPauseMs"));
+        assertEquals("route", snapshot.getJSONArray("fields").getString(0));
+        JSONArray rows = snapshot.getJSONArray("rows");
+        assertEquals(2, rows.size());
+        assertEquals(COURSE, rows.getJSONArray(0).getString(0));
+        assertEquals(ORDER, rows.getJSONArray(1).getString(0));
+        assertEquals("order", rows.getJSONArray(1).getString(1));
+        assertEquals(1L, rows.getJSONArray(1).getLongValue(REQUESTS));
+
+        List<Map<String, Object>> items = statistics.snapshot();
+        assertEquals(ORDER, items.get(1).get("route"));
+        assertEquals(1L, items.get(1).get("requests"));
+    }
+
+    private void scan(String... routes) {
+        Map<String, ServiceApiInfo> registry = new LinkedHashMap<>();
+        for (String route : routes) {
+            registry.put(route, ServiceApiInfo.builder().registryId(route.substring(1, route.indexOf('/', 1))).build());
+        }
+        statistics.onApiScanCompleted(new ApiScanCompletedEvent(this, registry));
+    }
+
+    private void finish(RouteStats stats, String resultCode, int status) {
+        RequestTimeline timeline = RequestTimeline.begin();
+        timeline.resultCode(resultCode);
+        timeline.end();
+        statistics.exit(stats, timeline, status);
+    }
+}
@@ -0,0 +1,173 @@
+package com.changjiang.bff.core.registry;
+
+import com.changjiang.bff.config.RegistryProbeProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RegistryPair的主备切换迟滞：失败阈值、连续次数、最小间隔和延迟倍数
+ */
+class RegistryPairTest {
+
+    /** 探测失败 */
+    private static final double FAIL = -1;
+
+    private final RegistryProbeProperties properties = new RegistryProbeProperties();
+
+    private RegistryPair pair;
+
+    /** 当前时间(秒)，每轮探测前进1秒 */
+    private long nowSeconds = 1000;
+
+    @BeforeEach
+    void setUp() {
+        properties.setFailureThreshold(3);
+        properties.setSwitchThreshold(3);
+        properties.setLatencyRatio(1.5);
+        properties.setMinSwitchIntervalSeconds(60);
+        pair = new RegistryPair(new RegistryProbe(null, "primary"), new RegistryProbe(null, "backup"));
+        round(10, 10);
+    }
+
+    @Test
+    void comparableLatencyNeverSwitches() {
+        for (int i = 0; i < 10; i++) {
+            assertFalse(round(12, 10));
+        }
+        assertFalse(pair.isBackupActive());
+        assertEquals(0, pair.getSwitchCount());
+    }
+
+    @Test
+    void failingPrimarySwitchesOnceFailureThresholdIsReached() {
+        assertFalse(round(FAIL, 10));
+        assertFalse(round(FAIL, 10));
+
+        assertTrue(round(FAIL, 10));
+        assertTrue(pair.isBackupActive());
+        assertEquals(1, pair.getSwitchCount());
+    }
+
+    @Test
+    void failingPrimaryStaysWhenBackupIsUnhealthy() {
+        for (int i = 0; i < 5; i++) {
+            assertFalse(round(FAIL, FAIL));
+        }
+        assertFalse(pair.isBackupActive());
+    }
+
+    @Test
+    void backupThatNeverAnsweredIsNotUsed() {
+        pair = new RegistryPair(new RegistryProbe(null, "primary"), new RegistryProbe(null, "backup"));
+        for (int i = 0; i < 5; i++) {
+            assertFalse(round(FAIL, FAIL));
+        }
+        assertFalse(pair.isBackupActive());
+    }
+
+    @Test
+    void slowPrimarySwitchesAfterSwitchThresholdRounds() {
+        assertFalse(round(20, 10));
+        assertFalse(round(20, 10));
+
+        assertTrue(round(20, 10));
+        assertTrue(pair.isBackupActive());
+    }
+
+    @Test
+    void interruptedStreakStartsOver() {
+        assertFalse(round(20, 10));
+        assertFalse(round(20, 10));
+        assertFalse(round(10, 10));
+        assertFalse(round(20, 10));
+        assertFalse(round(20, 10));
+
+        assertTrue(round(20, 10));
+    }
+
+    @Test
+    void latencyRatioFavoursPrimary() {
+        // 主注册中心慢40%，未超过1.5倍，不切到备份
+        for (int i = 0; i < 5; i++) {
+            assertFalse(round(14, 10));
+        }
+        switchToBackupBySlowPrimary();
+        nowSeconds += 60;
+
+        // 同样慢40%时已不算明显偏高，切回主注册中心
+        assertFalse(round(14, 10));
+        assertFalse(round(14, 10));
+        assertTrue(round(14, 10));
+        assertFalse(pair.isBackupActive());
+    }
+
+    @Test
+    void healthySwitchBackIsSuppressedWithinMinInterval() {
+        switchToBackupBySlowPrimary();
+
+        for (int i = 0; i < 10; i++) {
+            assertFalse(round(10, 10));
+        }
+        assertTrue(pair.isBackupActive());
+
+        // 连续次数已满足，到达最小间隔后立即切回
+        nowSeconds += 48;
+        assertFalse(round(10, 10));
+        assertTrue(round(10, 10));
+        assertFalse(pair.isBackupActive());
+        assertEquals(2, pair.getSwitchCount());
+    }
+
+    @Test
+    void firstSwitchIsNotDelayedByMinInterval() {
+        properties.setMinSwitchIntervalSeconds(TimeUnit.DAYS.toSeconds(1));
+
+        switchToBackupBySlowPrimary();
+
+        assertEquals(1, pair.getSwitchCount());
+    }
+
+    @Test
+    void failingBackupSwitchesBackWithinMinInterval() {
+        switchToBackupBySlowPrimary();
+
+        assertFalse(round(20, FAIL));
+        assertFalse(round(20, FAIL));
+        assertTrue(round(20, FAIL));
+        assertFalse(pair.isBackupActive());
+        assertEquals(2, pair.getSwitchCount());
+    }
+
+    private void switchToBackupBySlowPrimary() {
+        round(20, 10);
+        round(20, 10);
+        assertTrue(round(20, 10));
+        assertTrue(pair.isBackupActive());
+    }
+
+    /**
+     * 记录一轮主备探测结果后进行切换判断，ewma取本次延迟
+     *
+     * @return 本轮是否切换
+     */
+    private boolean round(double primaryLatency, double backupLatency) {
+        record(pair.getPrimary(), primaryLatency);
+        record(pair.getBackup(), backupLatency);
+        nowSeconds++;
+        return pair.evaluate(properties, TimeUnit.SECONDS.toNanos(nowSeconds));
+    }
+
+    private static void record(RegistryProbe probe, double latency) {
+        if (latency == FAIL) {
+            probe.recordFailure();
+        } else {
+            probe.recordSuccess(latency, 1.0);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.changjiang.bff.core.trace;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TraceContext的traceparent解析与生成
+ */
+class TraceContextTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    private static final String PARENT = "00f067aa0ba902b7";
+
+    @Test
+    void upstreamTraceIsContinued() {
+        TraceContext trace = TraceContext.fromTraceparent("00-" + TRACE_ID + "-" + PARENT + "-01");
+
+        assertNotNull(trace);
+        assertEquals(TRACE_ID, trace.getTraceId());
+        assertEquals(PARENT, TraceContext.spanIdHex(trace.getParentSpanId()));
+        assertTrue(trace.isSampled());
+    }
+
+    @Test
+    void sampledFlagIsReadFromLowestBit() {
+        assertFalse(TraceContext.fromTraceparent("00-" + TRACE_ID + "-" + PARENT + "-00").isSampled());
+        assertFalse(TraceContext.fromTraceparent("00-" + TRACE_ID + "-" + PARENT + "-02").isSampled());
+        assertTrue(TraceContext.fromTraceparent("00-" + TRACE_ID + "-" + PARENT + "-03").isSampled());
+    }
+
+    @Test
+    void malformedTraceparentIsRejected() {
+        assertNull(TraceContext.fromTraceparent(null));
+        assertNull(TraceContext.fromTraceparent(""));
+        assertNull(TraceContext.fromTraceparent("00-" + TRACE_ID + "-" + PARENT + "-1"));
+        assertNull(TraceContext.fromTraceparent("00_" + TRACE_ID + "-" + PARENT + "-01"));
+        assertNull(TraceContext.fromTraceparent("00-" + TRACE_ID + "_" + PARENT + "-01"));
+        assertNull(TraceContext.fromTraceparent("00-" + TRACE_ID + "-" + PARENT + "_01"));
+        assertNull(TraceContext.fromTraceparent("00-" + TRACE_ID.replace('a', 'x') + "-" + PARENT + "-01"));
+        assertNull(TraceContext.fromTraceparent("00-" + TRACE_ID + "-" + PARENT + "-zz"));
+    }
+
+    @Test
+    void zeroTraceIdOrParentIsRejected() {
+        assertNull(TraceContext.fromTraceparent("00-00000000000000000000000000000000-" + PARENT + "-01"));
+        assertNull(TraceContext.fromTraceparent("00-" + TRACE_ID + "-0000000000000000-01"));
+    }
+
+    @Test
+    void downstreamTraceparentUsesInvokeSpanAsParent() {
+        TraceContext trace = TraceContext.fromTraceparent("00-" + TRACE_ID + "-" + PARENT + "-01");
+
+        String downstream = trace.downstreamTraceparent();
+
+        assertEquals("00-" + TRACE_ID + "-" + TraceContext.spanIdHex(trace.getInvokeSpanId()) + "-01", downstream);
+        assertNotEquals(PARENT, downstream.substring(36, 52));
+        assertSame(downstream, trace.downstreamTraceparent());
+    }
+
+    @Test
+    void downstreamTraceparentCanBeParsedByNextHop() {
+        TraceContext trace = TraceContext.newTrace(false);
+
+        TraceContext next = TraceContext.fromTraceparent(trace.downstreamTraceparent());
+
+        assertNotNull(next);
+        assertEquals(trace.getTraceId(), next.getTraceId());
+        assertEquals(trace.getInvokeSpanId(), next.getParentSpanId());
+        assertFalse(next.isSampled());
+        assertNotEquals(trace.getRootSpanId(), trace.getInvokeSpanId());
+    }
+
+    @Test
+    void spanIdIsPaddedToSixteenHexDigits() {
+        assertEquals("0000000000000001", TraceContext.spanIdHex(1));
+        assertEquals("ffffffffffffffff", TraceContext.spanIdHex(-1));
+    }
+}
@@ -0,0 +1,153 @@
+package com.changjiang.bff.core.validation;
+
+import com.changjiang.bff.constants.PubConstants;
+import com.changjiang.bff.core.ParameterDescription;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ParameterRules规则解析与ParameterValidationChain校验
+ */
+class ParameterValidationChainTest {
+
+    @Test
+    void lengthRuleChecksBounds() {
+        ParameterRule rule = ParameterRules.parse("name", "length:2,4");
+        assertEquals("length", rule.getName());
+        assertNull(rule.check("name", "ab"));
+        assertNull(rule.check("name", "abcd"));
+        assertEquals("Parameter 'name' length must be between 2 and 4", rule.check("name", "a"));
+        assertEquals("Parameter 'name' length must be between 2 and 4", rule.check("name", "abcde"));
+    }
+
+    @Test
+    void lengthRuleWithoutMaxOnlyChecksMin() {
+        ParameterRule rule = ParameterRules.parse("name", "length:3");
+        assertNull(rule.check("name", "abcdefghij"));
+        assertEquals("Parameter 'name' length must be at least 3", rule.check("name", "ab"));
+    }
+
+    @Test
+    void rangeRuleAcceptsNumbersAndNumericText() {
+        ParameterRule rule = ParameterRules.parse("age", "range:0,150");
+        assertNull(rule.check("age", 0));
+        assertNull(rule.check("age", 150L));
+        assertNull(rule.check("age", " 18 "));
+        assertEquals("Parameter 'age' must be between 0 and 150", rule.check("age", 151));
+        assertEquals("Parameter 'age' must be between 0 and 150", rule.check("age", -0.5d));
+        assertEquals("Parameter 'age' must be a number", rule.check("age", "abc"));
+    }
+
+    @Test
+    void patternRuleMatchesWholeValueAndAllowsColons() {
+        ParameterRule rule = ParameterRules.parse("time", "pattern:\\d{2}:\\d{2}");
+        assertEquals("pattern", rule.getName());
+        assertNull(rule.check("time", "12:30"));
+        assertEquals("Parameter 'time' does not match required pattern", rule.check("time", "12:30:00"));
+    }
+
+    @Test
+    void malformedRulesAreRejectedWhenParsed() {
+        assertInvalid("length");
+        assertInvalid("length:");
+        assertInvalid("length:a,b");
+        assertInvalid("length:5,2");
+        assertInvalid("length:1,2,3");
+        assertInvalid("range:1");
+        assertInvalid("range:10,1");
+        assertInvalid("pattern:[a-");
+        assertInvalid("unknown:1");
+        assertInvalid(" ");
+    }
+
+    @Test
+    void emptyParametersCompileToEmptyChain() {
+        assertSame(ParameterValidationChain.EMPTY, ParameterValidationChain.compile(null));
+        assertSame(ParameterValidationChain.EMPTY, ParameterValidationChain.compile(Collections.emptyList()));
+        assertSame(ParameterValidationChain.EMPTY,
+                ParameterValidationChain.compile(Collections.singletonList(parameter("optional", false))));
+        assertTrue(ParameterValidationChain.EMPTY.isEmpty());
+    }
+
+    @Test
+    void missingRequiredParameterFails() {
+        ParameterValidationChain chain = ParameterValidationChain.compile(
+                Collections.singletonList(parameter("userId", true)));
+
+        ParameterValidationException e = assertThrows(ParameterValidationException.class,
+                () -> chain.validate(new HashMap<>()));
+        assertEquals("userId", e.getParameter());
+        assertEquals("required", e.getRule());
+        assertEquals(PubConstants.ERROR_PARAMETER_INVALID, e.getCode());
+        assertThrows(ParameterValidationException.class, () -> chain.validate(null));
+    }
+
+    @Test
+    void optionalParameterSkipsRulesWhenAbsent() {
+        ParameterValidationChain chain = ParameterValidationChain.compile(
+                Collections.singletonList(parameter("name", false, "length:2,4")));
+
+        assertDoesNotThrow(() -> chain.validate(new HashMap<>()));
+        assertThrows(ParameterValidationException.class, () -> chain.validate(params("name", "a")));
+    }
+
+    @Test
+    void firstFailingParameterAndRuleIsReported() {
+        ParameterValidationChain chain = ParameterValidationChain.compile(Arrays.asList(
+                parameter("name", true, "length:2,4"),
+                parameter("code", true, "length:1,10", "pattern:[A-Z]+")));
+
+        ParameterValidationException e = assertThrows(ParameterValidationException.class,
+                () -> chain.validate(params("name", "abc", "code", "abc")));
+        assertEquals("code", e.getParameter());
+        assertEquals("pattern", e.getRule());
+
+        e = assertThrows(ParameterValidationException.class,
+                () -> chain.validate(params("name", "a", "code", "abc")));
+        assertEquals("name", e.getParameter());
+        assertEquals("length", e.getRule());
+
+        assertDoesNotThrow(() -> chain.validate(params("name", "abc", "code", "ABC")));
+    }
+
+    @Test
+    void malformedRuleFailsCompilation() {
+        assertThrows(IllegalArgumentException.class, () -> ParameterValidationChain.compile(
+                Collections.singletonList(parameter("age", false, "range:1"))));
+    }
+
+    private static void assertInvalid(String validation) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ParameterRules.parse("param", validation));
+        assertTrue(e.getMessage().contains("'param'"), e.getMessage());
+    }
+
+    private static ParameterDescription parameter(String name, boolean required, String... validations) {
+        ParameterDescription parameter = new ParameterDescription();
+        parameter.setName(name);
+        parameter.setRequired(required);
+        parameter.setValidations(new ArrayList<>(Arrays.asList(validations)));
+        return parameter;
+    }
+
+    private static Map<String, Object> params(Object... keyValues) {
+        Map<String, Object> params = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            params.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return params;
+    }
+}
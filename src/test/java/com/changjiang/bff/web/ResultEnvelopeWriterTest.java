@@ -0,0 +1,153 @@
+package com.changjiang.bff.web;
+
+import com.changjiang.bff.config.ResponseWriterProperties;
+import com.changjiang.bff.constants.BasicConstants;
+import com.changjiang.bff.object.response.Result;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * ResultEnvelopeWriter与Spring Boot默认Jackson输出的一致性
+ */
+class ResultEnvelopeWriterTest {
+
+    /** 2023-11-14T22:13:20Z，毫秒为0 */
+    private static final long EPOCH_MILLIS = 1700000000000L;
+
+    private ResultEnvelopeWriter envelopeWriter;
+
+    /** 与Spring Boot的JacksonAutoConfiguration默认配置一致 */
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS,
+                    SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        envelopeWriter = new ResultEnvelopeWriter();
+        ReflectionTestUtils.setField(envelopeWriter, "writerProperties", new ResponseWriterProperties());
+        envelopeWriter.init();
+    }
+
+    @Test
+    void dateIsWrittenInUtcWithMillisAndOffset() throws Exception {
+        JsonNode written = encode(new Date(EPOCH_MILLIS));
+        assertEquals("2023-11-14T22:13:20.000+00:00", written.get("data").asText());
+        assertSameAsJackson(new Date(EPOCH_MILLIS));
+        assertSameAsJackson(new Date(EPOCH_MILLIS + 7));
+    }
+
+    @Test
+    void javaTimeTypesMatchJackson() throws Exception {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("localDateTime", LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+        data.put("localDateTimeMillis", LocalDateTime.of(2024, 1, 2, 3, 4, 5, 120_000_000));
+        data.put("localDateTimeMinute", LocalDateTime.of(2024, 1, 2, 3, 4));
+        data.put("localDate", LocalDate.of(2024, 1, 2));
+        data.put("localTime", LocalTime.of(3, 4, 5));
+        data.put("instant", Instant.ofEpochMilli(EPOCH_MILLIS));
+        data.put("offsetDateTime", OffsetDateTime.of(2024, 1, 2, 11, 4, 5, 0, ZoneOffset.ofHours(8)));
+        data.put("zonedDateTime", ZonedDateTime.of(2024, 1, 2, 11, 4, 5, 0, ZoneId.of("Asia/Shanghai")));
+        data.put("timestamp", new java.sql.Timestamp(EPOCH_MILLIS));
+        assertSameAsJackson(data);
+    }
+
+    @Test
+    void inheritedFieldsMatchJackson() throws Exception {
+        OrderDto order = new OrderDto();
+        order.setId(10L);
+        order.setCreateTime(new Date(EPOCH_MILLIS));
+        order.setName("订单");
+        order.setAmount(new BigDecimal("12.50"));
+        order.setUpdateTime(LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+        order.setTags(Arrays.asList("a", "b"));
+        assertSameAsJackson(order);
+        assertSameAsJackson(Arrays.asList(order, new OrderDto()));
+    }
+
+    @Test
+    void nullFieldsAndMapValuesMatchJackson() throws Exception {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("present", 1);
+        attributes.put("missing", null);
+        OrderDto order = new OrderDto();
+        order.setAttributes(attributes);
+        assertSameAsJackson(order);
+        assertSameAsJackson(attributes);
+    }
+
+    @Test
+    void numbersMatchJackson() throws Exception {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("bigDecimal", new BigDecimal("12.50"));
+        data.put("bigDecimalExponent", new BigDecimal("1E+3"));
+        data.put("long", Long.MAX_VALUE);
+        data.put("double", 0.1d);
+        assertSameAsJackson(data);
+    }
+
+    private void assertSameAsJackson(Object data) throws Exception {
+        Result<Object> result = new Result<>();
+        result.setCode(BasicConstants.TRADE_SUCCESS);
+        result.setData(data);
+        JsonNode expected = objectMapper.readTree(objectMapper.writeValueAsBytes(result));
+        assertEquals(expected, encode(data));
+    }
+
+    private JsonNode encode(Object data) throws Exception {
+        Result<Object> result = new Result<>();
+        result.setCode(BasicConstants.TRADE_SUCCESS);
+        result.setData(data);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        envelopeWriter.encode(result, buffer);
+        return objectMapper.readTree(buffer.toByteArray());
+    }
+
+    @Data
+    public static class BaseDto {
+
+        private Long id;
+
+        private Date createTime;
+    }
+
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    public static class OrderDto extends BaseDto {
+
+        private String name;
+
+        private BigDecimal amount;
+
+        private LocalDateTime updateTime;
+
+        private List<String> tags;
+
+        private Map<String, Object> attributes;
+    }
+}
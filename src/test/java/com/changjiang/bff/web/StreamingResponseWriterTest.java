@@ -0,0 +1,443 @@
+package com.changjiang.bff.web;
+
+import com.changjiang.bff.config.CircuitBreakerProperties;
+import com.changjiang.bff.config.ConcurrencyLimitProperties;
+import com.changjiang.bff.config.ResponseWriterProperties;
+import com.changjiang.bff.config.StreamingResponseProperties;
+import com.changjiang.bff.constants.BasicConstants;
+import com.changjiang.bff.constants.PubConstants;
+import com.changjiang.bff.core.ApiScanCompletedEvent;
+import com.changjiang.bff.core.ServiceApiInfo;
+import com.changjiang.bff.core.breaker.CircuitBreakerRegistry;
+import com.changjiang.bff.core.limit.RegistryConcurrencyLimiter;
+import com.changjiang.bff.core.stream.CompletionIterator;
+import com.changjiang.bff.exception.ServiceException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.grpc.Status;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * StreamingResponseWriter的响应格式、错误信息、读取线程上限和服务端流的完成回调
+ */
+class StreamingResponseWriterTest {
+
+    private static final String LIST = "/elearn/order/export";
+
+    private static final String STREAM = "/elearn/order/stream";
+
+    private static final String REGISTRY_ID = "elearn";
+
+    private static final String BREAKER = "registry:" + REGISTRY_ID;
+
+    private final StreamingResponseProperties properties = new StreamingResponseProperties();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ServiceApiInfo streamApi = ServiceApiInfo.builder()
+            .url(STREAM).registryId(REGISTRY_ID).responseType(Iterator.class).build();
+
+    private StreamingResponseWriter writer;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        properties.setRoutes(Collections.singletonList("/elearn/order/**"));
+        // 只在缓冲区满或结束时写出，写出时机与线程调度无关
+        properties.setFlushIntervalMillis(TimeUnit.MINUTES.toMillis(1));
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.destroy();
+        }
+        executor.shutdownNow();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void jsonArrayForZeroOneAndManyRows() throws Exception {
+        startWriter();
+        for (int count : new int[]{0, 1, 3}) {
+            MockHttpServletResponse response = bind(null);
+
+            assertTrue(writer.stream(LIST, rows(count)));
+
+            assertEquals("application/json;charset=UTF-8", response.getContentType());
+            JsonNode body = objectMapper.readTree(response.getContentAsString());
+            assertEquals(BasicConstants.TRADE_SUCCESS, body.get("code").asText());
+            assertTrue(body.get("msg").isNull());
+            assertRows(count, body.get("data"));
+            assertFalse(body.has("error"));
+        }
+    }
+
+    @Test
+    void ndjsonForZeroOneAndManyRows() throws Exception {
+        startWriter();
+        for (int count : new int[]{0, 1, 3}) {
+            MockHttpServletResponse response = bind(StreamingResponseWriter.NDJSON_MEDIA_TYPE);
+
+            assertTrue(writer.stream(LIST, rows(count)));
+
+            assertEquals(StreamingResponseWriter.NDJSON_MEDIA_TYPE + ";charset=UTF-8", response.getContentType());
+            List<JsonNode> lines = lines(response);
+            assertEquals(count + 1, lines.size());
+            for (int i = 0; i < count; i++) {
+                assertEquals(i, lines.get(i).get("id").asInt());
+            }
+            assertStatus(lines.get(count), BasicConstants.TRADE_SUCCESS, count);
+        }
+    }
+
+    @Test
+    void serverStreamIsWrittenInBothFormats() throws Exception {
+        startWriter();
+        MockHttpServletResponse array = bind(null);
+        assertTrue(writer.stream(STREAM, rows(3).iterator()));
+        assertRows(3, objectMapper.readTree(array.getContentAsString()).get("data"));
+
+        MockHttpServletResponse ndjson = bind(StreamingResponseWriter.NDJSON_MEDIA_TYPE);
+        assertTrue(writer.stream(STREAM, rows(3).iterator()));
+        assertStatus(lines(ndjson).get(3), BasicConstants.TRADE_SUCCESS, 3);
+    }
+
+    @Test
+    void errorBeforeFirstFlushIsWrittenAsPlainResult() throws Exception {
+        startWriter();
+        MockHttpServletResponse response = bind(null);
+
+        assertTrue(writer.stream(LIST, failingAfter(2, new ServiceException(PubConstants.ERROR_PARAMETER_INVALID, "bad row"))));
+
+        JsonNode body = objectMapper.readTree(response.getContentAsString());
+        assertEquals(PubConstants.ERROR_PARAMETER_INVALID, body.get("code").asText());
+        assertEquals("bad row", body.get("msg").asText());
+        assertTrue(body.get("data").isNull());
+        assertFalse(body.has("error"));
+    }
+
+    @Test
+    void errorAfterFirstFlushIsAppendedAfterWrittenRows() throws Exception {
+        properties.setFlushBytes(1);
+        startWriter();
+        MockHttpServletResponse response = bind(null);
+
+        assertTrue(writer.stream(LIST, failingAfter(2, new ServiceException(PubConstants.ERROR_PARAMETER_INVALID, "bad row"))));
+
+        JsonNode body = objectMapper.readTree(response.getContentAsString());
+        assertEquals(BasicConstants.TRADE_SUCCESS, body.get("code").asText());
+        assertRows(2, body.get("data"));
+        assertEquals(PubConstants.ERROR_PARAMETER_INVALID, body.get("error").get("code").asText());
+        assertEquals("bad row", body.get("error").get("msg").asText());
+    }
+
+    @Test
+    void ndjsonErrorIsWrittenAsStatusLine() throws Exception {
+        for (int flushBytes : new int[]{1, 32 * 1024}) {
+            properties.setFlushBytes(flushBytes);
+            startWriter();
+            MockHttpServletResponse response = bind(StreamingResponseWriter.NDJSON_MEDIA_TYPE);
+
+            assertTrue(writer.stream(LIST, failingAfter(2, new IllegalStateException("broken"))));
+
+            List<JsonNode> lines = lines(response);
+            assertEquals(3, lines.size());
+            assertEquals(PubConstants.ERROR_INVOKE_EXCEPTION, lines.get(2).get("code").asText());
+            assertEquals("broken", lines.get(2).get("msg").asText());
+            assertEquals(2, lines.get(2).get("rows").asInt());
+            writer.destroy();
+        }
+    }
+
+    @Test
+    void serverStreamIsRejectedWhenPullThreadsAreExhausted() throws Exception {
+        properties.setPullThreads(1);
+        startWriter();
+        CountDownLatch pulling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Boolean> first = executor.submit(() -> {
+            bind(null);
+            return writer.stream(STREAM, blockingStream(pulling, release));
+        });
+        assertTrue(pulling.await(5, TimeUnit.SECONDS), "first stream did not start");
+
+        MockHttpServletResponse response = bind(null);
+        AtomicReference<Boolean> completed = new AtomicReference<>();
+        CompletionIterator<Object> second = new CompletionIterator<>(rows(1).iterator(),
+                (done, error) -> completed.set(done));
+        ServiceException e = assertThrows(ServiceException.class, () -> writer.stream(STREAM, second));
+
+        assertEquals(PubConstants.ERROR_CONCURRENCY_LIMIT_EXCEEDED, e.getCode());
+        // 拒绝时尚未写出响应，调用方仍可返回普通的错误响应；被拒绝的流已关闭
+        assertFalse(response.isCommitted());
+        assertEquals("", response.getContentAsString());
+        assertEquals(Boolean.FALSE, completed.get());
+
+        release.countDown();
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void completedStreamReleasesPermitAndRecordsSuccess() throws Exception {
+        startWriter();
+        Downstream downstream = new Downstream();
+        MockHttpServletResponse response = bind(null);
+
+        assertTrue(writer.stream(STREAM, downstream.open(rows(3).iterator())));
+
+        assertRows(3, objectMapper.readTree(response.getContentAsString()).get("data"));
+        assertEquals(0, downstream.inflight());
+        assertEquals(1, downstream.breaker().get("bufferedCalls"));
+        assertEquals(0f, downstream.breaker().get("failureRate"));
+    }
+
+    @Test
+    void failedStreamReleasesPermitAndRecordsFailure() throws Exception {
+        startWriter();
+        Downstream downstream = new Downstream();
+        MockHttpServletResponse response = bind(StreamingResponseWriter.NDJSON_MEDIA_TYPE);
+
+        assertTrue(writer.stream(STREAM, downstream.open(
+                failingAfter(1, Status.UNAVAILABLE.asRuntimeException()).iterator())));
+
+        assertEquals(PubConstants.ERROR_INVOKE_EXCEPTION, lines(response).get(1).get("code").asText());
+        assertEquals(0, downstream.inflight());
+        assertEquals(1, downstream.breaker().get("bufferedCalls"));
+        assertEquals(100f, downstream.breaker().get("failureRate"));
+    }
+
+    @Test
+    void abandonedStreamReleasesPermitWithoutOutcome() throws Exception {
+        properties.setFlushBytes(1);
+        startWriter();
+        Downstream downstream = new Downstream();
+        bind(null, new DisconnectedResponse());
+
+        // 客户端断开后停止读取无限的后端流
+        assertTrue(writer.stream(STREAM, downstream.open(endless())));
+
+        assertEquals(0, downstream.inflight());
+        assertEquals(0, downstream.breaker().get("bufferedCalls"));
+    }
+
+    @Test
+    void drainedStreamReleasesPermitAndRecordsSuccess() throws Exception {
+        startWriter();
+        Downstream downstream = new Downstream();
+
+        Object drained = writer.drain(downstream.open(rows(2).iterator()));
+
+        assertEquals(rows(2), drained);
+        assertEquals(0, downstream.inflight());
+        assertEquals(1, downstream.breaker().get("bufferedCalls"));
+    }
+
+    private void startWriter() {
+        ResultEnvelopeWriter envelopeWriter = new ResultEnvelopeWriter();
+        ReflectionTestUtils.setField(envelopeWriter, "writerProperties", new ResponseWriterProperties());
+        envelopeWriter.init();
+        writer = new StreamingResponseWriter();
+        ReflectionTestUtils.setField(writer, "streamingProperties", properties);
+        ReflectionTestUtils.setField(writer, "envelopeWriter", envelopeWriter);
+        writer.init();
+        Map<String, ServiceApiInfo> registry = new LinkedHashMap<>();
+        registry.put(LIST, ServiceApiInfo.builder().url(LIST).responseType(List.class).build());
+        registry.put(STREAM, streamApi);
+        writer.onApiScanCompleted(new ApiScanCompletedEvent(this, registry));
+    }
+
+    private static MockHttpServletResponse bind(String accept) {
+        return bind(accept, new MockHttpServletResponse());
+    }
+
+    private static MockHttpServletResponse bind(String accept, MockHttpServletResponse response) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/changjiang" + LIST);
+        if (accept != null) {
+            request.addHeader("Accept", accept);
+        }
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        return response;
+    }
+
+    private static List<Object> rows(int count) {
+        List<Object> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", i);
+            row.put("name", "row-" + i);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * 读出count行后抛出异常的列表
+     */
+    private static Iterable<Object> failingAfter(int count, RuntimeException error) {
+        List<Object> rows = rows(count);
+        return () -> new Iterator<Object>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Object next() {
+                if (index < rows.size()) {
+                    return rows.get(index++);
+                }
+                throw error;
+            }
+        };
+    }
+
+    private static Iterator<Object> blockingStream(CountDownLatch pulling, CountDownLatch release) {
+        return new Iterator<Object>() {
+            @Override
+            public boolean hasNext() {
+                pulling.countDown();
+                try {
+                    return !release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+
+            @Override
+            public Object next() {
+                return rows(1).get(0);
+            }
+        };
+    }
+
+    private static Iterator<Object> endless() {
+        return new Iterator<Object>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Object next() {
+                return rows(1).get(0);
+            }
+        };
+    }
+
+    private List<JsonNode> lines(MockHttpServletResponse response) throws Exception {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : response.getContentAsString().split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(objectMapper.readTree(line));
+            }
+        }
+        return lines;
+    }
+
+    private static void assertRows(int count, JsonNode data) {
+        assertTrue(data.isArray());
+        assertEquals(count, data.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, data.get(i).get("id").asInt());
+            assertEquals("row-" + i, data.get(i).get("name").asText());
+        }
+    }
+
+    private static void assertStatus(JsonNode status, String code, int rows) {
+        assertEquals(code, status.get("code").asText());
+        assertTrue(status.get("msg").isNull());
+        assertEquals(rows, status.get("rows").asInt());
+    }
+
+    /**
+     * 经过熔断器和并发限制的下游调用，与MethodInvocationServiceIml的调用链一致
+     */
+    private final class Downstream {
+
+        private final RegistryConcurrencyLimiter limiter = new RegistryConcurrencyLimiter();
+
+        private final CircuitBreakerRegistry breakerRegistry = new CircuitBreakerRegistry();
+
+        Downstream() {
+            ConcurrencyLimitProperties limitProperties = new ConcurrencyLimitProperties();
+            limitProperties.setEnabled(true);
+            ReflectionTestUtils.setField(limiter, "limitProperties", limitProperties);
+            ReflectionTestUtils.setField(breakerRegistry, "breakerProperties", new CircuitBreakerProperties());
+            breakerRegistry.init();
+        }
+
+        Iterator<?> open(Iterator<Object> stream) throws Exception {
+            Object result = breakerRegistry.invoke(streamApi, null, () -> limiter.invoke(streamApi, () -> stream));
+            assertTrue(result instanceof CompletionIterator);
+            assertEquals(1, inflight());
+            return (Iterator<?>) result;
+        }
+
+        int inflight() {
+            return (int) limiter.snapshot().get(REGISTRY_ID).get("inflight");
+        }
+
+        Map<String, Object> breaker() {
+            return breakerRegistry.snapshot().get(BREAKER);
+        }
+    }
+
+    /**
+     * 客户端已断开，写出响应时失败
+     */
+    private static final class DisconnectedResponse extends MockHttpServletResponse {
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return new ServletOutputStream() {
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                }
+
+                @Override
+                public void write(int b) throws IOException {
+                    throw new IOException("Broken pipe");
+                }
+            };
+        }
+    }
+}